@@ -15,6 +15,31 @@ public class AppConstants {
      */
     public static final String PAGE_SIZE = "3";
 
+    /**
+     * Default page size of the borrowing history.
+     */
+    public static final String HISTORY_PAGE_SIZE = "20";
+
+    /**
+     * Maximum page size of the borrowing history, which bounds the loans held in memory per request.
+     */
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    /**
+     * Maximum number of books borrowed or returned in one batch, which bounds the books locked per request.
+     */
+    public static final int MAX_LOAN_BATCH_SIZE = 50;
+
+    /**
+     * Maximum number of book IDs in one lookup of search results, which bounds the IN list sent to the database.
+     */
+    public static final int MAX_SEARCH_ID_CHUNK = 1000;
+
+    /**
+     * Maximum number of authors counted in the facets of a search, the authors with the most books come first.
+     */
+    public static final int MAX_AUTHOR_FACETS = 20;
+
     /**
      * Default sorting criteria for categories (sorted by categoryId).
      */
@@ -0,0 +1,85 @@
+package com.librarymanagement.project.configs;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of the regions of the Hibernate second-level and query cache, held in Caffeine through JCache.
+ * Each application context gets its own cache manager, so contexts on different databases never share cached rows.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    /**
+     * Region of the cached query results, they are invalidated by any write to their tables.
+     */
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    /**
+     * Region of the last write time of each table, used to invalidate the query results.
+     */
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    /**
+     * Creates the cache manager with all regions Hibernate uses, bounded in size apart from the timestamps.
+     *
+     * @return the cache manager, closed with the application context.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        createRegion(cacheManager, "categories", 1_000, 0);
+        createRegion(cacheManager, "roles", 10, 0);
+        createRegion(cacheManager, "books", 20_000, TimeUnit.HOURS.toNanos(1));
+        createRegion(cacheManager, QUERY_RESULTS_REGION, 2_000, TimeUnit.MINUTES.toNanos(10));
+        // Timestamps must never be evicted, or stale query results would be served
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, 0, 0);
+        return cacheManager;
+    }
+
+    /**
+     * Hands the cache manager to Hibernate, which fails on start if it uses a region not created here.
+     *
+     * @param hibernateCacheManager the cache manager with the regions.
+     * @return the customizer adding the cache manager to the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * Creates a region with statistics enabled.
+     *
+     * @param cacheManager the cache manager to create the region in.
+     * @param name the name of the region.
+     * @param maximumSize the maximum number of entries, 0 for no bound.
+     * @param expireAfterWriteNanos the time after which an entry expires, 0 for no expiry.
+     */
+    private static void createRegion(CacheManager cacheManager, String name, long maximumSize, long expireAfterWriteNanos) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maximumSize > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        if (expireAfterWriteNanos > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWriteNanos));
+        }
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(name, configuration);
+    }
+}
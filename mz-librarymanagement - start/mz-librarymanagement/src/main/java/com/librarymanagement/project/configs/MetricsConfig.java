@@ -0,0 +1,25 @@
+package com.librarymanagement.project.configs;
+
+import com.librarymanagement.project.metrics.QueryCountInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the metrics that need wiring outside the metrics package.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Registers the statement counter with Hibernate, so the statements of each request can be counted.
+     *
+     * @param queryCountInspector the statement counter.
+     * @return the customizer adding the counter to the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer(QueryCountInspector queryCountInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCountInspector);
+    }
+}
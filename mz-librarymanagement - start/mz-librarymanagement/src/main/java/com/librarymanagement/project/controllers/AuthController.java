@@ -2,6 +2,7 @@ package com.librarymanagement.project.controllers;
 
 import com.librarymanagement.project.security.jwt.*;
 import com.librarymanagement.project.services.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,6 +24,9 @@ public class AuthController {
     @Autowired
     AuthService authService;
 
+    @Autowired
+    JwtUtils jwtUtils;
+
     /**
      * Endpoint for authenticating a user (signing in).
      *
@@ -62,4 +66,16 @@ public class AuthController {
         return new ResponseEntity<>(messageResponse, HttpStatus.CREATED);
     }
 
+    /**
+     * Endpoint for signing out, revoking the JWT token of the request.
+     *
+     * @param request the request carrying the JWT token in its "Authorization" header.
+     * @return a MessageResponse indicating the sign out was successful.
+     */
+    @PostMapping("/signout")
+    public ResponseEntity<MessageResponse> signoutUser(HttpServletRequest request) {
+        MessageResponse messageResponse = authService.signout(jwtUtils.getJwtFromHeader(request));
+        return new ResponseEntity<>(messageResponse, HttpStatus.OK);
+    }
+
 }
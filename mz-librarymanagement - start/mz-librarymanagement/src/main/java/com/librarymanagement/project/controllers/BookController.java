@@ -2,15 +2,29 @@ package com.librarymanagement.project.controllers;
 
 
 import com.librarymanagement.project.configs.AppConstants;
+import com.librarymanagement.project.models.BookAvailability;
 import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.BookFacetResponse;
+import com.librarymanagement.project.payloads.BookImportResponse;
 import com.librarymanagement.project.payloads.BookResponse;
+import com.librarymanagement.project.services.AvailabilityBroadcaster;
+import com.librarymanagement.project.services.BookImportService;
 import com.librarymanagement.project.services.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controller to handle book-related operations in the library management system.
@@ -23,6 +37,12 @@ public class BookController {
     @Autowired
     BookService bookService;
 
+    @Autowired
+    BookImportService bookImportService;
+
+    @Autowired
+    AvailabilityBroadcaster availabilityBroadcaster;
+
     /**
      * Adds a new book to a specific category.
      *
@@ -37,6 +57,37 @@ public class BookController {
         return new ResponseEntity<>(addedBook, HttpStatus.CREATED);
     }
 
+    /**
+     * Imports books from a CSV file, streamed from the request body.
+     * The first line is a header naming the columns, out of title, author, copiesTotal, description,
+     * categoryId and categoryName.
+     *
+     * @param body the CSV content.
+     * @return the number of imported books and the rows that failed.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/admin/books/import", consumes = "text/csv")
+    public ResponseEntity<BookImportResponse> importBooksCsv(InputStream body) throws IOException {
+        BookImportResponse response = bookImportService.importCsv(body);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Imports books from a JSON lines file, streamed from the request body.
+     * Each line holds one JSON object with the same fields as the CSV columns.
+     *
+     * @param body the JSON lines content.
+     * @return the number of imported books and the rows that failed.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/admin/books/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BookImportResponse> importBooksJsonLines(InputStream body) throws IOException {
+        BookImportResponse response = bookImportService.importJsonLines(body);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     /**
      * Retrieves all books with pagination and sorting options.
      *
@@ -44,6 +95,8 @@ public class BookController {
      * @param pageSize the number of books per page (default: 10).
      * @param sortBy the field by which the books should be sorted (default: "title").
      * @param sortOrder the sorting order, either ascending ("asc") or descending ("desc") (default: "asc").
+     * @param cursor the cursor of the next page in cursor pagination mode, empty for the first page.
+     *               When present, the page number is ignored and no total count is returned.
      * @return a response containing a list of books and pagination metadata.
      */
     @GetMapping("/public/books")
@@ -51,12 +104,59 @@ public class BookController {
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER) Integer pageNumber,
             @RequestParam(name = "pageSize",defaultValue = AppConstants.PAGE_SIZE) Integer pageSize,
             @RequestParam(name = "sortBy",defaultValue = AppConstants.SORT_BOOKS_BY) String sortBy,
-            @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder
+            @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder,
+            @RequestParam(name = "cursor", required = false) String cursor
     ){
-        BookResponse bookResponse = bookService.getAllBooks(pageNumber, pageSize, sortBy, sortOrder);
+        BookResponse bookResponse = cursor != null
+                ? bookService.getAllBooksByCursor(cursor, pageSize, sortBy, sortOrder)
+                : bookService.getAllBooks(pageNumber, pageSize, sortBy, sortOrder);
         return new ResponseEntity<>(bookResponse, HttpStatus.OK);
     }
 
+    /**
+     * Exports all books as JSON lines, one book per line in ID order, streamed straight to the response.
+     * The response is gzip compressed if the client accepts it.
+     *
+     * @param acceptEncoding the encodings accepted by the client.
+     * @return the streamed books.
+     */
+    @GetMapping(value = "/public/books/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(output, 8192)) {
+                    bookService.exportBooks(compressed);
+                }
+            } else {
+                bookService.exportBooks(output);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Streams the availability of books as server-sent events, one "availability" event per changed book.
+     * The current availability of the given books is sent first. Without any filter all books are streamed.
+     *
+     * @param bookIds the IDs of the books to stream.
+     * @param categoryIds the IDs of the categories whose books to stream.
+     * @return the event stream.
+     */
+    @GetMapping(value = "/public/books/availability", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(
+            @RequestParam(name = "bookIds", required = false) List<Long> bookIds,
+            @RequestParam(name = "categoryIds", required = false) List<Long> categoryIds) {
+        return availabilityBroadcaster.subscribe(bookIds, categoryIds);
+    }
+
     /**
      * Retrieves books by a specific category with pagination and sorting options.
      *
@@ -65,6 +165,8 @@ public class BookController {
      * @param pageSize the number of books per page (default: 10).
      * @param sortBy the field by which the books should be sorted (default: "title").
      * @param sortOrder the sorting order, either ascending ("asc") or descending ("desc") (default: "asc").
+     * @param cursor the cursor of the next page in cursor pagination mode, empty for the first page.
+     *               When present, the page number is ignored and no total count is returned.
      * @return a response containing a list of books filtered by category and pagination metadata.
      */
     @GetMapping("/public/categories/{categoryId}/books")
@@ -73,9 +175,12 @@ public class BookController {
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER) Integer pageNumber,
             @RequestParam(name = "pageSize",defaultValue = AppConstants.PAGE_SIZE) Integer pageSize,
             @RequestParam(name = "sortBy",defaultValue = AppConstants.SORT_BOOKS_BY) String sortBy,
-            @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder
+            @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder,
+            @RequestParam(name = "cursor", required = false) String cursor
     ){
-        BookResponse bookResponse = bookService.searchByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder);
+        BookResponse bookResponse = cursor != null
+                ? bookService.searchByCategoryByCursor(categoryId, cursor, pageSize, sortBy, sortOrder)
+                : bookService.searchByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder);
         return new ResponseEntity<>(bookResponse, HttpStatus.OK);
     }
 
@@ -87,6 +192,8 @@ public class BookController {
      * @param pageSize the number of books per page (default: 10).
      * @param sortBy the field by which the books should be sorted (default: "title").
      * @param sortOrder the sorting order, either ascending ("asc") or descending ("desc") (default: "asc").
+     * @param cursor the cursor of the next page in cursor pagination mode, empty for the first page.
+     *               When present, the page number is ignored and no total count is returned.
      * @return a response containing a list of books filtered by author and pagination metadata.
      */
     @GetMapping("/public/books/author")
@@ -95,9 +202,12 @@ public class BookController {
         @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER) Integer pageNumber,
         @RequestParam(name = "pageSize",defaultValue = AppConstants.PAGE_SIZE) Integer pageSize,
         @RequestParam(name = "sortBy",defaultValue = AppConstants.SORT_BOOKS_BY) String sortBy,
-        @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder
+        @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder,
+        @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        BookResponse bookResponse = bookService.searchByAuthor(author, pageNumber, pageSize, sortBy, sortOrder);
+        BookResponse bookResponse = cursor != null
+                ? bookService.searchByAuthorByCursor(author, cursor, pageSize, sortBy, sortOrder)
+                : bookService.searchByAuthor(author, pageNumber, pageSize, sortBy, sortOrder);
         return new ResponseEntity<>(bookResponse, HttpStatus.OK);
     }
 
@@ -109,6 +219,8 @@ public class BookController {
      * @param pageSize the number of books per page (default: 10).
      * @param sortBy the field by which the books should be sorted (default: "title").
      * @param sortOrder the sorting order, either ascending ("asc") or descending ("desc") (default: "asc").
+     * @param cursor the cursor of the next page in cursor pagination mode, empty for the first page.
+     *               When present, the page number is ignored and no total count is returned.
      * @return a response containing a list of books filtered by title and pagination metadata.
      */
     @GetMapping("/public/books/title")
@@ -117,12 +229,46 @@ public class BookController {
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER) Integer pageNumber,
             @RequestParam(name = "pageSize",defaultValue = AppConstants.PAGE_SIZE) Integer pageSize,
             @RequestParam(name = "sortBy",defaultValue = AppConstants.SORT_BOOKS_BY) String sortBy,
-            @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder
+            @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        BookResponse bookResponse = bookService.searchByTitle(title, pageNumber, pageSize, sortBy, sortOrder);
+        BookResponse bookResponse = cursor != null
+                ? bookService.searchByTitleByCursor(title, cursor, pageSize, sortBy, sortOrder)
+                : bookService.searchByTitle(title, pageNumber, pageSize, sortBy, sortOrder);
         return new ResponseEntity<>(bookResponse, HttpStatus.OK);
     }
 
+    /**
+     * Searches books by title, author, category and availability, with the number of matching books per category,
+     * author and availability.
+     * Each count ignores its own filter, so a selected category or availability still shows the counts of the others.
+     *
+     * @param title the title or part of the title to search for, optional.
+     * @param author the name or part of the name of the author to search for, optional.
+     * @param categoryId the ID of the category to filter books by, optional.
+     * @param availability the availability to filter books by, one of AVAILABLE, UNAVAILABLE or INACTIVE, optional.
+     * @param pageNumber the page number to retrieve (default: 0).
+     * @param pageSize the number of books per page (default: 10).
+     * @param sortBy the field by which the books should be sorted (default: "title").
+     * @param sortOrder the sorting order, either ascending ("asc") or descending ("desc") (default: "asc").
+     * @return a response containing a page of matching books and the counts of each facet.
+     */
+    @GetMapping("/public/books/search")
+    public ResponseEntity<BookFacetResponse> searchBooks(
+            @RequestParam(name = "title", required = false) String title,
+            @RequestParam(name = "author", required = false) String author,
+            @RequestParam(name = "categoryId", required = false) Long categoryId,
+            @RequestParam(name = "availability", required = false) BookAvailability availability,
+            @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER) Integer pageNumber,
+            @RequestParam(name = "pageSize",defaultValue = AppConstants.PAGE_SIZE) Integer pageSize,
+            @RequestParam(name = "sortBy",defaultValue = AppConstants.SORT_BOOKS_BY) String sortBy,
+            @RequestParam(name = "sortOrder",defaultValue = AppConstants.SORT_DIR) String sortOrder
+    ) {
+        BookFacetResponse bookFacetResponse = bookService.searchWithFacets(title, author, categoryId, availability,
+                pageNumber, pageSize, sortBy, sortOrder);
+        return new ResponseEntity<>(bookFacetResponse, HttpStatus.OK);
+    }
+
     /**
      * Deletes a book by its ID.
      *
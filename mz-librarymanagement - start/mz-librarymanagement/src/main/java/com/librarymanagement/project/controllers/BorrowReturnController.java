@@ -1,21 +1,30 @@
 package com.librarymanagement.project.controllers;
 
 
+import com.librarymanagement.project.configs.AppConstants;
+import com.librarymanagement.project.payloads.LoanBatchRequest;
+import com.librarymanagement.project.payloads.LoanBatchResponse;
+import com.librarymanagement.project.payloads.LoanHistoryResponse;
 import com.librarymanagement.project.payloads.TransactionDTO;
 import com.librarymanagement.project.services.BorrowReturnService;
+import com.librarymanagement.project.services.IdempotencyStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
 /**
  * REST controller for handling borrow and return API requests.
- * Provides endpoints for borrowing and returning books.
+ * Provides endpoints for borrowing and returning books, one at a time or in batches, and for listing the loans of a user.
  */
 @RestController
 @RequestMapping("/api")
@@ -24,30 +33,92 @@ public class BorrowReturnController {
     @Autowired
     private BorrowReturnService borrowReturnService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     /**
      * Endpoint to borrow a book.
      * Only accessible by users with the 'ROLE_USER' role.
      *
+     * A retry with the same idempotency key gets the response of the first request, without borrowing again.
+     *
      * @param bookId the ID of the book to borrow.
+     * @param idempotencyKey the key identifying the request across retries, optional.
      * @return a TransactionDTO containing the transaction details of the borrow action.
      */
     @PreAuthorize("hasRole('ROLE_USER')")
     @PostMapping("/borrow/{bookId}")
-    public ResponseEntity<TransactionDTO> borrowBook(@PathVariable Long bookId){
-        TransactionDTO transcationDTO = borrowReturnService.borrowBook(bookId);
+    public ResponseEntity<TransactionDTO> borrowBook(@PathVariable Long bookId,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey){
+        TransactionDTO transcationDTO = idempotencyStore.execute(idempotencyKey, "borrow", bookId,
+                () -> borrowReturnService.borrowBook(bookId));
         return new ResponseEntity<>(transcationDTO, HttpStatus.OK);
     }
     /**
      * Endpoint to borrow a book.
      * Only accessible by users with the 'ROLE_USER' role.
      *
+     * A retry with the same idempotency key gets the response of the first request, without returning again.
+     *
      * @param bookId the ID of the book to borrow.
+     * @param idempotencyKey the key identifying the request across retries, optional.
      * @return a TransactionDTO containing the transaction details of the borrow action.
      */
     @PreAuthorize("hasRole('ROLE_USER')")
     @PostMapping("/return/{bookId}")
-    public ResponseEntity<TransactionDTO> returnBook(@PathVariable Long bookId){
-        TransactionDTO transcationDTO = borrowReturnService.returnBook(bookId);
+    public ResponseEntity<TransactionDTO> returnBook(@PathVariable Long bookId,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey){
+        TransactionDTO transcationDTO = idempotencyStore.execute(idempotencyKey, "return", bookId,
+                () -> borrowReturnService.returnBook(bookId));
         return new ResponseEntity<>(transcationDTO, HttpStatus.OK);
     }
+
+    /**
+     * Endpoint to borrow several books at once, e.g. a stack checked out at a kiosk.
+     * Only accessible by users with the 'ROLE_USER' role.
+     *
+     * The books are borrowed in one transaction, a book that cannot be borrowed is reported in its item.
+     *
+     * @param loanBatchRequest the IDs of the books to borrow, at most {@link AppConstants#MAX_LOAN_BATCH_SIZE}.
+     * @return a LoanBatchResponse containing the outcome of each book.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @PostMapping("/borrow/batch")
+    public ResponseEntity<LoanBatchResponse> borrowBooks(@RequestBody LoanBatchRequest loanBatchRequest){
+        LoanBatchResponse loanBatchResponse = borrowReturnService.borrowBooks(loanBatchRequest.getBookIds());
+        return new ResponseEntity<>(loanBatchResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to return several books at once.
+     * Only accessible by users with the 'ROLE_USER' role.
+     *
+     * The books are returned in one transaction, a book that cannot be returned is reported in its item.
+     *
+     * @param loanBatchRequest the IDs of the books to return, at most {@link AppConstants#MAX_LOAN_BATCH_SIZE}.
+     * @return a LoanBatchResponse containing the outcome of each book.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @PostMapping("/return/batch")
+    public ResponseEntity<LoanBatchResponse> returnBooks(@RequestBody LoanBatchRequest loanBatchRequest){
+        LoanBatchResponse loanBatchResponse = borrowReturnService.returnBooks(loanBatchRequest.getBookIds());
+        return new ResponseEntity<>(loanBatchResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to list the loans of the current user, newest first.
+     * Only accessible by users with the 'ROLE_USER' role.
+     *
+     * @param cursor the cursor of the previous page, omitted for the first page.
+     * @param pageSize the number of loans per page, at most {@link AppConstants#MAX_HISTORY_PAGE_SIZE}.
+     * @return a LoanHistoryResponse containing the page of loans and the cursor of the next page.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/borrow/history")
+    public ResponseEntity<LoanHistoryResponse> getBorrowHistory(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.HISTORY_PAGE_SIZE, required = false) Integer pageSize){
+        LoanHistoryResponse loanHistoryResponse = borrowReturnService.getBorrowHistory(cursor, pageSize);
+        return new ResponseEntity<>(loanHistoryResponse, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,86 @@
+package com.librarymanagement.project.controllers;
+
+
+import com.librarymanagement.project.payloads.ReservationDTO;
+import com.librarymanagement.project.services.ReservationNotifier;
+import com.librarymanagement.project.services.ReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+
+/**
+ * REST controller for handling reservation API requests.
+ * Provides endpoints for joining, leaving and viewing the queues of books with no copies available,
+ * and a stream that announces when a copy is held for the user.
+ */
+@RestController
+@RequestMapping("/api")
+public class ReservationController {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationNotifier reservationNotifier;
+
+    /**
+     * Endpoint to reserve a book with no copies available.
+     * Only accessible by users with the 'ROLE_USER' role.
+     *
+     * @param bookId the ID of the book to reserve.
+     * @return a ReservationDTO with the position of the user in the queue of the book.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @PostMapping("/reservations/{bookId}")
+    public ResponseEntity<ReservationDTO> reserveBook(@PathVariable Long bookId){
+        ReservationDTO reservationDTO = reservationService.reserveBook(bookId);
+        return new ResponseEntity<>(reservationDTO, HttpStatus.CREATED);
+    }
+
+    /**
+     * Endpoint to list the waiting and ready reservations of the current user.
+     * Only accessible by users with the 'ROLE_USER' role.
+     *
+     * @return the reservations of the user, oldest first.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/reservations")
+    public ResponseEntity<List<ReservationDTO>> getMyReservations(){
+        List<ReservationDTO> reservations = reservationService.getMyReservations();
+        return new ResponseEntity<>(reservations, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to stream the reservations of the current user as their copy is held for them, as server-sent
+     * events named {@code reservation-ready}.
+     * Only accessible by users with the 'ROLE_USER' role.
+     *
+     * @return the event stream.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/reservations/notifications", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(){
+        return reservationNotifier.subscribe();
+    }
+
+    /**
+     * Endpoint to cancel a reservation of the current user.
+     * Only accessible by users with the 'ROLE_USER' role.
+     *
+     * @param reservationId the ID of the reservation to cancel.
+     * @return a ReservationDTO of the cancelled reservation.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<ReservationDTO> cancelReservation(@PathVariable Long reservationId){
+        ReservationDTO reservationDTO = reservationService.cancelReservation(reservationId);
+        return new ResponseEntity<>(reservationDTO, HttpStatus.OK);
+    }
+}
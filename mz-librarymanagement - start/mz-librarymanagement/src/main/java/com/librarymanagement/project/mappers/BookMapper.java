@@ -0,0 +1,84 @@
+package com.librarymanagement.project.mappers;
+
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.BookDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps between {@link Book} entities and {@link BookDTO}s.
+ * The mapping mode is selected by the {@code spring.app.mapper.book} property.
+ */
+@Component
+public class BookMapper {
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Value("${spring.app.mapper.book:direct}")
+    private MapperMode mode = MapperMode.DIRECT;
+
+    /**
+     * Maps a book entity to its DTO.
+     * The category is copied to a detached instance holding only its ID and name,
+     * so the DTO never exposes the managed entity.
+     *
+     * @param book The book entity.
+     * @return The {@link BookDTO}, or null if the book is null.
+     */
+    public BookDTO toDTO(Book book) {
+        if (book == null) {
+            return null;
+        }
+        if (mode == MapperMode.MODELMAPPER) {
+            return modelMapper.map(book, BookDTO.class);
+        }
+        return new BookDTO(
+                book.getBookId(),
+                book.getTitle(),
+                book.getAuthor(),
+                book.getCopiesTotal(),
+                book.getCopiesAvailable(),
+                book.getCopiesBorrowed(),
+                book.isActive(),
+                book.getDescription(),
+                copyOf(book.getCategory()));
+    }
+
+    /**
+     * Maps a book DTO to a new, unsaved entity.
+     *
+     * @param bookDTO The book DTO.
+     * @return The {@link Book} entity, or null if the DTO is null.
+     */
+    public Book toEntity(BookDTO bookDTO) {
+        if (bookDTO == null) {
+            return null;
+        }
+        if (mode == MapperMode.MODELMAPPER) {
+            return modelMapper.map(bookDTO, Book.class);
+        }
+        Book book = new Book();
+        book.setBookId(bookDTO.getBookId());
+        book.setTitle(bookDTO.getTitle());
+        book.setAuthor(bookDTO.getAuthor());
+        book.setCopiesTotal(bookDTO.getCopiesTotal());
+        book.setCopiesAvailable(bookDTO.getCopiesAvailable());
+        book.setCopiesBorrowed(bookDTO.getCopiesBorrowed());
+        book.setActive(bookDTO.isActive());
+        book.setDescription(bookDTO.getDescription());
+
+        // The category of a book is non-null, leave it unset when the DTO has none
+        if (bookDTO.getCategory() != null) {
+            book.setCategory(bookDTO.getCategory());
+        }
+        return book;
+    }
+
+    private static Category copyOf(Category category) {
+        return category == null ? null : new Category(category.getCategoryId(), category.getCategoryName());
+    }
+}
@@ -0,0 +1,54 @@
+package com.librarymanagement.project.mappers;
+
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.CategoryDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps between {@link Category} entities and {@link CategoryDTO}s.
+ * The mapping mode is selected by the {@code spring.app.mapper.category} property.
+ */
+@Component
+public class CategoryMapper {
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Value("${spring.app.mapper.category:direct}")
+    private MapperMode mode = MapperMode.DIRECT;
+
+    /**
+     * Maps a category entity to its DTO.
+     *
+     * @param category The category entity.
+     * @return The {@link CategoryDTO}, or null if the category is null.
+     */
+    public CategoryDTO toDTO(Category category) {
+        if (category == null) {
+            return null;
+        }
+        if (mode == MapperMode.MODELMAPPER) {
+            return modelMapper.map(category, CategoryDTO.class);
+        }
+        return new CategoryDTO(category.getCategoryId(), category.getCategoryName());
+    }
+
+    /**
+     * Maps a category DTO to a new, unsaved entity.
+     *
+     * @param categoryDTO The category DTO.
+     * @return The {@link Category} entity, or null if the DTO is null.
+     */
+    public Category toEntity(CategoryDTO categoryDTO) {
+        if (categoryDTO == null) {
+            return null;
+        }
+        if (mode == MapperMode.MODELMAPPER) {
+            return modelMapper.map(categoryDTO, Category.class);
+        }
+        return new Category(categoryDTO.getCategoryId(), categoryDTO.getCategoryName());
+    }
+}
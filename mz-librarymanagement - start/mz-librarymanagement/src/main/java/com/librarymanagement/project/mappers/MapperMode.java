@@ -0,0 +1,18 @@
+package com.librarymanagement.project.mappers;
+
+/**
+ * Selects how a mapper converts between entities and DTOs.
+ * The mode is configured per type with the {@code spring.app.mapper.<type>} properties.
+ */
+public enum MapperMode {
+
+    /**
+     * Hand-written field by field copy, without reflection.
+     */
+    DIRECT,
+
+    /**
+     * Reflective mapping through the shared {@link org.modelmapper.ModelMapper} bean.
+     */
+    MODELMAPPER
+}
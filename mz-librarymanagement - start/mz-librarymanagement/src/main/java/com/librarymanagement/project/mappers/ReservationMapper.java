@@ -0,0 +1,35 @@
+package com.librarymanagement.project.mappers;
+
+import com.librarymanagement.project.models.Reservation;
+import com.librarymanagement.project.payloads.ReservationDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps {@link Reservation} entities to {@link ReservationDTO}s.
+ * Only the ID and title of the book are copied.
+ */
+@Component
+public class ReservationMapper {
+
+    /**
+     * Maps a reservation entity to its DTO.
+     *
+     * @param reservation The reservation entity.
+     * @param queuePosition The position in the queue of the book, null unless the reservation is waiting.
+     * @return The {@link ReservationDTO}, or null if the reservation is null.
+     */
+    public ReservationDTO toDTO(Reservation reservation, Long queuePosition) {
+        if (reservation == null) {
+            return null;
+        }
+        return new ReservationDTO(
+                reservation.getReservationId(),
+                reservation.getBook().getBookId(),
+                reservation.getBook().getTitle(),
+                reservation.getStatus(),
+                queuePosition,
+                reservation.getReservedAt(),
+                reservation.getReadyAt(),
+                reservation.getExpiresAt());
+    }
+}
@@ -0,0 +1,75 @@
+package com.librarymanagement.project.mappers;
+
+import com.librarymanagement.project.models.Transaction;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import com.librarymanagement.project.payloads.UserDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps {@link Transaction} entities to {@link TransactionDTO}s.
+ * In direct mode the book and user are mapped with {@link BookMapper} and {@link UserMapper}.
+ * The mapping mode is selected by the {@code spring.app.mapper.transaction} property.
+ */
+@Component
+public class TransactionMapper {
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${spring.app.mapper.transaction:direct}")
+    private MapperMode mode = MapperMode.DIRECT;
+
+    /**
+     * Maps a transaction entity to its DTO.
+     *
+     * @param transaction The transaction entity.
+     * @return The {@link TransactionDTO}, or null if the transaction is null.
+     */
+    public TransactionDTO toDTO(Transaction transaction) {
+        if (transaction == null) {
+            return null;
+        }
+        if (mode == MapperMode.MODELMAPPER) {
+            return modelMapper.map(transaction, TransactionDTO.class);
+        }
+        return toDTO(transaction, userMapper.toDTO(transaction.getUser()));
+    }
+
+    /**
+     * Maps a transaction entity to its DTO with an already known user, e.g. the signed in user.
+     * In direct mode the user entity of the transaction is not read, so a lazy reference to it is never loaded.
+     *
+     * @param transaction The transaction entity.
+     * @param user The DTO of the user of the transaction.
+     * @return The {@link TransactionDTO}, or null if the transaction is null.
+     */
+    public TransactionDTO toDTO(Transaction transaction, UserDTO user) {
+        if (transaction == null) {
+            return null;
+        }
+        if (mode == MapperMode.MODELMAPPER) {
+            TransactionDTO transactionDTO = modelMapper.map(transaction, TransactionDTO.class);
+            transactionDTO.setUser(user);
+            return transactionDTO;
+        }
+        return new TransactionDTO(
+                transaction.getTransactionId(),
+                transaction.getBorrowedDate(),
+                transaction.getDueDate(),
+                transaction.getReturnedDate(),
+                transaction.isReturned(),
+                transaction.isOverdue(),
+                transaction.getFine(),
+                bookMapper.toDTO(transaction.getBook()),
+                user);
+    }
+}
@@ -0,0 +1,38 @@
+package com.librarymanagement.project.mappers;
+
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.UserDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps {@link User} entities to {@link UserDTO}s, never copying the password.
+ * The mapping mode is selected by the {@code spring.app.mapper.user} property.
+ */
+@Component
+public class UserMapper {
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Value("${spring.app.mapper.user:direct}")
+    private MapperMode mode = MapperMode.DIRECT;
+
+    /**
+     * Maps a user entity to its DTO.
+     *
+     * @param user The user entity.
+     * @return The {@link UserDTO}, or null if the user is null.
+     */
+    public UserDTO toDTO(User user) {
+        if (user == null) {
+            return null;
+        }
+        if (mode == MapperMode.MODELMAPPER) {
+            return modelMapper.map(user, UserDTO.class);
+        }
+        return new UserDTO(user.getUserId(), user.getUserName(), user.getEmail());
+    }
+}
@@ -0,0 +1,51 @@
+package com.librarymanagement.project.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while counting is started.
+ * Registered with Hibernate in {@link com.librarymanagement.project.configs.MetricsConfig}, and started and
+ * stopped around each HTTP request by {@link QueryCountFilter}.
+ */
+@Component
+public class QueryCountInspector implements StatementInspector {
+
+    /**
+     * The statement count of the current thread, null while counting is not started.
+     */
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    /**
+     * Counts the statement, and leaves it unchanged.
+     *
+     * @param sql the SQL statement to be prepared.
+     * @return the unchanged SQL statement.
+     */
+    @Override
+    public String inspect(String sql) {
+        int[] current = count.get();
+        if (current != null) {
+            current[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Starts counting the statements of the current thread from zero.
+     */
+    public void start() {
+        count.set(new int[1]);
+    }
+
+    /**
+     * Stops counting the statements of the current thread.
+     *
+     * @return the number of statements since counting was started, 0 if it was not started.
+     */
+    public int stop() {
+        int[] current = count.get();
+        count.remove();
+        return current != null ? current[0] : 0;
+    }
+}
@@ -0,0 +1,101 @@
+package com.librarymanagement.project.metrics;
+
+import com.librarymanagement.project.exceptions.BusinessException;
+import com.librarymanagement.project.exceptions.ResourceNotFoundException;
+import com.librarymanagement.project.exceptions.ValidationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every call to the book, category, borrow/return and auth services.
+ * Calls are recorded in the {@value #METRIC_NAME} timer, tagged with the service, the method and the outcome,
+ * so the count of each tag combination is the number of calls with that outcome.
+ * Latency histograms are enabled for the timer in the application properties.
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    /**
+     * The name of the timer the service calls are recorded in.
+     */
+    public static final String METRIC_NAME = "library.service";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Timers by service, method and outcome, so a call does not build a meter ID each time.
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Times a service call and records it with its outcome.
+     *
+     * @param joinPoint the service call.
+     * @return the result of the service call.
+     * @throws Throwable the exception thrown by the service call, rethrown unchanged.
+     */
+    @Around("execution(public * com.librarymanagement.project.services.BookService+.*(..))"
+            + " || execution(public * com.librarymanagement.project.services.CategoryService+.*(..))"
+            + " || execution(public * com.librarymanagement.project.services.BorrowReturnService+.*(..))"
+            + " || execution(public * com.librarymanagement.project.services.AuthService+.*(..))")
+    public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            timer(joinPoint, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Maps an exception to the outcome tag, the application exceptions are told apart.
+     *
+     * @param e the exception thrown by the service call.
+     * @return the outcome tag value.
+     */
+    private static String outcome(Throwable e) {
+        if (e instanceof ResourceNotFoundException) {
+            return "not_found";
+        }
+        if (e instanceof ValidationException) {
+            return "validation_error";
+        }
+        if (e instanceof BusinessException) {
+            return "business_error";
+        }
+        return "error";
+    }
+
+    /**
+     * Returns the timer of a service method and outcome, registering it on first use.
+     *
+     * @param joinPoint the service call.
+     * @param outcome the outcome tag value.
+     * @return the timer to record the call in.
+     */
+    private Timer timer(ProceedingJoinPoint joinPoint, String outcome) {
+        String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        return timers.computeIfAbsent(service + '.' + method + ':' + outcome, key -> Timer.builder(METRIC_NAME)
+                .description("Latency of service calls")
+                .tag("service", service)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
@@ -7,13 +7,20 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 /**
  * Represents a Book entity in the library management system.
  * This entity stores information about books.
+ * Books are kept in the second-level cache. Borrows and returns change the copies in the
+ * {@link com.librarymanagement.project.services.AvailabilityTable}, which writes them back in batches and evicts
+ * only the written books, so the cached pages of the catalog survive the loans.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
 @Table(name = "books")
 @Data
 @NoArgsConstructor
@@ -22,10 +29,13 @@ public class Book {
 
     /**
      * The unique identifier for the book.
-     * This ID is automatically generated by the database when a new book is created.
+     * This ID is taken from the {@code books_seq} database sequence when a new book is created.
+     * Hibernate reserves 50 IDs per sequence call, so inserts of many books need no round trip per ID
+     * and can be sent to the database in JDBC batches, which an identity column prevents.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "books_seq", allocationSize = 50)
     @Column(name = "book_id")
     private Long bookId;
 
@@ -55,14 +65,14 @@ public class Book {
 
     /**
      * The number of copies of the book that are currently available for borrowing.
-     * This value is updated when books are borrowed or returned.
+     * This value is written back in batches after books are borrowed or returned.
      */
     @Column(name = "copies_available")
     private int copiesAvailable;
 
     /**
      * The number of copies of the book that are currently being borrowed.
-     * This value is updated when books are borrowed or returned.
+     * This value is written back in batches after books are borrowed or returned.
      */
     @Column(name = "copies_borrowed")
     private int copiesBorrowed;
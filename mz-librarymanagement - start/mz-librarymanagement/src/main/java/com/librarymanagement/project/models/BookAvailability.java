@@ -0,0 +1,40 @@
+package com.librarymanagement.project.models;
+
+/**
+ * Enum representing the availability of a {@link Book}, as counted by the faceted search.
+ *
+ * <p>An active book is <strong>AVAILABLE</strong> while it has copies to borrow and <strong>UNAVAILABLE</strong>
+ * when all of its copies are borrowed or held. A soft deleted book is <strong>INACTIVE</strong> whatever its
+ * copies.</p>
+ */
+public enum BookAvailability {
+
+    /**
+     * The book is active and has at least one copy available.
+     */
+    AVAILABLE,
+
+    /**
+     * The book is active but has no copies available.
+     */
+    UNAVAILABLE,
+
+    /**
+     * The book was deleted and can no longer be borrowed.
+     */
+    INACTIVE;
+
+    /**
+     * Returns the availability of a book with the given state and copies.
+     *
+     * @param active whether the book is active.
+     * @param copiesAvailable the number of copies available.
+     * @return the availability of the book.
+     */
+    public static BookAvailability of(boolean active, int copiesAvailable) {
+        if (!active) {
+            return INACTIVE;
+        }
+        return copiesAvailable > 0 ? AVAILABLE : UNAVAILABLE;
+    }
+}
@@ -7,12 +7,17 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
 * Represents a Category entity in the library management system.
 * This entity stores information about the category of books.
+* Categories are kept in the second-level cache, they are read with every book write and category listing.
 */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories")
 @Table (name = "categories", uniqueConstraints = {
         @UniqueConstraint(columnNames = "category_name")
     })
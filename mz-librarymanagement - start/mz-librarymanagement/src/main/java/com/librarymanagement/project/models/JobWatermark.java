@@ -0,0 +1,35 @@
+package com.librarymanagement.project.models;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the high-water mark of an incremental scheduled job in the library management system.
+ * A job processes only the rows past its mark and moves the mark forward after each run,
+ * the mark is kept in the database so a restart resumes where the last run stopped.
+ */
+@Entity
+@Table(name = "job_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobWatermark {
+
+    /**
+     * The name of the job the mark belongs to.
+     */
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    /**
+     * The last date the job has fully processed.
+     */
+    @Column(name = "watermark_date")
+    private LocalDate watermarkDate;
+}
@@ -0,0 +1,83 @@
+package com.librarymanagement.project.models;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Represents a Reservation entity in the library management system.
+ * A user reserves a book that has no copies available and waits in the queue of the book.
+ * The queue is first come, first served, in the order of the reservation IDs.
+ * Reservations are kept in the database, so the queues survive a restart.
+ */
+@Entity
+@Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservations_book_status", columnList = "book_id, status, reservation_id"),
+        @Index(name = "idx_reservations_user_status", columnList = "user_id, status")
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reservation {
+
+    /**
+     * The unique identifier for the reservation.
+     * IDs increase with every reservation, so they also give the order of the queue.
+     */
+    @Id
+    @GeneratedValue
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    /**
+     * The book that is reserved.
+     */
+    @ManyToOne
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    /**
+     * The user who reserved the book.
+     */
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * The state of the reservation.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private ReservationStatus status;
+
+    /**
+     * The time the book was reserved.
+     */
+    @Column(name = "reserved_at", nullable = false)
+    private LocalDateTime reservedAt;
+
+    /**
+     * The time a copy was held for the user, null while waiting.
+     */
+    @Column(name = "ready_at")
+    private LocalDateTime readyAt;
+
+    /**
+     * The time the hold of the copy runs out, null while waiting.
+     */
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    /**
+     * The version of the reservation, so a hold that is borrowed, cancelled and expired at the same time
+     * only changes state once.
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
+}
@@ -0,0 +1,37 @@
+package com.librarymanagement.project.models;
+
+/**
+ * Enum representing the states of a {@link Reservation} of a book.
+ *
+ * <p>A reservation starts as <strong>WAITING</strong> in the queue of the book. When a copy is returned it is
+ * held for the first waiting reservation, which becomes <strong>READY</strong>. It then ends as
+ * <strong>FULFILLED</strong> when the user borrows the held copy, <strong>EXPIRED</strong> when the hold runs
+ * out first, or <strong>CANCELLED</strong> by the user at any time before.</p>
+ */
+public enum ReservationStatus {
+
+    /**
+     * Waiting in the queue of the book for a copy to be returned.
+     */
+    WAITING,
+
+    /**
+     * A returned copy is held for the user until the hold expires.
+     */
+    READY,
+
+    /**
+     * The user borrowed the held copy.
+     */
+    FULFILLED,
+
+    /**
+     * The user did not borrow the held copy in time, it was passed on.
+     */
+    EXPIRED,
+
+    /**
+     * The user cancelled the reservation.
+     */
+    CANCELLED
+}
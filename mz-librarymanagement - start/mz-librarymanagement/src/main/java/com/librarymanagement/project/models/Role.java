@@ -6,14 +6,19 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 /**
  * Represents a Role entity in the library management system.
  * Roles are used in role-based access control (RBAC) to assign specific permissions to users in the system.
  * This entity stores information about the role and its associated name.
+ * Roles are created once and never changed, so they are kept in the second-level cache read-only.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "roles")
 @Table(name = "roles")
 @Data
 @NoArgsConstructor
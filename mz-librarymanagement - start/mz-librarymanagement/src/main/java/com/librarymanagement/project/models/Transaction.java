@@ -7,15 +7,26 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 
 /**
  * Represents a Transaction entity in the library management system.
  * This entity stores information about borrowing and returning a book.
+ * Every borrow and return looks up the open loan of a user and a book, the index on
+ * (user_id, book_id, is_returned) answers it without reading the rows of the table.
+ * The borrowing history of a user is read newest first along the index on (user_id, borrowed_date, transaction_id).
+ * The overdue scan reads the open loans that are not flagged yet in due date order along the index on
+ * (is_returned, is_overdue, due_date, transaction_id), flagged and returned loans drop out of its range.
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_user_book_returned", columnList = "user_id, book_id, is_returned"),
+        @Index(name = "idx_transactions_book_returned", columnList = "book_id, is_returned"),
+        @Index(name = "idx_transactions_user_borrowed", columnList = "user_id, borrowed_date desc, transaction_id desc"),
+        @Index(name = "idx_transactions_open_due", columnList = "is_returned, is_overdue, due_date, transaction_id")
+    })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -35,6 +46,12 @@ public class Transaction {
     @Column(name = "borrowed_date")
     private LocalDate borrowedDate;
 
+    /**
+     * The date by which the book has to be returned.
+     */
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
     /**
      * The date when the book was returned.
      * This can be null initially until the book is returned.
@@ -50,6 +67,20 @@ public class Transaction {
     @Column(name = "is_returned")
     private boolean isReturned = false;
 
+    /**
+     * Shows whether the book was not returned by the due date.
+     * Set by the overdue scan, or on a late return.
+     */
+    @Column(name = "is_overdue")
+    private boolean isOverdue = false;
+
+    /**
+     * The fine charged for a late return, null if the book was not returned late.
+     */
+    @Nullable
+    @Column(name = "fine", precision = 10, scale = 2)
+    private BigDecimal fine;
+
     /**
      * The book that corresponds to this transaction.
      */
@@ -58,9 +89,10 @@ public class Transaction {
     private Book book;
 
     /**
-     * The user that corresponds to this transaction
+     * The user that corresponds to this transaction.
+     * Loaded lazily, borrow and return only need the ID of the user, not the user and its roles.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
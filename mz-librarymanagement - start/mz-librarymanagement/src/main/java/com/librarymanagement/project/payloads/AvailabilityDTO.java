@@ -0,0 +1,40 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) for the availability of a book.
+ * Pushed to the subscribers of the availability stream whenever the copies of the book change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityDTO {
+
+    /**
+     * The unique identifier of the book.
+     */
+    private Long bookId;
+
+    /**
+     * The unique identifier of the category of the book.
+     */
+    private Long categoryId;
+
+    /**
+     * The number of copies of the book that are currently available for borrowing.
+     */
+    private int copiesAvailable;
+
+    /**
+     * The total number of copies of the book.
+     */
+    private int copiesTotal;
+
+    /**
+     * It shows if the book is active or not.
+     */
+    private boolean active;
+}
@@ -0,0 +1,59 @@
+package com.librarymanagement.project.payloads;
+
+/**
+ * Projection of the {@link com.librarymanagement.project.models.Book} columns written by the catalog export,
+ * together with the ID and name of the category of the book.
+ * Projections are not tracked by the persistence context, so streaming them keeps memory flat.
+ */
+public interface BookExportView {
+
+    /**
+     * The unique identifier of the book.
+     */
+    Long getBookId();
+
+    /**
+     * The title of the book.
+     */
+    String getTitle();
+
+    /**
+     * The author of the book.
+     */
+    String getAuthor();
+
+    /**
+     * The total number of copies of the book.
+     */
+    int getCopiesTotal();
+
+    /**
+     * The number of copies of the book that are currently available for borrowing.
+     */
+    int getCopiesAvailable();
+
+    /**
+     * The number of copies of the book that are currently being borrowed.
+     */
+    int getCopiesBorrowed();
+
+    /**
+     * It shows if the book is active or not.
+     */
+    boolean getActive();
+
+    /**
+     * A brief description of the book.
+     */
+    String getDescription();
+
+    /**
+     * The unique identifier of the category of the book.
+     */
+    Long getCategoryId();
+
+    /**
+     * The name of the category of the book.
+     */
+    String getCategoryName();
+}
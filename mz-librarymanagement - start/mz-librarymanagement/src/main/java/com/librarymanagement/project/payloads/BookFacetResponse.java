@@ -0,0 +1,42 @@
+package com.librarymanagement.project.payloads;
+
+import com.librarymanagement.project.models.BookAvailability;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Represents the response of a faceted book search.
+ * It contains the requested page of matching books together with the number of matching books per category,
+ * author and availability, so a client can render the filters of the result without a request per value.
+ * The counts of a facet ignore the filter of that facet, so the other values of a selected filter keep their counts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacetResponse {
+
+    /**
+     * The requested page of matching books, with pagination details.
+     */
+    private BookResponse books;
+
+    /**
+     * The number of matching books per category ID, most books first.
+     * Only categories with matching books are listed.
+     */
+    private Map<Long, Integer> categoryCounts;
+
+    /**
+     * The number of matching books per author, most books first.
+     * Only the authors with the most books are listed.
+     */
+    private Map<String, Integer> authorCounts;
+
+    /**
+     * The number of matching books per availability.
+     */
+    private Map<BookAvailability, Integer> availabilityCounts;
+}
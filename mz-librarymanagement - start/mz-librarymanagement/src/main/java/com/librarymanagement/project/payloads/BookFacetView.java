@@ -0,0 +1,38 @@
+package com.librarymanagement.project.payloads;
+
+/**
+ * Projection of the {@link com.librarymanagement.project.models.Book} columns needed by the facet index.
+ * Used to build the index at startup without loading full book entities and their categories.
+ */
+public interface BookFacetView {
+
+    /**
+     * The unique identifier of the book.
+     */
+    Long getBookId();
+
+    /**
+     * The title of the book.
+     */
+    String getTitle();
+
+    /**
+     * The author of the book.
+     */
+    String getAuthor();
+
+    /**
+     * The unique identifier of the category of the book.
+     */
+    Long getCategoryId();
+
+    /**
+     * The number of copies of the book that are currently available for borrowing.
+     */
+    int getCopiesAvailable();
+
+    /**
+     * It shows if the book is active or not.
+     */
+    boolean getActive();
+}
@@ -0,0 +1,24 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A row of a bulk book import that was not imported, and the reason why.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportError {
+
+    /**
+     * The line number of the row in the imported file, starting at 1.
+     */
+    private long line;
+
+    /**
+     * The reason the row was not imported.
+     */
+    private String message;
+}
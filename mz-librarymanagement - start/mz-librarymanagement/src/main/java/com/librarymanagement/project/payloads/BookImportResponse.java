@@ -0,0 +1,43 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the outcome of a bulk book import.
+ * Only the first errors are listed, {@code failed} counts all rows that were not imported.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResponse {
+
+    /**
+     * The number of rows read from the file, not counting the CSV header and blank lines.
+     */
+    private long rowsRead;
+
+    /**
+     * The number of books saved.
+     */
+    private long imported;
+
+    /**
+     * The number of rows that were not imported.
+     */
+    private long failed;
+
+    /**
+     * The first rows that were not imported, in file order.
+     */
+    private List<BookImportError> errors = new ArrayList<>();
+
+    /**
+     * Indicates whether more rows failed than are listed in {@code errors}.
+     */
+    private boolean errorsTruncated;
+}
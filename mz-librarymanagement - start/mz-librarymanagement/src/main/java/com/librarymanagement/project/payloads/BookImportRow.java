@@ -0,0 +1,45 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of a bulk book import, read from a CSV line or a JSON line.
+ * The category is given either by its ID or by its name.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRow {
+
+    /**
+     * The title of the book.
+     */
+    private String title;
+
+    /**
+     * The author of the book.
+     */
+    private String author;
+
+    /**
+     * The total number of copies of the book.
+     */
+    private Integer copiesTotal;
+
+    /**
+     * A brief description of the book.
+     */
+    private String description;
+
+    /**
+     * The ID of the category of the book, takes precedence over the category name.
+     */
+    private Long categoryId;
+
+    /**
+     * The name of the category of the book, used when no category ID is given.
+     */
+    private String categoryName;
+}
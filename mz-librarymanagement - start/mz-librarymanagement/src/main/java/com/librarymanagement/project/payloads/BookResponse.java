@@ -44,4 +44,10 @@ public class BookResponse {
      * Indicates whether this is the last page in the pagination.
      */
     private boolean lastPage;
+
+    /**
+     * The opaque cursor to request the next page with, in cursor pagination mode.
+     * It is null in offset pagination mode and on the last page.
+     */
+    private String nextCursor;
 }
@@ -0,0 +1,23 @@
+package com.librarymanagement.project.payloads;
+
+/**
+ * Projection of the {@link com.librarymanagement.project.models.Book} columns needed by the search index.
+ * Used to build the index at startup without loading full book entities and their categories.
+ */
+public interface BookSearchView {
+
+    /**
+     * The unique identifier of the book.
+     */
+    Long getBookId();
+
+    /**
+     * The title of the book.
+     */
+    String getTitle();
+
+    /**
+     * The author of the book.
+     */
+    String getAuthor();
+}
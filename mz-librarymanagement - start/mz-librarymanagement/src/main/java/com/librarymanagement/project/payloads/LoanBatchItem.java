@@ -0,0 +1,34 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of borrowing or returning one book of a batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBatchItem {
+
+    /**
+     * The ID of the book.
+     */
+    private Long bookId;
+
+    /**
+     * Indicates whether the book was borrowed or returned.
+     */
+    private boolean success;
+
+    /**
+     * The transaction of the borrow or return, null if it failed.
+     */
+    private TransactionDTO transaction;
+
+    /**
+     * The reason the borrow or return failed, null if it succeeded.
+     */
+    private String message;
+}
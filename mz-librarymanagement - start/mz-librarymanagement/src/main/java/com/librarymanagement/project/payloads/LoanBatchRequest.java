@@ -0,0 +1,21 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The books of a batch borrow or return, e.g. a stack checked out at a kiosk.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBatchRequest {
+
+    /**
+     * The IDs of the books to borrow or return, each at most once.
+     */
+    private List<Long> bookIds;
+}
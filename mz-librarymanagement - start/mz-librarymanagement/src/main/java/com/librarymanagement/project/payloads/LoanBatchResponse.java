@@ -0,0 +1,31 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The outcome of a batch borrow or return, one item per requested book in the order of the request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBatchResponse {
+
+    /**
+     * A list of {@link LoanBatchItem} objects, one per requested book.
+     */
+    private List<LoanBatchItem> items;
+
+    /**
+     * The number of books borrowed or returned.
+     */
+    private int succeeded;
+
+    /**
+     * The number of books that could not be borrowed or returned.
+     */
+    private int failed;
+}
@@ -0,0 +1,69 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) for a loan in the borrowing history of a user.
+ * Unlike {@link TransactionDTO} it only holds the title and author of the book, read together with the loan,
+ * instead of the book with its category and the user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDTO {
+
+    /**
+     * The unique identifier for the transaction of the loan.
+     */
+    private Long transactionId;
+
+    /**
+     * The ID of the borrowed book.
+     */
+    private Long bookId;
+
+    /**
+     * The title of the borrowed book.
+     */
+    private String title;
+
+    /**
+     * The author of the borrowed book.
+     */
+    private String author;
+
+    /**
+     * The date when the book was borrowed.
+     */
+    private LocalDate borrowedDate;
+
+    /**
+     * The date by which the book has to be returned.
+     */
+    private LocalDate dueDate;
+
+    /**
+     * The date when the book was returned, null while it is borrowed.
+     */
+    private LocalDate returnedDate;
+
+    /**
+     * Shows whether the book has been returned.
+     */
+    private boolean isReturned;
+
+    /**
+     * Shows whether the book was not returned by the due date.
+     */
+    private boolean isOverdue;
+
+    /**
+     * The fine charged for a late return, null if the book was not returned late.
+     */
+    private BigDecimal fine;
+}
@@ -0,0 +1,37 @@
+package com.librarymanagement.project.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Represents a page of the borrowing history of a user, newest loans first.
+ * Pages are requested with the cursor of the previous page, no total count is returned.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanHistoryResponse {
+
+    /**
+     * A list of {@link LoanDTO} objects representing the loans on the current page.
+     */
+    private List<LoanDTO> content;
+
+    /**
+     * The number of loans per page.
+     */
+    private Integer pageSize;
+
+    /**
+     * Indicates whether this is the last page.
+     */
+    private boolean lastPage;
+
+    /**
+     * The opaque cursor to request the next page with, null on the last page.
+     */
+    private String nextCursor;
+}
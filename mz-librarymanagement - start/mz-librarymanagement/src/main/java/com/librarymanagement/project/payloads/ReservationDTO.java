@@ -0,0 +1,58 @@
+package com.librarymanagement.project.payloads;
+
+import com.librarymanagement.project.models.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) for Reservation entity.
+ * Used to transfer reservation data between different layers of the application.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDTO {
+
+    /**
+     * The unique identifier for the reservation.
+     */
+    private Long reservationId;
+
+    /**
+     * The ID of the reserved book.
+     */
+    private Long bookId;
+
+    /**
+     * The title of the reserved book.
+     */
+    private String title;
+
+    /**
+     * The state of the reservation.
+     */
+    private ReservationStatus status;
+
+    /**
+     * The position in the queue of the book, 1 for the next in line. Null unless waiting.
+     */
+    private Long queuePosition;
+
+    /**
+     * The time the book was reserved.
+     */
+    private LocalDateTime reservedAt;
+
+    /**
+     * The time a copy was held for the user, null while waiting.
+     */
+    private LocalDateTime readyAt;
+
+    /**
+     * The time the hold of the copy runs out, null while waiting.
+     */
+    private LocalDateTime expiresAt;
+}
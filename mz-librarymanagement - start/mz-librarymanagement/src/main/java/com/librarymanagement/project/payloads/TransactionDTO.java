@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 
@@ -26,6 +27,11 @@ public class TransactionDTO {
      */
     private LocalDate borrowedDate;
 
+    /**
+     * The date by which the book has to be returned.
+     */
+    private LocalDate dueDate;
+
     /**
      * The date when the book was returned.
      * This can be null initially until the book is returned.
@@ -38,6 +44,16 @@ public class TransactionDTO {
      */
     private boolean isReturned;
 
+    /**
+     * Shows whether the book was not returned by the due date.
+     */
+    private boolean isOverdue;
+
+    /**
+     * The fine charged for a late return, null if the book was not returned late.
+     */
+    private BigDecimal fine;
+
     /**
      * The book that corresponds to this transaction.
      */
@@ -2,12 +2,32 @@ package com.librarymanagement.project.repositories;
 
 import com.librarymanagement.project.models.Book;
 import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.AvailabilityDTO;
+import com.librarymanagement.project.payloads.BookExportView;
+import com.librarymanagement.project.payloads.BookFacetView;
+import com.librarymanagement.project.payloads.BookSearchView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link Book} entities.
@@ -28,13 +48,124 @@ public interface BookRepository extends JpaRepository<Book, Long>{
 
     /**
      * Finds books by their category with pagination support.
+     * The result is kept in the query cache, until any book is written.
      *
      * @param category The category of the books to retrieve.
      * @param pageDetails The pagination details (e.g., page number and size).
      * @return A {@link Page} of books that belong to the specified category.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Page<Book> findByCategory(Category category, Pageable pageDetails);
 
+    /**
+     * Retrieves a page of all books.
+     * The result is kept in the query cache, until any book is written.
+     *
+     * @param pageDetails The pagination details (e.g., page number and size).
+     * @return A {@link Page} of books.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Page<Book> findAll(Pageable pageDetails);
+
+    /**
+     * Retrieves a window of books after the given keyset position, without counting the total.
+     *
+     * @param position The keyset position to continue from.
+     * @param sort The sort order, the book ID is used as tie-breaker.
+     * @param limit The maximum number of books to retrieve.
+     * @return A {@link Window} of books following the position.
+     */
+    Window<Book> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Retrieves a window of books of a category after the given keyset position, without counting the total.
+     *
+     * @param category The category of the books to retrieve.
+     * @param position The keyset position to continue from.
+     * @param sort The sort order, the book ID is used as tie-breaker.
+     * @param limit The maximum number of books to retrieve.
+     * @return A {@link Window} of books of the category following the position.
+     */
+    Window<Book> findByCategory(Category category, ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Atomically takes one copy of an active book, if a copy is available.
+     * The availability check and the update run as a single conditional statement,
+     * so concurrent borrowers can never take more copies than exist.
+     *
+     * @param bookId The ID of the book to borrow a copy of.
+     * @return 1 if a copy was taken, 0 if the book is inactive or has no copies available.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.copiesAvailable = b.copiesAvailable - 1, b.copiesBorrowed = b.copiesBorrowed + 1 " +
+            "where b.bookId = :bookId and b.isActive = true and b.copiesAvailable > 0")
+    int borrowOneCopy(@Param("bookId") Long bookId);
+
+    /**
+     * Atomically gives back one borrowed copy of a book, if a copy is borrowed.
+     *
+     * @param bookId The ID of the book to return a copy of.
+     * @return 1 if a copy was given back, 0 if the book has no borrowed copies.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.copiesAvailable = b.copiesAvailable + 1, b.copiesBorrowed = b.copiesBorrowed - 1 " +
+            "where b.bookId = :bookId and b.copiesBorrowed > 0")
+    int returnOneCopy(@Param("bookId") Long bookId);
+
+    /**
+     * Takes one available copy of a book out of circulation to hold it for a reservation.
+     *
+     * @param bookId The ID of the book to hold a copy of.
+     * @return 1 if a copy was held, 0 if the book has no copies available.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.copiesAvailable = b.copiesAvailable - 1 where b.bookId = :bookId and b.copiesAvailable > 0")
+    int holdOneCopy(@Param("bookId") Long bookId);
+
+    /**
+     * Lends a held copy of a book, a held copy is neither available nor borrowed.
+     *
+     * @param bookId The ID of the book to lend a held copy of.
+     * @return 1 if the copy was lent, 0 if the book has no held copies.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.copiesBorrowed = b.copiesBorrowed + 1 " +
+            "where b.bookId = :bookId and b.copiesAvailable + b.copiesBorrowed < b.copiesTotal")
+    int borrowHeldCopy(@Param("bookId") Long bookId);
+
+    /**
+     * Puts a held copy of a book back into circulation.
+     *
+     * @param bookId The ID of the book to release a held copy of.
+     * @return 1 if the copy was released, 0 if the book has no held copies.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.copiesAvailable = b.copiesAvailable + 1 " +
+            "where b.bookId = :bookId and b.copiesAvailable + b.copiesBorrowed < b.copiesTotal")
+    int releaseHeldCopy(@Param("bookId") Long bookId);
+
+    /**
+     * Finds a book by its ID and locks its row until the end of the transaction.
+     * Serializes reservations with the returns of the same book, which hold the row through their update.
+     *
+     * @param bookId The ID of the book.
+     * @return An Optional containing the locked book if found, or empty if not found.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Book> findWithLockByBookId(Long bookId);
+
+    /**
+     * Finds books by their IDs and locks their rows until the end of the transaction.
+     * The rows are locked in ID order, so transactions locking overlapping sets of books never deadlock.
+     *
+     * @param bookIds The IDs of the books.
+     * @return The books found, ordered by ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.bookId in :bookIds order by b.bookId")
+    List<Book> findAllWithLockByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+
     /**
      * Finds books by their author name, allowing case-insensitive partial matches.
      * The search term will match any part of the author's name.
@@ -54,4 +185,67 @@ public interface BookRepository extends JpaRepository<Book, Long>{
      * @return A {@link Page} of books whose title matches the search term.
      */
     Page<Book> findByTitleLikeIgnoreCase(String s, Pageable pageDetails);
+
+    /**
+     * Finds the first books whose ID is in the given collection in the given order, without counting them.
+     * Used to sort a bounded chunk of the search results resolved by the in-memory search index.
+     *
+     * @param bookIds The IDs of the books to retrieve.
+     * @param sort The order of the books.
+     * @param limit The maximum number of books to return.
+     * @return The first books with the given IDs.
+     */
+    List<Book> findByBookIdIn(Collection<Long> bookIds, Sort sort, Limit limit);
+
+    /**
+     * Retrieves the ID, title and author of books in slices, without counting the total.
+     * Used to build the search index without loading full book entities.
+     *
+     * @param pageDetails The pagination details (e.g., page number and size).
+     * @return A {@link Slice} of {@link BookSearchView} projections.
+     */
+    @Query("select b.bookId as bookId, b.title as title, b.author as author from Book b")
+    Slice<BookSearchView> findSearchViews(Pageable pageDetails);
+
+    /**
+     * Retrieves the ID, title, author, category and availability of books in slices, in ID order,
+     * without counting the total.
+     * Used to build the facet index without loading full book entities.
+     *
+     * @param pageDetails The pagination details (e.g., page number and size).
+     * @return A {@link Slice} of {@link BookFacetView} projections.
+     */
+    @Query("select b.bookId as bookId, b.title as title, b.author as author, b.category.categoryId as categoryId, " +
+            "b.copiesAvailable as copiesAvailable, b.isActive as active from Book b order by b.bookId")
+    Slice<BookFacetView> findFacetViews(Pageable pageDetails);
+
+    /**
+     * Streams all books with their category in ID order, read with a forward-only cursor.
+     * The rows are fetched from the database in batches of the fetch size and are not kept in the
+     * persistence context or the caches, so the whole catalog can be read in constant memory.
+     * The stream must be consumed within a transaction and closed afterwards.
+     *
+     * @return A {@link Stream} of {@link BookExportView} projections.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select b.bookId as bookId, b.title as title, b.author as author, b.copiesTotal as copiesTotal, " +
+            "b.copiesAvailable as copiesAvailable, b.copiesBorrowed as copiesBorrowed, b.isActive as active, " +
+            "b.description as description, c.categoryId as categoryId, c.categoryName as categoryName " +
+            "from Book b join b.category c order by b.bookId")
+    Stream<BookExportView> streamExportViews();
+
+    /**
+     * Reads the current availability of the given books, bypassing the caches.
+     *
+     * @param bookIds The IDs of the books.
+     * @return The {@link AvailabilityDTO} of each book that exists.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false"))
+    @Query("select new com.librarymanagement.project.payloads.AvailabilityDTO(b.bookId, c.categoryId, " +
+            "b.copiesAvailable, b.copiesTotal, b.isActive) from Book b join b.category c where b.bookId in :bookIds")
+    List<AvailabilityDTO> findAvailabilityByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
 }
@@ -3,7 +3,12 @@ package com.librarymanagement.project.repositories;
 
 import com.librarymanagement.project.models.Book;
 import com.librarymanagement.project.models.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -30,4 +35,15 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return True if the name is already in use false otherwise.
      */
     boolean existsByCategoryNameIgnoreCase(String categoryName);
+
+    /**
+     * Retrieves a page of all categories.
+     * The result is kept in the query cache, until any category is written.
+     *
+     * @param pageDetails The pagination details (e.g., page number and size).
+     * @return A {@link Page} of categories.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Page<Category> findAll(Pageable pageDetails);
 }
@@ -0,0 +1,14 @@
+package com.librarymanagement.project.repositories;
+
+import com.librarymanagement.project.models.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing {@link JobWatermark} entities.
+ * This interface extends {@link JpaRepository} to provide basic CRUD operations for the JobWatermark entity,
+ * the marks are looked up by job name.
+ */
+@Repository
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+}
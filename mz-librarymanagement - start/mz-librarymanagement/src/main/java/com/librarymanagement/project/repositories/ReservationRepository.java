@@ -0,0 +1,78 @@
+package com.librarymanagement.project.repositories;
+
+import com.librarymanagement.project.models.Reservation;
+import com.librarymanagement.project.models.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for managing {@link Reservation} entities.
+ * This interface extends {@link JpaRepository} to provide basic CRUD operations for the Reservation entity.
+ */
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    /**
+     * Finds the first reservation of a book in the given state, in queue order.
+     *
+     * @param bookId the ID of the reserved book.
+     * @param status the state of the reservation.
+     * @return an Optional containing the first reservation if found, or empty if not found.
+     */
+    Optional<Reservation> findFirstByBook_BookIdAndStatusOrderByReservationIdAsc(Long bookId, ReservationStatus status);
+
+    /**
+     * Finds the reservation of a book by a user in the given state.
+     *
+     * @param userId the ID of the user who reserved the book.
+     * @param bookId the ID of the reserved book.
+     * @param status the state of the reservation.
+     * @return an Optional containing the reservation if found, or empty if not found.
+     */
+    Optional<Reservation> findByUser_UserIdAndBook_BookIdAndStatus(Long userId, Long bookId, ReservationStatus status);
+
+    /**
+     * Checks whether a user has a reservation of a book in any of the given states.
+     *
+     * @param userId the ID of the user who reserved the book.
+     * @param bookId the ID of the reserved book.
+     * @param statuses the states to look for.
+     * @return true if such a reservation exists, false otherwise.
+     */
+    boolean existsByUser_UserIdAndBook_BookIdAndStatusIn(Long userId, Long bookId, Collection<ReservationStatus> statuses);
+
+    /**
+     * Finds the reservations of a user in any of the given states, oldest first.
+     *
+     * @param userId the ID of the user.
+     * @param statuses the states to look for.
+     * @return the reservations of the user.
+     */
+    List<Reservation> findByUser_UserIdAndStatusInOrderByReservationIdAsc(Long userId, Collection<ReservationStatus> statuses);
+
+    /**
+     * Counts the reservations of a book in the given state that are ahead of a reservation in the queue.
+     *
+     * @param bookId the ID of the reserved book.
+     * @param status the state of the reservations to count.
+     * @param reservationId the ID of the reservation whose position is counted.
+     * @return the number of reservations ahead.
+     */
+    long countByBook_BookIdAndStatusAndReservationIdLessThan(Long bookId, ReservationStatus status, Long reservationId);
+
+    /**
+     * Finds reservations in the given state whose hold ran out before the given time, in ID order after the given ID.
+     *
+     * @param status the state of the reservations.
+     * @param time the time the holds must have run out before.
+     * @param reservationId the ID to continue after.
+     * @return the reservations, at most 100.
+     */
+    List<Reservation> findTop100ByStatusAndExpiresAtBeforeAndReservationIdGreaterThanOrderByReservationIdAsc(
+            ReservationStatus status, LocalDateTime time, Long reservationId);
+}
@@ -4,7 +4,10 @@ package com.librarymanagement.project.repositories;
 import com.librarymanagement.project.models.AppRole;
 import com.librarymanagement.project.models.Role;
 import com.librarymanagement.project.models.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -22,6 +25,7 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
      * @param appRole The name of the role to search for.
      * @return An Optional containing the Role if found, or an empty Optional if no role is found.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Role> findByRoleName(AppRole appRole);
 
 }
\ No newline at end of file
@@ -2,9 +2,17 @@ package com.librarymanagement.project.repositories;
 
 import com.librarymanagement.project.models.Category;
 import com.librarymanagement.project.models.Transaction;
+import com.librarymanagement.project.payloads.LoanDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -17,11 +25,105 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     /**
      * Finds an active (not returned) transaction by user ID and book ID.
+     * The conditions are on the foreign key columns, without joining the user and the book,
+     * so the lookup is a seek on the (user_id, book_id, is_returned) index.
      *
      * @param userId the ID of the user who borrowed the book.
      * @param bookId the ID of the book that was borrowed.
      * @return an Optional containing the transaction if found, or empty if not found.
      */
-    Optional<Transaction> findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(Long userId, Long bookId);
+    @Query("select t from Transaction t " +
+            "where t.user.userId = :userId and t.book.bookId = :bookId and t.isReturned = false")
+    Optional<Transaction> findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(@Param("userId") Long userId,
+                                                                          @Param("bookId") Long bookId);
+
+    /**
+     * Finds the active (not returned) transactions of a user for any of the given books.
+     * Like the lookup of a single book, the conditions are on the foreign key columns only.
+     *
+     * @param userId the ID of the user who borrowed the books.
+     * @param bookIds the IDs of the books.
+     * @return the active transactions of the user for the books, at most one per book.
+     */
+    @Query("select t from Transaction t " +
+            "where t.user.userId = :userId and t.book.bookId in :bookIds and t.isReturned = false")
+    List<Transaction> findOpenLoansByUserIdAndBookIdIn(@Param("userId") Long userId,
+                                                       @Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Checks whether a user has an active (not returned) transaction of a book.
+     * Only the (user_id, book_id, is_returned) index is read, the transaction itself is not loaded.
+     * A user has at most one active transaction of a book, so the count is 0 or 1.
+     *
+     * @param userId the ID of the user who borrowed the book.
+     * @param bookId the ID of the book that was borrowed.
+     * @return true if the user has the book borrowed, false otherwise.
+     */
+    @Query("select count(t) > 0 from Transaction t " +
+            "where t.user.userId = :userId and t.book.bookId = :bookId and t.isReturned = false")
+    boolean existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(@Param("userId") Long userId,
+                                                              @Param("bookId") Long bookId);
+
+    /**
+     * Finds the newest loans of a user, for the first page of the borrowing history.
+     * The loans are read with the title and author of their book in a single query, ordered by the
+     * (user_id, borrowed_date, transaction_id) index, so no entity is loaded and the read stops after the limit.
+     *
+     * @param userId the ID of the user.
+     * @param limit the maximum number of loans to return.
+     * @return the loans of the user, newest first.
+     */
+    @Query("select new com.librarymanagement.project.payloads.LoanDTO(t.transactionId, b.bookId, b.title, b.author, " +
+            "t.borrowedDate, t.dueDate, t.returnedDate, t.isReturned, t.isOverdue, t.fine) from Transaction t join t.book b " +
+            "where t.user.userId = :userId " +
+            "order by t.borrowedDate desc, t.transactionId desc")
+    List<LoanDTO> findLoansByUserId(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * Finds the loans of a user that are older than the given loan, for the next page of the borrowing history.
+     * Seeks past the last loan of the previous page on the (user_id, borrowed_date, transaction_id) index
+     * instead of skipping an offset, so every page costs the same however deep it is.
+     *
+     * @param userId the ID of the user.
+     * @param borrowedDate the borrowed date of the last loan of the previous page.
+     * @param transactionId the transaction ID of the last loan of the previous page.
+     * @param limit the maximum number of loans to return.
+     * @return the older loans of the user, newest first.
+     */
+    @Query("select new com.librarymanagement.project.payloads.LoanDTO(t.transactionId, b.bookId, b.title, b.author, " +
+            "t.borrowedDate, t.dueDate, t.returnedDate, t.isReturned, t.isOverdue, t.fine) from Transaction t join t.book b " +
+            "where t.user.userId = :userId and (t.borrowedDate < :borrowedDate " +
+            "or (t.borrowedDate = :borrowedDate and t.transactionId < :transactionId)) " +
+            "order by t.borrowedDate desc, t.transactionId desc")
+    List<LoanDTO> findLoansByUserIdAfter(@Param("userId") Long userId,
+                                         @Param("borrowedDate") LocalDate borrowedDate,
+                                         @Param("transactionId") Long transactionId,
+                                         Limit limit);
+
+    /**
+     * Finds the open loans that fell due in the given range and are not flagged overdue yet, in due date order.
+     * The conditions and the order follow the (is_returned, is_overdue, due_date, transaction_id) index,
+     * so only the loans to flag are read, however many returned or flagged loans the table holds.
+     *
+     * @param after the due dates up to this date are already scanned.
+     * @param until the last due date to scan, inclusive.
+     * @param limit the maximum number of loans to return.
+     * @return the IDs of the newly overdue loans.
+     */
+    @Query("select t.transactionId from Transaction t " +
+            "where t.isReturned = false and t.isOverdue = false and t.dueDate > :after and t.dueDate <= :until " +
+            "order by t.dueDate, t.transactionId")
+    List<Long> findNewlyOverdueIds(@Param("after") LocalDate after, @Param("until") LocalDate until, Limit limit);
+
+    /**
+     * Flags the given loans overdue, unless they were returned in the meantime.
+     *
+     * @param transactionIds the IDs of the loans to flag.
+     * @return the number of loans flagged.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Transaction t set t.isOverdue = true " +
+            "where t.transactionId in :transactionIds and t.isReturned = false")
+    int flagOverdue(@Param("transactionIds") Collection<Long> transactionIds);
 
 }
@@ -35,9 +35,15 @@ public class DataInitializer {
      * This method is called after the bean is created to initialize the default roles and users.
      * It checks whether the roles (USER and ADMIN) exist and creates them if necessary.
      * It also creates the default users (user1 and admin) and assigns the appropriate roles.
+     * When a persistent database already holds the roles and users, nothing is done, so a restart
+     * neither rewrites them nor spends time on hashing the default passwords.
      */
     @PostConstruct
     public void init(){
+        if (isSeeded()) {
+            return;
+        }
+
         // Create user and admin roles
         Role userRole = roleRepository.findByRoleName(AppRole.ROLE_USER)
                     .orElseGet(() -> {
@@ -78,4 +84,15 @@ public class DataInitializer {
             userRepository.save(admin);
         });
     }
+
+    /**
+     * Checks whether the default roles and users have been created by an earlier start.
+     *
+     * @return true if all roles and both default users exist, false otherwise.
+     */
+    private boolean isSeeded() {
+        return roleRepository.count() >= AppRole.values().length
+                && userRepository.existsByUserName("user1")
+                && userRepository.existsByUserName("admin");
+    }
 }
@@ -10,6 +10,7 @@ import com.librarymanagement.project.security.jwt.AuthTokenFilter;
 import com.librarymanagement.project.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -44,6 +45,21 @@ public class WebSecurityConfig {
         return new AuthTokenFilter();
     }
 
+    /**
+     * Keeps the JWT filter out of the servlet filter chain.
+     * As a filter bean it would otherwise be registered by Spring Boot as well, and run in addition
+     * to its place in the security filter chain.
+     *
+     * @param authTokenFilter the JWT filter
+     * @return a disabled registration of the JWT filter
+     */
+    @Bean
+    public FilterRegistrationBean<AuthTokenFilter> authenticationJwtTokenFilterRegistration(AuthTokenFilter authTokenFilter) {
+        FilterRegistrationBean<AuthTokenFilter> registration = new FilterRegistrationBean<>(authTokenFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
 
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
@@ -89,11 +105,14 @@ public class WebSecurityConfig {
                                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                                 .requestMatchers("/api/borrow/**").hasRole("USER")
                                 .requestMatchers("/api/return/**").hasRole("USER")
+                                .requestMatchers("/api/reservations", "/api/reservations/**").hasRole("USER")
                                 .requestMatchers("/error").permitAll()
                                 .requestMatchers("/h2-console/**").permitAll()
                                 .requestMatchers("/api/test/**").permitAll()
                                 .requestMatchers("/swagger-ui/**").permitAll()
                                 .requestMatchers("/v3/api-docs/**").permitAll()
+                                .requestMatchers("/actuator/health").permitAll()
+                                .requestMatchers("/actuator/prometheus").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 );
 
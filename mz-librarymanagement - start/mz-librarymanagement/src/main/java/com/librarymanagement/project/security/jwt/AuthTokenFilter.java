@@ -1,5 +1,7 @@
 package com.librarymanagement.project.security.jwt;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,27 +9,46 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A customized filter processing the JWT token from incoming requests.
+ * It is only registered in the security filter chain, see {@link com.librarymanagement.project.security.WebSecurityConfig}.
  */
-@Component
 public class AuthTokenFilter extends OncePerRequestFilter {
+
+    /**
+     * The name of the timer the token handling of each request is recorded in, tagged with its outcome.
+     */
+    public static final String METRIC_NAME = "library.auth.filter";
+
     @Autowired
     private JwtUtils jwtUtils;
 
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Whether to build the user details from the token claims instead of loading the user from the database.
+     */
+    @Value("${spring.app.jwtStateless:false}")
+    private boolean stateless;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -37,12 +58,23 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         logger.debug("AuthTokenFilter called for URI: {}", request.getRequestURI());
 
+        long start = System.nanoTime();
+        String outcome = "anonymous";
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            if (jwt != null && claims == null) {
+                outcome = "invalid";
+            } else if (claims != null && tokenRevocationList.isRevoked(claims)) {
+                outcome = "revoked";
+            } else if (claims != null) {
+                String username = claims.getSubject();
+
+                // Trust the roles of the token in stateless mode, tokens without them still go to the database
+                UserDetails userDetails = stateless ? jwtUtils.getUserDetailsFromClaims(claims) : null;
+                if (userDetails == null) {
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                }
 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails,
@@ -53,10 +85,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                outcome = "authenticated";
             }
         } catch (Exception e) {
+            outcome = "error";
             logger.error("Cannot set user authentication: {}", e);
         }
+        meterRegistry.timer(METRIC_NAME, "outcome", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
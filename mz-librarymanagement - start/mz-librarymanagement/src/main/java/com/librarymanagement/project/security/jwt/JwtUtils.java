@@ -1,21 +1,28 @@
 package com.librarymanagement.project.security.jwt;
 
+import com.librarymanagement.project.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Utility class handling the creation, parsing, and validation of JWT tokens.
@@ -24,12 +31,41 @@ import java.util.Date;
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    /**
+     * The claim holding the ID of the user.
+     */
+    public static final String CLAIM_USER_ID = "id";
+
+    /**
+     * The claim holding the role names of the user.
+     */
+    public static final String CLAIM_ROLES = "roles";
+
     @Value("${spring.app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${spring.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    /**
+     * The signing key, derived once from the secret.
+     */
+    private SecretKey key;
+
+    /**
+     * The parser verifying tokens against the signing key, built once and shared, it is thread-safe.
+     */
+    private JwtParser jwtParser;
+
+    /**
+     * Derives the signing key from the secret and builds the token parser once at startup.
+     */
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        jwtParser = Jwts.parser().verifyWith(key).build();
+    }
+
     /**
      * Extracts the JWT token from the "Authorization" header of the HTTP request.
      *
@@ -47,20 +83,48 @@ public class JwtUtils {
 
     /**
      * Generates a JWT token based on the username of the user details provided.
+     * The user ID and roles are embedded as claims, so requests can be authorized from the token alone.
+     * Each token gets a unique ID so it can be revoked on its own.
      *
      * @param userDetails the user details object containing the username
      * @return the generated JWT token as a String
      */
     public String generateTokenFromUsername(UserDetails userDetails) {
         String username = userDetails.getUsername();
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        Long userId = userDetails instanceof UserDetailsImpl user ? user.getId() : null;
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ROLES, roles)
                 .issuedAt(new Date())
                 .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(key())
                 .compact();
     }
 
+    /**
+     * Builds the user details of a request straight from the claims of its token, without a database lookup.
+     * The email and password are not part of the token and are left empty.
+     *
+     * @param claims the claims of a validated token
+     * @return the user details, or null if the token was issued without user ID and roles claims
+     */
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        Object userId = claims.get(CLAIM_USER_ID);
+        Object roles = claims.get(CLAIM_ROLES);
+        if (!(userId instanceof Number id) || !(roles instanceof List<?> roleNames)) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = roleNames.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+        return new UserDetailsImpl(id.longValue(), claims.getSubject(), null, null, authorities);
+    }
+
     /**
      * Extracts the username from the given JWT token.
      *
@@ -68,21 +132,18 @@ public class JwtUtils {
      * @return the username extracted from the token
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                        .verifyWith((SecretKey) key())
-                .build().parseSignedClaims(token)
+        return jwtParser.parseSignedClaims(token)
                 .getPayload().getSubject();
     }
 
     /**
      * Returns the signing key used to sign and verify JWT tokens.
-     * The key is generated using the secret stored in the application properties.
+     * The key is derived once from the secret stored in the application properties.
      *
      * @return the secret key used for signing and verifying the JWT token
      */
-    private Key key() {
-
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    private SecretKey key() {
+        return key;
     }
 
     /**
@@ -92,9 +153,18 @@ public class JwtUtils {
      * @return true if the token is valid, false otherwise
      */
     public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+
+    /**
+     * Validates the given JWT token and extracts its claims with a single parse.
+     *
+     * @param authToken the JWT token to be validated
+     * @return the claims of the token if it is valid, null otherwise
+     */
+    public Claims parseClaims(String authToken) {
         try {
-            Jwts.parser().verifyWith((SecretKey) key()).build().parseSignedClaims(authToken);
-            return true;
+            return jwtParser.parseSignedClaims(authToken).getPayload();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -104,6 +174,6 @@ public class JwtUtils {
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 }
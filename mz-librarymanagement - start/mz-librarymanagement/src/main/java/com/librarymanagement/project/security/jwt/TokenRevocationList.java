@@ -0,0 +1,98 @@
+package com.librarymanagement.project.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory list of revoked JWT tokens, checked by {@link AuthTokenFilter} on every request.
+ * A single token can be revoked by its ID, or all tokens of a user issued up to now can be revoked at once,
+ * e.g. when the roles embedded in them are no longer valid.
+ * Entries are only kept for the lifetime of a token, after which the token is rejected as expired anyway,
+ * so the list stays small.
+ */
+@Component
+public class TokenRevocationList {
+
+    @Value("${spring.app.jwtExpirationMs}")
+    private long jwtExpirationMs;
+
+    /**
+     * Revoked token IDs, mapped to the expiration time of the token in milliseconds.
+     */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * Usernames mapped to the time, in milliseconds, up to which all their tokens are revoked.
+     */
+    private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    /**
+     * Revokes a single token.
+     *
+     * @param claims the claims of the token to revoke
+     */
+    public void revokeToken(Claims claims) {
+        purgeExpired();
+        if (claims.getId() == null) {
+            // Tokens without an ID cannot be told apart, revoke all tokens of the user instead
+            revokeUser(claims.getSubject());
+            return;
+        }
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null ? expiration.getTime() : System.currentTimeMillis() + jwtExpirationMs;
+        revokedTokens.put(claims.getId(), expiresAt);
+    }
+
+    /**
+     * Revokes all tokens of a user issued up to now.
+     * Token issue times only have a precision of seconds, so tokens issued later within the current
+     * second are revoked as well.
+     *
+     * @param username the name of the user whose tokens are revoked
+     */
+    public void revokeUser(String username) {
+        purgeExpired();
+        revokedUsers.put(username, System.currentTimeMillis());
+    }
+
+    /**
+     * Checks whether a token has been revoked.
+     *
+     * @param claims the claims of the token to check
+     * @return true if the token or all tokens of its user have been revoked, false otherwise
+     */
+    public boolean isRevoked(Claims claims) {
+        if (claims.getId() != null && revokedTokens.containsKey(claims.getId())) {
+            return true;
+        }
+        Long revokedUpTo = revokedUsers.get(claims.getSubject());
+        if (revokedUpTo == null) {
+            return false;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.getTime() <= revokedUpTo;
+    }
+
+    /**
+     * Returns the number of revocation entries currently held.
+     *
+     * @return the number of revoked tokens and users
+     */
+    public int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    /**
+     * Drops the entries of tokens that have expired since they were revoked.
+     */
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + jwtExpirationMs < now);
+    }
+}
@@ -38,4 +38,12 @@ public interface AuthService {
      * @return a MessageResponse containing a success or error message.
      */
     MessageResponse signupAdmin(@Valid SignupRequest signUpRequest);
+
+    /**
+     * Signs out the current user by revoking the JWT token of the request.
+     *
+     * @param jwtToken the JWT token to revoke.
+     * @return a MessageResponse containing a success message.
+     */
+    MessageResponse signout(String jwtToken);
 }
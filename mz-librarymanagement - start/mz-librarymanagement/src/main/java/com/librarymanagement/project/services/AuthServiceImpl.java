@@ -3,6 +3,7 @@ package com.librarymanagement.project.services;
 
 import com.librarymanagement.project.exceptions.BusinessException;
 import com.librarymanagement.project.exceptions.ResourceNotFoundException;
+import com.librarymanagement.project.exceptions.ValidationException;
 import com.librarymanagement.project.models.AppRole;
 import com.librarymanagement.project.models.Book;
 import com.librarymanagement.project.models.Role;
@@ -11,6 +12,7 @@ import com.librarymanagement.project.repositories.RoleRepository;
 import com.librarymanagement.project.repositories.UserRepository;
 import com.librarymanagement.project.security.jwt.*;
 import com.librarymanagement.project.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -48,6 +50,12 @@ public class AuthServiceImpl implements  AuthService{
     @Autowired
     private PasswordEncoder encoder;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
     /**
      * Authenticates a user and generates a JWT token.
      *
@@ -108,6 +116,7 @@ public class AuthServiceImpl implements  AuthService{
         user.setRoles(Collections.singleton(userRole));
 
         userRepository.save(user);
+        userDetailsService.evictUser(user.getUserName());
         return new MessageResponse("User registered successfully!");
     }
 
@@ -145,7 +154,28 @@ public class AuthServiceImpl implements  AuthService{
         user.setRoles(roles);
 
         userRepository.save(user);
+        userDetailsService.evictUser(user.getUserName());
 
         return new MessageResponse("Admin registered successfully!");
     }
+
+    /**
+     * Signs out the current user by revoking the JWT token of the request.
+     * The token is rejected by later requests until it expires.
+     *
+     * @param jwtToken the JWT token to revoke.
+     * @return a MessageResponse containing a success message.
+     * @throws ValidationException if the token is missing or invalid.
+     */
+    @Override
+    public MessageResponse signout(String jwtToken) {
+        Claims claims = jwtToken != null ? jwtUtils.parseClaims(jwtToken) : null;
+        if (claims == null) {
+            throw new ValidationException("No valid token to sign out");
+        }
+
+        tokenRevocationList.revokeToken(claims);
+        SecurityContextHolder.clearContext();
+        return new MessageResponse("User signed out successfully!");
+    }
 }
@@ -0,0 +1,371 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.exceptions.ValidationException;
+import com.librarymanagement.project.payloads.AvailabilityDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the availability of books to clients subscribed over server-sent events.
+ * <p>
+ * Services publish an {@link AvailabilityChangedEvent} when they change the copies of a book. Once the change is
+ * committed the book is marked dirty, and a single flush thread reads the current copies of all dirty books in one
+ * query, overlaid with the counters of the {@link AvailabilityTable}, and hands them to the subscribers of the book
+ * or its category. Because the copies are read after the commit by one thread, the last event of a book always
+ * carries its committed state, and a burst of changes to a popular book costs one read.
+ * <p>
+ * Every subscriber keeps at most {@link #MAX_PENDING_PER_SUBSCRIBER} pending books, a newer state of a pending book
+ * replaces the older one. The pending books are written by a small pool of sender threads, so the flush never waits
+ * on a client. A subscriber that falls further behind is disconnected, and its client reconnects and starts over.
+ * Idle subscribers hold no thread, only their emitter and filters.
+ */
+@Component
+public class AvailabilityBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityBroadcaster.class);
+
+    /**
+     * The maximum number of books with an unsent change per subscriber.
+     */
+    static final int MAX_PENDING_PER_SUBSCRIBER = 256;
+
+    /**
+     * The maximum number of book and category IDs one subscription may filter on.
+     */
+    static final int MAX_FILTER_IDS = 1000;
+
+    /**
+     * The maximum number of dirty books read with one query.
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    /**
+     * The time after which a stream is closed, its client reconnects.
+     */
+    @Value("${spring.app.availability.streamTimeoutMs:1800000}")
+    private long streamTimeoutMs;
+
+    /**
+     * The maximum number of open streams.
+     */
+    @Value("${spring.app.availability.maxSubscribers:10000}")
+    private int maxSubscribers;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Set<Subscriber> unfiltered = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Set<Subscriber>> byBook = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Subscriber>> byCategory = new ConcurrentHashMap<>();
+
+    private final Set<Long> dirtyBooks = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ExecutorService flusher =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("availability-flush-"));
+
+    private final ExecutorService senders;
+
+    public AvailabilityBroadcaster(@Value("${spring.app.availability.senderThreads:4}") int senderThreads) {
+        this.senders = Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("availability-send-"));
+    }
+
+    /**
+     * Opens a stream of availability changes for the given books and categories.
+     * Without any filter the changes of all books are streamed.
+     * The current availability of the given books is sent first, so the client starts from a consistent state.
+     *
+     * @param bookIds the IDs of the books to stream, may be empty.
+     * @param categoryIds the IDs of the categories whose books to stream, may be empty.
+     * @return the emitter of the stream.
+     * @throws ValidationException if the filters hold too many IDs.
+     * @throws ResponseStatusException if too many streams are open.
+     */
+    public SseEmitter subscribe(Collection<Long> bookIds, Collection<Long> categoryIds) {
+        Set<Long> books = bookIds == null ? Set.of() : Set.copyOf(bookIds);
+        Set<Long> categories = categoryIds == null ? Set.of() : Set.copyOf(categoryIds);
+        if (books.size() + categories.size() > MAX_FILTER_IDS) {
+            throw new ValidationException("At most " + MAX_FILTER_IDS + " book and category IDs can be subscribed");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many availability subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, books, categories);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        if (books.isEmpty() && categories.isEmpty()) {
+            unfiltered.add(subscriber);
+        }
+        books.forEach(bookId -> byBook.computeIfAbsent(bookId, id -> ConcurrentHashMap.newKeySet()).add(subscriber));
+        categories.forEach(categoryId ->
+                byCategory.computeIfAbsent(categoryId, id -> ConcurrentHashMap.newKeySet()).add(subscriber));
+
+        if (!books.isEmpty()) {
+            readAvailability(books).forEach(subscriber::offer);
+        }
+        return emitter;
+    }
+
+    /**
+     * Marks the book of the event dirty once its transaction is committed, or right away without a transaction.
+     * Never blocks, the copies are read and sent by other threads.
+     *
+     * @param event the changed book.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dirtyBooks.add(event.bookId());
+        if (flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Sends a comment to every stream, so connections closed by the client are noticed and released.
+     */
+    @Scheduled(fixedDelayString = "${spring.app.availability.heartbeatMs:30000}",
+            initialDelayString = "${spring.app.availability.heartbeatMs:30000}")
+    public void sendHeartbeats() {
+        subscribers.forEach(Subscriber::ping);
+    }
+
+    /**
+     * Returns the number of open streams.
+     *
+     * @return the number of subscribers.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Stops the flush and sender threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Reads the current availability of the dirty books and hands it to their subscribers.
+     */
+    private void flush() {
+        // Reset first, a book marked dirty from now on schedules another flush
+        flushScheduled.set(false);
+        List<Long> batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+        Iterator<Long> dirty = dirtyBooks.iterator();
+        while (dirty.hasNext()) {
+            batch.add(dirty.next());
+            dirty.remove();
+            if (batch.size() == FLUSH_BATCH_SIZE || !dirty.hasNext()) {
+                try {
+                    readAvailability(batch).forEach(this::publish);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not read the availability of books {}", batch, e);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Reads the current availability of books, with the copies of the availability table.
+     *
+     * @param bookIds the IDs of the books.
+     * @return the availability of each book that exists.
+     */
+    private List<AvailabilityDTO> readAvailability(Collection<Long> bookIds) {
+        List<AvailabilityDTO> availabilities = bookRepository.findAvailabilityByBookIdIn(bookIds);
+        availabilities.forEach(availabilityTable::applyTo);
+        return availabilities;
+    }
+
+    /**
+     * Hands the availability of a book to the subscribers of the book, of its category and of all books.
+     *
+     * @param availability the current availability of the book.
+     */
+    private void publish(AvailabilityDTO availability) {
+        offerAll(byBook.get(availability.getBookId()), availability);
+        offerAll(byCategory.get(availability.getCategoryId()), availability);
+        offerAll(unfiltered, availability);
+    }
+
+    private void offerAll(Set<Subscriber> targets, AvailabilityDTO availability) {
+        if (targets != null) {
+            targets.forEach(subscriber -> subscriber.offer(availability));
+        }
+    }
+
+    /**
+     * Removes a subscriber from the indexes, once its stream is closed.
+     *
+     * @param subscriber the subscriber.
+     */
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        unfiltered.remove(subscriber);
+        subscriber.bookIds.forEach(bookId -> byBook.computeIfPresent(bookId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        }));
+        subscriber.categoryIds.forEach(categoryId -> byCategory.computeIfPresent(categoryId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        }));
+    }
+
+    /**
+     * An open stream, with its filters and the books waiting to be sent to it.
+     * At most one sender thread drains a subscriber at a time, so its events stay in order.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Set<Long> bookIds;
+
+        private final Set<Long> categoryIds;
+
+        /**
+         * The latest unsent availability per book, guarded by this subscriber.
+         */
+        private final Map<Long, AvailabilityDTO> pending = new LinkedHashMap<>();
+
+        private boolean heartbeatPending;
+
+        private boolean draining;
+
+        private Subscriber(SseEmitter emitter, Set<Long> bookIds, Set<Long> categoryIds) {
+            this.emitter = emitter;
+            this.bookIds = bookIds;
+            this.categoryIds = categoryIds;
+        }
+
+        /**
+         * Queues the availability of a book, replacing an unsent older state of the same book.
+         *
+         * @param availability the availability of the book.
+         */
+        private void offer(AvailabilityDTO availability) {
+            boolean overflow;
+            synchronized (this) {
+                pending.put(availability.getBookId(), availability);
+                overflow = pending.size() > MAX_PENDING_PER_SUBSCRIBER;
+                if (overflow) {
+                    pending.clear();
+                }
+            }
+            if (overflow) {
+                // Too slow to keep up, let the client reconnect instead of buffering without bound
+                logger.debug("Closing an availability stream that fell {} books behind", MAX_PENDING_PER_SUBSCRIBER);
+                unsubscribe(this);
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        /**
+         * Queues a heartbeat comment.
+         */
+        private void ping() {
+            synchronized (this) {
+                heartbeatPending = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            synchronized (this) {
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        /**
+         * Sends the queued events until none are left. Runs on a sender thread.
+         */
+        private void drain() {
+            while (true) {
+                List<AvailabilityDTO> events;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (pending.isEmpty() && !heartbeatPending) {
+                        draining = false;
+                        return;
+                    }
+                    events = new ArrayList<>(pending.values());
+                    pending.clear();
+                    heartbeat = heartbeatPending;
+                    heartbeatPending = false;
+                }
+                try {
+                    for (AvailabilityDTO availability : events) {
+                        emitter.send(SseEmitter.event()
+                                .name("availability")
+                                .data(availability));
+                    }
+                    if (heartbeat) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client is gone or the stream was completed
+                    unsubscribe(this);
+                    emitter.completeWithError(e);
+                    synchronized (this) {
+                        pending.clear();
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.librarymanagement.project.services;
+
+/**
+ * Published when the available copies of a book may have changed, so the availability stream can push them.
+ * It only names the book, the current copies are read once the change is committed.
+ *
+ * @param bookId the ID of the changed book.
+ */
+public record AvailabilityChangedEvent(Long bookId) {
+}
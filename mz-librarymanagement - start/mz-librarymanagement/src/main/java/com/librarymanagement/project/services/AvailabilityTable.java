@@ -0,0 +1,490 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.payloads.AvailabilityDTO;
+import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the copies of the books in memory, so borrows and returns no longer write the row of the book.
+ * <p>
+ * Every book that was borrowed, returned, held or edited since startup has a cell of counters in the table, loaded on
+ * first use. The changes of the copies are checked and applied to the cell atomically, under the same
+ * conditions as the conditional updates of {@link BookRepository}, and undone if their transaction rolls back.
+ * Changed cells are written back to the {@code copies_available} and {@code copies_borrowed} columns in JDBC batches
+ * every {@code spring.app.availabilityTable.flushMs}, bypassing Hibernate, so the cached pages of the catalog stay
+ * valid and the listings overlay the copies of the table on the cached books.
+ * <p>
+ * The loans and the reservations are the journal of the counters: each change of the copies commits together with the
+ * loan or reservation that caused it. A cell is therefore loaded from the copies total of the book, its open loans and
+ * its held reservations rather than from the copies columns, and written back if the columns differ, so the changes
+ * that were not written back before a crash are recovered book by book, without a pass over the whole catalog at
+ * startup. Until a book is used again its listings may show the columns of before the crash. The table is local to
+ * the instance, like the book locks, and needs all borrows and returns of a book to go through one instance.
+ * With {@code spring.app.availabilityTable.enabled} set to false, every change is a conditional update of the row.
+ * <p>
+ * Every write-back is recorded in the {@value #FLUSH_METRIC_NAME} timer and the number of rows written in the
+ * {@value #FLUSH_ROWS_METRIC_NAME} summary.
+ */
+@Component
+public class AvailabilityTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityTable.class);
+
+    /**
+     * The name of the timer the duration of each write-back is recorded in.
+     */
+    public static final String FLUSH_METRIC_NAME = "library.availability.flush";
+
+    /**
+     * The name of the summary the number of rows written by each write-back is recorded in.
+     */
+    public static final String FLUSH_ROWS_METRIC_NAME = "library.availability.flush.rows";
+
+    /**
+     * Reads the copies of a book from its open loans and held copies, the journal of the counters, next to its columns.
+     */
+    private static final String LOAD_SQL = "select b.copies_total, " +
+            "(select count(*) from transactions t where t.book_id = b.book_id and t.is_returned = false), " +
+            "(select count(*) from reservations r where r.book_id = b.book_id and r.status = 'READY'), " +
+            "b.copies_available, b.copies_borrowed " +
+            "from books b where b.book_id = ?";
+
+    private static final String FLUSH_SQL =
+            "update books set copies_available = ?, copies_borrowed = ? where book_id = ?";
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Whether the copies are kept in memory, otherwise every change updates the row of the book.
+     */
+    @Value("${spring.app.availabilityTable.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * The maximum number of rows written back per JDBC batch.
+     */
+    @Value("${spring.app.availabilityTable.flushBatchSize:500}")
+    private int flushBatchSize = 500;
+
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+
+    private final Set<Long> dirtyBooks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Writes the changed copies back before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Returns whether the copies are kept in memory.
+     *
+     * @return true if the table is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes one available copy of a book for a loan.
+     *
+     * @param bookId the ID of the book.
+     * @return true if a copy was taken, false if the book has no copies available.
+     */
+    public boolean borrowOneCopy(Long bookId) {
+        return apply(bookId, Change.BORROW);
+    }
+
+    /**
+     * Gives back one borrowed copy of a book.
+     *
+     * @param bookId the ID of the book.
+     * @return true if a copy was given back, false if the book has no borrowed copies.
+     */
+    public boolean returnOneCopy(Long bookId) {
+        return apply(bookId, Change.RETURN);
+    }
+
+    /**
+     * Takes one available copy of a book out of circulation to hold it for a reservation.
+     *
+     * @param bookId the ID of the book.
+     * @return true if a copy was held, false if the book has no copies available.
+     */
+    public boolean holdOneCopy(Long bookId) {
+        return apply(bookId, Change.HOLD);
+    }
+
+    /**
+     * Lends a held copy of a book.
+     *
+     * @param bookId the ID of the book.
+     * @return true if the copy was lent, false if the book has no held copies.
+     */
+    public boolean borrowHeldCopy(Long bookId) {
+        return apply(bookId, Change.BORROW_HELD);
+    }
+
+    /**
+     * Puts a held copy of a book back into circulation.
+     *
+     * @param bookId the ID of the book.
+     * @return true if the copy was released, false if the book has no held copies.
+     */
+    public boolean releaseHeldCopy(Long bookId) {
+        return apply(bookId, Change.RELEASE_HELD);
+    }
+
+    /**
+     * Copies the current copies of a book from the table onto the book, loading its cell if the table does not hold
+     * it yet, so the copies of a book about to be changed always come from the journal.
+     *
+     * @param book the book, loaded from the cache or the database.
+     */
+    public void copyTo(Book book) {
+        Counters cell = enabled ? cell(book.getBookId()) : null;
+        if (cell != null) {
+            synchronized (cell) {
+                book.setCopiesTotal(cell.total);
+                book.setCopiesAvailable(cell.available);
+                book.setCopiesBorrowed(cell.borrowed);
+            }
+        }
+    }
+
+    /**
+     * Copies the current copies of a book from the table onto a book loaded by a borrow, return or reservation,
+     * and marks the book read only in the persistence context. The loan changes the copies of the loaded book to
+     * answer with them, which must not be flushed to the row, the table writes the copies back itself.
+     *
+     * @param book the book, loaded in the current transaction.
+     */
+    public void copyToReadOnly(Book book) {
+        copyTo(book);
+        if (enabled) {
+            entityManager.unwrap(Session.class).setReadOnly(book, true);
+        }
+    }
+
+    /**
+     * Copies the current copies of a book from the table onto its DTO, if the table holds them.
+     *
+     * @param bookDTO the DTO of the book.
+     */
+    public void applyTo(BookDTO bookDTO) {
+        Counters cell = enabled ? counters.get(bookDTO.getBookId()) : null;
+        if (cell != null) {
+            synchronized (cell) {
+                bookDTO.setCopiesTotal(cell.total);
+                bookDTO.setCopiesAvailable(cell.available);
+                bookDTO.setCopiesBorrowed(cell.borrowed);
+            }
+        }
+    }
+
+    /**
+     * Copies the current copies of a book from the table onto its availability, if the table holds them.
+     *
+     * @param availability the availability of the book.
+     */
+    public void applyTo(AvailabilityDTO availability) {
+        Counters cell = enabled ? counters.get(availability.getBookId()) : null;
+        if (cell != null) {
+            synchronized (cell) {
+                availability.setCopiesTotal(cell.total);
+                availability.setCopiesAvailable(cell.available);
+            }
+        }
+    }
+
+    /**
+     * Returns the available copies of a book, if the table holds them.
+     *
+     * @param bookId the ID of the book.
+     * @return the available copies, or null if the table is disabled or does not hold the book.
+     */
+    public Integer copiesAvailable(Long bookId) {
+        Counters cell = enabled ? counters.get(bookId) : null;
+        if (cell == null) {
+            return null;
+        }
+        synchronized (cell) {
+            return cell.available;
+        }
+    }
+
+    /**
+     * Sets the cell of a book to its saved copies, after the book was edited.
+     * The cell is reset in place under its lock, so a transaction that changed the copies before the edit and rolls
+     * back afterwards still undoes its change on the cell in use. The cell is written back with the next flush, in
+     * case a flush of the old copies overtakes the save.
+     *
+     * @param book the saved book.
+     */
+    public void reset(Book book) {
+        Counters cell = enabled ? counters.get(book.getBookId()) : null;
+        if (cell != null) {
+            cell.reset(book.getCopiesTotal(), book.getCopiesAvailable(), book.getCopiesBorrowed());
+            dirtyBooks.add(book.getBookId());
+        }
+    }
+
+    /**
+     * Writes the changed copies back to the books, in JDBC batches of {@code spring.app.availabilityTable.flushBatchSize},
+     * and evicts the written books from the cache. The cached pages of the catalog are left in place.
+     *
+     * @return the number of rows written.
+     */
+    @Scheduled(fixedDelayString = "${spring.app.availabilityTable.flushMs:1000}",
+            initialDelayString = "${spring.app.availabilityTable.flushMs:1000}")
+    public synchronized int flush() {
+        if (dirtyBooks.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int written = 0;
+        List<Long> batch = new ArrayList<>(flushBatchSize);
+        Iterator<Long> dirty = dirtyBooks.iterator();
+        while (dirty.hasNext()) {
+            batch.add(dirty.next());
+            // Removed before the cell is read, a change from now on marks the book dirty again
+            dirty.remove();
+            if (batch.size() == flushBatchSize || !dirty.hasNext()) {
+                written += write(batch);
+                batch.clear();
+            }
+        }
+        meterRegistry.timer(FLUSH_METRIC_NAME).record(Duration.ofNanos(System.nanoTime() - start));
+        meterRegistry.summary(FLUSH_ROWS_METRIC_NAME).record(written);
+        return written;
+    }
+
+    /**
+     * Writes the copies of a batch of books back, or marks them dirty again if the write fails.
+     *
+     * @param bookIds the IDs of the books.
+     * @return the number of rows written.
+     */
+    private int write(List<Long> bookIds) {
+        List<Object[]> rows = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            Counters cell = counters.get(bookId);
+            if (cell == null) {
+                // Dropped after a failed undo, written back once it is loaded again
+                continue;
+            }
+            synchronized (cell) {
+                rows.add(new Object[]{cell.available, cell.borrowed, bookId});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+        } catch (RuntimeException e) {
+            logger.warn("Could not write back the copies of books {}, retrying with the next flush", bookIds, e);
+            dirtyBooks.addAll(bookIds);
+            return 0;
+        }
+        bookIds.forEach(bookId -> entityManagerFactory.getCache().evict(Book.class, bookId));
+        return rows.size();
+    }
+
+    /**
+     * Applies a change to the copies of a book, and registers its undo for a rollback of the current transaction.
+     *
+     * @param bookId the ID of the book.
+     * @param change the change of the copies.
+     * @return true if the change was applied, false if the copies do not allow it or the book does not exist.
+     */
+    private boolean apply(Long bookId, Change change) {
+        if (!enabled) {
+            return change.update(bookRepository, bookId) == 1;
+        }
+        Counters cell = cell(bookId);
+        if (cell == null || !cell.add(change.available, change.borrowed)) {
+            return false;
+        }
+        dirtyBooks.add(bookId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        undo(bookId, cell, change);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Reverts a change of a rolled back transaction.
+     *
+     * @param bookId the ID of the book.
+     * @param cell the cell the change was applied to.
+     * @param change the change to revert.
+     */
+    private void undo(Long bookId, Counters cell, Change change) {
+        if (!cell.add(-change.available, -change.borrowed)) {
+            // Only possible if a concurrent change used a copy before the rollback. Drop the cell, its next use loads
+            // it again from the open loans and held copies and repairs the row of the book
+            logger.warn("Could not undo the {} of a copy of book {}, reloading its copies", change, bookId);
+            counters.remove(bookId, cell);
+            return;
+        }
+        dirtyBooks.add(bookId);
+    }
+
+    /**
+     * Returns the cell of a book, loading it from the open loans and held copies of the book on first use.
+     * A book whose columns differ from them, because changes were not written back before a crash, is marked dirty,
+     * so the next flush repairs its row.
+     *
+     * @param bookId the ID of the book.
+     * @return the cell, or null if the book does not exist.
+     */
+    private Counters cell(Long bookId) {
+        Counters cell = counters.get(bookId);
+        if (cell != null) {
+            return cell;
+        }
+        boolean[] stale = new boolean[1];
+        List<Counters> rows = jdbcTemplate.query(LOAD_SQL, (row, rowNumber) -> {
+            int total = row.getInt(1);
+            int borrowed = row.getInt(2);
+            int available = total - borrowed - row.getInt(3);
+            stale[0] = available != row.getInt(4) || borrowed != row.getInt(5);
+            return new Counters(total, available, borrowed);
+        }, bookId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Counters loaded = counters.putIfAbsent(bookId, rows.get(0));
+        if (loaded != null) {
+            return loaded;
+        }
+        if (stale[0]) {
+            logger.info("Recovered the copies of book {} from its open loans and held reservations", bookId);
+            dirtyBooks.add(bookId);
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * A change of the copies of a book, with the conditional update it makes when the table is disabled.
+     */
+    private enum Change {
+        BORROW(-1, 1),
+        RETURN(1, -1),
+        HOLD(-1, 0),
+        BORROW_HELD(0, 1),
+        RELEASE_HELD(1, 0);
+
+        private final int available;
+
+        private final int borrowed;
+
+        Change(int available, int borrowed) {
+            this.available = available;
+            this.borrowed = borrowed;
+        }
+
+        private int update(BookRepository bookRepository, Long bookId) {
+            return switch (this) {
+                case BORROW -> bookRepository.borrowOneCopy(bookId);
+                case RETURN -> bookRepository.returnOneCopy(bookId);
+                case HOLD -> bookRepository.holdOneCopy(bookId);
+                case BORROW_HELD -> bookRepository.borrowHeldCopy(bookId);
+                case RELEASE_HELD -> bookRepository.releaseHeldCopy(bookId);
+            };
+        }
+    }
+
+    /**
+     * The copies of a book, guarded by the cell. The copies neither available nor borrowed are held.
+     */
+    private static final class Counters {
+
+        private int total;
+
+        private int available;
+
+        private int borrowed;
+
+        private Counters(int total, int available, int borrowed) {
+            this.total = total;
+            this.available = available;
+            this.borrowed = borrowed;
+        }
+
+        /**
+         * Replaces the copies, after the book was edited.
+         *
+         * @param total the total copies.
+         * @param available the available copies.
+         * @param borrowed the borrowed copies.
+         */
+        private synchronized void reset(int total, int available, int borrowed) {
+            this.total = total;
+            this.available = available;
+            this.borrowed = borrowed;
+        }
+
+        /**
+         * Adds to the copies, unless the result would have fewer than no copies available, borrowed or held.
+         *
+         * @param availableDelta the change of the available copies.
+         * @param borrowedDelta the change of the borrowed copies.
+         * @return true if the copies were changed.
+         */
+        private synchronized boolean add(int availableDelta, int borrowedDelta) {
+            int newAvailable = available + availableDelta;
+            int newBorrowed = borrowed + borrowedDelta;
+            if (newAvailable < 0 || newBorrowed < 0 || newAvailable + newBorrowed > total) {
+                return false;
+            }
+            available = newAvailable;
+            borrowed = newBorrowed;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.models.Book;
+
+/**
+ * Published when a book is added, edited or deleted, so the search and facet indexes can index it.
+ * The indexes only take the book once the change is committed, a rolled back write never reaches them.
+ *
+ * @param book the saved book, with its current copies.
+ */
+public record BookChangedEvent(Book book) {
+}
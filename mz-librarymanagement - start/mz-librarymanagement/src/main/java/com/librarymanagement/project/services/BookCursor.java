@@ -0,0 +1,83 @@
+package com.librarymanagement.project.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librarymanagement.project.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes and decodes the opaque cursors used by keyset (cursor) pagination of books.
+ * A cursor holds the sort key and the book ID of the last book of a page, so the next page can seek
+ * directly past it instead of skipping an offset. Clients should treat the cursor as an opaque string.
+ */
+public final class BookCursor {
+
+    /**
+     * The fields books can be sorted by in cursor mode.
+     */
+    public static final Set<String> SORT_KEYS = Set.of("bookId", "title", "author");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BookCursor() {
+    }
+
+    /**
+     * Checks that the given field can be used to sort books in cursor mode.
+     *
+     * @param sortBy The field to sort by.
+     * @throws ValidationException If the field is not supported in cursor mode.
+     */
+    public static void validateSortKey(String sortBy) {
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new ValidationException("Cursor pagination supports sorting by bookId, title or author only");
+        }
+    }
+
+    /**
+     * Encodes the keys of the last book of a page into an opaque cursor.
+     *
+     * @param keys The sort key and book ID of the last book, by field name.
+     * @return The encoded cursor.
+     */
+    public static String encode(Map<String, ?> keys) {
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(keys);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode cursor", e);
+        }
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(Map)}.
+     *
+     * @param cursor The encoded cursor.
+     * @param sortBy The field the current request sorts by, which the cursor must hold.
+     * @return The sort key and book ID of the last book of the previous page, by field name.
+     * @throws ValidationException If the cursor is malformed or was produced for another sort field.
+     */
+    public static Map<String, Object> decode(String cursor, String sortBy) {
+        Map<String, Object> keys;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            keys = MAPPER.readValue(new String(json, StandardCharsets.UTF_8), new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+
+        if (!(keys.get("bookId") instanceof Number bookId) || keys.get(sortBy) == null) {
+            throw new ValidationException("Invalid cursor");
+        }
+
+        // JSON numbers may come back as Integer, book IDs are compared as Long
+        keys.put("bookId", bookId.longValue());
+        return keys;
+    }
+}
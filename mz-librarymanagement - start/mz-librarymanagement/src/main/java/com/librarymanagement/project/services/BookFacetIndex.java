@@ -0,0 +1,394 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.BookAvailability;
+import com.librarymanagement.project.payloads.AvailabilityDTO;
+import com.librarymanagement.project.payloads.BookFacetView;
+import com.librarymanagement.project.repositories.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet counts of the books by category, author and availability.
+ * Every indexed book gets a dense ordinal, and every category and availability keeps a {@link BitSet} of the
+ * ordinals of its books. A faceted search turns the books matched by the {@link BookSearchIndex} into a bitset,
+ * intersects it with the bitsets of the filters, and counts each category and availability with the cardinality of
+ * one more intersection, so the counts of a result set cost a few word-wide ANDs per value instead of a query per
+ * category. Authors are numbered the same way, and counted in an array while walking the books of the result.
+ * <p>
+ * The index is built at startup and kept up to date by the {@link BookChangedEvent} of every committed book write.
+ * Borrows, returns and holds publish an {@link AvailabilityChangedEvent}, the new availability of the book is then
+ * taken from the {@link AvailabilityTable}, or read from the database by the next search when the table does not hold
+ * the book.
+ */
+@Component
+public class BookFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookFacetIndex.class);
+
+    /**
+     * The number of books loaded per query when building the index or refreshing availabilities.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private static final BitSet EMPTY = new BitSet();
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    private final List<Doc> docs = new ArrayList<>();
+
+    private final BitSet books = new BitSet();
+
+    private final Map<Long, BitSet> categories = new HashMap<>();
+
+    private final Map<BookAvailability, BitSet> availabilities = new EnumMap<>(BookAvailability.class);
+
+    private final Map<String, Integer> authorOrdinals = new HashMap<>();
+
+    private final List<String> authors = new ArrayList<>();
+
+    /**
+     * The author ordinal of each book ordinal, or -1 for a book without author.
+     */
+    private int[] bookAuthors = new int[0];
+
+    private final Set<Long> staleBooks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * An indexed book, at the ordinal it holds in the bitsets.
+     *
+     * @param entry The ID, title and author of the book, to sort the matches with.
+     * @param categoryId The ID of the category of the book.
+     * @param availability The availability of the book.
+     */
+    private record Doc(BookSearchIndex.Entry entry, Long categoryId, BookAvailability availability) {
+    }
+
+    /**
+     * The books matching a faceted search, with the counts of each facet.
+     * The counts of a facet leave out its own filter, so a selected category or availability still shows the
+     * counts of the other values to switch to.
+     *
+     * @param matches The matching books, in no particular order.
+     * @param categories The number of matching books per category ID, ignoring the category filter,
+     *                   only the categories with books, most books first.
+     * @param authors The number of matching books per author, most books first and cut to the requested number.
+     * @param availability The number of matching books per availability, ignoring the availability filter.
+     */
+    public record Facets(List<BookSearchIndex.Entry> matches, Map<Long, Integer> categories,
+                         Map<String, Integer> authors, Map<BookAvailability, Integer> availability) {
+    }
+
+    public BookFacetIndex() {
+        for (BookAvailability availability : BookAvailability.values()) {
+            availabilities.put(availability, new BitSet());
+        }
+    }
+
+    /**
+     * Builds the index from all books in the database once the application is ready.
+     * Books are read in slices of the indexed columns only.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            docs.clear();
+            books.clear();
+            categories.clear();
+            availabilities.values().forEach(BitSet::clear);
+            authorOrdinals.clear();
+            authors.clear();
+            staleBooks.clear();
+
+            Slice<BookFacetView> slice = bookRepository.findFacetViews(PageRequest.of(0, BATCH_SIZE));
+            while (slice != null) {
+                for (BookFacetView view : slice) {
+                    put(new Doc(BookSearchIndex.Entry.of(view.getBookId(), view.getTitle(), view.getAuthor()),
+                            view.getCategoryId(), BookAvailability.of(view.getActive(), view.getCopiesAvailable())));
+                }
+                slice = slice.hasNext() ? bookRepository.findFacetViews(slice.nextPageable()) : null;
+            }
+            logger.info("Book facet index built with {} books in {} categories", docs.size(), categories.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book to the index, or replaces its previous entry if it is already indexed.
+     *
+     * @param book The saved book to index, with its current copies.
+     */
+    public void index(Book book) {
+        if (book == null || book.getBookId() == null) {
+            return;
+        }
+        Long categoryId = book.getCategory() != null ? book.getCategory().getCategoryId() : null;
+        Doc doc = new Doc(BookSearchIndex.Entry.of(book.getBookId(), book.getTitle(), book.getAuthor()),
+                categoryId, BookAvailability.of(book.isActive(), book.getCopiesAvailable()));
+        lock.writeLock().lock();
+        try {
+            put(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a book once its write is committed, or right away without a transaction.
+     *
+     * @param event the changed book.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        index(event.book());
+    }
+
+    /**
+     * Updates the availability of a book once the change of its copies is committed, or right away without a
+     * transaction. The copies are taken from the availability table, a book the table does not hold is read by the
+     * next search.
+     *
+     * @param event the changed book.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        Integer copiesAvailable = availabilityTable.copiesAvailable(event.bookId());
+        if (copiesAvailable == null) {
+            staleBooks.add(event.bookId());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // Only edits of the book change whether it is active, they publish a BookChangedEvent
+            Doc doc = doc(event.bookId());
+            if (doc != null && doc.availability() != BookAvailability.INACTIVE) {
+                put(new Doc(doc.entry(), doc.categoryId(), BookAvailability.of(true, copiesAvailable)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books matching the filters and counts them per category, author and availability.
+     *
+     * @param bookIds The IDs of the books matched by the search terms, or null to start from all books.
+     * @param categoryId The ID of the category to keep, or null for all categories.
+     * @param availability The availability to keep, or null for any availability.
+     * @param maxAuthors The maximum number of authors to count.
+     * @return The matching books and the counts of each facet.
+     */
+    public Facets search(Collection<Long> bookIds, Long categoryId, BookAvailability availability, int maxAuthors) {
+        refreshStaleBooks();
+
+        lock.readLock().lock();
+        try {
+            BitSet base;
+            if (bookIds == null) {
+                base = (BitSet) books.clone();
+            } else {
+                base = new BitSet(docs.size());
+                for (Long bookId : bookIds) {
+                    Integer ordinal = ordinals.get(bookId);
+                    if (ordinal != null) {
+                        base.set(ordinal);
+                    }
+                }
+            }
+
+            // Each facet is counted on the books kept by the other filter
+            BitSet inAvailability = availability == null ? base : and(base, availabilities.get(availability));
+            BitSet inCategory = categoryId == null ? base : and(base, categories.getOrDefault(categoryId, EMPTY));
+            BitSet result = categoryId == null ? inAvailability : and(inAvailability, inCategory);
+
+            Map<Long, Integer> categoryCounts = new HashMap<>();
+            categories.forEach((id, bits) -> {
+                int count = and(inAvailability, bits).cardinality();
+                if (count > 0) {
+                    categoryCounts.put(id, count);
+                }
+            });
+
+            Map<BookAvailability, Integer> availabilityCounts = new EnumMap<>(BookAvailability.class);
+            availabilities.forEach((value, bits) -> availabilityCounts.put(value, and(inCategory, bits).cardinality()));
+
+            List<BookSearchIndex.Entry> matches = new ArrayList<>(result.cardinality());
+            int[] booksPerAuthor = new int[authors.size()];
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                matches.add(docs.get(ordinal).entry());
+                if (bookAuthors[ordinal] >= 0) {
+                    booksPerAuthor[bookAuthors[ordinal]]++;
+                }
+            }
+
+            // Keep the authors with the most books in a heap whose head is the least of them
+            Comparator<Integer> fewestFirst = Comparator.<Integer>comparingInt(author -> booksPerAuthor[author])
+                    .thenComparing(authors::get, Comparator.reverseOrder());
+            PriorityQueue<Integer> topAuthors = new PriorityQueue<>(fewestFirst);
+            for (int author = 0; author < booksPerAuthor.length && maxAuthors > 0; author++) {
+                if (booksPerAuthor[author] == 0) {
+                    continue;
+                }
+                if (topAuthors.size() < maxAuthors) {
+                    topAuthors.add(author);
+                } else if (fewestFirst.compare(author, topAuthors.peek()) > 0) {
+                    topAuthors.poll();
+                    topAuthors.add(author);
+                }
+            }
+            Map<String, Integer> authorCounts = new HashMap<>();
+            topAuthors.forEach(author -> authorCounts.put(authors.get(author), booksPerAuthor[author]));
+
+            return new Facets(matches, mostFirst(categoryCounts, Integer.MAX_VALUE), mostFirst(authorCounts, maxAuthors),
+                    availabilityCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed books.
+     *
+     * @return The number of books in the index.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the availability of the books changed outside the availability table, in batches.
+     * Books whose read fails stay stale and are read again by the next search.
+     */
+    private void refreshStaleBooks() {
+        if (staleBooks.isEmpty()) {
+            return;
+        }
+        List<Long> batch = new ArrayList<>(BATCH_SIZE);
+        Iterator<Long> stale = staleBooks.iterator();
+        while (stale.hasNext()) {
+            batch.add(stale.next());
+            // Removed before the read, a change from now on marks the book stale again
+            stale.remove();
+            if (batch.size() == BATCH_SIZE || !stale.hasNext()) {
+                List<AvailabilityDTO> rows;
+                try {
+                    rows = bookRepository.findAvailabilityByBookIdIn(batch);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not read the availability of books {}, retrying with the next search", batch, e);
+                    staleBooks.addAll(batch);
+                    return;
+                }
+                lock.writeLock().lock();
+                try {
+                    for (AvailabilityDTO row : rows) {
+                        availabilityTable.applyTo(row);
+                        Doc doc = doc(row.getBookId());
+                        if (doc != null) {
+                            put(new Doc(doc.entry(), doc.categoryId(),
+                                    BookAvailability.of(row.isActive(), row.getCopiesAvailable())));
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the indexed book with the given ID, the write lock must be held.
+     */
+    private Doc doc(Long bookId) {
+        Integer ordinal = ordinals.get(bookId);
+        return ordinal == null ? null : docs.get(ordinal);
+    }
+
+    /**
+     * Stores a book at its ordinal, taking the next ordinal for a new book, the write lock must be held.
+     */
+    private void put(Doc doc) {
+        Long bookId = doc.entry().bookId();
+        Integer ordinal = ordinals.get(bookId);
+        if (ordinal == null) {
+            ordinal = docs.size();
+            ordinals.put(bookId, ordinal);
+            docs.add(doc);
+        } else {
+            Doc previous = docs.set(ordinal, doc);
+            BitSet previousCategory = categories.get(previous.categoryId());
+            previousCategory.clear(ordinal);
+            if (previousCategory.isEmpty()) {
+                categories.remove(previous.categoryId());
+            }
+            availabilities.get(previous.availability()).clear(ordinal);
+        }
+        if (ordinal >= bookAuthors.length) {
+            bookAuthors = Arrays.copyOf(bookAuthors, Math.max(16, bookAuthors.length * 2));
+        }
+        bookAuthors[ordinal] = authorOrdinal(doc.entry().author());
+        books.set(ordinal);
+        categories.computeIfAbsent(doc.categoryId(), id -> new BitSet()).set(ordinal);
+        availabilities.get(doc.availability()).set(ordinal);
+    }
+
+    /**
+     * Returns the ordinal of an author, taking the next ordinal for a new author, the write lock must be held.
+     */
+    private int authorOrdinal(String author) {
+        if (author == null) {
+            return -1;
+        }
+        return authorOrdinals.computeIfAbsent(author, name -> {
+            authors.add(name);
+            return authors.size() - 1;
+        });
+    }
+
+    private static BitSet and(BitSet left, BitSet right) {
+        BitSet both = (BitSet) left.clone();
+        both.and(right);
+        return both;
+    }
+
+    /**
+     * Orders counts from the most to the fewest books, then by value, and keeps the first ones.
+     */
+    private static <K extends Comparable<K>> Map<K, Integer> mostFirst(Map<K, Integer> counts, int limit) {
+        Map<K, Integer> ordered = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<K, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.nullsFirst(Comparator.naturalOrder()))))
+                .limit(limit)
+                .forEach(count -> ordered.put(count.getKey(), count.getValue()));
+        return ordered;
+    }
+}
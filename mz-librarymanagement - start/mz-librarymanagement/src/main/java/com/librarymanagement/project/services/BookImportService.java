@@ -0,0 +1,33 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.payloads.BookImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service interface for importing many books at once.
+ * The input is read as a stream, so files of any size can be imported without holding them in memory.
+ */
+public interface BookImportService {
+
+    /**
+     * Imports books from a CSV file.
+     * The first line is a header naming the columns, out of title, author, copiesTotal, description,
+     * categoryId and categoryName, in any order.
+     *
+     * @param input The UTF-8 encoded CSV content.
+     * @return A {@link BookImportResponse} with the number of imported books and the rows that failed.
+     * @throws IOException if the input cannot be read.
+     */
+    BookImportResponse importCsv(InputStream input) throws IOException;
+
+    /**
+     * Imports books from a JSON lines file, holding one JSON object per line with the same fields as the CSV columns.
+     *
+     * @param input The UTF-8 encoded JSON lines content.
+     * @return A {@link BookImportResponse} with the number of imported books and the rows that failed.
+     * @throws IOException if the input cannot be read.
+     */
+    BookImportResponse importJsonLines(InputStream input) throws IOException;
+}
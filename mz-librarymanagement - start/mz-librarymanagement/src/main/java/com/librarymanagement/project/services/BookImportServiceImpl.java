@@ -0,0 +1,371 @@
+package com.librarymanagement.project.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librarymanagement.project.exceptions.ResourceNotFoundException;
+import com.librarymanagement.project.exceptions.ValidationException;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.BookImportError;
+import com.librarymanagement.project.payloads.BookImportResponse;
+import com.librarymanagement.project.payloads.BookImportRow;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service implementation for importing many {@link Book} entities at once.
+ * Rows are validated like {@link BookServiceImpl#addBook} and saved in chunks, each in its own transaction,
+ * so a large import neither holds one long transaction nor grows the persistence context without bound.
+ * Within a chunk the inserts are sent in JDBC batches, which the sequence generated book IDs allow.
+ * Categories are loaded once per import instead of once per book.
+ */
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookImportServiceImpl.class);
+
+    /**
+     * The number of books saved per transaction.
+     */
+    static final int CHUNK_SIZE = 1000;
+
+    /**
+     * The number of failed rows listed in the response, further failures are only counted.
+     */
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * The CSV columns a header must name.
+     */
+    private static final List<String> REQUIRED_COLUMNS = List.of("title", "author", "copiesTotal");
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Parses one non-blank line of the input into a row.
+     */
+    @FunctionalInterface
+    private interface RowParser {
+        BookImportRow parse(String line) throws ValidationException;
+    }
+
+    /**
+     * Imports books from a CSV file, see {@link BookImportService#importCsv}.
+     *
+     * @param input The UTF-8 encoded CSV content.
+     * @return A {@link BookImportResponse} with the number of imported books and the rows that failed.
+     * @throws IOException if the input cannot be read.
+     */
+    @Override
+    public BookImportResponse importCsv(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null || header.isBlank()) {
+            throw new ValidationException("The CSV header is missing");
+        }
+        Map<String, Integer> columns = parseHeader(header);
+        return importRows(reader, 1, line -> toRow(splitCsvLine(line), columns));
+    }
+
+    /**
+     * Imports books from a JSON lines file, see {@link BookImportService#importJsonLines}.
+     *
+     * @param input The UTF-8 encoded JSON lines content.
+     * @return A {@link BookImportResponse} with the number of imported books and the rows that failed.
+     * @throws IOException if the input cannot be read.
+     */
+    @Override
+    public BookImportResponse importJsonLines(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return importRows(reader, 0, line -> {
+            try {
+                return objectMapper.readValue(line, BookImportRow.class);
+            } catch (JsonProcessingException e) {
+                throw new ValidationException("Invalid JSON: " + e.getOriginalMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads, validates and saves all rows of the input.
+     *
+     * @param reader The reader positioned at the first row.
+     * @param linesBefore The number of lines read before the first row.
+     * @param parser The parser of a single line.
+     * @return The outcome of the import.
+     * @throws IOException if the input cannot be read.
+     */
+    private BookImportResponse importRows(BufferedReader reader, long linesBefore, RowParser parser) throws IOException {
+        long started = System.currentTimeMillis();
+        BookImportResponse response = new BookImportResponse();
+        CategoryLookup categories = new CategoryLookup(categoryRepository.findAll());
+        List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Long> chunkLines = new ArrayList<>(CHUNK_SIZE);
+
+        long lineNumber = linesBefore;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            response.setRowsRead(response.getRowsRead() + 1);
+            try {
+                chunk.add(toBook(parser.parse(line), categories));
+                chunkLines.add(lineNumber);
+            } catch (ValidationException | ResourceNotFoundException e) {
+                addError(response, lineNumber, e.getMessage());
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                saveChunk(chunk, chunkLines, response);
+                logger.info("Book import progress: {} rows read, {} imported, {} failed",
+                        response.getRowsRead(), response.getImported(), response.getFailed());
+            }
+        }
+        saveChunk(chunk, chunkLines, response);
+
+        logger.info("Book import finished in {} ms: {} rows read, {} imported, {} failed",
+                System.currentTimeMillis() - started, response.getRowsRead(), response.getImported(), response.getFailed());
+        return response;
+    }
+
+    /**
+     * Saves a chunk of books in one transaction and clears it.
+     * If the transaction fails, all rows of the chunk are reported as failed and the import goes on.
+     *
+     * @param chunk The books to save.
+     * @param chunkLines The line numbers of the books.
+     * @param response The outcome of the import so far.
+     */
+    private void saveChunk(List<Book> chunk, List<Long> chunkLines, BookImportResponse response) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Imported books are rarely read right away, keep them from evicting the books being browsed
+                entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+                bookRepository.saveAll(chunk);
+            });
+            for (Book book : chunk) {
+                bookSearchIndex.index(book);
+                bookFacetIndex.index(book);
+            }
+            response.setImported(response.getImported() + chunk.size());
+        } catch (RuntimeException e) {
+            logger.warn("Book import chunk of {} rows failed", chunk.size(), e);
+            for (Long chunkLine : chunkLines) {
+                addError(response, chunkLine, "Not saved, the batch failed: " + e.getMessage());
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    /**
+     * Validates a row the same way a single book is validated and turns it into a new book.
+     *
+     * @param row The row to validate.
+     * @param categories The categories of the import.
+     * @return The new, unsaved book.
+     */
+    private Book toBook(BookImportRow row, CategoryLookup categories) {
+        // Check if the category exists
+        Category category = categories.find(row);
+
+        // Check if the title and author are valid
+        if (row.getTitle() == null || row.getTitle().trim().isEmpty()) {
+            throw new ValidationException("Book title must not be empty");
+        }
+        if (row.getAuthor() == null || row.getAuthor().trim().isEmpty()) {
+            throw new ValidationException("Book author must not be empty");
+        }
+
+        // Check if copies are set correctly
+        if (row.getCopiesTotal() == null || row.getCopiesTotal() <= 0) {
+            throw new ValidationException("Total copies must be provided and more than 0");
+        }
+
+        return new Book(null, row.getTitle(), row.getAuthor(), row.getCopiesTotal(), row.getCopiesTotal(), 0,
+                true, row.getDescription(), category);
+    }
+
+    private static void addError(BookImportResponse response, long line, String message) {
+        response.setFailed(response.getFailed() + 1);
+        if (response.getErrors().size() < MAX_REPORTED_ERRORS) {
+            response.getErrors().add(new BookImportError(line, message));
+        } else {
+            response.setErrorsTruncated(true);
+        }
+    }
+
+    /**
+     * Maps the column names of a CSV header to their positions.
+     *
+     * @param header The header line.
+     * @return The positions by column name.
+     */
+    private static Map<String, Integer> parseHeader(String header) {
+        List<String> names = splitCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new ValidationException("The CSV header must contain the column " + required);
+            }
+        }
+        if (!columns.containsKey("categoryId") && !columns.containsKey("categoryName")) {
+            throw new ValidationException("The CSV header must contain the column categoryId or categoryName");
+        }
+        return columns;
+    }
+
+    private static BookImportRow toRow(List<String> fields, Map<String, Integer> columns) {
+        BookImportRow row = new BookImportRow();
+        row.setTitle(field(fields, columns, "title"));
+        row.setAuthor(field(fields, columns, "author"));
+        row.setDescription(field(fields, columns, "description"));
+        row.setCategoryName(field(fields, columns, "categoryName"));
+        try {
+            String copiesTotal = field(fields, columns, "copiesTotal");
+            row.setCopiesTotal(copiesTotal == null ? null : Integer.valueOf(copiesTotal.trim()));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Total copies must be a number");
+        }
+        try {
+            String categoryId = field(fields, columns, "categoryId");
+            row.setCategoryId(categoryId == null ? null : Long.valueOf(categoryId.trim()));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Category id must be a number");
+        }
+        return row;
+    }
+
+    /**
+     * Returns a field of a CSV row by its column name.
+     *
+     * @return The field, or null if the column or the field is missing or empty.
+     */
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    /**
+     * Splits a CSV line into its fields.
+     * Fields may be quoted with double quotes, to contain commas, and a quote inside a quoted field is doubled.
+     * Quoted fields cannot span lines.
+     *
+     * @param line The CSV line.
+     * @return The unquoted fields.
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new ValidationException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * The categories of one import, looked up by ID or by name without further queries.
+     */
+    private static class CategoryLookup {
+
+        private final Map<Long, Category> byId = new HashMap<>();
+
+        private final Map<String, Category> byName = new HashMap<>();
+
+        CategoryLookup(List<Category> categories) {
+            for (Category category : categories) {
+                byId.put(category.getCategoryId(), category);
+                byName.put(category.getCategoryName().toLowerCase(Locale.ROOT), category);
+            }
+        }
+
+        Category find(BookImportRow row) {
+            if (row.getCategoryId() != null) {
+                Category category = byId.get(row.getCategoryId());
+                if (category == null) {
+                    throw new ResourceNotFoundException("No categories found by category id: " + row.getCategoryId());
+                }
+                return category;
+            }
+            if (row.getCategoryName() != null) {
+                Category category = byName.get(row.getCategoryName().trim().toLowerCase(Locale.ROOT));
+                if (category == null) {
+                    throw new ResourceNotFoundException("No categories found by category name: " + row.getCategoryName());
+                }
+                return category;
+            }
+            throw new ValidationException("Category id or name must be provided");
+        }
+    }
+}
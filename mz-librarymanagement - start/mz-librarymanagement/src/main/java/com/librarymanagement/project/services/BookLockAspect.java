@@ -0,0 +1,85 @@
+package com.librarymanagement.project.services;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Runs each borrow and return under the lock of its book, see {@link BookLockManager}.
+ * The aspect is ordered before the transaction advice, so the lock is taken before the transaction begins and
+ * released only after it has committed, and the next request for the book reads the committed copies.
+ * Edits of a book take the same lock, so a borrow or return cannot change the copies of the {@link AvailabilityTable}
+ * between the edit reading and saving them. Cancelling a reservation and expiring a hold release a held copy too,
+ * they only learn the book from the reservation and take the same lock through
+ * {@link BookLockManager#callLocked(Long, java.util.function.Supplier)} around their transaction.
+ */
+@Aspect
+@Component
+@Order(BookLockAspect.ORDER)
+public class BookLockAspect {
+
+    /**
+     * The order of the aspect, before the transaction advice, which runs last, and after the interceptor
+     * Spring puts first to expose the invocation to argument binding.
+     */
+    public static final int ORDER = 0;
+
+    @Autowired
+    private BookLockManager bookLockManager;
+
+    /**
+     * Runs a borrow, return or edit of a book while holding the lock of the book.
+     *
+     * @param joinPoint the borrow, return or edit call.
+     * @param bookId the ID of the book.
+     * @return the result of the call.
+     * @throws Throwable the exception thrown by the call, rethrown unchanged.
+     */
+    @Around("(execution(public * com.librarymanagement.project.services.BorrowReturnService+.borrowBook(Long))"
+            + " || execution(public * com.librarymanagement.project.services.BorrowReturnService+.returnBook(Long))"
+            + " || execution(public * com.librarymanagement.project.services.BookService+.updateBook(Long, *))"
+            + " || execution(public * com.librarymanagement.project.services.BookService+.partialUpdateBook(Long, *))"
+            + " || execution(public * com.librarymanagement.project.services.BookService+.deleteBook(Long)))"
+            + " && args(bookId, ..)")
+    public Object lockBook(ProceedingJoinPoint joinPoint, Long bookId) throws Throwable {
+        if (!bookLockManager.isEnabled() || bookId == null) {
+            return joinPoint.proceed();
+        }
+        Lock lock = bookLockManager.lock(bookId);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs a batch borrow or return while holding the locks of all its books, taken in the order of their stripes.
+     *
+     * @param joinPoint the batch borrow or return call.
+     * @param bookIds the IDs of the books.
+     * @return the result of the call.
+     * @throws Throwable the exception thrown by the call, rethrown unchanged.
+     */
+    @Around("(execution(public * com.librarymanagement.project.services.BorrowReturnService+.borrowBooks(java.util.List))"
+            + " || execution(public * com.librarymanagement.project.services.BorrowReturnService+.returnBooks(java.util.List)))"
+            + " && args(bookIds)")
+    public Object lockBooks(ProceedingJoinPoint joinPoint, List<Long> bookIds) throws Throwable {
+        if (!bookLockManager.isEnabled() || bookIds == null || bookIds.stream().anyMatch(Objects::isNull)) {
+            return joinPoint.proceed();
+        }
+        List<Lock> locks = bookLockManager.lockAll(bookIds);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            bookLockManager.unlockAll(locks);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.librarymanagement.project.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes the borrows, returns, edits, reservation cancels and hold expiries of a book within this instance, so a
+ * burst of requests for one title queues in memory instead of piling up on the row of the book in the database.
+ * <p>
+ * Books are mapped onto a fixed number of lock stripes by their ID. Work on books of different stripes runs in
+ * parallel, work on books of the same stripe runs one at a time. A caller that cannot get its stripe within
+ * {@code spring.app.bookLocks.waitMs} is turned away with 503 instead of holding a request thread any longer.
+ * The atomic check and update of the copies still guards them, the locks only keep requests from contending on it.
+ * <p>
+ * Acquisitions are counted in {@value #ACQUISITIONS_METRIC_NAME}, tagged whether the stripe was already held,
+ * and the wait for a held stripe is recorded in the {@value #WAIT_METRIC_NAME} timer, tagged with the outcome.
+ */
+@Component
+public class BookLockManager {
+
+    /**
+     * The name of the counter of lock acquisitions.
+     */
+    public static final String ACQUISITIONS_METRIC_NAME = "library.book.lock.acquisitions";
+
+    /**
+     * The name of the timer the wait for a held lock is recorded in.
+     */
+    public static final String WAIT_METRIC_NAME = "library.book.lock.wait";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Whether borrows and returns are serialized per book at all.
+     */
+    @Value("${spring.app.bookLocks.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * The number of lock stripes, rounded up to a power of two.
+     */
+    @Value("${spring.app.bookLocks.stripes:1024}")
+    private int stripes = 1024;
+
+    /**
+     * The time in milliseconds a caller waits for a held lock before it is turned away.
+     */
+    @Value("${spring.app.bookLocks.waitMs:5000}")
+    private long waitMs = 5000;
+
+    private ReentrantLock[] locks;
+
+    private Counter uncontended;
+
+    private Counter contended;
+
+    private Timer acquiredWait;
+
+    private Timer timedOutWait;
+
+    /**
+     * Creates the lock stripes and registers the metrics once the properties have been injected.
+     */
+    @PostConstruct
+    public void init() {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        uncontended = Counter.builder(ACQUISITIONS_METRIC_NAME)
+                .description("Acquisitions of per-book locks")
+                .tag("contended", "false")
+                .register(meterRegistry);
+        contended = Counter.builder(ACQUISITIONS_METRIC_NAME)
+                .description("Acquisitions of per-book locks")
+                .tag("contended", "true")
+                .register(meterRegistry);
+        acquiredWait = Timer.builder(WAIT_METRIC_NAME)
+                .description("Wait for a per-book lock held by another request")
+                .tag("outcome", "acquired")
+                .register(meterRegistry);
+        timedOutWait = Timer.builder(WAIT_METRIC_NAME)
+                .description("Wait for a per-book lock held by another request")
+                .tag("outcome", "timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether borrows and returns are serialized per book.
+     *
+     * @return true if the locks are enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Acquires the lock of a book, which the caller must unlock once its work is done.
+     *
+     * @param bookId the ID of the book.
+     * @return the acquired lock.
+     * @throws ResponseStatusException if the lock is not free within the wait time.
+     */
+    public Lock lock(Long bookId) {
+        return acquire(lockOf(bookId));
+    }
+
+    /**
+     * Runs work on a book while holding the lock of the book, for work the {@link BookLockAspect} cannot match
+     * because it only learns the book from a reservation. The work should begin and commit its own transaction,
+     * so the lock is held until it has committed. The work runs without the lock if the locks are disabled.
+     *
+     * @param bookId the ID of the book.
+     * @param work the work on the book.
+     * @param <T> the type of the result.
+     * @return the result of the work.
+     * @throws ResponseStatusException if the lock is not free within the wait time.
+     */
+    public <T> T callLocked(Long bookId, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        Lock lock = lock(bookId);
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the locks of several books, one after another in the order of their stripes, so two callers
+     * locking overlapping books never wait on each other in a cycle. The caller must unlock the returned locks
+     * once its work is done. If a lock is not free within the wait time, the locks acquired so far are released.
+     *
+     * @param bookIds the IDs of the books.
+     * @return the acquired locks, one per stripe, in the order they were acquired.
+     * @throws ResponseStatusException if a lock is not free within the wait time.
+     */
+    public List<Lock> lockAll(Collection<Long> bookIds) {
+        List<Lock> acquired = new ArrayList<>();
+        int[] stripes = bookIds.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        try {
+            for (int stripe : stripes) {
+                acquired.add(acquire(locks[stripe]));
+            }
+        } catch (RuntimeException e) {
+            unlockAll(acquired);
+            throw e;
+        }
+        return acquired;
+    }
+
+    /**
+     * Releases locks acquired by {@link #lockAll(Collection)}, in the reverse order.
+     *
+     * @param locks the acquired locks.
+     */
+    public void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    /**
+     * Acquires a lock stripe, waiting at most the wait time if it is held.
+     *
+     * @param lock the lock stripe.
+     * @return the acquired lock.
+     * @throws ResponseStatusException if the lock is not free within the wait time.
+     */
+    private Lock acquire(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            uncontended.increment();
+            return lock;
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            timedOutWait.record(waited, TimeUnit.NANOSECONDS);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The book is busy, please try again");
+        }
+        contended.increment();
+        acquiredWait.record(waited, TimeUnit.NANOSECONDS);
+        return lock;
+    }
+
+    /**
+     * Returns the number of lock stripes.
+     *
+     * @return the number of stripes.
+     */
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    /**
+     * Returns the lock stripe of a book.
+     *
+     * @param bookId the ID of the book.
+     * @return the lock guarding the book and the other books of its stripe.
+     */
+    private ReentrantLock lockOf(Long bookId) {
+        return locks[stripeOf(bookId)];
+    }
+
+    /**
+     * Returns the index of the lock stripe of a book.
+     *
+     * @param bookId the ID of the book.
+     * @return the index of the stripe.
+     */
+    private int stripeOf(Long bookId) {
+        // Spread the bits, consecutive IDs fall on different stripes either way but IDs with a common stride may not
+        long hash = bookId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (locks.length - 1);
+    }
+}
@@ -0,0 +1,256 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.payloads.BookSearchView;
+import com.librarymanagement.project.repositories.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory inverted index over book titles and authors.
+ * Each title and author is split into lower-case trigrams, and every trigram points to the IDs of the books
+ * containing it. A search looks up the posting list of the rarest trigram of the search term and only
+ * verifies those candidates, instead of scanning the whole books table with a leading-wildcard LIKE.
+ * The index is built at startup and kept up to date by the {@link BookChangedEvent} of every committed book write.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    /**
+     * The length of the n-grams stored in the index.
+     */
+    static final int GRAM_SIZE = 3;
+
+    /**
+     * The number of books loaded per query when building the index.
+     */
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Long>> titleGrams = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Long>> authorGrams = new ConcurrentHashMap<>();
+
+    /**
+     * An indexed book, holding the fields needed to match and sort search results.
+     *
+     * @param bookId The ID of the book.
+     * @param title The title of the book.
+     * @param author The author of the book.
+     * @param titleKey The lower-case title used for matching.
+     * @param authorKey The lower-case author used for matching.
+     */
+    public record Entry(Long bookId, String title, String author, String titleKey, String authorKey) {
+
+        /**
+         * Creates an entry, deriving the lower-case match keys from the title and author.
+         *
+         * @param bookId The ID of the book.
+         * @param title The title of the book.
+         * @param author The author of the book.
+         * @return The new entry.
+         */
+        public static Entry of(Long bookId, String title, String author) {
+            return new Entry(bookId, title, author, normalize(title), normalize(author));
+        }
+    }
+
+    /**
+     * Builds the index from all books in the database once the application is ready.
+     * Books are read in slices of ID, title and author only.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        entries.clear();
+        titleGrams.clear();
+        authorGrams.clear();
+
+        Slice<BookSearchView> slice = bookRepository.findSearchViews(PageRequest.of(0, BUILD_BATCH_SIZE));
+        while (slice != null) {
+            for (BookSearchView view : slice) {
+                add(Entry.of(view.getBookId(), view.getTitle(), view.getAuthor()));
+            }
+            slice = slice.hasNext() ? bookRepository.findSearchViews(slice.nextPageable()) : null;
+        }
+
+        logger.info("Book search index built with {} books", entries.size());
+    }
+
+    /**
+     * Adds a book to the index, or replaces its previous entry if it is already indexed.
+     *
+     * @param book The saved book to index.
+     */
+    public synchronized void index(Book book) {
+        if (book == null || book.getBookId() == null) {
+            return;
+        }
+        remove(book.getBookId());
+        add(Entry.of(book.getBookId(), book.getTitle(), book.getAuthor()));
+    }
+
+    /**
+     * Indexes a book once its write is committed, or right away without a transaction.
+     *
+     * @param event the changed book.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        index(event.book());
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param bookId The ID of the book to remove.
+     */
+    public synchronized void remove(Long bookId) {
+        Entry previous = entries.remove(bookId);
+        if (previous == null) {
+            return;
+        }
+        unlink(titleGrams, previous.titleKey(), bookId);
+        unlink(authorGrams, previous.authorKey(), bookId);
+    }
+
+    /**
+     * Finds all indexed books whose title contains the given term, ignoring case.
+     *
+     * @param title The title or partial title to search for.
+     * @return The matching entries, in no particular order.
+     */
+    public List<Entry> searchTitle(String title) {
+        return search(titleGrams, title, Entry::titleKey);
+    }
+
+    /**
+     * Finds all indexed books whose author contains the given term, ignoring case.
+     *
+     * @param author The author name or partial name to search for.
+     * @return The matching entries, in no particular order.
+     */
+    public List<Entry> searchAuthor(String author) {
+        return search(authorGrams, author, Entry::authorKey);
+    }
+
+    /**
+     * Returns the number of indexed books.
+     *
+     * @return The number of books in the index.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a comparator ordering entries by the given sort field, with the book ID as tie-breaker.
+     * Only the fields held by the index can be sorted in memory.
+     *
+     * @param sortBy The field to sort by.
+     * @param ascending Whether to sort in ascending order.
+     * @return The comparator, or null if the field is not held by the index.
+     */
+    public static Comparator<Entry> comparator(String sortBy, boolean ascending) {
+        Comparator<Entry> comparator;
+        switch (sortBy) {
+            case "bookId" -> comparator = Comparator.comparing(Entry::bookId);
+            case "title" -> comparator = Comparator.comparing(Entry::title, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "author" -> comparator = Comparator.comparing(Entry::author, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default -> {
+                return null;
+            }
+        }
+        comparator = comparator.thenComparing(Entry::bookId);
+        return ascending ? comparator : comparator.reversed();
+    }
+
+    private List<Entry> search(Map<String, Set<Long>> grams, String term, Function<Entry, String> key) {
+        String needle = normalize(term);
+
+        // Terms shorter than a gram cannot use the posting lists, match them against the entries directly
+        if (needle.length() < GRAM_SIZE) {
+            List<Entry> matches = new ArrayList<>();
+            for (Entry entry : entries.values()) {
+                if (key.apply(entry).contains(needle)) {
+                    matches.add(entry);
+                }
+            }
+            return matches;
+        }
+
+        // Pick the rarest gram of the term, every match must be in its posting list
+        Set<Long> candidates = null;
+        for (String gram : grams(needle)) {
+            Set<Long> postings = grams.get(gram);
+            if (postings == null) {
+                return new ArrayList<>();
+            }
+            if (candidates == null || postings.size() < candidates.size()) {
+                candidates = postings;
+            }
+        }
+
+        // Verify the candidates against the full term
+        List<Entry> matches = new ArrayList<>();
+        for (Long bookId : candidates) {
+            Entry entry = entries.get(bookId);
+            if (entry != null && key.apply(entry).contains(needle)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.bookId(), entry);
+        link(titleGrams, entry.titleKey(), entry.bookId());
+        link(authorGrams, entry.authorKey(), entry.bookId());
+    }
+
+    private static void link(Map<String, Set<Long>> grams, String text, Long bookId) {
+        for (String gram : grams(text)) {
+            grams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(bookId);
+        }
+    }
+
+    private static void unlink(Map<String, Set<Long>> grams, String text, Long bookId) {
+        for (String gram : grams(text)) {
+            Set<Long> postings = grams.get(gram);
+            if (postings != null) {
+                postings.remove(bookId);
+                if (postings.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,8 +1,13 @@
 package com.librarymanagement.project.services;
 
+import com.librarymanagement.project.models.BookAvailability;
 import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.BookFacetResponse;
 import com.librarymanagement.project.payloads.BookResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * Service interface for managing Book related operations.
  * Defines methods for creating, updating, deleting, and retrieving books.
@@ -92,5 +97,77 @@ public interface BookService {
      */
     BookResponse searchByTitle(String title, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    /**
+     * Retrieves a page of all books in cursor pagination mode, without counting the total.
+     *
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort the results by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing a list of books and the cursor of the next page.
+     */
+    BookResponse getAllBooksByCursor(String cursor, Integer pageSize, String sortBy, String sortOrder);
+
+    /**
+     * Retrieves a page of books that belong to a specific category in cursor pagination mode, without counting the total.
+     *
+     * @param categoryId The ID of the category to filter books by.
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort the results by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing a list of books in the specified category and the cursor of the next page.
+     */
+    BookResponse searchByCategoryByCursor(Long categoryId, String cursor, Integer pageSize, String sortBy, String sortOrder);
+
+    /**
+     * Retrieves a page of books by a specific author in cursor pagination mode, without counting the total.
+     *
+     * @param author The author's name to search for.
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort the results by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing a list of books by the specified author and the cursor of the next page.
+     */
+    BookResponse searchByAuthorByCursor(String author, String cursor, Integer pageSize, String sortBy, String sortOrder);
+
+    /**
+     * Retrieves a page of books by their title in cursor pagination mode, without counting the total.
+     *
+     * @param title The title or partial title to search for.
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort the results by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing a list of books with matching titles and the cursor of the next page.
+     */
+    BookResponse searchByTitleByCursor(String title, String cursor, Integer pageSize, String sortBy, String sortOrder);
 
+    /**
+     * Searches books by title, author, category and availability, and counts the matching books per category,
+     * author and availability in the same pass.
+     *
+     * @param title The title or partial title to search for, or null for any title.
+     * @param author The author name or partial name to search for, or null for any author.
+     * @param categoryId The ID of the category to filter by, or null for all categories.
+     * @param availability The availability to filter by, or null for any availability.
+     * @param pageNumber The page number to retrieve (starting from 0).
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort the results by (e.g., title, author).
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookFacetResponse} containing a page of matching books and the counts of each facet.
+     */
+    BookFacetResponse searchWithFacets(String title, String author, Long categoryId, BookAvailability availability,
+                                       Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+
+    /**
+     * Writes all books in the system to the output as JSON lines, one {@link BookDTO} per line in ID order.
+     * The books are streamed from the database and written one by one, so memory use does not grow with the catalog.
+     *
+     * @param output The stream to write to, it is flushed but not closed.
+     * @return The number of books written.
+     * @throws IOException if writing to the output fails.
+     */
+    long exportBooks(OutputStream output) throws IOException;
 }
@@ -1,29 +1,48 @@
 package com.librarymanagement.project.services;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.librarymanagement.project.configs.AppConstants;
 import com.librarymanagement.project.exceptions.BusinessException;
 import com.librarymanagement.project.exceptions.ResourceNotFoundException;
 import com.librarymanagement.project.exceptions.ValidationException;
 import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.BookAvailability;
 import com.librarymanagement.project.models.Category;
 import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.BookExportView;
+import com.librarymanagement.project.payloads.BookFacetResponse;
 import com.librarymanagement.project.payloads.BookResponse;
 import com.librarymanagement.project.repositories.BookRepository;
 import com.librarymanagement.project.repositories.CategoryRepository;
-import org.modelmapper.ModelMapper;
+import com.librarymanagement.project.mappers.BookMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.swing.text.html.Option;
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for managing {@link Book} entities.
@@ -39,7 +58,25 @@ public class BookServiceImpl implements  BookService{
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     /**
      * Adds a new book to the system and associates it with a category.
@@ -66,9 +103,11 @@ public class BookServiceImpl implements  BookService{
         }
 
         bookDTO.setCategory(category);
-        Book book = modelMapper.map(bookDTO, Book.class);
+        Book book = bookMapper.toEntity(bookDTO);
         Book savedBook = bookRepository.save(book);
-        return modelMapper.map(savedBook, BookDTO.class);
+        eventPublisher.publishEvent(new BookChangedEvent(savedBook));
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(savedBook.getBookId()));
+        return toDTO(savedBook);
     }
 
 
@@ -96,7 +135,7 @@ public class BookServiceImpl implements  BookService{
 
         // Map to BookDTOs
         List<BookDTO> bookDTOS = books.stream()
-                .map(book -> modelMapper.map(book, BookDTO.class))
+                .map(this::toDTO)
                 .collect(Collectors.toList());
 
         // Construct and return BookResponse
@@ -122,10 +161,14 @@ public class BookServiceImpl implements  BookService{
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("No books found by book id :"  + bookId));
 
-        // Mark the book as inactive, soft deletion
+        // Mark the book as inactive, soft deletion, with the current copies
+       availabilityTable.copyTo(book);
        book.setActive(false);
        Book savedBook = bookRepository.save(book);
-       return modelMapper.map(savedBook, BookDTO.class);
+       availabilityTable.reset(savedBook);
+       eventPublisher.publishEvent(new BookChangedEvent(savedBook));
+       eventPublisher.publishEvent(new AvailabilityChangedEvent(savedBook.getBookId()));
+       return toDTO(savedBook);
     }
 
     /**
@@ -145,6 +188,7 @@ public class BookServiceImpl implements  BookService{
         if(!bookFromDB.isActive()){
             throw new BusinessException("Cannot update inactive book");
         }
+        availabilityTable.copyTo(bookFromDB);
 
         // Check if the new name is valid
         if (bookDTO.getTitle() == null || bookDTO.getTitle().trim().isEmpty()) {
@@ -156,13 +200,19 @@ public class BookServiceImpl implements  BookService{
             throw new ValidationException("Total copies cannot be less than available copies");
         }
 
+        // Copies held for ready reservations stay held
+        int copiesHeld = copiesHeld(bookFromDB);
+        if (bookDTO.getCopiesTotal() < bookDTO.getCopiesBorrowed() + copiesHeld) {
+            throw new ValidationException("Total copies cannot be less than borrowed and held copies");
+        }
+
         // Update the properties
-        Book book = modelMapper.map(bookDTO, Book.class);
+        Book book = bookMapper.toEntity(bookDTO);
         bookFromDB.setTitle(book.getTitle());
         bookFromDB.setAuthor(book.getAuthor());
         bookFromDB.setDescription(book.getDescription());
         bookFromDB.setCopiesTotal(book.getCopiesTotal());
-        bookFromDB.setCopiesAvailable(book.getCopiesTotal() - book.getCopiesBorrowed());
+        bookFromDB.setCopiesAvailable(book.getCopiesTotal() - book.getCopiesBorrowed() - copiesHeld);
         bookFromDB.setCopiesBorrowed(book.getCopiesBorrowed());
         bookFromDB.setActive(true); // only deletion can mark a book as inactive
         if(book.getCategory() != null){
@@ -173,8 +223,11 @@ public class BookServiceImpl implements  BookService{
         }
 
         Book savedBook = bookRepository.save(bookFromDB);
+        availabilityTable.reset(savedBook);
+        eventPublisher.publishEvent(new BookChangedEvent(savedBook));
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(savedBook.getBookId()));
 
-        return modelMapper.map(savedBook, BookDTO.class);
+        return toDTO(savedBook);
     }
 
     /**
@@ -195,6 +248,7 @@ public class BookServiceImpl implements  BookService{
         if(!bookFromDB.isActive()){
             throw new BusinessException("Cannot update inactive book");
         }
+        availabilityTable.copyTo(bookFromDB);
 
         // Update and construct the book
         if (bookDTO.getTitle() != null && !bookDTO.getTitle().trim().isEmpty()) {
@@ -206,12 +260,14 @@ public class BookServiceImpl implements  BookService{
         }
 
         if(bookDTO.getCopiesTotal() > 0){
+            // Copies held for ready reservations stay held
+            int copiesHeld = copiesHeld(bookFromDB);
             bookFromDB.setCopiesTotal(bookDTO.getCopiesTotal());
-            if(bookDTO.getCopiesTotal() < bookFromDB.getCopiesBorrowed()){
-                throw new ValidationException("Total copies cannot be less than borrowed copies");
+            if(bookDTO.getCopiesTotal() < bookFromDB.getCopiesBorrowed() + copiesHeld){
+                throw new ValidationException("Total copies cannot be less than borrowed and held copies");
             }
 
-            bookFromDB.setCopiesAvailable(bookFromDB.getCopiesTotal() - bookFromDB.getCopiesBorrowed());
+            bookFromDB.setCopiesAvailable(bookFromDB.getCopiesTotal() - bookFromDB.getCopiesBorrowed() - copiesHeld);
         }
 
         if(bookDTO.getDescription() != null && !bookDTO.getDescription().trim().isEmpty()){
@@ -224,7 +280,10 @@ public class BookServiceImpl implements  BookService{
         }
 
         Book savedBook = bookRepository.save(bookFromDB);
-        return modelMapper.map(savedBook, BookDTO.class);
+        availabilityTable.reset(savedBook);
+        eventPublisher.publishEvent(new BookChangedEvent(savedBook));
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(savedBook.getBookId()));
+        return toDTO(savedBook);
     }
 
     /**
@@ -255,7 +314,7 @@ public class BookServiceImpl implements  BookService{
 
         // Construct response DTO
         List<BookDTO> bookDTOS = books.stream()
-                .map(book -> modelMapper.map(book, BookDTO.class))
+                .map(this::toDTO)
                 .collect(Collectors.toList());
         BookResponse bookResponse = new BookResponse();
         bookResponse.setContent(bookDTOS);
@@ -279,27 +338,11 @@ public class BookServiceImpl implements  BookService{
      */
     @Override
     public BookResponse searchByAuthor(String author, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        // Construct page
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-
-        // Fetch books by title
-        Page<Book> pageBooks = bookRepository.findByAuthorContainingIgnoreCase(author, pageDetails);
+        // Resolve matching books against the search index
+        List<BookSearchIndex.Entry> matches = bookSearchIndex.searchAuthor(author);
 
         // Construct Response and return
-        List<BookDTO> bookDTOS = pageBooks.stream()
-                .map(book -> modelMapper.map(book, BookDTO.class))
-                .collect(Collectors.toList());
-        BookResponse bookResponse = new BookResponse();
-        bookResponse.setContent(bookDTOS);
-        bookResponse.setPageNumber(pageNumber);
-        bookResponse.setPageSize(pageSize);
-        bookResponse.setTotalElements(pageBooks.getTotalElements());
-        bookResponse.setTotalPages(pageBooks.getTotalPages());
-        bookResponse.setLastPage(pageBooks.isLast());
-        return bookResponse;
+        return pageOfMatches(matches, pageNumber, pageSize, sortBy, sortOrder);
     }
 
     /**
@@ -314,18 +357,433 @@ public class BookServiceImpl implements  BookService{
      */
     @Override
     public BookResponse searchByTitle(String title, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        // Construct page
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
+        // Resolve matching books against the search index
+        List<BookSearchIndex.Entry> matches = bookSearchIndex.searchTitle(title);
+
+        // Construct Response and return
+        return pageOfMatches(matches, pageNumber, pageSize, sortBy, sortOrder);
+    }
+
+    /**
+     * Retrieves a page of all books in cursor pagination mode.
+     * The page seeks past the sort key and book ID held by the cursor, and no total count is queried.
+     *
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing the book list and the cursor of the next page.
+     */
+    @Override
+    public BookResponse getAllBooksByCursor(String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        BookCursor.validateSortKey(sortBy);
+        ScrollPosition position = scrollPosition(cursor, sortBy);
+
+        Window<Book> window = bookRepository.findAllBy(position, keysetSort(sortBy, sortOrder), Limit.of(pageSize));
+        return toBookResponse(window, pageSize);
+    }
+
+    /**
+     * Retrieves a page of books by category in cursor pagination mode.
+     * The page seeks past the sort key and book ID held by the cursor, and no total count is queried.
+     *
+     * @param categoryId The ID of the category to filter books by.
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing the filtered book list and the cursor of the next page.
+     */
+    @Override
+    public BookResponse searchByCategoryByCursor(Long categoryId, String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        BookCursor.validateSortKey(sortBy);
+        ScrollPosition position = scrollPosition(cursor, sortBy);
 
-        // get books
-        Page<Book> pageBooks = bookRepository.findByTitleLikeIgnoreCase('%' + title + '%', pageDetails);
+        // Find the category
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("No categories found"));
+
+        Window<Book> window = bookRepository.findByCategory(category, position,
+                keysetSort(sortBy, sortOrder), Limit.of(pageSize));
+        return toBookResponse(window, pageSize);
+    }
+
+    /**
+     * Retrieves a page of books by author in cursor pagination mode.
+     * The matches of the search index are sorted in memory and the page starts right after the cursor.
+     *
+     * @param author The author's name to filter books by.
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing the filtered book list and the cursor of the next page.
+     */
+    @Override
+    public BookResponse searchByAuthorByCursor(String author, String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        BookCursor.validateSortKey(sortBy);
+        return windowOfMatches(bookSearchIndex.searchAuthor(author), cursor, pageSize, sortBy, sortOrder);
+    }
+
+    /**
+     * Retrieves a page of books by title in cursor pagination mode.
+     * The matches of the search index are sorted in memory and the page starts right after the cursor.
+     *
+     * @param title The title or partial title to filter books by.
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing the filtered book list and the cursor of the next page.
+     */
+    @Override
+    public BookResponse searchByTitleByCursor(String title, String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        BookCursor.validateSortKey(sortBy);
+        return windowOfMatches(bookSearchIndex.searchTitle(title), cursor, pageSize, sortBy, sortOrder);
+    }
+
+    /**
+     * Searches books by title, author, category and availability, and counts the matching books per category,
+     * author and availability in the same pass.
+     * The terms are resolved against the search index and the filters and counts against the facet index, both in
+     * memory, only the books of the requested page are loaded.
+     *
+     * @param title The title or partial title to search for, or null for any title.
+     * @param author The author name or partial name to search for, or null for any author.
+     * @param categoryId The ID of the category to filter by, or null for all categories.
+     * @param availability The availability to filter by, or null for any availability.
+     * @param pageNumber The page number to retrieve (starting from 0).
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort by (e.g., title, author).
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookFacetResponse} containing a page of matching books and the counts of each facet.
+     */
+    @Override
+    public BookFacetResponse searchWithFacets(String title, String author, Long categoryId, BookAvailability availability,
+                                              Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        // Resolve the terms against the search index, books must match both terms when both are given
+        Set<Long> bookIds = null;
+        if (title != null && !title.isBlank()) {
+            bookIds = bookIds(bookSearchIndex.searchTitle(title));
+        }
+        if (author != null && !author.isBlank()) {
+            Set<Long> byAuthor = bookIds(bookSearchIndex.searchAuthor(author));
+            if (bookIds == null) {
+                bookIds = byAuthor;
+            } else {
+                bookIds.retainAll(byAuthor);
+            }
+        }
+
+        // Filter and count the matches against the facet index
+        BookFacetIndex.Facets facets = bookFacetIndex.search(bookIds, categoryId, availability,
+                AppConstants.MAX_AUTHOR_FACETS);
 
         // Construct Response and return
+        BookResponse bookResponse = pageOfMatches(facets.matches(), pageNumber, pageSize, sortBy, sortOrder);
+        return new BookFacetResponse(bookResponse, facets.categories(), facets.authors(), facets.availability());
+    }
+
+    /**
+     * Writes all books to the output as JSON lines, reading them from the database with a forward-only cursor.
+     * Each row is mapped and written on its own, so neither the entities nor the full list are held in memory.
+     *
+     * @param output The stream to write to, it is flushed but not closed.
+     * @return The number of books written.
+     * @throws IOException if writing to the output fails.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long exportBooks(OutputStream output) throws IOException {
+        // Leave flushing to the generator buffer instead of flushing the response after every book
+        ObjectWriter writer = objectMapper.writerFor(BookDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<BookExportView> views = bookRepository.streamExportViews();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            for (BookExportView view : (Iterable<BookExportView>) views::iterator) {
+                BookDTO bookDTO = toDTO(view);
+                availabilityTable.applyTo(bookDTO);
+                writer.writeValue(generator, bookDTO);
+                generator.writeRaw('\n');
+                count++;
+            }
+            generator.flush();
+        }
+        return count;
+    }
+
+    /**
+     * Sorts and pages the books matched by the search index, then loads only the books of the requested page.
+     * Fields held by the index are sorted in memory, any other sort field is delegated to the database
+     * with a lookup by ID.
+     *
+     * @param matches The entries matched by the search index.
+     * @param pageNumber The page number to retrieve (starting from 0).
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort by (e.g., title, author).
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing the matched book list and metadata.
+     */
+    private BookResponse pageOfMatches(List<BookSearchIndex.Entry> matches, Integer pageNumber, Integer pageSize,
+                                       String sortBy, String sortOrder) {
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
+        Comparator<BookSearchIndex.Entry> comparator = BookSearchIndex.comparator(sortBy, ascending);
+
+        // Sort field not held by the index, let the database sort the matched IDs a bounded chunk at a time
+        if (comparator == null) {
+            return toBookResponse(sortedPageOfMatches(matches, pageNumber, pageSize, sortBy, ascending),
+                    pageNumber, pageSize);
+        }
+
+        // Sort in memory and cut out the requested page
+        List<BookSearchIndex.Entry> sorted = new ArrayList<>(matches);
+        sorted.sort(comparator);
+        int from = (int) Math.min((long) pageNumber * pageSize, sorted.size());
+        int to = Math.min(from + pageSize, sorted.size());
+        List<Long> pageIds = sorted.subList(from, to).stream()
+                .map(BookSearchIndex.Entry::bookId)
+                .toList();
+
+        // Load only the books of this page and keep the sorted order
+        List<Book> books = findAllInOrder(pageIds);
+
+        Page<Book> pageBooks = new PageImpl<>(books, PageRequest.of(pageNumber, pageSize), sorted.size());
+        return toBookResponse(pageBooks, pageNumber, pageSize);
+    }
+
+    /**
+     * Sorts the books matched by the search index by a field the index does not hold, and cuts out the requested page.
+     * The matched IDs are sent to the database in chunks of at most {@link AppConstants#MAX_SEARCH_ID_CHUNK} IDs,
+     * every chunk returns its books up to the end of the page in the requested order, and the chunks are merged in
+     * memory. Neither the IN list nor the books held in memory grow with the number of matches.
+     *
+     * @param matches The entries matched by the search index.
+     * @param pageNumber The page number to retrieve (starting from 0).
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort by.
+     * @param ascending Whether to sort in ascending order.
+     * @return The {@link Page} of matched books.
+     */
+    private Page<Book> sortedPageOfMatches(List<BookSearchIndex.Entry> matches, Integer pageNumber, Integer pageSize,
+                                           String sortBy, boolean ascending) {
+        Pageable pageDetails = PageRequest.of(pageNumber, pageSize);
+        long from = (long) pageNumber * pageSize;
+        if (from >= matches.size()) {
+            return new PageImpl<>(List.of(), pageDetails, matches.size());
+        }
+
+        // The book ID breaks ties, so the chunks agree on the order of equal sort keys
+        Sort sort = (ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending()).and(Sort.by("bookId"));
+        Comparator<Book> bookComparator = bookComparator(sortBy, ascending);
+        int end = (int) Math.min(from + pageSize, matches.size());
+
+        List<Book> first = new ArrayList<>();
+        for (int start = 0; start < matches.size(); start += AppConstants.MAX_SEARCH_ID_CHUNK) {
+            List<Long> bookIds = matches.subList(start, Math.min(start + AppConstants.MAX_SEARCH_ID_CHUNK, matches.size()))
+                    .stream()
+                    .map(BookSearchIndex.Entry::bookId)
+                    .toList();
+            first.addAll(bookRepository.findByBookIdIn(bookIds, sort, Limit.of(end)));
+
+            // Merge with the previous chunks and keep only the books up to the end of the page
+            if (start > 0) {
+                first.sort(bookComparator);
+            }
+            if (first.size() > end) {
+                first = new ArrayList<>(first.subList(0, end));
+            }
+        }
+
+        List<Book> books = first.subList((int) Math.min(from, first.size()), first.size());
+        return new PageImpl<>(books, pageDetails, matches.size());
+    }
+
+    /**
+     * Compares books the way the database sorts them by a field, nulls first in ascending order, then by book ID.
+     * A field holding another entity, such as the category, is compared by the ID of that entity.
+     *
+     * @param sortBy The field to sort by.
+     * @param ascending Whether to sort in ascending order.
+     * @return The comparator of the books.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<Book> bookComparator(String sortBy, boolean ascending) {
+        Comparator<Comparable> keyOrder = Comparator.nullsFirst(Comparator.naturalOrder());
+        Comparator<Book> byKey = Comparator.comparing(book -> {
+            Object value = new BeanWrapperImpl(book).getPropertyValue(sortBy);
+            if (value == null || value instanceof Comparable) {
+                return (Comparable) value;
+            }
+            return (Comparable) entityManagerFactory.getPersistenceUnitUtil().getIdentifier(value);
+        }, keyOrder);
+        return (ascending ? byKey : byKey.reversed()).thenComparing(Book::getBookId);
+    }
+
+    /**
+     * Sorts the books matched by the search index and returns the page following the cursor.
+     * The position of the cursor is found with a binary search on the sorted matches.
+     *
+     * @param matches The entries matched by the search index.
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param pageSize The number of books per page.
+     * @param sortBy The field to sort by, one of bookId, title or author.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return A {@link BookResponse} containing the matched book list and the cursor of the next page.
+     */
+    private BookResponse windowOfMatches(List<BookSearchIndex.Entry> matches, String cursor, Integer pageSize,
+                                         String sortBy, String sortOrder) {
+        Comparator<BookSearchIndex.Entry> comparator = BookSearchIndex.comparator(sortBy, sortOrder.equalsIgnoreCase("asc"));
+        List<BookSearchIndex.Entry> sorted = new ArrayList<>(matches);
+        sorted.sort(comparator);
+
+        // Start right after the last book of the previous page
+        int from = 0;
+        if (!cursor.isEmpty()) {
+            Map<String, Object> keys = BookCursor.decode(cursor, sortBy);
+            BookSearchIndex.Entry last = BookSearchIndex.Entry.of((Long) keys.get("bookId"),
+                    Objects.toString(keys.get("title"), null), Objects.toString(keys.get("author"), null));
+            int index = Collections.binarySearch(sorted, last, comparator);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        int to = Math.min(from + pageSize, sorted.size());
+        List<BookSearchIndex.Entry> page = sorted.subList(from, to);
+
+        // Load only the books of this page and keep the sorted order
+        List<Book> books = findAllInOrder(page.stream().map(BookSearchIndex.Entry::bookId).toList());
+
+        String nextCursor = null;
+        if (to < sorted.size()) {
+            BookSearchIndex.Entry last = page.get(page.size() - 1);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            switch (sortBy) {
+                case "title" -> keys.put("title", last.title());
+                case "author" -> keys.put("author", last.author());
+                default -> { }
+            }
+            keys.put("bookId", last.bookId());
+            nextCursor = BookCursor.encode(keys);
+        }
+        return toBookResponse(books, pageSize, nextCursor);
+    }
+
+    /**
+     * Collects the book IDs of the entries matched by the search index.
+     *
+     * @param matches The entries matched by the search index.
+     * @return The IDs of the matched books.
+     */
+    private static Set<Long> bookIds(List<BookSearchIndex.Entry> matches) {
+        Set<Long> bookIds = new HashSet<>(matches.size());
+        for (BookSearchIndex.Entry entry : matches) {
+            bookIds.add(entry.bookId());
+        }
+        return bookIds;
+    }
+
+    /**
+     * Returns the copies of a book held for ready reservations, the copies neither available nor borrowed.
+     *
+     * @param book The book, with the current copies of the availability table.
+     * @return The number of held copies.
+     */
+    private static int copiesHeld(Book book) {
+        return Math.max(0, book.getCopiesTotal() - book.getCopiesAvailable() - book.getCopiesBorrowed());
+    }
+
+    /**
+     * Loads the books with the given IDs, keeping the order of the IDs.
+     * Books that no longer exist are skipped.
+     *
+     * @param bookIds The IDs of the books to load, in the order to return them.
+     * @return The books, in the order of their IDs.
+     */
+    private List<Book> findAllInOrder(List<Long> bookIds) {
+        Map<Long, Book> booksById = new HashMap<>();
+        for (Book book : bookRepository.findAllById(bookIds)) {
+            booksById.put(book.getBookId(), book);
+        }
+        return bookIds.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Creates the keyset position to continue from.
+     *
+     * @param cursor The cursor returned with the previous page, or an empty string for the first page.
+     * @param sortBy The field to sort by.
+     * @return The initial keyset position for an empty cursor, the position after the cursor otherwise.
+     */
+    private ScrollPosition scrollPosition(String cursor, String sortBy) {
+        return cursor.isEmpty()
+                ? ScrollPosition.keyset()
+                : ScrollPosition.forward(BookCursor.decode(cursor, sortBy));
+    }
+
+    /**
+     * Creates the sort of a keyset query, with the book ID as tie-breaker so every position is unique.
+     *
+     * @param sortBy The field to sort by.
+     * @param sortOrder The order of sorting, either ascending ("asc") or descending ("desc").
+     * @return The sort on the field followed by the book ID.
+     */
+    private Sort keysetSort(String sortBy, String sortOrder) {
+        Sort.Direction direction = sortOrder.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, sortBy);
+        return sortBy.equals("bookId") ? sort : sort.and(Sort.by(direction, "bookId"));
+    }
+
+    /**
+     * Maps a window of books to a {@link BookResponse} in cursor pagination mode.
+     *
+     * @param window The window of books.
+     * @param pageSize The number of books per page.
+     * @return The {@link BookResponse} with the book list and the cursor of the next page.
+     */
+    private BookResponse toBookResponse(Window<Book> window, Integer pageSize) {
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = BookCursor.encode(last.getKeys());
+        }
+        return toBookResponse(window.getContent(), pageSize, nextCursor);
+    }
+
+    /**
+     * Maps the books of a page to a {@link BookResponse} in cursor pagination mode.
+     * The page number and totals are left empty since no count is queried.
+     *
+     * @param books The books of the page.
+     * @param pageSize The number of books per page.
+     * @param nextCursor The cursor of the next page, or null if this is the last page.
+     * @return The {@link BookResponse} with the book list and the cursor of the next page.
+     */
+    private BookResponse toBookResponse(List<Book> books, Integer pageSize, String nextCursor) {
+        List<BookDTO> bookDTOS = books.stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+        BookResponse bookResponse = new BookResponse();
+        bookResponse.setContent(bookDTOS);
+        bookResponse.setPageSize(pageSize);
+        bookResponse.setLastPage(nextCursor == null);
+        bookResponse.setNextCursor(nextCursor);
+        return bookResponse;
+    }
+
+    /**
+     * Maps a page of books to a {@link BookResponse}.
+     *
+     * @param pageBooks The page of books.
+     * @param pageNumber The page number retrieved.
+     * @param pageSize The number of books per page.
+     * @return The {@link BookResponse} with the book list and pagination metadata.
+     */
+    private BookResponse toBookResponse(Page<Book> pageBooks, Integer pageNumber, Integer pageSize) {
         List<BookDTO> bookDTOS = pageBooks.stream()
-                .map(book -> modelMapper.map(book, BookDTO.class))
+                .map(this::toDTO)
                 .collect(Collectors.toList());
         BookResponse bookResponse = new BookResponse();
         bookResponse.setContent(bookDTOS);
@@ -337,4 +795,28 @@ public class BookServiceImpl implements  BookService{
         return bookResponse;
     }
 
+    /**
+     * Maps a book to a {@link BookDTO}, with the current copies of the availability table.
+     *
+     * @param book The book.
+     * @return The {@link BookDTO}.
+     */
+    private BookDTO toDTO(Book book) {
+        BookDTO bookDTO = bookMapper.toDTO(book);
+        availabilityTable.applyTo(bookDTO);
+        return bookDTO;
+    }
+
+    /**
+     * Maps an exported book row to a {@link BookDTO}, with a category holding only its ID and name.
+     *
+     * @param view The exported book row.
+     * @return The {@link BookDTO}.
+     */
+    private static BookDTO toDTO(BookExportView view) {
+        return new BookDTO(view.getBookId(), view.getTitle(), view.getAuthor(), view.getCopiesTotal(),
+                view.getCopiesAvailable(), view.getCopiesBorrowed(), view.getActive(), view.getDescription(),
+                new Category(view.getCategoryId(), view.getCategoryName()));
+    }
+
 }
@@ -1,10 +1,14 @@
 package com.librarymanagement.project.services;
 
+import com.librarymanagement.project.payloads.LoanBatchResponse;
+import com.librarymanagement.project.payloads.LoanHistoryResponse;
 import com.librarymanagement.project.payloads.TransactionDTO;
 
+import java.util.List;
+
 /**
  * Service interface for handling book borrow and return operations.
- * Defines methods for borrowing and returning books.
+ * Defines methods for borrowing and returning books, one at a time or in batches, and for listing the loans of a user.
  */
 public interface BorrowReturnService {
 
@@ -23,4 +27,29 @@ public interface BorrowReturnService {
      * @return a TransactionDTO containing the transaction details of the borrow action.
      */
     public TransactionDTO returnBook(Long bookId);
+
+    /**
+     * Borrows several books in one transaction.
+     *
+     * @param bookIds the IDs of the books to be borrowed.
+     * @return a LoanBatchResponse containing the outcome of each book.
+     */
+    public LoanBatchResponse borrowBooks(List<Long> bookIds);
+
+    /**
+     * Returns several books in one transaction.
+     *
+     * @param bookIds the IDs of the books to be returned.
+     * @return a LoanBatchResponse containing the outcome of each book.
+     */
+    public LoanBatchResponse returnBooks(List<Long> bookIds);
+
+    /**
+     * Lists the loans of the current user, newest first, one page per cursor.
+     *
+     * @param cursor the cursor of the previous page, or null for the first page.
+     * @param pageSize the number of loans per page.
+     * @return a LoanHistoryResponse containing the page of loans and the cursor of the next page.
+     */
+    public LoanHistoryResponse getBorrowHistory(String cursor, Integer pageSize);
 }
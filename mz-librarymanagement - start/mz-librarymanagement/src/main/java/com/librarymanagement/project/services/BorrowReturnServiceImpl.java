@@ -1,16 +1,27 @@
 package com.librarymanagement.project.services;
 
 import com.librarymanagement.project.exceptions.BusinessException;
+import com.librarymanagement.project.configs.AppConstants;
 import com.librarymanagement.project.exceptions.ResourceNotFoundException;
+import com.librarymanagement.project.exceptions.ValidationException;
 import com.librarymanagement.project.models.Book;
 import com.librarymanagement.project.models.Transaction;
 import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.LoanBatchItem;
+import com.librarymanagement.project.payloads.LoanBatchResponse;
+import com.librarymanagement.project.payloads.LoanDTO;
+import com.librarymanagement.project.payloads.LoanHistoryResponse;
 import com.librarymanagement.project.payloads.TransactionDTO;
+import com.librarymanagement.project.payloads.UserDTO;
 import com.librarymanagement.project.repositories.BookRepository;
 import com.librarymanagement.project.repositories.TransactionRepository;
 import com.librarymanagement.project.repositories.UserRepository;
-import org.modelmapper.ModelMapper;
+import com.librarymanagement.project.mappers.TransactionMapper;
+import com.librarymanagement.project.security.services.UserDetailsImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,13 +29,23 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
 
 
 /**
  * Implementation of {@link BorrowReturnService} for managing category-related operations.
- * Provides methods for borrow and return books.
+ * Provides methods for borrow and return books, one at a time or in batches, and for listing the loans of a user.
  */
 @Service
 public class BorrowReturnServiceImpl implements BorrowReturnService{
@@ -39,11 +60,34 @@ public class BorrowReturnServiceImpl implements BorrowReturnService{
     private UserRepository userRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The number of days a book is lent for.
+     */
+    @Value("${spring.app.loan.loanDays:14}")
+    private long loanDays = 14;
+
+    /**
+     * The fine charged per day a book is returned late.
+     */
+    @Value("${spring.app.loan.finePerDay:0.25}")
+    private BigDecimal finePerDay = new BigDecimal("0.25");
 
 
     /**
      * Borrows a book for the current user.
+     * A copy held for the user by a reservation is lent even if no copies are available.
+     * The book is due back after {@code spring.app.loan.loanDays} days.
      *
      * @param bookId the ID of the book to be borrowed.
      * @return a TransactionDTO containing the transaction details for the borrowing.
@@ -53,46 +97,25 @@ public class BorrowReturnServiceImpl implements BorrowReturnService{
     @Override
     public TransactionDTO borrowBook(Long bookId) {
         // Fetch the user
-        Authentication authentication  = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userRepository.findByUserName(username)
-                .orElseThrow(() -> new ResourceNotFoundException("No user found by username : " + username));
-        Long userId = user.getUserId();
+        User user = currentUser();
 
-        // Find the book and check if it's active and available
+        // Find the book
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException( "No books found by book id : " + bookId));
-        if(!book.isActive()){
-            throw new BusinessException("Book can no longer be borrowed");
-        }
-        if(!book.isAvailable()){
-            throw new BusinessException("No copies available for this book");
-        }
-
-        // Check if user has unreturned borrow of the same book
-        Optional<Transaction> existingTranscation = transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(userId, bookId);
-        if(existingTranscation.isPresent()){
-            throw new BusinessException("Book already borrowed by you");
-        }
 
         // Create transaction entity and save
-        Transaction transaction = new Transaction();
-        transaction.setBook(book);
-        transaction.setUser(user);
-        transaction.setBorrowedDate(LocalDate.now());
-        transaction.setReturned(false);
+        Transaction transaction = borrow(user, book, () ->
+                transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), bookId));
         Transaction savedTransaction = transactionRepository.save(transaction);
 
-        // Update book copies available
-        book.borrowOneCopy();
-        bookRepository.save(book);
-
-        return modelMapper.map(savedTransaction, TransactionDTO.class);
+        return toDTO(savedTransaction);
     }
 
 
     /**
      * Returns a book for the current user.
+     * If users are waiting for the book, the returned copy is held for the first of them instead of made available.
+     * A book returned after its due date is charged a fine per day late.
      *
      * @param bookId the ID of the book to be returned.
      * @return a TransactionDTO containing the transaction details for the borrowing.
@@ -102,30 +125,333 @@ public class BorrowReturnServiceImpl implements BorrowReturnService{
     @Override
     public TransactionDTO returnBook(Long bookId) {
         // Fetch the user
-        Authentication authentication  = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userRepository.findByUserName(username)
-                .orElseThrow(() -> new ResourceNotFoundException("No user found by username : " + username));
-        Long userId = user.getUserId();
+        User user = currentUser();
 
         // Check the book
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException( "No books found by book id : " + bookId));
 
         // Check if the user has a borrow record with this book
-        Optional<Transaction> existingTransaction = transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(userId, bookId);
+        Optional<Transaction> existingTransaction = transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), bookId);
         if(!existingTransaction.isPresent()){
             throw new BusinessException("Book is not in borrow with the user");
         }
 
         // Update the transaction by returning the book
-        Transaction transaction = existingTransaction.get();
-        transaction.setReturned(true);
-        transaction.setReturnedDate(LocalDate.now());
+        Transaction transaction = giveBack(book, existingTransaction.get());
         transactionRepository.save(transaction);
+
+        return toDTO(transaction);
+    }
+
+
+    /**
+     * Borrows several books for the current user in one transaction, e.g. a stack checked out at a kiosk.
+     * The user, the books and the open loans of the user are each read with one query, and the books are locked
+     * in ID order, so concurrent batches of overlapping books never deadlock. Each book is borrowed under the same
+     * rules as {@link #borrowBook(Long)}, a book that cannot be borrowed is reported in its item and does not
+     * stop the others. A book is refused before anything is changed for it, and the reservation calls report a
+     * refusal by their result, so a refused book never marks the shared transaction for rollback.
+     *
+     * @param bookIds the IDs of the books to be borrowed, each at most once.
+     * @return a LoanBatchResponse with the outcome of each book, in the order of the request.
+     * @throws ValidationException if no books, too many books, or a book more than once are given.
+     */
+    @Transactional
+    @Override
+    public LoanBatchResponse borrowBooks(List<Long> bookIds) {
+        List<Long> sortedIds = checkBatch(bookIds);
+        User user = currentUser();
+        Map<Long, Book> books = lockBooks(sortedIds);
+        Set<Long> borrowedIds = transactionRepository.findOpenLoansByUserIdAndBookIdIn(user.getUserId(), sortedIds)
+                .stream()
+                .map(transaction -> transaction.getBook().getBookId())
+                .collect(Collectors.toSet());
+
+        Map<Long, LoanBatchItem> items = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for(Long bookId : sortedIds){
+            Book book = books.get(bookId);
+            if(book == null){
+                items.put(bookId, new LoanBatchItem(bookId, false, null, "No books found by book id : " + bookId));
+                continue;
+            }
+            try {
+                transactions.add(borrow(user, book, () -> borrowedIds.contains(bookId)));
+            } catch (BusinessException e) {
+                items.put(bookId, new LoanBatchItem(bookId, false, null, e.getMessage()));
+            }
+        }
+        for(Transaction savedTransaction : transactionRepository.saveAll(transactions)){
+            Long bookId = savedTransaction.getBook().getBookId();
+            items.put(bookId, new LoanBatchItem(bookId, true, toDTO(savedTransaction), null));
+        }
+        return toBatchResponse(bookIds, items);
+    }
+
+
+    /**
+     * Returns several books for the current user in one transaction.
+     * The user, the books and the open loans of the user are each read with one query, and the books are locked
+     * in ID order, so concurrent batches of overlapping books never deadlock. Each book is returned under the same
+     * rules as {@link #returnBook(Long)}, a book that is not borrowed by the user is reported in its item and does
+     * not stop the others. A book is refused before anything is changed for it, so a refused book never marks the
+     * shared transaction for rollback.
+     *
+     * @param bookIds the IDs of the books to be returned, each at most once.
+     * @return a LoanBatchResponse with the outcome of each book, in the order of the request.
+     * @throws ValidationException if no books, too many books, or a book more than once are given.
+     */
+    @Transactional
+    @Override
+    public LoanBatchResponse returnBooks(List<Long> bookIds) {
+        List<Long> sortedIds = checkBatch(bookIds);
+        User user = currentUser();
+        Map<Long, Book> books = lockBooks(sortedIds);
+        Map<Long, Transaction> openLoans = transactionRepository.findOpenLoansByUserIdAndBookIdIn(user.getUserId(), sortedIds)
+                .stream()
+                .collect(Collectors.toMap(transaction -> transaction.getBook().getBookId(), transaction -> transaction));
+
+        Map<Long, LoanBatchItem> items = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for(Long bookId : sortedIds){
+            Book book = books.get(bookId);
+            Transaction transaction = openLoans.get(bookId);
+            if(book == null){
+                items.put(bookId, new LoanBatchItem(bookId, false, null, "No books found by book id : " + bookId));
+            } else if(transaction == null){
+                items.put(bookId, new LoanBatchItem(bookId, false, null, "Book is not in borrow with the user"));
+            } else {
+                try {
+                    transactions.add(giveBack(book, transaction));
+                } catch (BusinessException e) {
+                    items.put(bookId, new LoanBatchItem(bookId, false, null, e.getMessage()));
+                }
+            }
+        }
+        for(Transaction savedTransaction : transactionRepository.saveAll(transactions)){
+            Long bookId = savedTransaction.getBook().getBookId();
+            items.put(bookId, new LoanBatchItem(bookId, true, toDTO(savedTransaction), null));
+        }
+        return toBatchResponse(bookIds, items);
+    }
+
+
+    /**
+     * Lists the loans of the current user, newest first, one page per cursor.
+     * Each page is read in one query that joins only the book, and holds at most
+     * {@link AppConstants#MAX_HISTORY_PAGE_SIZE} loans.
+     *
+     * @param cursor the cursor of the previous page, or null for the first page.
+     * @param pageSize the number of loans per page.
+     * @return a LoanHistoryResponse containing the page of loans and the cursor of the next page.
+     * @throws ValidationException if the page size is out of range or the cursor is malformed.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public LoanHistoryResponse getBorrowHistory(String cursor, Integer pageSize) {
+        if(pageSize < 1 || pageSize > AppConstants.MAX_HISTORY_PAGE_SIZE){
+            throw new ValidationException("Page size must be between 1 and " + AppConstants.MAX_HISTORY_PAGE_SIZE);
+        }
+
+        // Fetch the user
+        User user = currentUser();
+
+        // Read one loan more than requested to know whether another page follows
+        Limit limit = Limit.of(pageSize + 1);
+        List<LoanDTO> loans;
+        if(cursor == null || cursor.isEmpty()){
+            loans = transactionRepository.findLoansByUserId(user.getUserId(), limit);
+        } else {
+            LoanCursor after = LoanCursor.decode(cursor);
+            loans = transactionRepository.findLoansByUserIdAfter(user.getUserId(),
+                    after.borrowedDate(), after.transactionId(), limit);
+        }
+
+        boolean lastPage = loans.size() <= pageSize;
+        List<LoanDTO> content = lastPage ? loans : loans.subList(0, pageSize);
+        String nextCursor = null;
+        if(!lastPage){
+            LoanDTO last = content.get(content.size() - 1);
+            nextCursor = new LoanCursor(last.getBorrowedDate(), last.getTransactionId()).encode();
+        }
+        return new LoanHistoryResponse(content, pageSize, lastPage, nextCursor);
+    }
+
+    /**
+     * Lends a copy of a book to a user, and creates the loan without saving it.
+     * A copy held for the user by a reservation is lent even if no copies are available.
+     *
+     * @param user the borrowing user.
+     * @param book the book to be borrowed.
+     * @param alreadyBorrowed checks whether the user has the book borrowed, only asked if a copy can be lent.
+     * @return the new, unsaved transaction.
+     * @throws BusinessException if the book is inactive or unavailable, or the user already has it borrowed.
+     */
+    private Transaction borrow(User user, Book book, BooleanSupplier alreadyBorrowed) {
+        Long bookId = book.getBookId();
+        availabilityTable.copyToReadOnly(book);
+
+        // Check if the book is active and available
+        if(!book.isActive()){
+            throw new BusinessException("Book can no longer be borrowed");
+        }
+        // A copy held for the user by a reservation is not counted as available
+        boolean held = reservationService.hasReadyHold(user.getUserId(), bookId);
+        if(!held && !book.isAvailable()){
+            throw new BusinessException("No copies available for this book");
+        }
+
+        // Check if user has unreturned borrow of the same book
+        if(alreadyBorrowed.getAsBoolean()){
+            throw new BusinessException("Book already borrowed by you");
+        }
+
+        if(held){
+            // Lend the held copy and close the reservation
+            if(!reservationService.fulfillHold(user.getUserId(), bookId)){
+                throw new BusinessException("No copy of this book is held for you");
+            }
+            book.setCopiesBorrowed(book.getCopiesBorrowed() + 1);
+        } else {
+            // Take a copy with a single atomic check and update, a concurrent borrower may have taken the last one
+            if(!availabilityTable.borrowOneCopy(bookId)){
+                throw new BusinessException("No copies available for this book");
+            }
+            // Reflect the update on the loaded book, which is read only and never saved back
+            book.borrowOneCopy();
+            eventPublisher.publishEvent(new AvailabilityChangedEvent(bookId));
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setBook(book);
+        transaction.setUser(user);
+        transaction.setBorrowedDate(LocalDate.now());
+        transaction.setDueDate(transaction.getBorrowedDate().plusDays(loanDays));
+        transaction.setReturned(false);
+        return transaction;
+    }
+
+    /**
+     * Gives a borrowed copy of a book back and closes its loan, charging a fine if it is late.
+     * If users are waiting for the book, the copy is held for the first of them instead of made available.
+     *
+     * @param book the book to be returned.
+     * @param transaction the open loan of the book.
+     * @return the closed transaction.
+     * @throws BusinessException if the book has no borrowed copies.
+     */
+    private Transaction giveBack(Book book, Transaction transaction) {
+        Long bookId = book.getBookId();
+        availabilityTable.copyToReadOnly(book);
+
+        // Give the copy back with a single atomic check and update, before the loan is changed
+        if(!availabilityTable.returnOneCopy(bookId)){
+            throw new BusinessException("No borrowed copies to return for this book");
+        }
+        // Reflect the update on the loaded book, which is read only and never saved back
         book.returnOneCopy();
-        bookRepository.save(book);
 
-        return modelMapper.map(transaction, TransactionDTO.class);
+        transaction.setReturned(true);
+        transaction.setReturnedDate(LocalDate.now());
+        // Charge a fine per day late, whether or not the overdue scan has flagged the loan yet
+        if(transaction.getDueDate() != null && transaction.getReturnedDate().isAfter(transaction.getDueDate())){
+            long daysLate = ChronoUnit.DAYS.between(transaction.getDueDate(), transaction.getReturnedDate());
+            transaction.setOverdue(true);
+            transaction.setFine(finePerDay.multiply(BigDecimal.valueOf(daysLate)));
+        }
+
+        // Hold the copy for the first user waiting for it, which locks the book until commit
+        if(reservationService.holdForNextWaiting(bookId)){
+            book.setCopiesAvailable(book.getCopiesAvailable() - 1);
+        }
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(bookId));
+        return transaction;
+    }
+
+    /**
+     * Checks the books of a batch and sorts them, the order they are locked and processed in.
+     *
+     * @param bookIds the IDs of the books of the batch.
+     * @return the IDs in ascending order.
+     * @throws ValidationException if no books, too many books, or a book more than once are given.
+     */
+    private static List<Long> checkBatch(List<Long> bookIds) {
+        if(bookIds == null || bookIds.isEmpty()){
+            throw new ValidationException("At least one book must be given");
+        }
+        if(bookIds.size() > AppConstants.MAX_LOAN_BATCH_SIZE){
+            throw new ValidationException("At most " + AppConstants.MAX_LOAN_BATCH_SIZE + " books can be given at once");
+        }
+        if(bookIds.stream().anyMatch(Objects::isNull)){
+            throw new ValidationException("Book IDs must not be null");
+        }
+        List<Long> sortedIds = bookIds.stream().sorted().toList();
+        for(int i = 1; i < sortedIds.size(); i++){
+            if(sortedIds.get(i).equals(sortedIds.get(i - 1))){
+                throw new ValidationException("Book " + sortedIds.get(i) + " is given more than once");
+            }
+        }
+        return sortedIds;
+    }
+
+    /**
+     * Loads and locks the books of a batch with one query, in ID order.
+     *
+     * @param sortedIds the IDs of the books in ascending order.
+     * @return the books that exist by their ID.
+     */
+    private Map<Long, Book> lockBooks(List<Long> sortedIds) {
+        return bookRepository.findAllWithLockByBookIdIn(sortedIds).stream()
+                .collect(Collectors.toMap(Book::getBookId, book -> book));
+    }
+
+    /**
+     * Collects the outcome of each book of a batch in the order of the request.
+     *
+     * @param bookIds the IDs of the books in the order of the request.
+     * @param items the outcome of each book by its ID.
+     * @return the LoanBatchResponse.
+     */
+    private static LoanBatchResponse toBatchResponse(List<Long> bookIds, Map<Long, LoanBatchItem> items) {
+        List<LoanBatchItem> ordered = bookIds.stream().map(items::get).toList();
+        int succeeded = (int) ordered.stream().filter(LoanBatchItem::isSuccess).count();
+        return new LoanBatchResponse(ordered, succeeded, ordered.size() - succeeded);
+    }
+
+    /**
+     * Fetches the signed in user.
+     * The principal set by the token filter carries the ID of the user, so a reference to the user is returned
+     * without reading the user and its roles; a loan only needs the ID as its foreign key.
+     * Other principals, which only carry the username, are looked up by it.
+     *
+     * @return the current user, or a reference to it.
+     * @throws ResourceNotFoundException if the user of a principal without ID does not exist.
+     */
+    private User currentUser() {
+        Authentication authentication  = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserDetailsImpl userDetails && userDetails.getId() != null) {
+            return userRepository.getReferenceById(userDetails.getId());
+        }
+        String username = authentication.getName();
+        return userRepository.findByUserName(username)
+                .orElseThrow(() -> new ResourceNotFoundException("No user found by username : " + username));
+    }
+
+    /**
+     * Maps a transaction of the signed in user to its DTO.
+     * The user is taken from the principal when it carries the username and email, so a reference to the user
+     * is never loaded, otherwise the user of the transaction is mapped.
+     *
+     * @param transaction the transaction of the current user.
+     * @return the TransactionDTO.
+     */
+    private TransactionDTO toDTO(Transaction transaction) {
+        Authentication authentication  = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserDetailsImpl userDetails && userDetails.getEmail() != null) {
+            UserDTO userDTO = new UserDTO(userDetails.getId(), userDetails.getUsername(), userDetails.getEmail());
+            return transactionMapper.toDTO(transaction, userDTO);
+        }
+        return transactionMapper.toDTO(transaction);
     }
 }
@@ -8,7 +8,7 @@ import com.librarymanagement.project.payloads.CategoryDTO;
 import com.librarymanagement.project.payloads.CategoryResponse;
 import com.librarymanagement.project.repositories.BookRepository;
 import com.librarymanagement.project.repositories.CategoryRepository;
-import org.modelmapper.ModelMapper;
+import com.librarymanagement.project.mappers.CategoryMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -35,7 +35,7 @@ public class CategoryServiceImpl implements CategoryService{
     public BookRepository bookRepository;
 
     @Autowired
-    public ModelMapper modelMapper;
+    public CategoryMapper categoryMapper;
 
     /**
      * Retrieves a paginated and sorted list of categories.
@@ -61,7 +61,7 @@ public class CategoryServiceImpl implements CategoryService{
 
         // Map to CategoryDTOs
         List<CategoryDTO> categoryDTOS = categories.stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
+                .map(category -> categoryMapper.toDTO(category))
                 .toList();
 
         // Construct and return CategoryResponse
@@ -90,7 +90,7 @@ public class CategoryServiceImpl implements CategoryService{
         }
 
         // Check if a category with the same name already exists
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         boolean existName = categoryRepository.existsByCategoryNameIgnoreCase(category.getCategoryName());
         if(existName){
             throw new ValidationException("Category name is already in use : " + categoryDTO.getCategoryName());
@@ -99,7 +99,7 @@ public class CategoryServiceImpl implements CategoryService{
         // Save category
         Category savedCategory = categoryRepository.save(category);
 
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        return categoryMapper.toDTO(savedCategory);
     }
 
 
@@ -123,7 +123,7 @@ public class CategoryServiceImpl implements CategoryService{
         }
 
         categoryRepository.delete(category);
-        return modelMapper.map(category, CategoryDTO.class);
+        return categoryMapper.toDTO(category);
     }
 
     /**
@@ -146,9 +146,9 @@ public class CategoryServiceImpl implements CategoryService{
             throw new ValidationException("Category name is already in use : " +categoryDTO.getCategoryName());
         }
 
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         category.setCategoryId(categoryId);
         savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        return categoryMapper.toDTO(savedCategory);
     }
 }
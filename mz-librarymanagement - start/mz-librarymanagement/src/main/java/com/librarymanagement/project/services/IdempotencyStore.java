@@ -0,0 +1,130 @@
+package com.librarymanagement.project.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.librarymanagement.project.exceptions.ValidationException;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of borrow and return requests sent with an {@code Idempotency-Key} header,
+ * so a client that retries a request after a timeout gets the original response instead of running it twice.
+ * <p>
+ * Keys are scoped to the signed-in user. The first request with a key runs and its response is stored,
+ * a retry that arrives while it is still running waits for it. A request that fails is not stored, its retry
+ * runs again. Reusing a key for another operation or book is rejected. Responses are kept in a size-bounded
+ * cache and expire after a fixed time, after which the key can be used again.
+ */
+@Component
+public class IdempotencyStore {
+
+    /**
+     * The maximum length of an idempotency key.
+     */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * The maximum number of responses kept.
+     */
+    @Value("${spring.app.idempotency.maximumSize:10000}")
+    private long maximumSize;
+
+    /**
+     * The time in milliseconds after which a stored response is dropped.
+     */
+    @Value("${spring.app.idempotency.expireAfterWriteMs:86400000}")
+    private long expireAfterWriteMs;
+
+    /**
+     * Responses by user and key, completed once the first request with the key has run.
+     * Futures that complete exceptionally are removed by the cache.
+     */
+    private AsyncCache<String, StoredResponse> responses;
+
+    /**
+     * Builds the response cache once the properties have been injected.
+     */
+    @PostConstruct
+    public void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .buildAsync();
+    }
+
+    /**
+     * Runs a borrow or return request once per idempotency key of the current user.
+     * Without a key the request simply runs.
+     *
+     * @param idempotencyKey the key sent by the client, or null.
+     * @param operation the name of the operation, e.g. borrow or return.
+     * @param bookId the ID of the book of the request.
+     * @param request runs the request, on the calling thread.
+     * @return the response of the request, or the stored response of the first request with the key.
+     * @throws ValidationException if the key is blank, too long, or was used for another operation or book.
+     */
+    public TransactionDTO execute(String idempotencyKey, String operation, Long bookId,
+                                  Supplier<TransactionDTO> request) {
+        if (idempotencyKey == null) {
+            return request.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        String fingerprint = operation + " " + bookId;
+
+        CompletableFuture<StoredResponse> created = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = responses.asMap().putIfAbsent(username + "\n" + idempotencyKey, created);
+        if (existing == null) {
+            try {
+                TransactionDTO response = request.get();
+                created.complete(new StoredResponse(fingerprint, response));
+                return response;
+            } catch (RuntimeException | Error e) {
+                // Not stored, so a retry runs the request again
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        StoredResponse stored;
+        try {
+            stored = existing.join();
+        } catch (CompletionException e) {
+            // The first request failed while this one waited for it, fail the same way
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new ValidationException("Idempotency-Key was already used for another request");
+        }
+        return stored.response();
+    }
+
+    /**
+     * Drops all stored responses.
+     */
+    public void clear() {
+        responses.synchronous().invalidateAll();
+    }
+
+    /**
+     * The response of the first request with a key.
+     *
+     * @param fingerprint the operation and book of the request.
+     * @param response the response of the request.
+     */
+    private record StoredResponse(String fingerprint, TransactionDTO response) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors used by keyset pagination of the borrowing history.
+ * A cursor holds the borrowed date and transaction ID of the last loan of a page, so the next page can seek
+ * directly past it on the (user_id, borrowed_date, transaction_id) index. Clients should treat the cursor as
+ * an opaque string.
+ *
+ * @param borrowedDate the borrowed date of the last loan of the previous page.
+ * @param transactionId the transaction ID of the last loan of the previous page.
+ */
+public record LoanCursor(LocalDate borrowedDate, Long transactionId) {
+
+    /**
+     * Encodes the cursor into an opaque string.
+     *
+     * @return The encoded cursor.
+     */
+    public String encode() {
+        String keys = borrowedDate + "/" + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}.
+     *
+     * @param cursor The encoded cursor.
+     * @return The borrowed date and transaction ID of the last loan of the previous page.
+     * @throws ValidationException If the cursor is malformed.
+     */
+    public static LoanCursor decode(String cursor) {
+        try {
+            String keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = keys.indexOf('/');
+            if (separator < 0) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return new LoanCursor(LocalDate.parse(keys.substring(0, separator)),
+                    Long.valueOf(keys.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
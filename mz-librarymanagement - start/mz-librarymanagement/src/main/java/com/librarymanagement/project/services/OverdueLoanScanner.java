@@ -0,0 +1,143 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.models.JobWatermark;
+import com.librarymanagement.project.repositories.JobWatermarkRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Flags loans that were not returned by their due date.
+ * <p>
+ * The scan is incremental: a high-water mark in the database holds the last due date that has been scanned, and
+ * each run only reads the open loans due after the mark and before today. Due dates are set when a book is borrowed
+ * and always lie in the future, so a loan can never fall due behind the mark and be missed. The loans are flagged in
+ * batches of {@code spring.app.overdue.batchSize}, each batch in its own transaction, and the mark moves forward once
+ * all of them are flagged. A run that stops halfway is repeated by the next one, flagging a loan twice does no harm.
+ * <p>
+ * Every run is recorded in the {@value #METRIC_NAME} timer and the number of flagged loans in the
+ * {@value #ROWS_METRIC_NAME} summary, and the last run is kept for {@link #getLastResult()}.
+ */
+@Component
+public class OverdueLoanScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueLoanScanner.class);
+
+    /**
+     * The name of the high-water mark of the scan.
+     */
+    public static final String JOB_NAME = "overdue-loans";
+
+    /**
+     * The name of the timer the duration of each run is recorded in.
+     */
+    public static final String METRIC_NAME = "library.overdue.scan";
+
+    /**
+     * The name of the summary the number of loans flagged by each run is recorded in.
+     */
+    public static final String ROWS_METRIC_NAME = "library.overdue.scan.rows";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The maximum number of loans flagged per transaction.
+     */
+    @Value("${spring.app.overdue.batchSize:500}")
+    private int batchSize;
+
+    private volatile ScanResult lastResult;
+
+    /**
+     * Flags the loans that became overdue since the last run.
+     *
+     * @return the range of due dates scanned, the number of loans flagged and the duration of the run.
+     */
+    @Scheduled(fixedDelayString = "${spring.app.overdue.scanMs:3600000}",
+            initialDelayString = "${spring.app.overdue.scanMs:3600000}")
+    public ScanResult scan() {
+        return scan(LocalDate.now());
+    }
+
+    /**
+     * Flags the loans due after the high-water mark and before the given day, and moves the mark to the day before.
+     *
+     * @param today the day of the run, loans due on this day are not overdue yet.
+     * @return the range of due dates scanned, the number of loans flagged and the duration of the run.
+     */
+    public synchronized ScanResult scan(LocalDate today) {
+        long start = System.nanoTime();
+        LocalDate after = jobWatermarkRepository.findById(JOB_NAME)
+                .map(JobWatermark::getWatermarkDate)
+                .orElse(LocalDate.EPOCH);
+        LocalDate until = today.minusDays(1);
+
+        int flagged = 0;
+        int batches = 0;
+        if (until.isAfter(after)) {
+            List<Long> batch = transactionRepository.findNewlyOverdueIds(after, until, Limit.of(batchSize));
+            while (!batch.isEmpty()) {
+                List<Long> ids = batch;
+                Integer count = transactionTemplate.execute(status -> transactionRepository.flagOverdue(ids));
+                flagged += count == null ? 0 : count;
+                batches++;
+                // Flagged and meanwhile returned loans have left the range, the next batch starts past them
+                batch = transactionRepository.findNewlyOverdueIds(after, until, Limit.of(batchSize));
+            }
+            jobWatermarkRepository.save(new JobWatermark(JOB_NAME, until));
+        }
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        meterRegistry.timer(METRIC_NAME).record(duration);
+        meterRegistry.summary(ROWS_METRIC_NAME).record(flagged);
+        ScanResult result = new ScanResult(after, until, flagged, batches, duration);
+        lastResult = result;
+        if (flagged > 0) {
+            logger.info("Flagged {} overdue loans due after {} until {} in {} batches, took {} ms",
+                    flagged, after, until, batches, duration.toMillis());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the result of the last run.
+     *
+     * @return the last run, or null if the scan has not run yet.
+     */
+    public ScanResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * The result of a run of the overdue scan.
+     *
+     * @param after the high-water mark the run started from, loans due after it were scanned.
+     * @param until the last due date scanned, the new high-water mark.
+     * @param flagged the number of loans flagged overdue.
+     * @param batches the number of batches the loans were flagged in.
+     * @param duration the duration of the run.
+     */
+    public record ScanResult(LocalDate after, LocalDate until, int flagged, int batches, Duration duration) {
+    }
+}
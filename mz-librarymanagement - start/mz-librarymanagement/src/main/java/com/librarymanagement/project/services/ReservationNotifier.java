@@ -0,0 +1,174 @@
+package com.librarymanagement.project.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notifies users over server-sent events when a copy of a book they reserved is held for them.
+ * <p>
+ * Each signed in user may keep a few streams open, e.g. one per browser tab. Events are only sent once the hold is
+ * committed, a rolled back hold is never announced, and they are written by a single sender thread, so the
+ * committing thread never waits on a client. A user without an open stream misses the event, the ready
+ * reservation is still listed by {@link ReservationService#getMyReservations()}.
+ */
+@Component
+public class ReservationNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationNotifier.class);
+
+    /**
+     * The maximum number of open streams per user, the oldest is closed when another one is opened.
+     */
+    static final int MAX_STREAMS_PER_USER = 5;
+
+    /**
+     * The time after which a stream is closed, its client reconnects.
+     */
+    @Value("${spring.app.reservation.notifications.streamTimeoutMs:1800000}")
+    private long streamTimeoutMs;
+
+    /**
+     * The maximum number of open streams.
+     */
+    @Value("${spring.app.reservation.notifications.maxSubscribers:10000}")
+    private int maxSubscribers;
+
+    private final Map<String, List<SseEmitter>> byUser = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ExecutorService sender =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("reservation-notify-"));
+
+    /**
+     * Opens a stream of the reservations of the current user whose copy is held for them.
+     *
+     * @return the emitter of the stream.
+     * @throws ResponseStatusException if too many streams are open.
+     */
+    public SseEmitter subscribe() {
+        String userName = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (subscriberCount.get() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many notification subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        emitter.onCompletion(() -> unsubscribe(userName, emitter));
+        emitter.onTimeout(() -> unsubscribe(userName, emitter));
+        emitter.onError(error -> unsubscribe(userName, emitter));
+
+        SseEmitter[] oldest = new SseEmitter[1];
+        byUser.compute(userName, (name, emitters) -> {
+            List<SseEmitter> streams = emitters == null ? new CopyOnWriteArrayList<>() : emitters;
+            if (streams.size() >= MAX_STREAMS_PER_USER) {
+                oldest[0] = streams.remove(0);
+                subscriberCount.decrementAndGet();
+            }
+            streams.add(emitter);
+            subscriberCount.incrementAndGet();
+            return streams;
+        });
+        if (oldest[0] != null) {
+            oldest[0].complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends a ready reservation to the open streams of its user, once the hold is committed.
+     * Never blocks, the event is written by the sender thread.
+     *
+     * @param event the ready reservation.
+     */
+    @TransactionalEventListener
+    public void onReservationReady(ReservationReadyEvent event) {
+        List<SseEmitter> emitters = byUser.get(event.userName());
+        if (emitters == null) {
+            logger.debug("Reservation {} is ready, user {} has no open stream",
+                    event.reservationId(), event.userName());
+            return;
+        }
+        sender.execute(() -> emitters.forEach(emitter -> send(event.userName(), emitter, SseEmitter.event()
+                .name("reservation-ready")
+                .id(String.valueOf(event.reservationId()))
+                .data(event))));
+    }
+
+    /**
+     * Sends a comment to every stream, so connections closed by the client are noticed and released.
+     */
+    @Scheduled(fixedDelayString = "${spring.app.reservation.notifications.heartbeatMs:30000}",
+            initialDelayString = "${spring.app.reservation.notifications.heartbeatMs:30000}")
+    public void sendHeartbeats() {
+        byUser.forEach((userName, emitters) -> sender.execute(() ->
+                emitters.forEach(emitter -> send(userName, emitter, SseEmitter.event().comment("heartbeat")))));
+    }
+
+    /**
+     * Returns the number of open streams.
+     *
+     * @return the number of subscribers.
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Stops the sender thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Sends an event to a stream, and closes the stream if its client is gone. Runs on the sender thread.
+     *
+     * @param userName the name of the user of the stream.
+     * @param emitter the emitter of the stream.
+     * @param event the event.
+     */
+    private void send(String userName, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone or the stream was completed
+            unsubscribe(userName, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Removes a stream of a user, once it is closed.
+     *
+     * @param userName the name of the user of the stream.
+     * @param emitter the emitter of the stream.
+     */
+    private void unsubscribe(String userName, SseEmitter emitter) {
+        byUser.computeIfPresent(userName, (name, emitters) -> {
+            if (emitters.remove(emitter)) {
+                subscriberCount.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.librarymanagement.project.services;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a copy of a book is held for a reservation, so the waiting user can be notified.
+ *
+ * @param reservationId the ID of the reservation.
+ * @param bookId the ID of the held book.
+ * @param userName the name of the user the copy is held for.
+ * @param expiresAt the time the hold runs out.
+ */
+public record ReservationReadyEvent(Long reservationId, Long bookId, String userName, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,74 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.payloads.ReservationDTO;
+
+import java.util.List;
+
+/**
+ * Service interface for the reservation queues of books.
+ * A user reserves a book with no copies available instead of polling for one. When a copy is returned it is
+ * held for the first user in the queue, who is notified and can borrow it until the hold expires.
+ */
+public interface ReservationService {
+
+    /**
+     * Reserves a book for the current user, adding the user to the end of the queue of the book.
+     *
+     * @param bookId the ID of the book to reserve.
+     * @return a ReservationDTO with the position of the user in the queue.
+     */
+    ReservationDTO reserveBook(Long bookId);
+
+    /**
+     * Cancels a waiting or ready reservation of the current user.
+     * A copy held for the reservation is passed on to the next user in the queue.
+     *
+     * @param reservationId the ID of the reservation to cancel.
+     * @return a ReservationDTO of the cancelled reservation.
+     */
+    ReservationDTO cancelReservation(Long reservationId);
+
+    /**
+     * Retrieves the waiting and ready reservations of the current user.
+     *
+     * @return the reservations, oldest first, with the queue positions of the waiting ones.
+     */
+    List<ReservationDTO> getMyReservations();
+
+    /**
+     * Checks whether a copy of a book is held for a user.
+     *
+     * @param userId the ID of the user.
+     * @param bookId the ID of the book.
+     * @return true if a copy is held for the user, false otherwise.
+     */
+    boolean hasReadyHold(Long userId, Long bookId);
+
+    /**
+     * Lends the copy held for a user, marking the reservation as fulfilled.
+     * Must be called within the transaction that records the loan. A refused loan is returned rather than thrown,
+     * so the transaction of a batch of loans is not marked for rollback.
+     *
+     * @param userId the ID of the user.
+     * @param bookId the ID of the book.
+     * @return true if the held copy was lent, false if no copy is held for the user any more.
+     */
+    boolean fulfillHold(Long userId, Long bookId);
+
+    /**
+     * Holds an available copy of a book for the first user waiting in its queue, if any.
+     * Must be called within the transaction that made the copy available, the book row is locked until its commit.
+     * Never throws on a copy that cannot be held, so the transaction of a batch of returns is not marked for rollback.
+     *
+     * @param bookId the ID of the book.
+     * @return true if the copy was held for a waiting user, false if nobody is waiting or no copy could be held.
+     */
+    boolean holdForNextWaiting(Long bookId);
+
+    /**
+     * Expires the holds that were not borrowed in time and passes their copies on.
+     *
+     * @return the number of expired holds.
+     */
+    int expireHolds();
+}
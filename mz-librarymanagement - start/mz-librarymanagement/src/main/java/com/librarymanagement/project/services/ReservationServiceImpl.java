@@ -0,0 +1,369 @@
+package com.librarymanagement.project.services;
+
+import com.librarymanagement.project.exceptions.BusinessException;
+import com.librarymanagement.project.exceptions.ResourceNotFoundException;
+import com.librarymanagement.project.mappers.ReservationMapper;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Reservation;
+import com.librarymanagement.project.models.ReservationStatus;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.ReservationDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.ReservationRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of {@link ReservationService} keeping a first come, first served queue per book.
+ * Reservations and returns of the same book meet on the row of the book. A return first gives the copy back in the
+ * {@link AvailabilityTable}, then locks the row and only then looks for a waiting user. A reservation locks the row,
+ * then reads the available copies from the table and queues the user if there are none. If the reservation gets the
+ * lock first, the return sees its waiting user once it commits. If the return gets it first, the copy was given back
+ * before, and the reservation sees it as available, unless it is already held for an earlier user. So a copy
+ * returned while a user reserves is never missed by both.
+ * A held copy is neither available nor borrowed, it only shows as the difference to the total copies.
+ */
+@Service
+public class ReservationServiceImpl implements ReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationServiceImpl.class);
+
+    /**
+     * The states of a reservation that is still in the queue or holding a copy.
+     */
+    private static final Set<ReservationStatus> ACTIVE = Set.of(ReservationStatus.WAITING, ReservationStatus.READY);
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ReservationMapper reservationMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    @Autowired
+    private BookLockManager bookLockManager;
+
+    /**
+     * How long a returned copy is held for a reservation before it is passed on.
+     */
+    @Value("${spring.app.reservation.holdHours:48}")
+    private long holdHours;
+
+    /**
+     * Reserves a book for the current user.
+     *
+     * @param bookId the ID of the book to reserve.
+     * @return a ReservationDTO with the position of the user in the queue.
+     * @throws BusinessException if the book is inactive or available, or the user borrowed or reserved it already.
+     */
+    @Transactional
+    @Override
+    public ReservationDTO reserveBook(Long bookId) {
+        User user = currentUser();
+
+        // Lock the book, a concurrent return then either sees this reservation or has made its copy available
+        Book book = bookRepository.findWithLockByBookId(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("No books found by book id : " + bookId));
+        availabilityTable.copyToReadOnly(book);
+        if (!book.isActive()) {
+            throw new BusinessException("Book can no longer be borrowed");
+        }
+        if (book.isAvailable()) {
+            throw new BusinessException("Copies are available for this book, borrow it instead");
+        }
+        if (transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), bookId)) {
+            throw new BusinessException("Book already borrowed by you");
+        }
+        if (reservationRepository.existsByUser_UserIdAndBook_BookIdAndStatusIn(user.getUserId(), bookId, ACTIVE)) {
+            throw new BusinessException("Book already reserved by you");
+        }
+
+        Reservation reservation = new Reservation();
+        reservation.setBook(book);
+        reservation.setUser(user);
+        reservation.setStatus(ReservationStatus.WAITING);
+        reservation.setReservedAt(LocalDateTime.now());
+        Reservation savedReservation = reservationRepository.save(reservation);
+        return toDTO(savedReservation);
+    }
+
+    /**
+     * Cancels a waiting or ready reservation of the current user.
+     * The cancel runs in its own transaction under the lock of the book, so an edit of the book cannot overwrite
+     * the copy it releases.
+     *
+     * @param reservationId the ID of the reservation to cancel.
+     * @return a ReservationDTO of the cancelled reservation.
+     * @throws ResourceNotFoundException if the reservation does not exist or belongs to another user.
+     * @throws BusinessException if the reservation is no longer active.
+     */
+    @Override
+    public ReservationDTO cancelReservation(Long reservationId) {
+        User user = currentUser();
+        Long bookId = ownReservation(reservationId, user).getBook().getBookId();
+        return bookLockManager.callLocked(bookId, () ->
+                transactionTemplate.execute(status -> cancel(reservationId, user)));
+    }
+
+    /**
+     * Retrieves the waiting and ready reservations of the current user.
+     *
+     * @return the reservations, oldest first, with the queue positions of the waiting ones.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<ReservationDTO> getMyReservations() {
+        User user = currentUser();
+        return reservationRepository.findByUser_UserIdAndStatusInOrderByReservationIdAsc(user.getUserId(), ACTIVE)
+                .stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    /**
+     * Checks whether a copy of a book is held for a user.
+     *
+     * @param userId the ID of the user.
+     * @param bookId the ID of the book.
+     * @return true if a copy is held for the user, false otherwise.
+     */
+    @Override
+    public boolean hasReadyHold(Long userId, Long bookId) {
+        return reservationRepository.findByUser_UserIdAndBook_BookIdAndStatus(userId, bookId, ReservationStatus.READY)
+                .isPresent();
+    }
+
+    /**
+     * Lends the copy held for a user, marking the reservation as fulfilled.
+     *
+     * @param userId the ID of the user.
+     * @param bookId the ID of the book.
+     * @return true if the held copy was lent, false if no copy is held for the user any more.
+     */
+    @Transactional
+    @Override
+    public boolean fulfillHold(Long userId, Long bookId) {
+        Reservation reservation = reservationRepository
+                .findByUser_UserIdAndBook_BookIdAndStatus(userId, bookId, ReservationStatus.READY)
+                .orElse(null);
+        if (reservation == null) {
+            return false;
+        }
+        // Change the state first, the conditional update of a disabled availability table clears the persistence context
+        reservation.setStatus(ReservationStatus.FULFILLED);
+        if (!availabilityTable.borrowHeldCopy(bookId)) {
+            // Put the reservation back, saved as the cleared persistence context no longer tracks it
+            reservation.setStatus(ReservationStatus.READY);
+            reservationRepository.save(reservation);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Holds an available copy of a book for the first user waiting in its queue, if any.
+     *
+     * @param bookId the ID of the book.
+     * @return true if the copy was held for a waiting user, false if nobody is waiting or no copy could be held.
+     */
+    @Transactional
+    @Override
+    public boolean holdForNextWaiting(Long bookId) {
+        // Lock the book, a concurrent reservation then either sees the copy available or is seen waiting here
+        bookRepository.findWithLockByBookId(bookId);
+        Reservation next = reservationRepository
+                .findFirstByBook_BookIdAndStatusOrderByReservationIdAsc(bookId, ReservationStatus.WAITING)
+                .orElse(null);
+        if (next == null) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        next.setStatus(ReservationStatus.READY);
+        next.setReadyAt(now);
+        next.setExpiresAt(now.plus(Duration.ofHours(holdHours)));
+        // Change the state first, the conditional update of a disabled availability table clears the persistence context
+        if (!availabilityTable.holdOneCopy(bookId)) {
+            // Put the reservation back in line, saved as the cleared persistence context no longer tracks it
+            logger.warn("No copies available to hold for book {}", bookId);
+            next.setStatus(ReservationStatus.WAITING);
+            next.setReadyAt(null);
+            next.setExpiresAt(null);
+            reservationRepository.save(next);
+            return false;
+        }
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(bookId));
+        eventPublisher.publishEvent(new ReservationReadyEvent(
+                next.getReservationId(), bookId, next.getUser().getUserName(), next.getExpiresAt()));
+        return true;
+    }
+
+    /**
+     * Expires the holds that were not borrowed in time and passes their copies on.
+     * Runs periodically, each hold is expired in its own transaction under the lock of its book. A hold that fails
+     * to expire is logged and skipped, so it does not block the holds after it, and is tried again by the next run.
+     *
+     * @return the number of expired holds.
+     */
+    @Scheduled(fixedDelayString = "${spring.app.reservation.expiryScanMs:60000}",
+            initialDelayString = "${spring.app.reservation.expiryScanMs:60000}")
+    @Override
+    public int expireHolds() {
+        int expired = 0;
+        LocalDateTime now = LocalDateTime.now();
+        List<Reservation> due = reservationRepository
+                .findTop100ByStatusAndExpiresAtBeforeAndReservationIdGreaterThanOrderByReservationIdAsc(
+                        ReservationStatus.READY, now, 0L);
+        while (!due.isEmpty()) {
+            for (Reservation reservation : due) {
+                try {
+                    Boolean done = bookLockManager.callLocked(reservation.getBook().getBookId(), () ->
+                            transactionTemplate.execute(status -> expireHold(reservation.getReservationId())));
+                    if (Boolean.TRUE.equals(done)) {
+                        expired++;
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Could not expire the hold of reservation {}", reservation.getReservationId(), e);
+                }
+            }
+            // Continue after the last hold of the batch, failed holds stay ready and are not read again
+            Long last = due.get(due.size() - 1).getReservationId();
+            due = reservationRepository
+                    .findTop100ByStatusAndExpiresAtBeforeAndReservationIdGreaterThanOrderByReservationIdAsc(
+                            ReservationStatus.READY, now, last);
+        }
+        if (expired > 0) {
+            logger.info("Expired {} reservation holds", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Cancels a reservation of a user, within the transaction and the book lock of the caller.
+     *
+     * @param reservationId the ID of the reservation to cancel.
+     * @param user the user the reservation must belong to.
+     * @return a ReservationDTO of the cancelled reservation.
+     * @throws ResourceNotFoundException if the reservation does not exist or belongs to another user.
+     * @throws BusinessException if the reservation is no longer active.
+     */
+    private ReservationDTO cancel(Long reservationId, User user) {
+        Reservation reservation = ownReservation(reservationId, user);
+        if (!ACTIVE.contains(reservation.getStatus())) {
+            throw new BusinessException("Reservation is no longer active");
+        }
+
+        boolean held = reservation.getStatus() == ReservationStatus.READY;
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        ReservationDTO reservationDTO = reservationMapper.toDTO(reservation, null);
+        if (held) {
+            passOnHeldCopy(reservation.getBook().getBookId());
+        } else {
+            reservationRepository.save(reservation);
+        }
+        return reservationDTO;
+    }
+
+    /**
+     * Fetches a reservation of a user.
+     *
+     * @param reservationId the ID of the reservation.
+     * @param user the user the reservation must belong to.
+     * @return the reservation.
+     * @throws ResourceNotFoundException if the reservation does not exist or belongs to another user.
+     */
+    private Reservation ownReservation(Long reservationId, User user) {
+        return reservationRepository.findById(reservationId)
+                .filter(found -> found.getUser().getUserId().equals(user.getUserId()))
+                .orElseThrow(() -> new ResourceNotFoundException("No reservations found by reservation id : " + reservationId));
+    }
+
+    /**
+     * Expires a single hold, unless it was borrowed or cancelled in the meantime.
+     *
+     * @param reservationId the ID of the reservation.
+     * @return true if the hold was expired.
+     */
+    private boolean expireHold(Long reservationId) {
+        Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+        if (reservation == null || reservation.getStatus() != ReservationStatus.READY) {
+            return false;
+        }
+        reservation.setStatus(ReservationStatus.EXPIRED);
+        passOnHeldCopy(reservation.getBook().getBookId());
+        return true;
+    }
+
+    /**
+     * Puts a held copy back into circulation and holds it again for the next user waiting, if any.
+     *
+     * @param bookId the ID of the book.
+     */
+    private void passOnHeldCopy(Long bookId) {
+        if (!availabilityTable.releaseHeldCopy(bookId)) {
+            throw new BusinessException("No held copy to release for this book");
+        }
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(bookId));
+        holdForNextWaiting(bookId);
+    }
+
+    /**
+     * Maps a reservation to its DTO, with its position in the queue if it is waiting.
+     *
+     * @param reservation the reservation.
+     * @return the ReservationDTO.
+     */
+    private ReservationDTO toDTO(Reservation reservation) {
+        Long queuePosition = null;
+        if (reservation.getStatus() == ReservationStatus.WAITING) {
+            queuePosition = reservationRepository.countByBook_BookIdAndStatusAndReservationIdLessThan(
+                    reservation.getBook().getBookId(), ReservationStatus.WAITING, reservation.getReservationId()) + 1;
+        }
+        return reservationMapper.toDTO(reservation, queuePosition);
+    }
+
+    /**
+     * Fetches the signed in user.
+     *
+     * @return the current user.
+     */
+    private User currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        return userRepository.findByUserName(username)
+                .orElseThrow(() -> new ResourceNotFoundException("No user found by username : " + username));
+    }
+}
@@ -1,21 +1,32 @@
 package com.librarymanagement.project.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.librarymanagement.project.exceptions.ResourceNotFoundException;
 import com.librarymanagement.project.models.User;
 import com.librarymanagement.project.repositories.UserRepository;
 import com.librarymanagement.project.security.services.UserDetailsImpl;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
 
 /**
  * Service implementation for loading user details based on the username.
  * This service is used by Spring Security to fetch the user details during authentication.
  * It retrieves the user information from the database and converts it into a UserDetails object.
+ * Loaded user details are kept in a size-bounded cache whose entries expire after a fixed time,
+ * so a change that is not evicted explicitly is picked up after that time at the latest.
  */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -23,22 +34,140 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    /**
+     * The maximum number of users kept in the cache.
+     */
+    @Value("${spring.app.userCache.maximumSize:10000}")
+    private long maximumSize;
+
+    /**
+     * The time in milliseconds after which a cached user is loaded again.
+     */
+    @Value("${spring.app.userCache.expireAfterWriteMs:300000}")
+    private long expireAfterWriteMs;
+
+    /**
+     * The number of generation counters the usernames are spread over.
+     */
+    private static final int GENERATION_STRIPES = 1024;
+
+    /**
+     * Cache of loaded user details keyed by username.
+     */
+    private Cache<String, UserDetailsImpl> cache;
+
+    /**
+     * Generation counters of the usernames, striped by the hash of the username so they stay bounded.
+     * Evicting a user increments its counter, a user read before the eviction is then not cached.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Generation counter of all users, incremented when the whole cache is evicted.
+     */
+    private final AtomicLong allGeneration = new AtomicLong();
+
+    /**
+     * Builds the user details cache once the properties have been injected.
+     */
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .build();
+    }
+
     /**
      * Loads the user details by the provided username.
      * This method is used by Spring Security to authenticate the user and load the necessary details.
+     * The user is only read from the database if it is not cached yet. The read runs outside the cache, whose map
+     * holds a monitor while computing an entry, so a virtual thread does not pin its carrier for the round trip.
+     * The result is only cached if the user was not evicted meanwhile, a user read before a change is never
+     * cached after the change was evicted.
      *
      * @param username The username of the user whose details need to be loaded.
      * @return The UserDetails object containing the user information, including roles and authorities.
      * @throws UsernameNotFoundException If the user is not found in the database.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetailsImpl cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = generation(username);
+        UserDetailsImpl userDetails = loadFromDatabase(username);
+
+        // Only compare and store under the map lock, an eviction since the read keeps the entry out
+        cache.asMap().compute(username, (name, existing) ->
+                generation(name) == generation ? userDetails : existing);
+        return userDetails;
+    }
+
+    /**
+     * Removes a user from the cache, so the next lookup reads it from the database again.
+     * Must be called whenever the user or its roles change.
+     *
+     * @param username The username of the user to evict.
+     */
+    public void evictUser(String username) {
+        generations.incrementAndGet(stripe(username));
+        cache.invalidate(username);
+    }
+
+    /**
+     * Removes all users from the cache, e.g. after a change to a role held by many users.
+     */
+    public void evictAllUsers() {
+        allGeneration.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the user details cache.
+     *
+     * @return A snapshot of the cache statistics.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Reads a user from the database and converts it into user details.
+     *
+     * @param username The username of the user to load.
+     * @return The user details of the user.
+     * @throws ResourceNotFoundException If the user is not found in the database.
+     */
+    private UserDetailsImpl loadFromDatabase(String username) {
         User user = userRepository.findByUserName(username)
                 .orElseThrow( () ->
                         new ResourceNotFoundException("User not found by user name: " + username));
 
-
         return UserDetailsImpl.build(user);
     }
+
+    /**
+     * Returns the current generation of a username, which changes whenever the user or all users are evicted.
+     *
+     * @param username The username.
+     * @return The generation of the username.
+     */
+    private long generation(String username) {
+        return allGeneration.get() + generations.get(stripe(username));
+    }
+
+    /**
+     * Returns the generation counter a username is counted by.
+     *
+     * @param username The username.
+     * @return The index of the counter.
+     */
+    private static int stripe(String username) {
+        return Math.floorMod(username.hashCode(), GENERATION_STRIPES);
+    }
 }
@@ -177,4 +177,25 @@ public class AuthControllerTest {
                 .andDo(print())
                 .andExpect(status().isForbidden());
     }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestSignoutSuccess() throws Exception {
+        // Set up
+        when(authService.signout("token"))
+                .thenReturn(new MessageResponse("User signed out successfully!"));
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/signout")
+                        .header("Authorization", "Bearer token"))
+                .andExpect(status().isOk())
+                .andExpect((ResultMatcher) jsonPath("$.message").value("User signed out successfully!"));
+    }
+
+    @Test
+    public void TestSignoutFailNotSignedIn() throws Exception {
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/signout"))
+                .andExpect(status().isUnauthorized());
+    }
 }
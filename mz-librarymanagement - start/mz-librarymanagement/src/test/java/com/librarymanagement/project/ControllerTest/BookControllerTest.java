@@ -5,8 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.librarymanagement.project.MzLibrarymanagementApplication;
 import com.librarymanagement.project.models.*;
 import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.BookFacetResponse;
+import com.librarymanagement.project.payloads.BookImportError;
+import com.librarymanagement.project.payloads.BookImportResponse;
 import com.librarymanagement.project.payloads.BookResponse;
 import com.librarymanagement.project.security.jwt.JwtUtils;
+import com.librarymanagement.project.services.BookImportService;
 import com.librarymanagement.project.services.BookService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,16 +22,24 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
 import java.util.List;
+import java.util.Map;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -46,6 +58,9 @@ public class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private BookImportService bookImportService;
+
     @Test
     @WithMockUser(username = "user", roles = "ADMIN")
     public void TestCreateBookSuccess() throws Exception {
@@ -153,7 +168,7 @@ public class BookControllerTest {
 
     @Test
     public  void TestGetAllBooksSuccessEmpty() throws Exception {
-        BookResponse bookResponse = new BookResponse(new ArrayList<>(), 0, 10, 0L,0, true);
+        BookResponse bookResponse = new BookResponse(new ArrayList<>(), 0, 10, 0L,0, true, null);
         when(bookService.getAllBooks(anyInt(), anyInt(), anyString(), anyString()))
                 .thenReturn(bookResponse);
         mockMvc.perform(MockMvcRequestBuilders.get("/api/public/books"))
@@ -162,6 +177,63 @@ public class BookControllerTest {
                 .andReturn();
     }
 
+    @Test
+    public void TestGetAllBooksSuccessCursor() throws Exception {
+        BookResponse bookResponse = new BookResponse(new ArrayList<>(), null, 10, null, null, false, "next");
+        when(bookService.getAllBooksByCursor("", 3, "bookId", "asc"))
+                .thenReturn(bookResponse);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/public/books")
+                .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect((ResultMatcher) jsonPath("$.nextCursor").value("next"))
+                .andExpect((ResultMatcher) jsonPath("$.totalElements").isEmpty());
+    }
+
+    @Test
+    public void TestGetBooksByTitleSuccessCursor() throws Exception {
+        BookResponse bookResponse = new BookResponse(new ArrayList<>(), null, 5, null, null, true, null);
+        when(bookService.searchByTitleByCursor("java", "abc", 5, "author", "desc"))
+                .thenReturn(bookResponse);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/public/books/title")
+                .param("title", "java")
+                .param("cursor", "abc")
+                .param("pageSize", "5")
+                .param("sortBy", "author")
+                .param("sortOrder", "desc"))
+                .andExpect(status().isOk())
+                .andExpect((ResultMatcher) jsonPath("$.lastPage").value(true));
+    }
+
+    @Test
+    public void TestSearchBooksSuccess() throws Exception {
+        BookDTO bookDTO = new BookDTO();
+        bookDTO.setBookId(1L);
+        BookResponse bookResponse = new BookResponse(List.of(bookDTO), 0, 5, 1L, 1, true, null);
+        BookFacetResponse bookFacetResponse = new BookFacetResponse(bookResponse, Map.of(2L, 1),
+                Map.of("Author", 1), Map.of(BookAvailability.AVAILABLE, 1, BookAvailability.UNAVAILABLE, 3));
+        when(bookService.searchWithFacets("java", null, 2L, BookAvailability.AVAILABLE, 0, 5, "title", "asc"))
+                .thenReturn(bookFacetResponse);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/public/books/search")
+                .param("title", "java")
+                .param("categoryId", "2")
+                .param("availability", "AVAILABLE")
+                .param("pageSize", "5")
+                .param("sortBy", "title"))
+                .andExpect(status().isOk())
+                .andExpect((ResultMatcher) jsonPath("$.books.content[0].bookId").value(1))
+                .andExpect((ResultMatcher) jsonPath("$.books.totalElements").value(1))
+                .andExpect((ResultMatcher) jsonPath("$.categoryCounts.2").value(1))
+                .andExpect((ResultMatcher) jsonPath("$.authorCounts.Author").value(1))
+                .andExpect((ResultMatcher) jsonPath("$.availabilityCounts.UNAVAILABLE").value(3));
+    }
+
+    @Test
+    public void TestSearchBooksFailUnknownAvailability() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/public/books/search")
+                .param("availability", "SOMETIMES"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "user", roles = "ADMIN")
     public void TestUpdateBookSuccess() throws Exception{
@@ -251,4 +323,92 @@ public class BookControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(username = "user", roles = "ADMIN")
+    public void TestImportBooksCsvSuccess() throws Exception {
+        // Set up
+        BookImportResponse response = new BookImportResponse(2, 1, 1,
+                List.of(new BookImportError(3, "Book title must not be empty")), false);
+        when(bookImportService.importCsv(any())).thenReturn(response);
+
+        // execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/admin/books/import")
+                        .contentType("text/csv")
+                        .content("title,author,copiesTotal,categoryId\nBook,Author,1,1\n,Author,1,1\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "ADMIN")
+    public void TestImportBooksJsonLinesSuccess() throws Exception {
+        // Set up
+        when(bookImportService.importJsonLines(any())).thenReturn(new BookImportResponse(1, 1, 0, List.of(), false));
+
+        // execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/admin/books/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"title\":\"Book\",\"author\":\"Author\",\"copiesTotal\":1,\"categoryId\":1}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestImportBooksFailNotAdmin() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/admin/books/import")
+                        .contentType("text/csv")
+                        .content("title,author,copiesTotal,categoryId\n"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void TestExportBooksSuccess() throws Exception {
+        // Set up
+        String lines = "{\"bookId\":1}\n{\"bookId\":2}\n";
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(lines.getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(bookService).exportBooks(any());
+
+        // execute, the body is written asynchronously
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/public/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // verify
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string(lines));
+    }
+
+    @Test
+    public void TestExportBooksSuccessGzip() throws Exception {
+        // Set up
+        String lines = "{\"bookId\":1}\n";
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(lines.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(bookService).exportBooks(any());
+
+        // execute
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/public/books/export")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // assert
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(lines, new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
 }
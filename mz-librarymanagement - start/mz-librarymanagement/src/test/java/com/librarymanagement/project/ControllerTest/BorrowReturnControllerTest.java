@@ -3,7 +3,13 @@ package com.librarymanagement.project.ControllerTest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.exceptions.ValidationException;
 import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.LoanBatchItem;
+import com.librarymanagement.project.payloads.LoanBatchRequest;
+import com.librarymanagement.project.payloads.LoanBatchResponse;
+import com.librarymanagement.project.payloads.LoanDTO;
+import com.librarymanagement.project.payloads.LoanHistoryResponse;
 import com.librarymanagement.project.payloads.TransactionDTO;
 import com.librarymanagement.project.payloads.UserDTO;
 import com.librarymanagement.project.services.BorrowReturnService;
@@ -12,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -21,8 +28,11 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -69,6 +79,36 @@ public class BorrowReturnControllerTest {
 
     }
 
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestBorrowBookSuccessRetryWithIdempotencyKey() throws Exception {
+        // Set up
+        TransactionDTO transcationDTO = new TransactionDTO();
+        transcationDTO.setTransactionId(101L);
+        when(borrowReturnService.borrowBook(11L)).thenReturn(transcationDTO);
+
+        // Execute and verify, the retry gets the first response without borrowing again
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/borrow/11").header("Idempotency-Key", "borrow-11-retry"))
+                    .andExpect(status().isOk())
+                    .andExpect((ResultMatcher) jsonPath("$.transactionId").value(101));
+        }
+        verify(borrowReturnService, times(1)).borrowBook(11L);
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestReturnBookFailIdempotencyKeyOfBorrow() throws Exception {
+        // Set up
+        when(borrowReturnService.borrowBook(12L)).thenReturn(new TransactionDTO());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/borrow/12").header("Idempotency-Key", "borrow-12"))
+                .andExpect(status().isOk());
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/return/12").header("Idempotency-Key", "borrow-12"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "user", roles = "ADMIN")
     public void TestBorrowBookFailNotUserButAdmin() throws Exception {
@@ -185,4 +225,84 @@ public class BorrowReturnControllerTest {
         mockMvc.perform(MockMvcRequestBuilders.post("/api/return/10"))
                 .andExpect(status().isForbidden());
     }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestGetBorrowHistorySuccessByUser() throws Exception {
+        // Set up
+        LocalDate borrowTime = LocalDate.of(2024, 1, 1);
+        LoanDTO loanDTO = new LoanDTO(100L, 10L, "Book 1", "Author 1", borrowTime, null, null, false, false, null);
+        when(borrowReturnService.getBorrowHistory("abc", 20))
+                .thenReturn(new LoanHistoryResponse(List.of(loanDTO), 20, false, "def"));
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/borrow/history").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect((ResultMatcher) jsonPath("$.content[0].transactionId").value(100))
+                .andExpect((ResultMatcher) jsonPath("$.content[0].title").value("Book 1"))
+                .andExpect((ResultMatcher) jsonPath("$.content[0].borrowedDate").value(borrowTime.toString()))
+                .andExpect((ResultMatcher) jsonPath("$.lastPage").value(false))
+                .andExpect((ResultMatcher) jsonPath("$.nextCursor").value("def"));
+    }
+
+    @Test
+    public void TestGetBorrowHistoryFailNotLogIn() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/borrow/history"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestGetBorrowHistoryFailPageSizeTooLarge() throws Exception {
+        when(borrowReturnService.getBorrowHistory(null, 1000))
+                .thenThrow(new ValidationException("Page size must be between 1 and 100"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/borrow/history").param("pageSize", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestBorrowBooksSuccessByUser() throws Exception {
+        // Set up
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setTransactionId(102L);
+        LoanBatchResponse loanBatchResponse = new LoanBatchResponse(List.of(
+                new LoanBatchItem(10L, true, transactionDTO, null),
+                new LoanBatchItem(11L, false, null, "No copies available for this book")), 1, 1);
+        when(borrowReturnService.borrowBooks(List.of(10L, 11L))).thenReturn(loanBatchResponse);
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/borrow/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoanBatchRequest(List.of(10L, 11L)))))
+                .andExpect(status().isOk())
+                .andExpect((ResultMatcher) jsonPath("$.succeeded").value(1))
+                .andExpect((ResultMatcher) jsonPath("$.failed").value(1))
+                .andExpect((ResultMatcher) jsonPath("$.items[0].transaction.transactionId").value(102))
+                .andExpect((ResultMatcher) jsonPath("$.items[1].message").value("No copies available for this book"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestReturnBooksFailDuplicateBook() throws Exception {
+        // Set up
+        when(borrowReturnService.returnBooks(List.of(10L, 10L)))
+                .thenThrow(new ValidationException("Book 10 is given more than once"));
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/return/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoanBatchRequest(List.of(10L, 10L)))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "ADMIN")
+    public void TestBorrowBooksFailNotUserButAdmin() throws Exception {
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/borrow/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoanBatchRequest(List.of(10L)))))
+                .andExpect(status().isForbidden());
+    }
 }
@@ -0,0 +1,72 @@
+package com.librarymanagement.project.ControllerTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class MetricsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void TestPrometheusSuccess() throws Exception {
+        // Set up, one successful and one failing service call
+        mockMvc.perform(MockMvcRequestBuilders.get("http://localhost:8080/api/public/books"))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("http://localhost:8080/api/public/categories/999/books"))
+                .andExpect(status().isNotFound());
+
+        // execute and assert, scraped by an admin
+        mockMvc.perform(MockMvcRequestBuilders.get("http://localhost:8080/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "library_service_seconds_count{application=\"mz-librarymanagement\",method=\"getAllBooks\",outcome=\"success\",service=\"BookServiceImpl\"}")))
+                .andExpect(content().string(containsString(
+                        "library_service_seconds_count{application=\"mz-librarymanagement\",method=\"searchByCategory\",outcome=\"not_found\",service=\"BookServiceImpl\"}")))
+                .andExpect(content().string(containsString(
+                        "library_request_queries_count{application=\"mz-librarymanagement\",method=\"GET\",uri=\"/api/public/books\"}")))
+                .andExpect(content().string(containsString("library_service_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count")))
+                .andExpect(content().string(containsString("library_auth_filter_seconds_count")))
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests_total")))
+                .andExpect(content().string(containsString("hibernate_cache_query_requests_total")));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestPrometheusFailNotAdmin() throws Exception {
+        // execute and assert
+        mockMvc.perform(MockMvcRequestBuilders.get("http://localhost:8080/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void TestPrometheusFailNotSignedIn() throws Exception {
+        // execute and assert
+        mockMvc.perform(MockMvcRequestBuilders.get("http://localhost:8080/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void TestHealthSuccessNotSignedIn() throws Exception {
+        // execute and assert, probed without authentication
+        mockMvc.perform(MockMvcRequestBuilders.get("http://localhost:8080/actuator/health"))
+                .andExpect(status().isOk());
+    }
+}
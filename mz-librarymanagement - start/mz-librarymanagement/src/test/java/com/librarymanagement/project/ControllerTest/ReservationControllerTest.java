@@ -0,0 +1,101 @@
+package com.librarymanagement.project.ControllerTest;
+
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.exceptions.BusinessException;
+import com.librarymanagement.project.models.ReservationStatus;
+import com.librarymanagement.project.payloads.ReservationDTO;
+import com.librarymanagement.project.services.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class ReservationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ReservationService reservationService;
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestReserveBookSuccess() throws Exception {
+        // Set up
+        ReservationDTO reservationDTO = new ReservationDTO(5L, 10L, "Book", ReservationStatus.WAITING, 2L,
+                LocalDateTime.now(), null, null);
+        when(reservationService.reserveBook(10L)).thenReturn(reservationDTO);
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/reservations/10"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.reservationId").value(5))
+                .andExpect(jsonPath("$.status").value("WAITING"))
+                .andExpect(jsonPath("$.queuePosition").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestReserveBookFailAvailable() throws Exception {
+        // Set up
+        when(reservationService.reserveBook(10L))
+                .thenThrow(new BusinessException("Copies are available for this book, borrow it instead"));
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/reservations/10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Copies are available for this book, borrow it instead"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "ADMIN")
+    public void TestReserveBookFailNotUserButAdmin() throws Exception {
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/reservations/10"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestGetMyReservationsSuccess() throws Exception {
+        // Set up
+        ReservationDTO ready = new ReservationDTO(5L, 10L, "Book", ReservationStatus.READY, null,
+                LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now().plusHours(48));
+        when(reservationService.getMyReservations()).thenReturn(List.of(ready));
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/reservations"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("READY"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void TestCancelReservationSuccess() throws Exception {
+        // Set up
+        ReservationDTO cancelled = new ReservationDTO(5L, 10L, "Book", ReservationStatus.CANCELLED, null,
+                LocalDateTime.now(), null, null);
+        when(reservationService.cancelReservation(5L)).thenReturn(cancelled);
+
+        // Execute and verify
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/reservations/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+    }
+}
@@ -2,14 +2,23 @@ package com.librarymanagement.project.RepositoryTest;
 
 import com.librarymanagement.project.models.Book;
 import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.BookExportView;
+import com.librarymanagement.project.payloads.BookFacetView;
 import com.librarymanagement.project.repositories.BookRepository;
 import com.librarymanagement.project.repositories.CategoryRepository;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -62,9 +71,9 @@ public class BookRepositoryTest {
         book.setCopiesTotal(10);
         book.setCopiesAvailable(10);
 
-        // When
+        // When, the insert of a sequence generated ID and with it the validation run on flush
         assertThrows( ConstraintViolationException.class, () ->
-                bookRepository.save(book));
+                bookRepository.saveAndFlush(book));
 
     }
 
@@ -78,9 +87,9 @@ public class BookRepositoryTest {
         book.setCopiesTotal(10);
         book.setCopiesAvailable(10);
 
-        // When
+        // When, the insert of a sequence generated ID and with it the validation run on flush
         assertThrows( ConstraintViolationException.class, () ->
-                bookRepository.save(book));
+                bookRepository.saveAndFlush(book));
     }
 
 
@@ -114,4 +123,87 @@ public class BookRepositoryTest {
         assertDoesNotThrow( () -> bookRepository.deleteById(1L));
     }
 
+    @Test
+    public void TestFindAllByKeysetSuccess(){
+        // Given, two books share a title so the book ID must break the tie
+        Category category = categoryRepository.save(new Category(null, "Test Category"));
+        Book first = bookRepository.save(new Book(null, "Same Title", "Author A", 1, 1, 0, true, "", category));
+        Book second = bookRepository.save(new Book(null, "Same Title", "Author B", 1, 1, 0, true, "", category));
+        Book third = bookRepository.save(new Book(null, "Another Title", "Author C", 1, 1, 0, true, "", category));
+        Sort sort = Sort.by("title").ascending().and(Sort.by("bookId").ascending());
+
+        // When
+        Window<Book> firstWindow = bookRepository.findAllBy(ScrollPosition.keyset(), sort, Limit.of(2));
+        Window<Book> secondWindow = bookRepository.findAllBy(
+                firstWindow.positionAt(firstWindow.size() - 1), sort, Limit.of(2));
+
+        // Then
+        assertThat(firstWindow.getContent()).isEqualTo(List.of(third, first));
+        assertThat(firstWindow.hasNext()).isTrue();
+        assertThat(secondWindow.getContent()).isEqualTo(List.of(second));
+        assertThat(secondWindow.hasNext()).isFalse();
+    }
+
+    @Test
+    public void TestFindByCategoryKeysetSuccess(){
+        // Given
+        Category category = categoryRepository.save(new Category(null, "Test Category"));
+        Category other = categoryRepository.save(new Category(null, "Other Category"));
+        Book book = bookRepository.save(new Book(null, "Test Book", "Test Author", 1, 1, 0, true, "", category));
+        bookRepository.save(new Book(null, "Other Book", "Other Author", 1, 1, 0, true, "", other));
+
+        // When
+        Window<Book> window = bookRepository.findByCategory(category, ScrollPosition.keyset(),
+                Sort.by("bookId").descending(), Limit.of(10));
+
+        // Then
+        assertThat(window.getContent()).isEqualTo(List.of(book));
+        assertThat(window.hasNext()).isFalse();
+    }
+
+    @Test
+    public void TestStreamExportViewsSuccess(){
+        // Given
+        Category category = categoryRepository.save(new Category(null, "Export Category"));
+        Book first = bookRepository.save(new Book(null, "First Book", "Author A", 2, 2, 0, true, "first", category));
+        Book second = bookRepository.save(new Book(null, "Second Book", "Author B", 1, 1, 0, true, "second", category));
+
+        // When
+        List<BookExportView> views;
+        try (Stream<BookExportView> stream = bookRepository.streamExportViews()) {
+            views = stream.toList();
+        }
+
+        // Then, in ID order with the category columns
+        assertThat(views.size()).isEqualTo(2);
+        assertThat(views.get(0).getBookId()).isEqualTo(first.getBookId());
+        assertThat(views.get(0).getCopiesTotal()).isEqualTo(2);
+        assertThat(views.get(0).getActive()).isTrue();
+        assertThat(views.get(0).getCategoryName()).isEqualTo("Export Category");
+        assertThat(views.get(1).getBookId()).isEqualTo(second.getBookId());
+        assertThat(views.get(1).getDescription()).isEqualTo("second");
+    }
+
+    @Test
+    public void TestFindFacetViewsSuccess(){
+        // Given
+        Category category = categoryRepository.save(new Category(null, "Facet Category"));
+        Book first = bookRepository.save(new Book(null, "First Book", "Author A", 2, 2, 0, true, "", category));
+        Book second = bookRepository.save(new Book(null, "Second Book", "Author B", 1, 1, 0, true, "", category));
+        second.setActive(false);
+        bookRepository.saveAndFlush(second);
+
+        // When
+        List<BookFacetView> views = bookRepository.findFacetViews(PageRequest.of(0, 10)).getContent();
+
+        // Then, in ID order with the category and availability columns
+        assertThat(views.size()).isEqualTo(2);
+        assertThat(views.get(0).getBookId()).isEqualTo(first.getBookId());
+        assertThat(views.get(0).getCategoryId()).isEqualTo(category.getCategoryId());
+        assertThat(views.get(0).getCopiesAvailable()).isEqualTo(2);
+        assertThat(views.get(0).getActive()).isTrue();
+        assertThat(views.get(1).getAuthor()).isEqualTo("Author B");
+        assertThat(views.get(1).getActive()).isFalse();
+    }
+
 }
@@ -0,0 +1,98 @@
+package com.librarymanagement.project.RepositoryTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.configs.HibernateCacheConfig;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:cachetest")
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void TestFindCategorySuccessFromCache(){
+        // Given
+        Category category = categoryRepository.save(new Category(null, "Cached category"));
+
+        // When, each call runs in its own persistence context
+        categoryRepository.findById(category.getCategoryId());
+        long statements = statistics.getPrepareStatementCount();
+        Category found = categoryRepository.findById(category.getCategoryId()).orElseThrow();
+
+        // Then, the second read does not query the database
+        assertEquals("Cached category", found.getCategoryName());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getDomainDataRegionStatistics("categories").getHitCount() >= 1);
+    }
+
+    @Test
+    public void TestFindAllCategoriesSuccessQueryCacheEvictedOnWrite(){
+        // Given
+        categoryRepository.save(new Category(null, "Listed category 1"));
+        PageRequest page = PageRequest.of(0, 100);
+        long before = categoryRepository.findAll(page).getTotalElements();
+        categoryRepository.findAll(page);
+        long hits = statistics.getQueryCacheHitCount();
+        assertTrue(hits >= 1);
+
+        // When, an admin adds a category
+        categoryRepository.save(new Category(null, "Listed category 2"));
+        Page<Category> after = categoryRepository.findAll(page);
+
+        // Then, the cached listing is not served
+        assertEquals(before + 1, after.getTotalElements());
+        assertEquals(hits, statistics.getQueryCacheHitCount());
+        assertNotNull(statistics.getCacheRegionStatistics(HibernateCacheConfig.QUERY_RESULTS_REGION));
+    }
+
+    @Test
+    public void TestFindBookSuccessEvictedOnBorrow(){
+        // Given, a cached book
+        Category category = categoryRepository.save(new Category(null, "Borrow category"));
+        Book book = bookRepository.save(new Book(null, "Cached book", "Author", 2, 2, 0, true, "description", category));
+        bookRepository.findById(book.getBookId());
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> bookRepository.borrowOneCopy(book.getBookId()));
+        Book found = bookRepository.findById(book.getBookId()).orElseThrow();
+
+        // Then, the bulk update is visible
+        assertEquals(1, found.getCopiesAvailable());
+        assertEquals(1, found.getCopiesBorrowed());
+    }
+}
@@ -0,0 +1,135 @@
+package com.librarymanagement.project.RepositoryTest;
+
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Transaction;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.LoanDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class TransactionRepositoryTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category(null, "Loan Category"));
+        book = bookRepository.save(new Book(null, "Loaned Book", "Author", 3, 3, 0, true, "", category));
+        user = userRepository.save(new User("borrower", "borrower@test.com", "password"));
+    }
+
+    @Test
+    public void TestExistsOpenLoanSuccess(){
+        // Given, a returned loan and an open loan of the same book
+        transactionRepository.save(new Transaction(null, LocalDate.now().minusDays(20), null, LocalDate.now().minusDays(10), true, false, null, book, user));
+        transactionRepository.save(new Transaction(null, LocalDate.now(), null, null, false, false, null, book, user));
+
+        // When
+        boolean exists = transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), book.getBookId());
+
+        // Then
+        assertThat(exists).isTrue();
+    }
+
+    @Test
+    public void TestExistsOpenLoanFailOnlyReturned(){
+        // Given
+        transactionRepository.save(new Transaction(null, LocalDate.now().minusDays(20), null, LocalDate.now().minusDays(10), true, false, null, book, user));
+
+        // When
+        boolean exists = transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), book.getBookId());
+
+        // Then
+        assertThat(exists).isFalse();
+    }
+
+    @Test
+    public void TestOpenLoanLookupUsesCompositeIndex(){
+        // When
+        String plan = jdbcTemplate.queryForObject(
+                "explain select transaction_id from transactions where user_id = 1 and book_id = 1 and is_returned = false",
+                String.class);
+
+        // Then, the lookup is answered by the index instead of a scan of the user's or book's loans
+        assertThat(plan.toUpperCase()).contains("IDX_TRANSACTIONS_USER_BOOK_RETURNED");
+    }
+
+    @Test
+    public void TestFindLoansByUserIdNewestFirstSuccess(){
+        // Given, two loans on the same day and an older one
+        LocalDate today = LocalDate.now();
+        Transaction oldest = transactionRepository.save(new Transaction(null, today.minusDays(20), null, today.minusDays(10), true, false, null, book, user));
+        Transaction first = transactionRepository.save(new Transaction(null, today, null, null, false, false, null, book, user));
+        Transaction second = transactionRepository.save(new Transaction(null, today, null, today, true, false, null, book, user));
+
+        // When
+        List<LoanDTO> firstPage = transactionRepository.findLoansByUserId(user.getUserId(), Limit.of(2));
+        LoanDTO last = firstPage.get(1);
+        List<LoanDTO> nextPage = transactionRepository.findLoansByUserIdAfter(user.getUserId(),
+                last.getBorrowedDate(), last.getTransactionId(), Limit.of(2));
+
+        // Then, ties on the borrowed date are broken by the newest transaction
+        assertThat(firstPage).extracting(LoanDTO::getTransactionId)
+                .containsExactly(second.getTransactionId(), first.getTransactionId());
+        assertThat(nextPage).extracting(LoanDTO::getTransactionId).containsExactly(oldest.getTransactionId());
+        assertThat(nextPage.get(0).getTitle()).isEqualTo("Loaned Book");
+        assertThat(nextPage.get(0).isReturned()).isTrue();
+    }
+
+    @Test
+    public void TestFindLoansByUserIdFailOtherUser(){
+        // Given
+        User other = userRepository.save(new User("other", "other@test.com", "password"));
+        transactionRepository.save(new Transaction(null, LocalDate.now(), null, null, false, false, null, book, other));
+
+        // When
+        List<LoanDTO> loans = transactionRepository.findLoansByUserId(user.getUserId(), Limit.of(10));
+
+        // Then
+        assertThat(loans).isEmpty();
+    }
+
+    @Test
+    public void TestBorrowHistoryUsesUserBorrowedIndex(){
+        // When
+        String plan = jdbcTemplate.queryForObject(
+                "explain select transaction_id from transactions where user_id = 1 " +
+                        "order by borrowed_date desc, transaction_id desc limit 20",
+                String.class);
+
+        // Then, the history is read in index order instead of sorting all loans of the user
+        assertThat(plan.toUpperCase()).contains("IDX_TRANSACTIONS_USER_BORROWED");
+    }
+}
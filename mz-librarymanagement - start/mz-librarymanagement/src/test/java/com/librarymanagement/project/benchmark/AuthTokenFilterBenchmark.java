@@ -0,0 +1,136 @@
+package com.librarymanagement.project.benchmark;
+
+import com.librarymanagement.project.security.jwt.AuthTokenFilter;
+import com.librarymanagement.project.security.jwt.JwtUtils;
+import com.librarymanagement.project.security.jwt.TokenRevocationList;
+import com.librarymanagement.project.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JWT work done per authenticated request.
+ * {@code legacyTokenCheck} repeats what the filter used to do: validate and then extract the username,
+ * each with a freshly derived key and a new parser. {@code cachedTokenCheck} is the single parse with the
+ * pre-built parser, and {@code filter} runs the whole {@link AuthTokenFilter} with an in-memory user lookup,
+ * or with the user built from the token claims in stateless mode. {@code generateToken} measures signing at sign in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private static final String SECRET = "mySecretKey123123djakjfaweojfndklnvkaejfoaejfndklvnaedfef";
+
+    /**
+     * Whether the filter builds the user from the token claims instead of calling the user lookup.
+     */
+    @Param({"false", "true"})
+    public boolean stateless;
+
+    private JwtUtils jwtUtils;
+
+    private AuthTokenFilter filter;
+
+    private String token;
+
+    private UserDetails user;
+
+    /**
+     * Builds the JWT utilities, a signed token, and a filter whose user lookup never touches a database.
+     */
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3000000);
+        jwtUtils.init();
+
+        user = new UserDetailsImpl(1L, "user1", "user1@test.com", "password", List.of());
+        token = jwtUtils.generateTokenFromUsername(user);
+
+        UserDetailsService userDetailsService = username -> user;
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "tokenRevocationList", new TokenRevocationList());
+        ReflectionTestUtils.setField(filter, "stateless", stateless);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    /**
+     * The token handling before the key and parser were cached.
+     *
+     * @return The username from the token.
+     */
+    @Benchmark
+    public String legacyTokenCheck() {
+        SecretKey validateKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        Jwts.parser().verifyWith(validateKey).build().parseSignedClaims(token);
+        SecretKey extractKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser().verifyWith(extractKey).build().parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    /**
+     * The token handling with the cached parser and a single combined parse.
+     *
+     * @return The username from the token.
+     */
+    @Benchmark
+    public String cachedTokenCheck() {
+        Claims claims = jwtUtils.parseClaims(token);
+        return claims.getSubject();
+    }
+
+    /**
+     * Signs a new token, as done on every sign in.
+     *
+     * @return The signed token.
+     */
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateTokenFromUsername(user);
+    }
+
+    /**
+     * A full pass through the filter for an authenticated request.
+     *
+     * @return The response of the request.
+     * @throws Exception If the filter fails.
+     */
+    @Benchmark
+    public MockHttpServletResponse filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/public/books");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthTokenFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
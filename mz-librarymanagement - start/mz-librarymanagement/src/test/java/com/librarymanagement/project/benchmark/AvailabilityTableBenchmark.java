@@ -0,0 +1,157 @@
+package com.librarymanagement.project.benchmark;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.AppRole;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Role;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.BookResponse;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.RoleRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.BookService;
+import com.librarymanagement.project.services.BorrowReturnService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures browsing the catalog while books are borrowed and returned, with and without the availability table.
+ * Three threads list the first {@code browsedPages} pages of {@code catalogSize} books, the pages most browsing
+ * lands on, while one thread borrows and returns random titles.
+ * Without the table every borrow and return updates the row of the book, which evicts the cached pages of the
+ * catalog, so most listings query the database; with it the pages stay cached and the copies come from memory.
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=AvailabilityTableBenchmark}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AvailabilityTableBenchmark {
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    @Param({"5"})
+    public int browsedPages;
+
+    @Param({"true", "false"})
+    public boolean availabilityTable;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    private BorrowReturnService borrowReturnService;
+
+    private Long[] bookIds;
+
+    /**
+     * Boots the application on its own in-memory database and seeds the catalog and the borrowing user.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MzLibrarymanagementApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments, unlike default properties, override the database of application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:table" + System.nanoTime(),
+                        "--spring.app.availabilityTable.enabled=" + availabilityTable,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        bookService = context.getBean(BookService.class);
+        borrowReturnService = context.getBean(BorrowReturnService.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> seed());
+    }
+
+    /**
+     * Closes the application context and with it the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Signs the borrowing thread in.
+     */
+    @State(Scope.Thread)
+    public static class Borrower {
+
+        @Setup(Level.Trial)
+        public void signIn() {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("browser0", null, List.of()));
+        }
+    }
+
+    /**
+     * Lists one of the browsed pages of twenty books.
+     *
+     * @return The page of books.
+     */
+    @Benchmark
+    @Group("browse")
+    @GroupThreads(3)
+    public BookResponse getAllBooks() {
+        return bookService.getAllBooks(ThreadLocalRandom.current().nextInt(browsedPages), 20, "bookId", "asc");
+    }
+
+    /**
+     * Borrows a copy of a random title and returns it again.
+     *
+     * @param borrower the signed in user of the thread.
+     * @return The transaction of the return.
+     */
+    @Benchmark
+    @Group("browse")
+    @GroupThreads(1)
+    public TransactionDTO borrowAndReturnBook(Borrower borrower) {
+        Long bookId = bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)];
+        borrowReturnService.borrowBook(bookId);
+        return borrowReturnService.returnBook(bookId);
+    }
+
+    /**
+     * Seeds the catalog and the user through the repositories.
+     */
+    private void seed() {
+        Role userRole = context.getBean(RoleRepository.class).findByRoleName(AppRole.ROLE_USER).orElseThrow();
+        Category category = context.getBean(CategoryRepository.class).save(new Category(null, "benchmark"));
+
+        List<Book> books = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            books.add(new Book(null, "book " + i, "author " + i, 5, 5, 0, true, "description " + i, category));
+        }
+        bookIds = context.getBean(BookRepository.class).saveAll(books).stream()
+                .map(Book::getBookId).toArray(Long[]::new);
+
+        User user = new User("browser0", "browser0@test.com", "{noop}password");
+        user.setRoles(Set.of(userRole));
+        context.getBean(UserRepository.class).save(user);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AvailabilityTableBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.librarymanagement.project.benchmark;
+
+import com.librarymanagement.project.configs.AppConstants;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.BookAvailability;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.services.BookFacetIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the facet counts of a search against the in-memory bitsets of {@link BookFacetIndex}, on a catalog of
+ * {@code catalogSize} books spread over {@code categoryCount} categories and a thousand authors, one book in five
+ * without copies available and one in fifty deleted.
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=BookFacetIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFacetIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int catalogSize;
+
+    @Param({"50"})
+    public int categoryCount;
+
+    private BookFacetIndex bookFacetIndex;
+
+    private List<Long> titleMatches;
+
+    /**
+     * Indexes the catalog, and picks one book in a hundred as the matches of a search term.
+     */
+    @Setup
+    public void setUp() {
+        bookFacetIndex = new BookFacetIndex();
+        List<Category> categories = new ArrayList<>(categoryCount);
+        for (long i = 0; i < categoryCount; i++) {
+            categories.add(new Category(i, "category " + i));
+        }
+        titleMatches = new ArrayList<>();
+        for (long i = 0; i < catalogSize; i++) {
+            int copiesAvailable = i % 5 == 0 ? 0 : 2;
+            bookFacetIndex.index(new Book(i, "book " + i, "author " + (i % 1000), 2, copiesAvailable,
+                    2 - copiesAvailable, i % 50 != 0, "", categories.get((int) (i % categoryCount))));
+            if (i % 100 == 0) {
+                titleMatches.add(i);
+            }
+        }
+    }
+
+    /**
+     * Counts the whole catalog, as the first page of a search without terms or filters.
+     *
+     * @return The matches and counts.
+     */
+    @Benchmark
+    public BookFacetIndex.Facets searchAll() {
+        return bookFacetIndex.search(null, null, null, AppConstants.MAX_AUTHOR_FACETS);
+    }
+
+    /**
+     * Counts the available books of one category.
+     *
+     * @return The matches and counts.
+     */
+    @Benchmark
+    public BookFacetIndex.Facets searchCategoryAndAvailability() {
+        return bookFacetIndex.search(null, 7L, BookAvailability.AVAILABLE, AppConstants.MAX_AUTHOR_FACETS);
+    }
+
+    /**
+     * Counts the books matched by a search term, one book in a hundred.
+     *
+     * @return The matches and counts.
+     */
+    @Benchmark
+    public BookFacetIndex.Facets searchMatchedBooks() {
+        return bookFacetIndex.search(titleMatches, null, null, AppConstants.MAX_AUTHOR_FACETS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookFacetIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
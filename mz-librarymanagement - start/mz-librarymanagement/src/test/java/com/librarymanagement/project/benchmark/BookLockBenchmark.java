@@ -0,0 +1,163 @@
+package com.librarymanagement.project.benchmark;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.AppRole;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Role;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.RoleRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.BorrowReturnService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures borrow and return under concurrent load, with and without the per-book locks.
+ * Every benchmark thread is its own user and borrows and returns a book in a loop, either all of them the same
+ * title ({@code titleCount} 1, a release storm) or a random one of many ({@code titleCount} 10000).
+ * Failed borrows and returns, e.g. lock timeouts of the database, are counted in {@code failures}.
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=BookLockBenchmark}, optionally changing the number of
+ * threads with e.g. {@code -Djmh.args="-t 32"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class BookLockBenchmark {
+
+    @Param({"1", "10000"})
+    public int titleCount;
+
+    @Param({"true", "false"})
+    public boolean bookLocks;
+
+    private ConfigurableApplicationContext context;
+
+    private BorrowReturnService borrowReturnService;
+
+    private Long[] bookIds;
+
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    /**
+     * Boots the application on its own in-memory database and seeds a user per thread and the titles,
+     * each with a copy per thread so a borrow never finds the book sold out.
+     *
+     * @param params the parameters of the benchmark run, for the number of threads.
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        context = new SpringApplicationBuilder(MzLibrarymanagementApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments, unlike default properties, override the database of application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:locks" + System.nanoTime() + ";LOCK_TIMEOUT=10000",
+                        "--spring.datasource.hikari.maximum-pool-size=" + (params.getThreads() + 2),
+                        "--spring.app.bookLocks.enabled=" + bookLocks,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        borrowReturnService = context.getBean(BorrowReturnService.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> seed(params.getThreads()));
+    }
+
+    /**
+     * Closes the application context and with it the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * The user of a benchmark thread, and the failed borrows and returns of the thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Borrower {
+
+        public long failures;
+
+        /**
+         * Signs the thread in as its own user.
+         *
+         * @param benchmark the shared state, handing out the users.
+         */
+        @Setup(Level.Trial)
+        public void signIn(BookLockBenchmark benchmark) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "locker" + benchmark.nextUser.getAndIncrement(), null, List.of()));
+        }
+    }
+
+    /**
+     * Borrows a copy of a title and returns it again.
+     *
+     * @param borrower the user of the thread.
+     * @return The transaction of the return, or null if the borrow or return failed.
+     */
+    @Benchmark
+    public TransactionDTO borrowAndReturnBook(Borrower borrower) {
+        Long bookId = bookIds[titleCount == 1 ? 0 : ThreadLocalRandom.current().nextInt(titleCount)];
+        try {
+            borrowReturnService.borrowBook(bookId);
+            return borrowReturnService.returnBook(bookId);
+        } catch (RuntimeException e) {
+            borrower.failures++;
+            return null;
+        }
+    }
+
+    /**
+     * Seeds the users and the titles through the repositories.
+     *
+     * @param threads the number of benchmark threads.
+     */
+    private void seed(int threads) {
+        Role userRole = context.getBean(RoleRepository.class).findByRoleName(AppRole.ROLE_USER).orElseThrow();
+        Category category = context.getBean(CategoryRepository.class).save(new Category(null, "benchmark"));
+
+        List<Book> books = new ArrayList<>(titleCount);
+        for (int i = 0; i < titleCount; i++) {
+            books.add(new Book(null, "title " + i, "author " + i, threads, threads, 0, true, "description " + i, category));
+        }
+        bookIds = context.getBean(BookRepository.class).saveAll(books).stream()
+                .map(Book::getBookId).toArray(Long[]::new);
+
+        List<User> users = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            User user = new User("locker" + i, "locker" + i + "@test.com", "{noop}password");
+            user.setRoles(Set.of(userRole));
+            users.add(user);
+        }
+        context.getBean(UserRepository.class).saveAll(users);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookLockBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
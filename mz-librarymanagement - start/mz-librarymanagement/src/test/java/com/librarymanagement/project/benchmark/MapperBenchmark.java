@@ -0,0 +1,97 @@
+package com.librarymanagement.project.benchmark;
+
+import com.librarymanagement.project.configs.AppConfig;
+import com.librarymanagement.project.mappers.BookMapper;
+import com.librarymanagement.project.mappers.MapperMode;
+import com.librarymanagement.project.mappers.TransactionMapper;
+import com.librarymanagement.project.mappers.UserMapper;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Transaction;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written mappers with the reflective {@link ModelMapper} path for the hot mappings:
+ * a book as listed by {@code /api/public/books}, and a transaction as returned by borrow and return.
+ * Run with {@code main}, or through JMH from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"DIRECT", "MODELMAPPER"})
+    public MapperMode mode;
+
+    private BookMapper bookMapper;
+
+    private TransactionMapper transactionMapper;
+
+    private Book book;
+
+    private Transaction transaction;
+
+    /**
+     * Wires the mappers in the benchmarked mode against the application's {@link ModelMapper} configuration.
+     */
+    @Setup
+    public void setUp() {
+        ModelMapper modelMapper = new AppConfig().modelMapper();
+        bookMapper = new BookMapper();
+        UserMapper userMapper = new UserMapper();
+        transactionMapper = new TransactionMapper();
+        for (Object mapper : new Object[]{bookMapper, userMapper, transactionMapper}) {
+            ReflectionTestUtils.setField(mapper, "modelMapper", modelMapper);
+            ReflectionTestUtils.setField(mapper, "mode", mode);
+        }
+        ReflectionTestUtils.setField(transactionMapper, "bookMapper", bookMapper);
+        ReflectionTestUtils.setField(transactionMapper, "userMapper", userMapper);
+
+        Category category = new Category(1L, "category 1");
+        book = new Book(1L, "Book 1", "Author 1", 10, 8, 2, true, "description", category);
+        User user = new User(1L, "user1", "password", "user1@test.com", new HashSet<>());
+        transaction = new Transaction(1L, LocalDate.now(), null, null, false, false, null, book, user);
+    }
+
+    /**
+     * Maps one book to its DTO, as done for every book of a listing page.
+     *
+     * @return The mapped DTO.
+     */
+    @Benchmark
+    public BookDTO bookToDTO() {
+        return bookMapper.toDTO(book);
+    }
+
+    /**
+     * Maps one transaction with its book and user to its DTO.
+     *
+     * @return The mapped DTO.
+     */
+    @Benchmark
+    public TransactionDTO transactionToDTO() {
+        return transactionMapper.toDTO(transaction);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MapperBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,209 @@
+package com.librarymanagement.project.benchmark;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.AppRole;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Role;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.RoleRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.BorrowReturnService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the open loan lookup of borrow and return against a growing history of {@code transactionCount}
+ * returned loans, spread evenly over {@code userCount} users and {@code bookCount} books.
+ * With the composite index on (user_id, book_id, is_returned) the latency stays flat as the history grows,
+ * without it the lookup reads every loan of the user. Setting {@code compositeIndex} to false drops the index
+ * after seeding, to compare.
+ * Each parameter combination seeds its own H2 file database under target, so ten million rows fit in memory.
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=OpenLoanLookupBenchmark}, optionally restricting the
+ * sizes with e.g. {@code -Djmh.args="-p transactionCount=10000,10000000"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenLoanLookupBenchmark {
+
+    /**
+     * The number of loans seeded per insert statement.
+     */
+    private static final int SEED_CHUNK_SIZE = 500_000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int transactionCount;
+
+    @Param({"true", "false"})
+    public boolean compositeIndex;
+
+    @Param({"1000"})
+    public int userCount;
+
+    @Param({"1000"})
+    public int bookCount;
+
+    private ConfigurableApplicationContext context;
+
+    private BorrowReturnService borrowReturnService;
+
+    private TransactionRepository transactionRepository;
+
+    private Path databaseDirectory;
+
+    private Long userId;
+
+    private Long bookId;
+
+    private Long[] userIds;
+
+    private Long[] bookIds;
+
+    /**
+     * Boots the application on its own file database and seeds it.
+     *
+     * @throws IOException if the database directory cannot be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        databaseDirectory = Files.createDirectories(Paths.get("target", "openloan-" + System.nanoTime()));
+        context = new SpringApplicationBuilder(MzLibrarymanagementApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments, unlike default properties, override the in-memory database of application.properties
+                .run("--spring.datasource.url=jdbc:h2:file:" + databaseDirectory.toAbsolutePath().resolve("db"),
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        borrowReturnService = context.getBean(BorrowReturnService.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> seedCatalog());
+        seedLoans();
+
+        // Borrow and return run as the first seeded user
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("loan0", null, List.of()));
+    }
+
+    /**
+     * Closes the application context and deletes the database.
+     *
+     * @throws IOException if the database files cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SecurityContextHolder.clearContext();
+        context.close();
+        try (Stream<Path> files = Files.walk(databaseDirectory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the user has the book borrowed, which is the lookup a borrow runs.
+     *
+     * @return true if the book is borrowed.
+     */
+    @Benchmark
+    public boolean existsOpenLoan() {
+        return transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(userId, bookId);
+    }
+
+    /**
+     * Borrows a copy and returns it again, each of them looks up the open loan of the user and the book.
+     *
+     * @return The transaction of the return.
+     */
+    @Benchmark
+    public TransactionDTO borrowAndReturnBook() {
+        borrowReturnService.borrowBook(bookId);
+        return borrowReturnService.returnBook(bookId);
+    }
+
+    /**
+     * Seeds the users and books through the repositories.
+     */
+    private void seedCatalog() {
+        Role userRole = context.getBean(RoleRepository.class).findByRoleName(AppRole.ROLE_USER).orElseThrow();
+        Category category = context.getBean(CategoryRepository.class).save(new Category(null, "benchmark"));
+
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            books.add(new Book(null, "book " + i, "author " + i, 5, 5, 0, true, "description " + i, category));
+        }
+        bookIds = context.getBean(BookRepository.class).saveAll(books).stream()
+                .map(Book::getBookId).toArray(Long[]::new);
+
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User user = new User("loan" + i, "loan" + i + "@test.com", "{noop}password");
+            user.setRoles(Set.of(userRole));
+            users.add(user);
+        }
+        userIds = context.getBean(UserRepository.class).saveAll(users).stream()
+                .map(User::getUserId).toArray(Long[]::new);
+        userId = userIds[0];
+        bookId = bookIds[0];
+    }
+
+    /**
+     * Seeds the returned loans with a single insert, committed on its own.
+     */
+    private void seedLoans() {
+        // Loan x is of book x % bookCount by user (x / bookCount) % userCount, so every user has
+        // transactionCount / userCount loans in the history and every pair the same share of them
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // Inserted and committed in chunks, the database keeps the undo log of a statement in memory
+        for (long first = 1; first <= transactionCount; first += SEED_CHUNK_SIZE) {
+            long last = Math.min(first + SEED_CHUNK_SIZE - 1, transactionCount);
+            jdbcTemplate.update("insert into transactions (transaction_id, borrowed_date, due_date, returned_date, " +
+                            "is_returned, is_overdue, book_id, user_id) " +
+                            "select x, date '2024-01-01', date '2024-01-15', date '2024-01-15', true, false, " +
+                            "cast(? as bigint array)[mod(x, ?) + 1], cast(? as bigint array)[mod(x / ?, ?) + 1] " +
+                            "from system_range(?, ?)",
+                    bookIds, bookCount, userIds, bookCount, userCount, first, last);
+        }
+        // Generated IDs continue after the seeded ones, with room for a pooled block
+        jdbcTemplate.execute("alter sequence transactions_seq restart with " + (transactionCount + 100));
+        if (!compositeIndex) {
+            jdbcTemplate.execute("drop index idx_transactions_user_book_returned");
+        }
+        jdbcTemplate.execute("analyze");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OpenLoanLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
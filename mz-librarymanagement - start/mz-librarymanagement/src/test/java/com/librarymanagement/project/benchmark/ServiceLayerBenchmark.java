@@ -0,0 +1,181 @@
+package com.librarymanagement.project.benchmark;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.AppRole;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Role;
+import com.librarymanagement.project.models.Transaction;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.BookResponse;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.RoleRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.BookSearchIndex;
+import com.librarymanagement.project.services.BookService;
+import com.librarymanagement.project.services.BorrowReturnService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the service layer against an embedded H2 database seeded with a catalog of
+ * {@code catalogSize} books, {@code userCount} users and {@code transactionCount} returned loans.
+ * Each parameter combination boots its own application context on a fresh in-memory database,
+ * so the numbers include the real JPA, transaction and mapping work of a request, without HTTP.
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=ServiceLayerBenchmark}, optionally overriding
+ * the sizes with e.g. {@code -Djmh.args="-p catalogSize=50000"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceLayerBenchmark {
+
+    /**
+     * Words the seeded titles are built from, so a title search matches a fixed share of the catalog.
+     */
+    private static final String[] WORDS = {"river", "winter", "garden", "shadow", "harbor",
+            "silver", "forest", "letter", "empire", "voyage"};
+
+    @Param({"1000", "10000"})
+    public int catalogSize;
+
+    @Param({"100"})
+    public int userCount;
+
+    @Param({"10000"})
+    public int transactionCount;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    private BorrowReturnService borrowReturnService;
+
+    private Long borrowedBookId;
+
+    private int page;
+
+    /**
+     * Boots the application on its own in-memory database and seeds it.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MzLibrarymanagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench" + System.nanoTime(),
+                        "spring.jpa.show-sql=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        borrowReturnService = context.getBean(BorrowReturnService.class);
+
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> seed());
+        context.getBean(BookSearchIndex.class).rebuild();
+
+        // Borrow and return run as the first seeded user
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("bench0", null, List.of()));
+    }
+
+    /**
+     * Closes the application context and with it the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    /**
+     * Lists a page of all books, moving through the catalog from call to call.
+     *
+     * @return The page of books.
+     */
+    @Benchmark
+    public BookResponse getAllBooks() {
+        page = (page + 1) % (catalogSize / 20);
+        return bookService.getAllBooks(page, 20, "title", "asc");
+    }
+
+    /**
+     * Searches a title word that a tenth of the catalog contains, and loads the first page.
+     *
+     * @return The first page of matching books.
+     */
+    @Benchmark
+    public BookResponse searchByTitle() {
+        return bookService.searchByTitle("river", 0, 20, "title", "asc");
+    }
+
+    /**
+     * Borrows a copy and returns it again, which leaves the data unchanged apart from one more loan record.
+     *
+     * @return The transaction of the return.
+     */
+    @Benchmark
+    public TransactionDTO borrowAndReturnBook() {
+        borrowReturnService.borrowBook(borrowedBookId);
+        return borrowReturnService.returnBook(borrowedBookId);
+    }
+
+    /**
+     * Seeds the catalog, the users and their returned loans.
+     */
+    private void seed() {
+        Role userRole = context.getBean(RoleRepository.class).findByRoleName(AppRole.ROLE_USER).orElseThrow();
+        Category category = context.getBean(CategoryRepository.class).save(new Category(null, "benchmark"));
+
+        List<Book> books = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            String title = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            books.add(new Book(null, title, "author " + (i % 500), 5, 5, 0, true, "description " + i, category));
+        }
+        books = context.getBean(BookRepository.class).saveAll(books);
+        borrowedBookId = books.get(0).getBookId();
+
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User user = new User("bench" + i, "bench" + i + "@test.com", "{noop}password");
+            user.setRoles(Set.of(userRole));
+            users.add(user);
+        }
+        users = context.getBean(UserRepository.class).saveAll(users);
+
+        List<Transaction> transactions = new ArrayList<>(transactionCount);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < transactionCount; i++) {
+            Book book = books.get(i % books.size());
+            User user = users.get(i % users.size());
+            transactions.add(new Transaction(null, today.minusDays(30), today.minusDays(16), today.minusDays(10), true, false, null, book, user));
+        }
+        context.getBean(TransactionRepository.class).saveAll(transactions);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ServiceLayerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,193 @@
+package com.librarymanagement.project.benchmark;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.services.BookSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test comparing request handling on platform threads with virtual threads.
+ * For each mode it boots the application on a random port with a seeded catalog, then runs each client count:
+ * every client sends requests back to back for the duration, after a warmup whose results are dropped.
+ * It prints the throughput, the p50 and p99 latency and the number of failed requests.
+ * The virtual mode is skipped on runtimes before Java 21, where Spring Boot ignores the setting.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec@load-test}, the defaults can be overridden with e.g.
+ * {@code -Dload.args="clients=1000,5000 duration=30 path=/api/public/books/title?title=river"}.
+ */
+public class ThreadingLoadGenerator {
+
+    /**
+     * Stack size of the client threads, small so thousands of them fit in memory.
+     */
+    private static final long CLIENT_STACK_SIZE = 256 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "modes", "platform,virtual",
+                "clients", "1000,5000",
+                "warmup", "10",
+                "duration", "30",
+                "books", "1000",
+                "path", "/api/public/books?pageSize=20"));
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+
+        System.out.printf("%-9s %8s %12s %10s %10s %8s%n", "mode", "clients", "requests/s", "p50 ms", "p99 ms", "errors");
+        for (String mode : options.get("modes").split(",")) {
+            boolean virtual = mode.equals("virtual");
+            if (virtual && Runtime.version().feature() < 21) {
+                System.out.printf("%-9s skipped, virtual threads need Java 21, running on Java %d%n",
+                        mode, Runtime.version().feature());
+                continue;
+            }
+            try (ConfigurableApplicationContext context = start(virtual, Integer.parseInt(options.get("books")))) {
+                URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                        + options.get("path"));
+                for (String clients : options.get("clients").split(",")) {
+                    Result result = run(uri, Integer.parseInt(clients),
+                            Integer.parseInt(options.get("warmup")), Integer.parseInt(options.get("duration")));
+                    System.out.printf("%-9s %8s %12.0f %10.1f %10.1f %8d%n", mode, clients,
+                            result.throughput(), result.p50Millis(), result.p99Millis(), result.errors());
+                }
+            }
+        }
+    }
+
+    /**
+     * Boots the application on a random port and its own in-memory database, and seeds the catalog.
+     *
+     * @param virtual whether requests run on virtual threads.
+     * @param books the number of books to seed.
+     * @return the running application.
+     */
+    private static ConfigurableApplicationContext start(boolean virtual, int books) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MzLibrarymanagementApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "spring.datasource.url=jdbc:h2:mem:load" + System.nanoTime(),
+                        "spring.datasource.hikari.maximum-pool-size=50",
+                        "server.tomcat.max-connections=10000",
+                        "server.tomcat.accept-count=10000",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        try {
+            Category category = context.getBean(CategoryRepository.class).save(new Category(null, "load test"));
+            List<Book> catalog = new ArrayList<>(books);
+            for (int i = 0; i < books; i++) {
+                catalog.add(new Book(null, "river title " + i, "author " + i, 5, 5, 0, true, "description " + i, category));
+            }
+            context.getBean(BookRepository.class).saveAll(catalog);
+            context.getBean(BookSearchIndex.class).rebuild();
+            return context;
+        } catch (RuntimeException e) {
+            // The web server threads would keep the JVM running
+            context.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the clients against the URI and measures the requests completed after the warmup.
+     *
+     * @param uri the URI every client requests.
+     * @param clients the number of concurrent clients.
+     * @param warmupSeconds the seconds of load before the measurement starts.
+     * @param durationSeconds the seconds of load that are measured.
+     * @return the measured throughput, latency and errors.
+     * @throws InterruptedException if interrupted while waiting for the clients.
+     */
+    private static Result run(URI uri, int clients, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[clients][];
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Thread thread = new Thread(null, () -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                while (!stopped.get()) {
+                    long start = System.nanoTime();
+                    boolean failed;
+                    try {
+                        failed = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200;
+                    } catch (Exception e) {
+                        failed = true;
+                    }
+                    if (!measuring.get() || stopped.get()) {
+                        continue;
+                    }
+                    if (failed) {
+                        errors.incrementAndGet();
+                    } else {
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                }
+                latencies[client] = Arrays.copyOf(samples, count);
+                done.countDown();
+            }, "load-client-" + c, CLIENT_STACK_SIZE);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Thread.sleep(warmupSeconds * 1000L);
+        measuring.set(true);
+        Thread.sleep(durationSeconds * 1000L);
+        stopped.set(true);
+        done.await();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            return new Result(0, 0, 0, errors.get());
+        }
+        return new Result((double) all.length / durationSeconds,
+                all[(int) (all.length * 0.50)] / 1e6,
+                all[Math.min(all.length - 1, (int) (all.length * 0.99))] / 1e6,
+                errors.get());
+    }
+
+    /**
+     * The measurement of one mode and client count.
+     *
+     * @param throughput the successful requests per second.
+     * @param p50Millis the median latency in milliseconds.
+     * @param p99Millis the 99th percentile latency in milliseconds.
+     * @param errors the number of failed requests.
+     */
+    private record Result(double throughput, double p50Millis, double p99Millis, long errors) {
+    }
+}
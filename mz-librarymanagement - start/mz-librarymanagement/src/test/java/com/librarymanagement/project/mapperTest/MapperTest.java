@@ -0,0 +1,137 @@
+package com.librarymanagement.project.mapperTest;
+
+import com.librarymanagement.project.configs.AppConfig;
+import com.librarymanagement.project.mappers.*;
+import com.librarymanagement.project.models.*;
+import com.librarymanagement.project.payloads.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MapperTest {
+
+    private final ModelMapper modelMapper = new AppConfig().modelMapper();
+
+    private BookMapper bookMapper;
+    private CategoryMapper categoryMapper;
+    private UserMapper userMapper;
+    private TransactionMapper transactionMapper;
+
+    private Category category;
+    private Book book;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        bookMapper = new BookMapper();
+        categoryMapper = new CategoryMapper();
+        userMapper = new UserMapper();
+        transactionMapper = new TransactionMapper();
+        for (Object mapper : new Object[]{bookMapper, categoryMapper, userMapper, transactionMapper}) {
+            ReflectionTestUtils.setField(mapper, "modelMapper", modelMapper);
+        }
+        ReflectionTestUtils.setField(transactionMapper, "bookMapper", bookMapper);
+        ReflectionTestUtils.setField(transactionMapper, "userMapper", userMapper);
+
+        category = new Category(1L, "category 1");
+        book = new Book(2L, "Book 1", "Author 1", 10, 8, 2, true, "description", category);
+        user = new User(3L, "user1", "secret", "user1@test.com", new HashSet<>());
+    }
+
+    @Test
+    public void TestBookToDTOSuccessSameAsModelMapper(){
+        // execute
+        BookDTO direct = bookMapper.toDTO(book);
+
+        // assert
+        assertEquals(modelMapper.map(book, BookDTO.class), direct);
+        assertNotSame(category, direct.getCategory());
+    }
+
+    @Test
+    public void TestBookToEntitySuccessSameAsModelMapper(){
+        // Set up
+        BookDTO bookDTO = new BookDTO(2L, "Book 1", "Author 1", 10, 8, 2, true, "description", category);
+
+        // execute and assert
+        assertEquals(modelMapper.map(bookDTO, Book.class), bookMapper.toEntity(bookDTO));
+    }
+
+    @Test
+    public void TestBookToEntitySuccessNoCategory(){
+        // Set up
+        BookDTO bookDTO = new BookDTO();
+        bookDTO.setTitle("Book 1");
+
+        // execute
+        Book result = bookMapper.toEntity(bookDTO);
+
+        // assert
+        assertEquals("Book 1", result.getTitle());
+        assertNull(result.getCategory());
+    }
+
+    @Test
+    public void TestCategorySuccessSameAsModelMapper(){
+        // Set up
+        CategoryDTO categoryDTO = new CategoryDTO(1L, "category 1");
+
+        // execute and assert
+        assertEquals(modelMapper.map(category, CategoryDTO.class), categoryMapper.toDTO(category));
+        assertEquals(modelMapper.map(categoryDTO, Category.class), categoryMapper.toEntity(categoryDTO));
+    }
+
+    @Test
+    public void TestTransactionToDTOSuccessSameAsModelMapper(){
+        // Set up
+        Transaction transaction = new Transaction(4L, LocalDate.now(), null, null, false, false, null, book, user);
+
+        // execute
+        TransactionDTO direct = transactionMapper.toDTO(transaction);
+
+        // assert, the password is never mapped
+        assertEquals(modelMapper.map(transaction, TransactionDTO.class), direct);
+        assertEquals(new UserDTO(3L, "user1", "user1@test.com"), direct.getUser());
+    }
+
+    @Test
+    public void TestTransactionToDTOSuccessWithKnownUser(){
+        // Set up, the user of the transaction is a reference whose fields are never read
+        User reference = new User();
+        reference.setUserId(3L);
+        Transaction transaction = new Transaction(4L, LocalDate.now(), null, null, false, false, null, book, reference);
+        UserDTO userDTO = new UserDTO(3L, "user1", "user1@test.com");
+
+        // execute
+        TransactionDTO direct = transactionMapper.toDTO(transaction, userDTO);
+
+        // assert
+        transaction.setUser(user);
+        assertEquals(transactionMapper.toDTO(transaction), direct);
+        assertSame(userDTO, direct.getUser());
+    }
+
+    @Test
+    public void TestToDTOSuccessModelMapperMode(){
+        // Set up
+        ReflectionTestUtils.setField(bookMapper, "mode", MapperMode.MODELMAPPER);
+
+        // execute and assert
+        assertEquals(modelMapper.map(book, BookDTO.class), bookMapper.toDTO(book));
+    }
+
+    @Test
+    public void TestToDTOSuccessNull(){
+        // execute and assert
+        assertNull(bookMapper.toDTO(null));
+        assertNull(categoryMapper.toEntity(null));
+        assertNull(userMapper.toDTO(null));
+        assertNull(transactionMapper.toDTO(null));
+    }
+}
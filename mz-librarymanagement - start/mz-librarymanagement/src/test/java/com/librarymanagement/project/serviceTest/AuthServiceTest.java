@@ -5,6 +5,7 @@ import com.librarymanagement.project.MzLibrarymanagementApplication;
 import com.librarymanagement.project.TestConfig;
 import com.librarymanagement.project.exceptions.BusinessException;
 import com.librarymanagement.project.exceptions.ResourceNotFoundException;
+import com.librarymanagement.project.exceptions.ValidationException;
 import com.librarymanagement.project.models.AppRole;
 import com.librarymanagement.project.models.Role;
 import com.librarymanagement.project.models.User;
@@ -14,6 +15,8 @@ import com.librarymanagement.project.security.jwt.*;
 import com.librarymanagement.project.security.services.UserDetailsImpl;
 import com.librarymanagement.project.services.AuthService;
 import com.librarymanagement.project.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -66,6 +69,9 @@ public class AuthServiceTest {
 //    @Autowired
     private UserRepository userRepository;
 
+    @MockitoBean
+    private TokenRevocationList tokenRevocationList;
+
     @Autowired
     private AuthService authService;
 
@@ -145,6 +151,7 @@ public class AuthServiceTest {
 
         // Verify method calls
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userDetailsService, times(1)).evictUser(username);
     }
 
     @Test
@@ -235,6 +242,7 @@ public class AuthServiceTest {
 
         // Verify method calls
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userDetailsService, times(1)).evictUser(username);
     }
 
     @Test
@@ -304,4 +312,35 @@ public class AuthServiceTest {
         verify(userRepository, never()).save(any(User.class));
     }
 
+
+    @Test
+    public void TestSignoutSuccess(){
+        // Set up
+        String token = "valid token";
+        Claims claims = Jwts.claims().subject("user1").id("token id").build();
+        when(jwtUtils.parseClaims(token)).thenReturn(claims);
+
+        // Execute
+        MessageResponse result = authService.signout(token);
+
+        // Assert
+        assertEquals("User signed out successfully!", result.getMessage());
+
+        // Verify
+        verify(tokenRevocationList, times(1)).revokeToken(claims);
+    }
+
+    @Test
+    public void TestSignoutFailInvalidToken(){
+        // Set up
+        when(jwtUtils.parseClaims("invalid token")).thenReturn(null);
+
+        // Execute and assert
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+                authService.signout("invalid token"));
+        assertEquals("No valid token to sign out", exception.getMessage());
+
+        // Verify
+        verify(tokenRevocationList, never()).revokeToken(any());
+    }
 }
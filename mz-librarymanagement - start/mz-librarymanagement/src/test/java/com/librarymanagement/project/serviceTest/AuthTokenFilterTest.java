@@ -0,0 +1,121 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.security.jwt.AuthTokenFilter;
+import com.librarymanagement.project.security.jwt.JwtUtils;
+import com.librarymanagement.project.security.jwt.TokenRevocationList;
+import com.librarymanagement.project.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthTokenFilterTest {
+
+    @Spy
+    private JwtUtils jwtUtils = new JwtUtils();
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AuthTokenFilter authTokenFilter;
+
+    private UserDetailsImpl userDetails;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "mySecretKey123123djakjfaweojfndklnvkaejfoaejfndklvnaedfef");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        jwtUtils.init();
+        userDetails = new UserDetailsImpl(1L, "user1", "user1@test.com", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        request = new MockHttpServletRequest("GET", "/api/borrow/1");
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateTokenFromUsername(userDetails));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void TestFilterSuccessStatelessNoUserLookup() throws Exception {
+        // Set up
+        ReflectionTestUtils.setField(authTokenFilter, "stateless", true);
+
+        // execute
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // assert, the user is built from the token
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals(1L, ((UserDetailsImpl) authentication.getPrincipal()).getId());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+
+        assertEquals(1, meterRegistry.timer(AuthTokenFilter.METRIC_NAME, "outcome", "authenticated").count());
+
+        // verify
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    public void TestFilterSuccessLoadsUserWhenNotStateless() throws Exception {
+        // Set up
+        when(userDetailsService.loadUserByUsername("user1")).thenReturn(userDetails);
+
+        // execute
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // assert
+        assertSame(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+
+        // verify
+        verify(userDetailsService, times(1)).loadUserByUsername("user1");
+    }
+
+    @Test
+    public void TestFilterFailRevokedToken() throws Exception {
+        // Set up
+        ReflectionTestUtils.setField(authTokenFilter, "stateless", true);
+        when(tokenRevocationList.isRevoked(any(Claims.class))).thenReturn(true);
+
+        // execute
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, meterRegistry.timer(AuthTokenFilter.METRIC_NAME, "outcome", "revoked").count());
+    }
+}
@@ -0,0 +1,172 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.AvailabilityBroadcaster;
+import com.librarymanagement.project.services.BorrowReturnService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Subscribes to the availability stream over HTTP and changes books through the services of a real database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:availabilitytest")
+@AutoConfigureMockMvc
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class AvailabilityBroadcasterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AvailabilityBroadcaster availabilityBroadcaster;
+
+    @Autowired
+    private BorrowReturnService borrowReturnService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Category category;
+
+    private Book book;
+
+    private Book otherBook;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Streamed Category"));
+        book = bookRepository.save(new Book(null, "Streamed Book", "Author", 3, 3, 0, true, "", category));
+        Category otherCategory = categoryRepository.save(new Category(null, "Quiet Category"));
+        otherBook = bookRepository.save(new Book(null, "Quiet Book", "Author", 3, 3, 0, true, "", otherCategory));
+        userRepository.save(new User("reader", "reader@test.com", "password"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void TestStreamAvailabilitySuccessInitialState() throws Exception {
+        // execute
+        MvcResult result = subscribe("bookIds=" + book.getBookId());
+
+        // assert, the current state of the subscribed book is sent right away
+        String events = awaitContent(result.getResponse(), "\"copiesAvailable\":3");
+        assertTrue(events.startsWith("event:availability"));
+        assertTrue(events.contains("\"bookId\":" + book.getBookId()));
+        assertTrue(events.contains("\"categoryId\":" + category.getCategoryId()));
+    }
+
+    @Test
+    public void TestStreamAvailabilitySuccessBorrowAndReturn() throws Exception {
+        // Set up
+        MvcResult result = subscribe("categoryIds=" + category.getCategoryId());
+
+        // execute
+        signIn();
+        borrowReturnService.borrowBook(book.getBookId());
+        awaitContent(result.getResponse(), "\"copiesAvailable\":2");
+        borrowReturnService.returnBook(book.getBookId());
+
+        // assert, both changes are pushed once committed
+        String events = awaitContent(result.getResponse(), "\"copiesAvailable\":3");
+        assertTrue(events.indexOf("\"copiesAvailable\":2") < events.lastIndexOf("\"copiesAvailable\":3"));
+    }
+
+    @Test
+    public void TestStreamAvailabilitySuccessOnlySubscribedBooks() throws Exception {
+        // Set up
+        MvcResult result = subscribe("categoryIds=" + category.getCategoryId());
+
+        // execute, a change to a book of another category, then to a subscribed one
+        signIn();
+        borrowReturnService.borrowBook(otherBook.getBookId());
+        borrowReturnService.borrowBook(book.getBookId());
+
+        // assert
+        String events = awaitContent(result.getResponse(), "\"bookId\":" + book.getBookId());
+        assertFalse(events.contains("\"bookId\":" + otherBook.getBookId()));
+    }
+
+    @Test
+    public void TestStreamAvailabilityFailTooManyIds() throws Exception {
+        // Set up
+        StringBuilder bookIds = new StringBuilder("1");
+        for (int i = 2; i <= 1001; i++) {
+            bookIds.append(',').append(i);
+        }
+
+        // execute and assert
+        mockMvc.perform(get("/api/public/books/availability").param("bookIds", bookIds.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MvcResult subscribe(String query) throws Exception {
+        int before = availabilityBroadcaster.getSubscriberCount();
+        MvcResult result = mockMvc.perform(get("/api/public/books/availability?" + query))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(before + 1, availabilityBroadcaster.getSubscriberCount());
+        return result;
+    }
+
+    /**
+     * Signs in the reader, the request of the subscription resets the security context.
+     */
+    private static void signIn() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("reader", null, List.of()));
+    }
+
+    /**
+     * Waits until the streamed response contains the expected text, the events are sent by another thread.
+     */
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        assertTrue(content.contains(expected), "Expected " + expected + " in " + content);
+        return content;
+    }
+}
@@ -0,0 +1,275 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Reservation;
+import com.librarymanagement.project.models.ReservationStatus;
+import com.librarymanagement.project.models.Transaction;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.BookResponse;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.ReservationRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.AvailabilityTable;
+import com.librarymanagement.project.services.BookService;
+import com.librarymanagement.project.services.BorrowReturnService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the availability table against a real database, flushed only when a test asks for it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:availabilitytabletest",
+        "spring.app.availabilityTable.flushMs=3600000"})
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class AvailabilityTableTest {
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowReturnService borrowReturnService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category(null, "Table Category"));
+        book = bookRepository.save(new Book(null, "Table Book", "Author", 3, 3, 0, true, "", category));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        availabilityTable.flush();
+        reservationRepository.deleteAll();
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void TestBorrowOneCopySuccessWrittenBackOnFlush() {
+        // execute
+        boolean borrowed = availabilityTable.borrowOneCopy(book.getBookId());
+
+        // assert, the row is only written by the flush
+        assertTrue(borrowed);
+        assertArrayEquals(new int[]{3, 0}, readCopies());
+        assertEquals(1, availabilityTable.flush());
+        assertArrayEquals(new int[]{2, 1}, readCopies());
+        assertEquals(0, availabilityTable.flush());
+    }
+
+    @Test
+    public void TestBorrowOneCopyFailNoCopiesAvailable() {
+        // Set up, all copies are taken
+        for (int i = 0; i < 3; i++) {
+            assertTrue(availabilityTable.borrowOneCopy(book.getBookId()));
+        }
+
+        // execute and assert
+        assertFalse(availabilityTable.borrowOneCopy(book.getBookId()));
+        assertFalse(availabilityTable.holdOneCopy(book.getBookId()));
+        assertFalse(availabilityTable.borrowOneCopy(-1L));
+    }
+
+    @Test
+    public void TestReturnOneCopyFailNoCopiesBorrowed() {
+        // execute and assert
+        assertFalse(availabilityTable.returnOneCopy(book.getBookId()));
+        assertFalse(availabilityTable.releaseHeldCopy(book.getBookId()));
+    }
+
+    @Test
+    public void TestBorrowOneCopySuccessUndoneOnRollback() {
+        // execute, the transaction of the borrow rolls back
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(availabilityTable.borrowOneCopy(book.getBookId()));
+            status.setRollbackOnly();
+        });
+
+        // assert
+        BookDTO bookDTO = new BookDTO();
+        bookDTO.setBookId(book.getBookId());
+        availabilityTable.applyTo(bookDTO);
+        assertEquals(3, bookDTO.getCopiesAvailable());
+        assertEquals(0, bookDTO.getCopiesBorrowed());
+    }
+
+    @Test
+    public void TestBorrowOneCopySuccessReloadedWhenUndoFails() {
+        // execute, the borrowed copy is returned by another request before the borrow rolls back
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(availabilityTable.borrowOneCopy(book.getBookId()));
+            Thread returner = new Thread(() -> assertTrue(availabilityTable.returnOneCopy(book.getBookId())));
+            returner.start();
+            try {
+                returner.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            status.setRollbackOnly();
+        });
+
+        // assert, the cell is dropped and loaded again from the open loans on its next use
+        assertNull(availabilityTable.copiesAvailable(book.getBookId()));
+        assertTrue(availabilityTable.borrowOneCopy(book.getBookId()));
+        assertEquals(2, availabilityTable.copiesAvailable(book.getBookId()));
+    }
+
+    @Test
+    public void TestResetSuccessRollbackUndoneOnResetCell() {
+        // execute, the book is edited to five copies while the borrow is in flight, then the borrow rolls back
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(availabilityTable.borrowOneCopy(book.getBookId()));
+            availabilityTable.reset(new Book(book.getBookId(), "Table Book", "Author", 5, 4, 1, true, "",
+                    book.getCategory()));
+            status.setRollbackOnly();
+        });
+
+        // assert, the borrow is undone on the edited copies
+        BookDTO bookDTO = new BookDTO();
+        bookDTO.setBookId(book.getBookId());
+        availabilityTable.applyTo(bookDTO);
+        assertEquals(5, bookDTO.getCopiesTotal());
+        assertEquals(5, bookDTO.getCopiesAvailable());
+        assertEquals(0, bookDTO.getCopiesBorrowed());
+    }
+
+    @Test
+    public void TestGetAllBooksSuccessServedFromCacheWithTableCopies() {
+        // Set up, the listing is cached
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        bookService.getAllBooks(0, 10, "bookId", "asc");
+        long hits = statistics.getQueryCacheHitCount();
+
+        // execute, a copy is borrowed and written back between two listings
+        availabilityTable.borrowOneCopy(book.getBookId());
+        BookResponse beforeFlush = bookService.getAllBooks(0, 10, "bookId", "asc");
+        availabilityTable.flush();
+        BookResponse afterFlush = bookService.getAllBooks(0, 10, "bookId", "asc");
+
+        // assert, both listings come from the query cache and show the borrowed copy
+        assertEquals(hits + 2, statistics.getQueryCacheHitCount());
+        assertEquals(2, beforeFlush.getContent().get(0).getCopiesAvailable());
+        assertEquals(1, beforeFlush.getContent().get(0).getCopiesBorrowed());
+        assertEquals(2, afterFlush.getContent().get(0).getCopiesAvailable());
+    }
+
+    @Test
+    public void TestBorrowBookSuccessRowWrittenOnlyOnFlush() {
+        // Set up
+        userRepository.save(new User("tablelender", "tablelender@test.com", "password"));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("tablelender", null, List.of()));
+
+        // execute
+        borrowReturnService.borrowBook(book.getBookId());
+
+        // assert, the book loaded by the borrow is not flushed with the transaction
+        assertArrayEquals(new int[]{3, 0}, readCopies());
+        assertEquals(1, availabilityTable.flush());
+        assertArrayEquals(new int[]{2, 1}, readCopies());
+    }
+
+    @Test
+    public void TestBorrowOneCopySuccessRecoversCopiesFromLoansAndHolds() {
+        // Set up, an open loan and a held copy whose changes were never written back
+        User borrower = userRepository.save(new User("tableborrower", "tableborrower@test.com", "password"));
+        User reserver = userRepository.save(new User("tablereserver", "tablereserver@test.com", "password"));
+        LocalDate today = LocalDate.now();
+        transactionRepository.save(new Transaction(null, today, today.plusDays(14), null, false, false, null, book, borrower));
+        transactionRepository.save(new Transaction(null, today, today.plusDays(14), today, true, false, null, book, borrower));
+        Reservation hold = new Reservation();
+        hold.setBook(book);
+        hold.setUser(reserver);
+        hold.setStatus(ReservationStatus.READY);
+        hold.setReservedAt(LocalDateTime.now());
+        reservationRepository.save(hold);
+
+        // execute, the first use of the book loads its copies from the journal
+        assertTrue(availabilityTable.borrowOneCopy(book.getBookId()));
+
+        // assert, the last copy is taken and the row is repaired by the flush
+        assertFalse(availabilityTable.borrowOneCopy(book.getBookId()));
+        assertEquals(1, availabilityTable.flush());
+        assertArrayEquals(new int[]{0, 2}, readCopies());
+    }
+
+    @Test
+    public void TestCopyToSuccessStaleRowWrittenBack() {
+        // Set up, an open loan whose change was never written back
+        User borrower = userRepository.save(new User("tablestale", "tablestale@test.com", "password"));
+        LocalDate today = LocalDate.now();
+        transactionRepository.save(new Transaction(null, today, today.plusDays(14), null, false, false, null, book, borrower));
+
+        // execute
+        Book found = bookRepository.findById(book.getBookId()).orElseThrow();
+        availabilityTable.copyTo(found);
+
+        // assert, the copies come from the journal and the row is repaired without any change
+        assertEquals(2, found.getCopiesAvailable());
+        assertEquals(1, found.getCopiesBorrowed());
+        assertEquals(1, availabilityTable.flush());
+        assertArrayEquals(new int[]{2, 1}, readCopies());
+    }
+
+    /**
+     * Reads the available and borrowed copies of the book from its row, bypassing the caches.
+     */
+    private int[] readCopies() {
+        return jdbcTemplate.queryForObject("select copies_available, copies_borrowed from books where book_id = ?",
+                (row, rowNumber) -> new int[]{row.getInt(1), row.getInt(2)}, book.getBookId());
+    }
+}
@@ -0,0 +1,239 @@
+package com.librarymanagement.project.serviceTest;
+
+
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.BookAvailability;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.AvailabilityDTO;
+import com.librarymanagement.project.payloads.BookFacetView;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.services.AvailabilityChangedEvent;
+import com.librarymanagement.project.services.AvailabilityTable;
+import com.librarymanagement.project.services.BookFacetIndex;
+import com.librarymanagement.project.services.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookFacetIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AvailabilityTable availabilityTable;
+
+    @InjectMocks
+    private BookFacetIndex bookFacetIndex;
+
+    private Category programming;
+
+    private Category design;
+
+    @BeforeEach
+    void setUp() {
+        programming = new Category(1L, "programming");
+        design = new Category(2L, "design");
+        bookFacetIndex.index(new Book(1L, "Effective Java", "Joshua Bloch", 2, 2, 0, true, "", programming));
+        bookFacetIndex.index(new Book(2L, "Java Puzzlers", "Joshua Bloch", 1, 0, 1, true, "", programming));
+        bookFacetIndex.index(new Book(3L, "Clean Code", "Robert Martin", 3, 1, 2, true, "", programming));
+        bookFacetIndex.index(new Book(4L, "Clean Architecture", "Robert Martin", 2, 2, 0, true, "", design));
+        bookFacetIndex.index(new Book(5L, "Design Patterns", "Erich Gamma", 1, 1, 0, false, "", design));
+    }
+
+    @Test
+    public void TestSearchSuccessCountsAllBooks(){
+        // execute
+        BookFacetIndex.Facets facets = bookFacetIndex.search(null, null, null, 10);
+
+        // assert
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(facets.matches()));
+        assertEquals(Map.of(1L, 3, 2L, 2), facets.categories());
+        assertEquals(List.of(1L, 2L), List.copyOf(facets.categories().keySet()));
+        assertEquals(Map.of(BookAvailability.AVAILABLE, 3, BookAvailability.UNAVAILABLE, 1,
+                BookAvailability.INACTIVE, 1), facets.availability());
+        assertEquals(List.of("Joshua Bloch", "Robert Martin", "Erich Gamma"), List.copyOf(facets.authors().keySet()));
+        assertEquals(2, facets.authors().get("Robert Martin"));
+    }
+
+    @Test
+    public void TestSearchSuccessFacetIgnoresItsOwnFilter(){
+        // execute
+        BookFacetIndex.Facets facets = bookFacetIndex.search(null, 1L, BookAvailability.AVAILABLE, 10);
+
+        // assert, the categories are counted on the available books and the availability on the category
+        assertEquals(List.of(1L, 3L), ids(facets.matches()));
+        assertEquals(Map.of(1L, 2, 2L, 1), facets.categories());
+        assertEquals(Map.of(BookAvailability.AVAILABLE, 2, BookAvailability.UNAVAILABLE, 1,
+                BookAvailability.INACTIVE, 0), facets.availability());
+        assertEquals(Map.of("Joshua Bloch", 1, "Robert Martin", 1), facets.authors());
+    }
+
+    @Test
+    public void TestSearchSuccessMatchedBooksOnly(){
+        // execute, book 9 is not indexed
+        BookFacetIndex.Facets facets = bookFacetIndex.search(Set.of(3L, 4L, 9L), null, null, 10);
+
+        // assert
+        assertEquals(List.of(3L, 4L), ids(facets.matches()));
+        assertEquals(Map.of(1L, 1, 2L, 1), facets.categories());
+        assertEquals(Map.of("Robert Martin", 2), facets.authors());
+    }
+
+    @Test
+    public void TestSearchSuccessAuthorsCut(){
+        // execute
+        BookFacetIndex.Facets facets = bookFacetIndex.search(null, null, null, 1);
+
+        // assert, ties are ordered by name
+        assertEquals(Map.of("Joshua Bloch", 2), facets.authors());
+        assertEquals(5, facets.matches().size());
+    }
+
+    @Test
+    public void TestSearchSuccessUnknownCategory(){
+        // execute
+        BookFacetIndex.Facets facets = bookFacetIndex.search(null, 7L, null, 10);
+
+        // assert
+        assertTrue(facets.matches().isEmpty());
+        assertEquals(2, facets.categories().size());
+        assertEquals(0, facets.availability().get(BookAvailability.AVAILABLE));
+    }
+
+    @Test
+    public void TestIndexSuccessMovesUpdatedBook(){
+        // Set up, book 1 moves to design and its copies are all borrowed
+        bookFacetIndex.index(new Book(1L, "Effective Java", "Joshua Bloch", 2, 0, 2, true, "", design));
+
+        // execute
+        BookFacetIndex.Facets facets = bookFacetIndex.search(null, 2L, null, 10);
+
+        // assert
+        assertEquals(List.of(1L, 4L, 5L), ids(facets.matches()));
+        assertEquals(Map.of(1L, 2, 2L, 3), facets.categories());
+        assertEquals(1, facets.availability().get(BookAvailability.UNAVAILABLE));
+        assertEquals(5, bookFacetIndex.size());
+    }
+
+    @Test
+    public void TestOnAvailabilityChangedSuccessFromTable(){
+        // Set up, the last copy of book 3 is borrowed and a copy of book 2 is returned
+        when(availabilityTable.copiesAvailable(3L)).thenReturn(0);
+        when(availabilityTable.copiesAvailable(2L)).thenReturn(1);
+
+        // execute
+        bookFacetIndex.onAvailabilityChanged(new AvailabilityChangedEvent(3L));
+        bookFacetIndex.onAvailabilityChanged(new AvailabilityChangedEvent(2L));
+        BookFacetIndex.Facets facets = bookFacetIndex.search(null, null, BookAvailability.UNAVAILABLE, 10);
+
+        // assert, no query is needed
+        assertEquals(List.of(3L), ids(facets.matches()));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    public void TestOnAvailabilityChangedSuccessInactiveBookStaysInactive(){
+        // Set up
+        when(availabilityTable.copiesAvailable(5L)).thenReturn(1);
+
+        // execute
+        bookFacetIndex.onAvailabilityChanged(new AvailabilityChangedEvent(5L));
+
+        // assert
+        assertEquals(List.of(5L), ids(bookFacetIndex.search(null, null, BookAvailability.INACTIVE, 10).matches()));
+    }
+
+    @Test
+    public void TestOnAvailabilityChangedSuccessReadByNextSearch(){
+        // Set up, the table does not hold book 1
+        when(availabilityTable.copiesAvailable(1L)).thenReturn(null);
+        when(bookRepository.findAvailabilityByBookIdIn(List.of(1L)))
+                .thenReturn(List.of(new AvailabilityDTO(1L, 1L, 0, 2, true)));
+
+        // execute
+        bookFacetIndex.onAvailabilityChanged(new AvailabilityChangedEvent(1L));
+        BookFacetIndex.Facets first = bookFacetIndex.search(null, null, BookAvailability.UNAVAILABLE, 10);
+        BookFacetIndex.Facets second = bookFacetIndex.search(null, null, BookAvailability.UNAVAILABLE, 10);
+
+        // assert
+        assertEquals(List.of(1L, 2L), ids(first.matches()));
+        assertEquals(List.of(1L, 2L), ids(second.matches()));
+
+        // verify, read once with the copies of the table applied
+        verify(bookRepository, times(1)).findAvailabilityByBookIdIn(anyCollection());
+        verify(availabilityTable, times(1)).applyTo(any(AvailabilityDTO.class));
+    }
+
+    @Test
+    public void TestRebuildSuccess(){
+        // Set up
+        when(bookRepository.findFacetViews(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view(6L, "Refactoring", "Martin Fowler", 3L, 0, true))));
+
+        // execute
+        bookFacetIndex.rebuild();
+        BookFacetIndex.Facets facets = bookFacetIndex.search(null, null, null, 10);
+
+        // assert, previous books are dropped
+        assertEquals(1, bookFacetIndex.size());
+        assertEquals(List.of(6L), ids(facets.matches()));
+        assertEquals(Map.of(3L, 1), facets.categories());
+        assertEquals(1, facets.availability().get(BookAvailability.UNAVAILABLE));
+    }
+
+    private static List<Long> ids(List<BookSearchIndex.Entry> entries) {
+        List<Long> ids = new ArrayList<>(entries.stream().map(BookSearchIndex.Entry::bookId).toList());
+        ids.sort(null);
+        return ids;
+    }
+
+    private static BookFacetView view(Long bookId, String title, String author, Long categoryId,
+                                      int copiesAvailable, boolean active) {
+        return new BookFacetView() {
+            @Override
+            public Long getBookId() {
+                return bookId;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public int getCopiesAvailable() {
+                return copiesAvailable;
+            }
+
+            @Override
+            public boolean getActive() {
+                return active;
+            }
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.exceptions.ValidationException;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.BookImportResponse;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.services.BookImportService;
+import com.librarymanagement.project.services.BookFacetIndex;
+import com.librarymanagement.project.services.BookSearchIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:importtest")
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.findAll().stream()
+                .filter(c -> c.getCategoryName().equals("Imported"))
+                .findFirst()
+                .orElseGet(() -> categoryRepository.save(new Category(null, "Imported")));
+    }
+
+    @Test
+    public void TestImportCsvSuccess() throws Exception {
+        // Set up
+        String csv = "title,author,copiesTotal,description,categoryId,categoryName\n"
+                + "Csv plain title,Csv author,3,plain,"  + category.getCategoryId() + ",\n"
+                + "\"Csv quoted, \"\"title\"\"\",Csv author,2,,,imported\n";
+        long before = bookRepository.count();
+
+        // execute
+        BookImportResponse response = bookImportService.importCsv(stream(csv));
+
+        // assert
+        assertEquals(2, response.getRowsRead());
+        assertEquals(2, response.getImported());
+        assertEquals(0, response.getFailed());
+        assertEquals(before + 2, bookRepository.count());
+        List<BookSearchIndex.Entry> found = bookSearchIndex.searchTitle("Csv quoted");
+        assertEquals(1, found.size());
+        assertEquals("Csv quoted, \"title\"", found.get(0).title());
+        Book book = bookRepository.findById(found.get(0).bookId()).orElseThrow();
+        assertEquals(2, book.getCopiesAvailable());
+        assertEquals(category.getCategoryId(), book.getCategory().getCategoryId());
+        // the imported books are counted by the faceted search
+        BookFacetIndex.Facets facets = bookFacetIndex.search(List.of(found.get(0).bookId()), null, null, 10);
+        assertEquals(1, facets.matches().size());
+        assertEquals(1, facets.categories().get(category.getCategoryId()));
+        assertEquals(1, facets.authors().get("Csv author"));
+    }
+
+    @Test
+    public void TestImportCsvSuccessWithRowErrors() throws Exception {
+        // Set up
+        String csv = "title,author,copiesTotal,categoryId\n"
+                + "Valid row title,Author,1," + category.getCategoryId() + "\n"
+                + ",Author,1," + category.getCategoryId() + "\n"
+                + "\n"
+                + "No copies,Author,0," + category.getCategoryId() + "\n"
+                + "Unknown category,Author,1,999999\n"
+                + "Bad number,Author,many," + category.getCategoryId() + "\n";
+
+        // execute
+        BookImportResponse response = bookImportService.importCsv(stream(csv));
+
+        // assert, line numbers count the header and the blank line
+        assertEquals(5, response.getRowsRead());
+        assertEquals(1, response.getImported());
+        assertEquals(4, response.getFailed());
+        assertFalse(response.isErrorsTruncated());
+        assertEquals(3, response.getErrors().get(0).getLine());
+        assertEquals("Book title must not be empty", response.getErrors().get(0).getMessage());
+        assertEquals(5, response.getErrors().get(1).getLine());
+        assertEquals("Total copies must be provided and more than 0", response.getErrors().get(1).getMessage());
+        assertEquals(6, response.getErrors().get(2).getLine());
+        assertEquals("No categories found by category id: 999999", response.getErrors().get(2).getMessage());
+        assertEquals(7, response.getErrors().get(3).getLine());
+        assertEquals("Total copies must be a number", response.getErrors().get(3).getMessage());
+    }
+
+    @Test
+    public void TestImportCsvFailMissingColumn() {
+        // execute and assert
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+                bookImportService.importCsv(stream("title,copiesTotal,categoryId\n")));
+        assertEquals("The CSV header must contain the column author", exception.getMessage());
+    }
+
+    @Test
+    public void TestImportJsonLinesSuccessWithRowErrors() throws Exception {
+        // Set up
+        String jsonLines = "{\"title\":\"Json title\",\"author\":\"Json author\",\"copiesTotal\":4,\"categoryName\":\"Imported\"}\n"
+                + "{\"title\":\"Broken\"\n"
+                + "{\"title\":\"No category\",\"author\":\"Json author\",\"copiesTotal\":1}\n";
+
+        // execute
+        BookImportResponse response = bookImportService.importJsonLines(stream(jsonLines));
+
+        // assert
+        assertEquals(3, response.getRowsRead());
+        assertEquals(1, response.getImported());
+        assertEquals(2, response.getFailed());
+        assertEquals(2, response.getErrors().get(0).getLine());
+        assertTrue(response.getErrors().get(0).getMessage().startsWith("Invalid JSON"));
+        assertEquals("Category id or name must be provided", response.getErrors().get(1).getMessage());
+        assertEquals(1, bookSearchIndex.searchTitle("Json title").size());
+    }
+
+    @Test
+    public void TestImportCsvSuccessBatched() throws Exception {
+        // Set up
+        StringBuilder csv = new StringBuilder("title,author,copiesTotal,categoryId\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append("Batched ").append(i).append(",Author,1,").append(category.getCategoryId()).append('\n');
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // execute
+        BookImportResponse response = bookImportService.importCsv(stream(csv.toString()));
+
+        // assert, the 200 inserts are sent in batches of 50 and the IDs fetched 50 at a time
+        assertEquals(200, response.getImported());
+        assertEquals(200, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < 20,
+                "statements prepared: " + statistics.getPrepareStatementCount());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.configs.AppConstants;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.BookResponse;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.services.BookFacetIndex;
+import com.librarymanagement.project.services.BookSearchIndex;
+import com.librarymanagement.project.services.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes and searches books through the book service on a real database, to check that the search and facet indexes
+ * only follow committed writes.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:indexingtest")
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class BookIndexingTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.findAll().stream()
+                .filter(c -> c.getCategoryName().equals("Indexed"))
+                .findFirst()
+                .orElseGet(() -> categoryRepository.save(new Category(null, "Indexed")));
+    }
+
+    @Test
+    public void TestAddBookSuccessIndexedAfterCommit() {
+        // execute
+        BookDTO added = bookService.addBook(category.getCategoryId(), bookDTO("Committed indexing title"));
+
+        // assert
+        List<BookSearchIndex.Entry> found = bookSearchIndex.searchTitle("Committed indexing");
+        assertEquals(List.of(added.getBookId()), found.stream().map(BookSearchIndex.Entry::bookId).toList());
+        BookFacetIndex.Facets facets = bookFacetIndex.search(List.of(added.getBookId()), null, null, 10);
+        assertEquals(1, facets.matches().size());
+    }
+
+    @Test
+    public void TestAddBookFailRolledBackNotIndexed() {
+        // Set up
+        int indexed = bookFacetIndex.size();
+
+        // execute
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.addBook(category.getCategoryId(), bookDTO("Rolled back indexing title"));
+            status.setRollbackOnly();
+        });
+
+        // assert, neither the database nor the indexes hold the book
+        assertTrue(bookRepository.findAll().stream().noneMatch(book -> book.getTitle().startsWith("Rolled back")));
+        assertTrue(bookSearchIndex.searchTitle("Rolled back indexing").isEmpty());
+        assertEquals(indexed, bookFacetIndex.size());
+    }
+
+    @Test
+    public void TestUpdateBookFailRolledBackKeepsIndexedTitle() {
+        // Set up
+        BookDTO added = bookService.addBook(category.getCategoryId(), bookDTO("Kept indexing title"));
+
+        // execute
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.updateBook(added.getBookId(), bookDTO("Discarded indexing title"));
+            status.setRollbackOnly();
+        });
+
+        // assert
+        assertEquals(1, bookSearchIndex.searchTitle("Kept indexing").size());
+        assertTrue(bookSearchIndex.searchTitle("Discarded indexing").isEmpty());
+    }
+
+    @Test
+    public void TestSearchByTitleSuccessSortedInChunks() {
+        // Set up, more matches than one lookup may hold, the total copies repeat every 7 books
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < AppConstants.MAX_SEARCH_ID_CHUNK + 200; i++) {
+            books.add(new Book(null, "Chunked search " + i, "Author", 1 + i % 7, 0, 0, true, "", category));
+        }
+        List<Long> bookIds = bookRepository.saveAll(books).stream().map(Book::getBookId).toList();
+        books.forEach(bookSearchIndex::index);
+
+        // execute
+        BookResponse result = bookService.searchByTitle("Chunked search", 2, 5, "copiesTotal", "desc");
+
+        // assert, the books with 7 copies in ID order
+        List<Long> expected = List.of(bookIds.get(76), bookIds.get(83), bookIds.get(90), bookIds.get(97),
+                bookIds.get(104));
+        assertEquals(expected, result.getContent().stream().map(BookDTO::getBookId).toList());
+        assertEquals(AppConstants.MAX_SEARCH_ID_CHUNK + 200, result.getTotalElements());
+    }
+
+    @Test
+    public void TestSearchByTitleSuccessSortedByCategoryInChunks() {
+        // Set up, more matches than one lookup may hold, every other book is in a category created later
+        Category later = categoryRepository.save(new Category(null, "Indexed later"));
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < AppConstants.MAX_SEARCH_ID_CHUNK + 200; i++) {
+            books.add(new Book(null, "Category chunked " + i, "Author", 1, 0, 0, true, "", i % 2 == 0 ? later : category));
+        }
+        List<Long> bookIds = bookRepository.saveAll(books).stream().map(Book::getBookId).toList();
+        books.forEach(bookSearchIndex::index);
+
+        // execute
+        BookResponse result = bookService.searchByTitle("Category chunked", 1, 3, "category", "desc");
+
+        // assert, the books of the later category in ID order, like the database orders the category ID
+        List<Long> expected = List.of(bookIds.get(6), bookIds.get(8), bookIds.get(10));
+        assertEquals(expected, result.getContent().stream().map(BookDTO::getBookId).toList());
+        assertEquals(AppConstants.MAX_SEARCH_ID_CHUNK + 200, result.getTotalElements());
+    }
+
+    private BookDTO bookDTO(String title) {
+        BookDTO bookDTO = new BookDTO();
+        bookDTO.setTitle(title);
+        bookDTO.setAuthor("Author");
+        bookDTO.setCopiesTotal(2);
+        bookDTO.setCopiesAvailable(2);
+        return bookDTO;
+    }
+}
@@ -0,0 +1,151 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.services.BookLockManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookLockManagerTest {
+
+    private BookLockManager bookLockManager;
+
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookLockManager = new BookLockManager();
+        ReflectionTestUtils.setField(bookLockManager, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(bookLockManager, "stripes", 1000);
+        ReflectionTestUtils.setField(bookLockManager, "waitMs", 100L);
+        bookLockManager.init();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void TestInitSuccessStripesRoundedToPowerOfTwo(){
+        // assert
+        assertEquals(1024, bookLockManager.getStripeCount());
+    }
+
+    @Test
+    public void TestLockSuccessOtherBookNotBlocked() throws Exception {
+        // Set up, another thread holds the lock of book 1
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> holdLock(1L, held, release));
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        // execute
+        Lock lock = bookLockManager.lock(2L);
+        lock.unlock();
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        // assert, neither acquisition waited
+        assertEquals(2, meterRegistry.counter(BookLockManager.ACQUISITIONS_METRIC_NAME, "contended", "false").count());
+    }
+
+    @Test
+    public void TestLockSuccessWaitsForSameBook() throws Exception {
+        // Set up, another thread holds the lock of book 1 for a moment
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> holdLock(1L, held, release));
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        // execute
+        Thread releaser = new Thread(() -> {
+            sleep(20);
+            release.countDown();
+        });
+        releaser.start();
+        Lock lock = bookLockManager.lock(1L);
+        lock.unlock();
+        holder.get(5, TimeUnit.SECONDS);
+
+        // assert, the wait is recorded
+        assertEquals(1, meterRegistry.counter(BookLockManager.ACQUISITIONS_METRIC_NAME, "contended", "true").count());
+        assertEquals(1, meterRegistry.timer(BookLockManager.WAIT_METRIC_NAME, "outcome", "acquired").count());
+    }
+
+    @Test
+    public void TestLockFailTimeout() throws Exception {
+        // Set up, another thread holds the lock of book 1 longer than the wait time
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> holdLock(1L, held, release));
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        // execute and assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                bookLockManager.lock(1L));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals(1, meterRegistry.timer(BookLockManager.WAIT_METRIC_NAME, "outcome", "timeout").count());
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void TestLockAllFailTimeoutReleasesAcquiredLocks() throws Exception {
+        // Set up, another thread holds the lock of book 2
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> holdLock(2L, held, release));
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        // execute and assert, the batch of books 1, 2 and 3 times out
+        assertThrows(ResponseStatusException.class, () -> bookLockManager.lockAll(List.of(3L, 2L, 1L)));
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        // assert, the locks of books 1 and 3 were released, so another thread can take them
+        executor.submit(() -> bookLockManager.unlockAll(bookLockManager.lockAll(List.of(1L, 3L))))
+                .get(5, TimeUnit.SECONDS);
+        List<Lock> locks = bookLockManager.lockAll(List.of(1L, 2L, 3L, 1L));
+        assertEquals(3, locks.size());  // one lock per book, the repeated book is locked once
+        bookLockManager.unlockAll(locks);
+    }
+
+    private void holdLock(Long bookId, CountDownLatch held, CountDownLatch release) {
+        Lock lock = bookLockManager.lock(bookId);
+        try {
+            held.countDown();
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.librarymanagement.project.serviceTest;
+
+
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.payloads.BookSearchView;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.services.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookSearchIndex bookSearchIndex;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category(1L, "category 1");
+        bookSearchIndex.index(new Book(1L, "The Java Programming Language", "James Gosling", 10, 10, 0, true, "", category));
+        bookSearchIndex.index(new Book(2L, "Effective Java", "Joshua Bloch", 10, 10, 0, true, "", category));
+        bookSearchIndex.index(new Book(3L, "Clean Code", "Robert Martin", 10, 10, 0, true, "", category));
+    }
+
+    @Test
+    public void TestSearchTitleSuccessIgnoreCase(){
+        // execute
+        List<Long> result = ids(bookSearchIndex.searchTitle("JAVA"));
+
+        // assert
+        assertEquals(List.of(1L, 2L), result);
+    }
+
+    @Test
+    public void TestSearchTitleSuccessPartialMatch(){
+        // execute and assert, substring spanning two words
+        assertEquals(List.of(2L), ids(bookSearchIndex.searchTitle("ive ja")));
+        assertEquals(List.of(3L), ids(bookSearchIndex.searchTitle("n co")));
+    }
+
+    @Test
+    public void TestSearchTitleSuccessShortTerm(){
+        // execute and assert, terms shorter than a trigram still match
+        assertEquals(List.of(1L, 2L), ids(bookSearchIndex.searchTitle("va")));
+        assertEquals(3, bookSearchIndex.searchTitle("").size());
+    }
+
+    @Test
+    public void TestSearchTitleSuccessNoMatch(){
+        // execute and assert, all trigrams exist but not as a contiguous term
+        assertTrue(bookSearchIndex.searchTitle("javacode").isEmpty());
+        assertTrue(bookSearchIndex.searchTitle("python").isEmpty());
+    }
+
+    @Test
+    public void TestSearchAuthorSuccess(){
+        // execute and assert
+        assertEquals(List.of(2L), ids(bookSearchIndex.searchAuthor("bloch")));
+        assertEquals(List.of(1L, 2L), ids(bookSearchIndex.searchAuthor("os")));
+    }
+
+    @Test
+    public void TestIndexSuccessReplacesUpdatedBook(){
+        // Set up, rename book 2
+        bookSearchIndex.index(new Book(2L, "Refactoring", "Martin Fowler", 10, 10, 0, true, "", category));
+
+        // execute and assert, old terms no longer match
+        assertTrue(bookSearchIndex.searchTitle("effective").isEmpty());
+        assertEquals(List.of(2L), ids(bookSearchIndex.searchTitle("refactor")));
+        assertEquals(List.of(2L, 3L), ids(bookSearchIndex.searchAuthor("martin")));
+        assertEquals(3, bookSearchIndex.size());
+    }
+
+    @Test
+    public void TestRemoveSuccess(){
+        // execute
+        bookSearchIndex.remove(1L);
+
+        // assert
+        assertEquals(List.of(2L), ids(bookSearchIndex.searchTitle("java")));
+        assertEquals(2, bookSearchIndex.size());
+    }
+
+    @Test
+    public void TestRebuildSuccess(){
+        // Set up
+        when(bookRepository.findSearchViews(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view(5L, "Domain Driven Design", "Eric Evans"))));
+
+        // execute
+        bookSearchIndex.rebuild();
+
+        // assert, previous entries are dropped
+        assertEquals(1, bookSearchIndex.size());
+        assertEquals(List.of(5L), ids(bookSearchIndex.searchTitle("driven")));
+        assertTrue(bookSearchIndex.searchTitle("java").isEmpty());
+
+        // verify
+        verify(bookRepository, times(1)).findSearchViews(any(Pageable.class));
+    }
+
+    @Test
+    public void TestComparatorSuccess(){
+        // Set up
+        List<BookSearchIndex.Entry> entries = new ArrayList<>(bookSearchIndex.searchTitle(""));
+
+        // execute
+        entries.sort(BookSearchIndex.comparator("title", false));
+
+        // assert
+        assertEquals(List.of(1L, 2L, 3L), entries.stream().map(BookSearchIndex.Entry::bookId).toList());
+        assertNull(BookSearchIndex.comparator("description", true));
+    }
+
+    private static List<Long> ids(List<BookSearchIndex.Entry> entries) {
+        return entries.stream().map(BookSearchIndex.Entry::bookId).sorted().toList();
+    }
+
+    private static BookSearchView view(Long bookId, String title, String author) {
+        return new BookSearchView() {
+            @Override
+            public Long getBookId() {
+                return bookId;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+        };
+    }
+}
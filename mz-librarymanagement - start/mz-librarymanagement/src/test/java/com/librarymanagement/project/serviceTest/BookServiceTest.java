@@ -1,29 +1,53 @@
 package com.librarymanagement.project.serviceTest;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librarymanagement.project.configs.AppConstants;
 import com.librarymanagement.project.exceptions.BusinessException;
 import com.librarymanagement.project.exceptions.ResourceNotFoundException;
 import com.librarymanagement.project.exceptions.ValidationException;
+import com.librarymanagement.project.mappers.BookMapper;
 import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.BookAvailability;
 import com.librarymanagement.project.models.Category;
 import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.BookExportView;
+import com.librarymanagement.project.payloads.BookFacetResponse;
 import com.librarymanagement.project.payloads.BookResponse;
 import com.librarymanagement.project.repositories.BookRepository;
 import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.services.AvailabilityChangedEvent;
+import com.librarymanagement.project.services.AvailabilityTable;
+import com.librarymanagement.project.services.BookChangedEvent;
+import com.librarymanagement.project.services.BookFacetIndex;
+import com.librarymanagement.project.services.BookSearchIndex;
 import com.librarymanagement.project.services.BookServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -39,7 +63,22 @@ public class BookServiceTest {
     private CategoryRepository categoryRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookFacetIndex bookFacetIndex;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AvailabilityTable availabilityTable;
 
     @InjectMocks
     private BookServiceImpl bookService;
@@ -79,9 +118,9 @@ public class BookServiceTest {
 
 
         when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(category));
-        when(modelMapper.map(bookDTO, Book.class)).thenReturn(book);
+        when(bookMapper.toEntity(bookDTO)).thenReturn(book);
         when(bookRepository.save(book)).thenReturn(savedBook);
-        when(modelMapper.map(savedBook, BookDTO.class)).thenReturn(savedBookDTO);
+        when(bookMapper.toDTO(savedBook)).thenReturn(savedBookDTO);
 
 
         // execute
@@ -207,7 +246,7 @@ public class BookServiceTest {
         BookDTO bookDTO = new BookDTO(bookId, title, author, 10, 8, 2, true, "", category);
 
         when(bookRepository.findAll(any(Pageable.class))).thenReturn(bookPage);
-        when(modelMapper.map(book, BookDTO.class)).thenReturn(bookDTO);
+        when(bookMapper.toDTO(book)).thenReturn(bookDTO);
         // execute
         BookResponse result = bookService.getAllBooks(pageNumber, pageSize, sortBy, sortOrder);
 
@@ -242,11 +281,11 @@ public class BookServiceTest {
         BookDTO bookDTO = new BookDTO(bookId, newTitle, author, 10, 8, 2, true, "", category);
         Book newBook = new Book(bookId, newTitle, author, 10, 8, 2, true, "", category);
 
-        when(modelMapper.map(bookDTO, Book.class)).thenReturn(newBook);
+        when(bookMapper.toEntity(bookDTO)).thenReturn(newBook);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(bookFromDB));
         when(bookRepository.save(bookFromDB)).thenReturn(savedBook);
         when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(category));
-        when(modelMapper.map(savedBook, BookDTO.class)).thenReturn(bookDTO);
+        when(bookMapper.toDTO(savedBook)).thenReturn(bookDTO);
 
         // execute
         BookDTO result = bookService.updateBook(bookId, bookDTO);
@@ -283,7 +322,7 @@ public class BookServiceTest {
         bookDTO.setTitle(newTitle);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(bookFromDB));
         when(bookRepository.save(bookFromDB)).thenReturn(savedBook);
-        when(modelMapper.map(savedBook, BookDTO.class)).thenReturn(savedBookDTO);
+        when(bookMapper.toDTO(savedBook)).thenReturn(savedBookDTO);
         // execute
         BookDTO result = bookService.partialUpdateBook(bookId, bookDTO);
 
@@ -412,7 +451,7 @@ public class BookServiceTest {
 
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
         when(bookRepository.save(savedBook)).thenReturn(savedBook);
-        when(modelMapper.map(savedBook, BookDTO.class)).thenReturn(savedBookDTO);
+        when(bookMapper.toDTO(savedBook)).thenReturn(savedBookDTO);
 
         // execute
         BookDTO result = bookService.deleteBook(bookId);
@@ -427,6 +466,9 @@ public class BookServiceTest {
         //verify
         verify(bookRepository, times(1)).findById(bookId);
         verify(bookRepository, times(1)).save(book);
+        verify(eventPublisher, times(1)).publishEvent(new AvailabilityChangedEvent(bookId));
+        verify(eventPublisher, times(1)).publishEvent(new BookChangedEvent(savedBook));
+        verify(bookSearchIndex, never()).index(any(Book.class));
     }
 
     @Test
@@ -456,7 +498,7 @@ public class BookServiceTest {
 
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
         when(bookRepository.save(savedBook)).thenReturn(savedBook);
-        when(modelMapper.map(savedBook, BookDTO.class)).thenReturn(savedBookDTO);
+        when(bookMapper.toDTO(savedBook)).thenReturn(savedBookDTO);
 
         // execute
         BookDTO result =  bookService.deleteBook(bookId);
@@ -469,4 +511,291 @@ public class BookServiceTest {
         verify(bookRepository, never()).deleteById(bookId);
     }
 
+    @Test
+    public void TestSearchByTitleSuccess(){
+        //Set up
+        Book book1 = new Book(1L, "Java Basics", "Author 1", 10, 10, 0, true, "", category);
+        Book book2 = new Book(2L, "Advanced Java", "Author 2", 10, 10, 0, true, "", category);
+        BookDTO bookDTO1 = new BookDTO(1L, "Java Basics", "Author 1", 10, 10, 0, true, "", category);
+        BookDTO bookDTO2 = new BookDTO(2L, "Advanced Java", "Author 2", 10, 10, 0, true, "", category);
+        when(bookSearchIndex.searchTitle("java")).thenReturn(List.of(
+                BookSearchIndex.Entry.of(1L, "Java Basics", "Author 1"),
+                BookSearchIndex.Entry.of(2L, "Advanced Java", "Author 2")));
+        when(bookRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(book1, book2));
+        when(bookMapper.toDTO(book1)).thenReturn(bookDTO1);
+        when(bookMapper.toDTO(book2)).thenReturn(bookDTO2);
+
+        // execute
+        BookResponse result = bookService.searchByTitle("java", 0, 10, "title", "asc");
+
+        // assert, sorted by title
+        assertEquals(2, result.getContent().size());
+        assertEquals(2L, result.getContent().get(0).getBookId());
+        assertEquals(1L, result.getContent().get(1).getBookId());
+        assertEquals(2, result.getTotalElements());
+        assertEquals(1, result.getTotalPages());
+        assertTrue(result.isLastPage());
+
+        // verify only the page is loaded and no LIKE query is issued
+        verify(bookRepository, times(1)).findAllById(List.of(2L, 1L));
+        verify(bookRepository, never()).findByTitleLikeIgnoreCase(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    public void TestSearchByAuthorSuccessSecondPage(){
+        //Set up
+        Book book3 = new Book(3L, "Book 3", "Author", 10, 10, 0, true, "", category);
+        BookDTO bookDTO3 = new BookDTO(3L, "Book 3", "Author", 10, 10, 0, true, "", category);
+        when(bookSearchIndex.searchAuthor("author")).thenReturn(List.of(
+                BookSearchIndex.Entry.of(3L, "Book 3", "Author"),
+                BookSearchIndex.Entry.of(1L, "Book 1", "Author"),
+                BookSearchIndex.Entry.of(2L, "Book 2", "Author")));
+        when(bookRepository.findAllById(List.of(3L))).thenReturn(List.of(book3));
+        when(bookMapper.toDTO(book3)).thenReturn(bookDTO3);
+
+        // execute
+        BookResponse result = bookService.searchByAuthor("author", 1, 2, "bookId", "asc");
+
+        // assert
+        assertEquals(1, result.getContent().size());
+        assertEquals(3L, result.getContent().get(0).getBookId());
+        assertEquals(1, result.getPageNumber());
+        assertEquals(3, result.getTotalElements());
+        assertEquals(2, result.getTotalPages());
+        assertTrue(result.isLastPage());
+    }
+
+    @Test
+    public void TestSearchByTitleSuccessSortedInChunks(){
+        //Set up, more matches than one lookup may hold, sorted by a field the index does not hold
+        int matchCount = 2 * AppConstants.MAX_SEARCH_ID_CHUNK + 500;
+        List<BookSearchIndex.Entry> matches = new ArrayList<>();
+        for (long bookId = 1; bookId <= matchCount; bookId++) {
+            matches.add(BookSearchIndex.Entry.of(bookId, "Java " + bookId, "Author"));
+        }
+        when(bookSearchIndex.searchTitle("java")).thenReturn(matches);
+        Comparator<Book> byCopiesDescending = Comparator.comparing(Book::getCopiesAvailable).reversed()
+                .thenComparing(Book::getBookId);
+        List<Integer> lookupSizes = new ArrayList<>();
+        when(bookRepository.findByBookIdIn(anyCollection(), any(Sort.class), any(Limit.class))).thenAnswer(invocation -> {
+            Collection<Long> bookIds = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(2);
+            lookupSizes.add(bookIds.size());
+            return bookIds.stream()
+                    .map(bookId -> new Book(bookId, "Java " + bookId, "Author", 10, (int) (bookId % 7), 0, true, "", category))
+                    .sorted(byCopiesDescending)
+                    .limit(limit.max())
+                    .toList();
+        });
+        when(bookMapper.toDTO(any(Book.class))).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            return new BookDTO(book.getBookId(), book.getTitle(), book.getAuthor(), 10, book.getCopiesAvailable(), 0,
+                    true, "", category);
+        });
+
+        // execute
+        BookResponse result = bookService.searchByTitle("java", 2, 5, "copiesAvailable", "desc");
+
+        // assert, the books with 6 copies in ID order, each lookup bounded
+        assertEquals(List.of(76L, 83L, 90L, 97L, 104L),
+                result.getContent().stream().map(BookDTO::getBookId).toList());
+        assertEquals(matchCount, result.getTotalElements());
+        assertEquals(List.of(AppConstants.MAX_SEARCH_ID_CHUNK, AppConstants.MAX_SEARCH_ID_CHUNK, 500), lookupSizes);
+        verify(bookRepository, times(3)).findByBookIdIn(anyCollection(),
+                eq(Sort.by("copiesAvailable").descending().and(Sort.by("bookId"))), eq(Limit.of(15)));
+    }
+
+    @Test
+    public void TestSearchByTitleSuccessNoMatch(){
+        //Set up
+        when(bookSearchIndex.searchTitle("missing")).thenReturn(List.of());
+
+        // execute
+        BookResponse result = bookService.searchByTitle("missing", 0, 10, "bookId", "asc");
+
+        // assert
+        assertTrue(result.getContent().isEmpty());
+        assertEquals(0, result.getTotalElements());
+        assertTrue(result.isLastPage());
+    }
+
+    @Test
+    public void TestSearchByTitleByCursorSuccess(){
+        //Set up
+        Book book1 = new Book(1L, "Java Basics", "Author 1", 10, 10, 0, true, "", category);
+        Book book3 = new Book(3L, "Java Basics", "Author 3", 10, 10, 0, true, "", category);
+        BookDTO bookDTO1 = new BookDTO(1L, "Java Basics", "Author 1", 10, 10, 0, true, "", category);
+        BookDTO bookDTO3 = new BookDTO(3L, "Java Basics", "Author 3", 10, 10, 0, true, "", category);
+        when(bookSearchIndex.searchTitle("java")).thenReturn(List.of(
+                BookSearchIndex.Entry.of(3L, "Java Basics", "Author 3"),
+                BookSearchIndex.Entry.of(2L, "Advanced Java", "Author 2"),
+                BookSearchIndex.Entry.of(1L, "Java Basics", "Author 1")));
+        when(bookRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(book1));
+        when(bookRepository.findAllById(List.of(3L))).thenReturn(List.of(book3));
+        when(bookMapper.toDTO(book1)).thenReturn(bookDTO1);
+        when(bookMapper.toDTO(book3)).thenReturn(bookDTO3);
+
+        // execute, follow the cursor of the first page
+        BookResponse first = bookService.searchByTitleByCursor("java", "", 2, "title", "asc");
+        BookResponse second = bookService.searchByTitleByCursor("java", first.getNextCursor(), 2, "title", "asc");
+
+        // assert, the second page starts after the tie on title
+        assertEquals(1L, first.getContent().get(0).getBookId());
+        assertFalse(first.isLastPage());
+        assertNotNull(first.getNextCursor());
+        assertNull(first.getTotalElements());
+        assertEquals(1, second.getContent().size());
+        assertEquals(3L, second.getContent().get(0).getBookId());
+        assertTrue(second.isLastPage());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void TestSearchWithFacetsSuccess(){
+        //Set up
+        Book book1 = new Book(1L, "Java Basics", "Author 1", 10, 10, 0, true, "", category);
+        BookDTO bookDTO1 = new BookDTO(1L, "Java Basics", "Author 1", 10, 10, 0, true, "", category);
+        BookSearchIndex.Entry entry1 = BookSearchIndex.Entry.of(1L, "Java Basics", "Author 1");
+        when(bookSearchIndex.searchTitle("java")).thenReturn(List.of(entry1,
+                BookSearchIndex.Entry.of(2L, "Advanced Java", "Author 2")));
+        when(bookSearchIndex.searchAuthor("author 1")).thenReturn(List.of(entry1,
+                BookSearchIndex.Entry.of(3L, "Book 3", "Author 1")));
+        BookFacetIndex.Facets facets = new BookFacetIndex.Facets(List.of(entry1), Map.of(categoryId, 1),
+                Map.of("Author 1", 1), Map.of(BookAvailability.AVAILABLE, 1));
+        when(bookFacetIndex.search(Set.of(1L), categoryId, BookAvailability.AVAILABLE, AppConstants.MAX_AUTHOR_FACETS))
+                .thenReturn(facets);
+        when(bookRepository.findAllById(List.of(1L))).thenReturn(List.of(book1));
+        when(bookMapper.toDTO(book1)).thenReturn(bookDTO1);
+
+        // execute
+        BookFacetResponse result = bookService.searchWithFacets("java", "author 1", categoryId,
+                BookAvailability.AVAILABLE, 0, 10, "title", "asc");
+
+        // assert, only the book matching both terms is passed on to the facets
+        assertEquals(1, result.getBooks().getContent().size());
+        assertEquals(1L, result.getBooks().getContent().get(0).getBookId());
+        assertEquals(1, result.getBooks().getTotalElements());
+        assertEquals(Map.of(categoryId, 1), result.getCategoryCounts());
+        assertEquals(Map.of("Author 1", 1), result.getAuthorCounts());
+        assertEquals(Map.of(BookAvailability.AVAILABLE, 1), result.getAvailabilityCounts());
+    }
+
+    @Test
+    public void TestSearchWithFacetsSuccessNoTerms(){
+        //Set up
+        when(bookFacetIndex.search(null, null, null, AppConstants.MAX_AUTHOR_FACETS))
+                .thenReturn(new BookFacetIndex.Facets(List.of(), Map.of(), Map.of(), Map.of()));
+
+        // execute
+        BookFacetResponse result = bookService.searchWithFacets(" ", null, null, null, 0, 10, "bookId", "asc");
+
+        // assert
+        assertTrue(result.getBooks().getContent().isEmpty());
+        assertTrue(result.getBooks().isLastPage());
+
+        // verify the search index is not asked
+        verifyNoInteractions(bookSearchIndex);
+    }
+
+    @Test
+    public void TestGetAllBooksByCursorSuccess(){
+        //Set up
+        Book book = new Book(1L, "Book 1", "Author 1", 10, 10, 0, true, "", category);
+        BookDTO bookDTO = new BookDTO(1L, "Book 1", "Author 1", 10, 10, 0, true, "", category);
+        Window<Book> window = Window.from(List.of(book),
+                index -> ScrollPosition.forward(Map.of("title", "Book 1", "bookId", 1L)), true);
+        when(bookRepository.findAllBy(any(ScrollPosition.class), any(Sort.class), eq(Limit.of(1)))).thenReturn(window);
+        when(bookMapper.toDTO(book)).thenReturn(bookDTO);
+
+        // execute
+        BookResponse result = bookService.getAllBooksByCursor("", 1, "title", "asc");
+
+        // assert
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isLastPage());
+        assertNotNull(result.getNextCursor());
+
+        // verify no count query is issued
+        verify(bookRepository, never()).findAll(any(Pageable.class));
+        verify(bookRepository, never()).count();
+    }
+
+    @Test
+    public void TestGetAllBooksByCursorFailSortField(){
+        // execute and assert
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> bookService.getAllBooksByCursor("", 10, "description", "asc"));
+        assertEquals("Cursor pagination supports sorting by bookId, title or author only", exception.getMessage());
+
+        // verify
+        verify(bookRepository, never()).findAllBy(any(ScrollPosition.class), any(Sort.class), any(Limit.class));
+    }
+
+    @Test
+    public void TestGetAllBooksByCursorFailInvalidCursor(){
+        // execute and assert
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> bookService.getAllBooksByCursor("not a cursor", 10, "title", "asc"));
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
+
+    @Test
+    public void TestSearchByCategoryByCursorFailNoCategory(){
+        //Set up
+        when(categoryRepository.findById(categoryId)).thenReturn(Optional.empty());
+
+        // execute and assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> bookService.searchByCategoryByCursor(categoryId, "", 10, "bookId", "asc"));
+    }
+
+    @Test
+    public void TestExportBooksSuccess() throws Exception {
+        // Set up
+        BookExportView first = exportView(1L, "Book 1");
+        BookExportView second = exportView(2L, "Book 2");
+        when(bookRepository.streamExportViews()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // execute
+        long count = bookService.exportBooks(output);
+
+        // assert, one book per line
+        assertEquals(2, count);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        BookDTO firstBook = objectMapper.readValue(lines[0], BookDTO.class);
+        assertEquals(1L, firstBook.getBookId());
+        assertEquals("Book 1", firstBook.getTitle());
+        assertEquals(categoryName, firstBook.getCategory().getCategoryName());
+        assertEquals(2L, objectMapper.readValue(lines[1], BookDTO.class).getBookId());
+        assertTrue(output.toString(StandardCharsets.UTF_8).endsWith("\n"));
+    }
+
+    @Test
+    public void TestExportBooksSuccessEmpty() throws Exception {
+        // Set up
+        when(bookRepository.streamExportViews()).thenReturn(Stream.empty());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // execute
+        long count = bookService.exportBooks(output);
+
+        // assert
+        assertEquals(0, count);
+        assertEquals(0, output.size());
+    }
+
+    private BookExportView exportView(Long bookId, String title) {
+        BookExportView view = mock(BookExportView.class);
+        when(view.getBookId()).thenReturn(bookId);
+        when(view.getTitle()).thenReturn(title);
+        when(view.getAuthor()).thenReturn("Author");
+        when(view.getCopiesTotal()).thenReturn(1);
+        when(view.getCopiesAvailable()).thenReturn(1);
+        when(view.getActive()).thenReturn(true);
+        when(view.getCategoryId()).thenReturn(categoryId);
+        when(view.getCategoryName()).thenReturn(categoryName);
+        return view;
+    }
 }
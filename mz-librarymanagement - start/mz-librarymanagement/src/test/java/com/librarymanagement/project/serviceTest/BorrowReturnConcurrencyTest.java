@@ -0,0 +1,209 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.exceptions.BusinessException;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.AvailabilityTable;
+import com.librarymanagement.project.services.BookLockManager;
+import com.librarymanagement.project.services.BorrowReturnService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test of borrow and return against a real database, with many users racing for the same book.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:borrowstress;LOCK_TIMEOUT=10000")
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class BorrowReturnConcurrencyTest {
+
+    private static final int BORROWERS = 40;
+
+    private static final int COPIES = 5;
+
+    @Autowired
+    private BorrowReturnService borrowReturnService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Book book;
+
+    private List<String> userNames;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category(null, "Stress Category"));
+        Book newBook = new Book();
+        newBook.setTitle("Popular Book");
+        newBook.setAuthor("Popular Author");
+        newBook.setCopiesTotal(COPIES);
+        newBook.setCategory(category);
+        book = bookRepository.save(newBook);
+
+        userNames = new ArrayList<>();
+        for (int i = 0; i < BORROWERS; i++) {
+            String userName = "stress" + i;
+            userRepository.save(new User(userName, userName + "@test.com", "password"));
+            userNames.add(userName);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void TestBorrowBookConcurrentlyNeverOversells() throws Exception {
+        // execute, every user tries to borrow the same book at once
+        double locked = lockAcquisitions();
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        runConcurrently(userName -> {
+            try {
+                borrowReturnService.borrowBook(book.getBookId());
+                borrowed.incrementAndGet();
+            } catch (BusinessException e) {
+                refused.incrementAndGet();
+            }
+        });
+
+        // assert
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        Book result = bookRepository.findById(book.getBookId()).orElseThrow();
+        assertEquals(COPIES, borrowed.get());
+        assertEquals(BORROWERS - COPIES, refused.get());
+        assertEquals(0, result.getCopiesAvailable());
+        assertEquals(COPIES, result.getCopiesBorrowed());
+        assertEquals(result.getCopiesTotal(), result.getCopiesAvailable() + result.getCopiesBorrowed());
+        assertEquals(COPIES, transactionRepository.count());
+        // every borrow ran under the lock of the book
+        assertEquals(locked + BORROWERS, lockAcquisitions());
+    }
+
+    @Test
+    public void TestBorrowAndReturnConcurrentlyKeepsCopiesConsistent() throws Exception {
+        // execute, every user borrows and returns the book several times, racing with the others
+        runConcurrently(userName -> {
+            for (int i = 0; i < 5; i++) {
+                try {
+                    borrowReturnService.borrowBook(book.getBookId());
+                    borrowReturnService.returnBook(book.getBookId());
+                } catch (BusinessException e) {
+                    // no copy left this round
+                }
+            }
+        });
+
+        // assert, every borrowed copy has been given back
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        Book result = bookRepository.findById(book.getBookId()).orElseThrow();
+        assertEquals(COPIES, result.getCopiesAvailable());
+        assertEquals(0, result.getCopiesBorrowed());
+        assertEquals(result.getCopiesTotal(), result.getCopiesAvailable() + result.getCopiesBorrowed());
+    }
+
+    @Test
+    public void TestBorrowBooksConcurrentlyInOppositeOrdersNeverDeadlocks() throws Exception {
+        // Set up, a second book that half of the users list first
+        Book other = new Book();
+        other.setTitle("Other Popular Book");
+        other.setAuthor("Popular Author");
+        other.setCopiesTotal(COPIES);
+        other.setCategory(book.getCategory());
+        Long otherId = bookRepository.save(other).getBookId();
+
+        // execute, every user borrows and returns both books in one batch each, racing with the others
+        AtomicInteger borrowed = new AtomicInteger();
+        runConcurrently(userName -> {
+            List<Long> bookIds = userNames.indexOf(userName) % 2 == 0
+                    ? List.of(book.getBookId(), otherId) : List.of(otherId, book.getBookId());
+            borrowed.addAndGet(borrowReturnService.borrowBooks(bookIds).getSucceeded());
+            borrowReturnService.returnBooks(bookIds);
+        });
+
+        // assert, every batch completed and every borrowed copy has been given back
+        availabilityTable.flush();
+        assertTrue(borrowed.get() >= 2 * COPIES);
+        for (Long bookId : List.of(book.getBookId(), otherId)) {
+            Book result = bookRepository.findById(bookId).orElseThrow();
+            assertEquals(COPIES, result.getCopiesAvailable());
+            assertEquals(0, result.getCopiesBorrowed());
+        }
+        assertEquals(borrowed.get(), transactionRepository.count());
+    }
+
+    private double lockAcquisitions() {
+        return meterRegistry.find(BookLockManager.ACQUISITIONS_METRIC_NAME).counters().stream()
+                .mapToDouble(counter -> counter.count()).sum();
+    }
+
+    /**
+     * Runs the task once per user on its own thread, with the user signed in, released together by a latch.
+     */
+    private void runConcurrently(Consumer<String> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BORROWERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String userName : userNames) {
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(userName, null, List.of()));
+                try {
+                    start.await();
+                    task.accept(userName);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
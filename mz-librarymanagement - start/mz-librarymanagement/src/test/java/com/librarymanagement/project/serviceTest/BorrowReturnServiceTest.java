@@ -3,16 +3,25 @@ package com.librarymanagement.project.serviceTest;
 
 import com.librarymanagement.project.exceptions.BusinessException;
 import com.librarymanagement.project.exceptions.ResourceNotFoundException;
+import com.librarymanagement.project.exceptions.ValidationException;
+import com.librarymanagement.project.mappers.TransactionMapper;
 import com.librarymanagement.project.models.*;
 import com.librarymanagement.project.payloads.BookDTO;
 import com.librarymanagement.project.payloads.CategoryDTO;
+import com.librarymanagement.project.payloads.LoanBatchResponse;
+import com.librarymanagement.project.payloads.LoanDTO;
+import com.librarymanagement.project.payloads.LoanHistoryResponse;
 import com.librarymanagement.project.payloads.TransactionDTO;
 import com.librarymanagement.project.payloads.UserDTO;
 import com.librarymanagement.project.repositories.BookRepository;
 import com.librarymanagement.project.repositories.TransactionRepository;
 import com.librarymanagement.project.repositories.UserRepository;
 import com.librarymanagement.project.security.services.UserDetailsImpl;
+import com.librarymanagement.project.services.AvailabilityChangedEvent;
+import com.librarymanagement.project.services.AvailabilityTable;
 import com.librarymanagement.project.services.BorrowReturnServiceImpl;
+import com.librarymanagement.project.services.LoanCursor;
+import com.librarymanagement.project.services.ReservationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,7 +29,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -29,11 +39,14 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -52,7 +65,16 @@ public class BorrowReturnServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private TransactionMapper transactionMapper;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AvailabilityTable availabilityTable;
 
     @InjectMocks
     private BorrowReturnServiceImpl borrowReturnService;
@@ -103,7 +125,7 @@ public class BorrowReturnServiceTest {
         transaction.setBook(book);
         transaction.setTransactionId(1L);
         transaction.setReturned(false);
-        transactionDTO = new TransactionDTO(1L, borrowTime, null, false, bookDTOAfterBorrow ,userDTO);
+        transactionDTO = new TransactionDTO(1L, borrowTime, borrowTime.plusDays(14), null, false, false, null, bookDTOAfterBorrow ,userDTO);
     }
 
     @Test
@@ -113,13 +135,13 @@ public class BorrowReturnServiceTest {
         Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
         when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
-        when(transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
-                .thenReturn(Optional.empty());  // No existing borrow history
+        when(transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
+                .thenReturn(false);  // No existing borrow history
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
-        when(modelMapper.map(transaction, TransactionDTO.class)).thenReturn(transactionDTO);
-        when(bookRepository.save(any(Book.class))).thenReturn(bookAfterBorrow);
+        when(transactionMapper.toDTO(transaction, userDTO)).thenReturn(transactionDTO);
+        when(availabilityTable.borrowOneCopy(10L)).thenReturn(true);
 
         // Execute
         TransactionDTO result = borrowReturnService.borrowBook(10L);
@@ -135,7 +157,12 @@ public class BorrowReturnServiceTest {
         assertEquals(3, book.getCopiesBorrowed());
 
         // Verify
-        verify(bookRepository, times(1)).save(book);  // Ensure save is called on bookRepository
+        verify(transactionRepository).save(argThat(saved ->
+                saved.getDueDate().equals(saved.getBorrowedDate().plusDays(14))));  // Due back after the loan period
+        verify(availabilityTable, times(1)).borrowOneCopy(10L);  // Ensure the copy is taken from the availability table
+        verify(userRepository, never()).findByUserName(anyString());  // The principal carries the ID of the user
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(eventPublisher, times(1)).publishEvent(new AvailabilityChangedEvent(10L));
         verify(transactionRepository, times(1)).save(any(Transaction.class)); // Ensure save is called on transactionRepository
     }
 
@@ -146,7 +173,7 @@ public class BorrowReturnServiceTest {
         Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
         when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
         when(transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
                 .thenReturn(Optional.ofNullable(transaction));
@@ -156,8 +183,8 @@ public class BorrowReturnServiceTest {
         transaction.setReturned(true);
         transactionDTO.setReturned(true);
         when(transactionRepository.save(transaction)).thenReturn(transaction);
-        when(bookRepository.save(book)).thenReturn(book);
-        when(modelMapper.map(transaction, TransactionDTO.class)).thenReturn(transactionDTO);
+        when(availabilityTable.returnOneCopy(10L)).thenReturn(true);
+        when(transactionMapper.toDTO(transaction, userDTO)).thenReturn(transactionDTO);
 
         // Execute
         TransactionDTO result = borrowReturnService.returnBook(10L);
@@ -174,7 +201,9 @@ public class BorrowReturnServiceTest {
         assertEquals(1, book.getCopiesBorrowed());
 
         // Verify book entity and transaction entity is updated once
-        verify(bookRepository, times(1)).save(book); // Ensure save is called on bookRepository
+        verify(availabilityTable, times(1)).returnOneCopy(10L); // Ensure the copy is given back to the availability table
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(eventPublisher, times(1)).publishEvent(new AvailabilityChangedEvent(10L));
         verify(transactionRepository, times(1)).save(any(Transaction.class)); // Ensure save is called on transactionRepository
     }
 
@@ -185,7 +214,7 @@ public class BorrowReturnServiceTest {
         Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
         when(bookRepository.findById(10L)).thenReturn(Optional.empty());
 
         // Execute
@@ -207,7 +236,7 @@ public class BorrowReturnServiceTest {
         Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
         when(bookRepository.findById(10L)).thenReturn(Optional.empty());
 
         // Execute
@@ -224,9 +253,8 @@ public class BorrowReturnServiceTest {
 
     @Test
     public void TestBorrowBookFailUserNotFound(){
-        // Set up
-        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
-        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        // Set up, a principal that only carries the username is looked up by it
+        Authentication authentication = new UsernamePasswordAuthenticationToken(user.getUserName(), null, authorities);
         SecurityContextHolder.getContext().setAuthentication(authentication);
         when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.empty());
 
@@ -245,9 +273,8 @@ public class BorrowReturnServiceTest {
 
     @Test
     public void TestReturnBookFailUserNotFound(){
-        // set up
-        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
-        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        // set up, a principal that only carries the username is looked up by it
+        Authentication authentication = new UsernamePasswordAuthenticationToken(user.getUserName(), null, authorities);
         SecurityContextHolder.getContext().setAuthentication(authentication);
         when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.empty());
 
@@ -270,10 +297,10 @@ public class BorrowReturnServiceTest {
         UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
         Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
         when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
-        when(transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
-                .thenReturn(Optional.of(transaction));  // Existing borrow transaction
+        when(transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
+                .thenReturn(true);  // Existing borrow transaction
 
         // Execute
         BusinessException exception = assertThrows( BusinessException.class, () ->
@@ -283,7 +310,7 @@ public class BorrowReturnServiceTest {
         assertEquals("Book already borrowed by you", exception.getMessage());
 
         // Verify
-        verify(userRepository, times(1)).findByUserName(user.getUserName());
+        verify(userRepository, times(1)).getReferenceById(user.getUserId());
         verify(bookRepository, times(1)).findById(book.getBookId());
         verify(bookRepository, times(0)).save(any(Book.class));
         verify(transactionRepository, times(0)).save(any(Transaction.class)); // Ensure save is not called for transaction
@@ -296,7 +323,7 @@ public class BorrowReturnServiceTest {
         Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
         when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
         when(transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
                 .thenReturn(Optional.empty());
@@ -322,7 +349,7 @@ public class BorrowReturnServiceTest {
         Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
         book.setCopiesAvailable(0);
-        when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
         when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
 
         // Execute
@@ -333,12 +360,36 @@ public class BorrowReturnServiceTest {
         assertEquals("No copies available for this book", exception.getMessage());
 
         // Verify
-        verify(userRepository, times(1)).findByUserName(user.getUserName());
+        verify(userRepository, times(1)).getReferenceById(user.getUserId());
         verify(bookRepository, times(1)).findById(book.getBookId());
         verify(bookRepository, never()).save(any(Book.class));
         verify(transactionRepository, never()).save(any(Transaction.class)); // Ensure save is not called for transaction
     }
 
+    @Test
+    public void TestBorrowBookFailLastCopyTakenConcurrently(){
+        // Set up, the book looked available but the conditional update finds no copy left
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
+        when(transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
+                .thenReturn(false);
+        when(availabilityTable.borrowOneCopy(10L)).thenReturn(false);
+
+        // Execute
+        BusinessException exception = assertThrows(BusinessException.class, () ->
+                borrowReturnService.borrowBook(book.getBookId()));
+
+        // Assert
+        assertEquals("No copies available for this book", exception.getMessage());
+        assertEquals(8, book.getCopiesAvailable());
+
+        // Verify
+        verify(transactionRepository, never()).save(any(Transaction.class)); // Ensure no transaction is recorded
+    }
+
     @Test
     public void TestBorrowBookFailInactive(){
         // Set up
@@ -346,7 +397,7 @@ public class BorrowReturnServiceTest {
         Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
         book.setActive(false);
-        when(userRepository.findByUserName(user.getUserName())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
         when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
 
         // Execute and assert
@@ -359,4 +410,310 @@ public class BorrowReturnServiceTest {
         verify(transactionRepository, never()).save(any(Transaction.class)); // Ensure save is never called on transactionRepository
 
     }
+
+    @Test
+    public void TestBorrowBookSuccessHeldCopy(){
+        // Set up, no copies are available but one is held for the user
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        book.setCopiesAvailable(0);
+        book.setCopiesBorrowed(9);
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
+        when(reservationService.hasReadyHold(user.getUserId(), 10L)).thenReturn(true);
+        when(transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
+                .thenReturn(false);
+        when(reservationService.fulfillHold(user.getUserId(), 10L)).thenReturn(true);
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        when(transactionMapper.toDTO(transaction, userDTO)).thenReturn(transactionDTO);
+
+        // Execute
+        TransactionDTO result = borrowReturnService.borrowBook(10L);
+
+        // Assert, the held copy is lent without touching the available copies
+        assertNotNull(result);
+        assertEquals(0, book.getCopiesAvailable());
+        assertEquals(10, book.getCopiesBorrowed());
+
+        // Verify
+        verify(reservationService, times(1)).fulfillHold(user.getUserId(), 10L);
+        verify(availabilityTable, never()).borrowOneCopy(anyLong());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+    }
+
+    @Test
+    public void TestReturnBookSuccessHeldForNextWaiting(){
+        // Set up
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
+        when(transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
+                .thenReturn(Optional.of(transaction));
+        when(availabilityTable.returnOneCopy(10L)).thenReturn(true);
+        when(reservationService.holdForNextWaiting(10L)).thenReturn(true);
+        when(transactionMapper.toDTO(transaction, userDTO)).thenReturn(transactionDTO);
+
+        // Execute
+        borrowReturnService.returnBook(10L);
+
+        // Assert, the returned copy is held and not available
+        assertTrue(transaction.isReturned());
+        assertEquals(8, book.getCopiesAvailable());
+        assertEquals(1, book.getCopiesBorrowed());
+
+        // Verify
+        verify(reservationService, times(1)).holdForNextWaiting(10L);
+    }
+
+    @Test
+    public void TestBorrowBookFailNoAvailableCopiesNotHeld(){
+        // Set up
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        book.setCopiesAvailable(0);
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
+        when(reservationService.hasReadyHold(user.getUserId(), 10L)).thenReturn(false);
+
+        // Execute and assert
+        BusinessException exception = assertThrows(BusinessException.class, () ->
+                borrowReturnService.borrowBook(10L));
+        assertEquals("No copies available for this book", exception.getMessage());
+
+        // Verify
+        verify(reservationService, never()).fulfillHold(anyLong(), anyLong());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    public void TestGetBorrowHistorySuccess(){
+        // Set up, one loan more than the page size is read
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        LocalDate today = LocalDate.now();
+        LoanDTO newest = new LoanDTO(3L, 10L, "Book 1", "Author 1", today, null, null, false, false, null);
+        LoanDTO older = new LoanDTO(2L, 10L, "Book 1", "Author 1", today.minusDays(5), null, today, true, false, null);
+        LoanDTO oldest = new LoanDTO(1L, 10L, "Book 1", "Author 1", today.minusDays(9), null, today.minusDays(6), true, false, null);
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(transactionRepository.findLoansByUserId(1L, Limit.of(3))).thenReturn(List.of(newest, older, oldest));
+
+        // Execute
+        LoanHistoryResponse result = borrowReturnService.getBorrowHistory(null, 2);
+
+        // Assert, the cursor points at the last loan of the page
+        assertEquals(List.of(newest, older), result.getContent());
+        assertFalse(result.isLastPage());
+        assertEquals(new LoanCursor(today.minusDays(5), 2L), LoanCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    public void TestGetBorrowHistoryLastPageSuccess(){
+        // Set up
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        LocalDate borrowedDate = LocalDate.now().minusDays(5);
+        LoanDTO oldest = new LoanDTO(1L, 10L, "Book 1", "Author 1", borrowedDate.minusDays(4), null, borrowedDate, true, false, null);
+        String cursor = new LoanCursor(borrowedDate, 2L).encode();
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(transactionRepository.findLoansByUserIdAfter(1L, borrowedDate, 2L, Limit.of(3))).thenReturn(List.of(oldest));
+
+        // Execute
+        LoanHistoryResponse result = borrowReturnService.getBorrowHistory(cursor, 2);
+
+        // Assert
+        assertEquals(List.of(oldest), result.getContent());
+        assertTrue(result.isLastPage());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    public void TestGetBorrowHistoryFailPageSizeTooLarge(){
+        // Execute and assert
+        assertThrows(ValidationException.class, () -> borrowReturnService.getBorrowHistory(null, 101));
+
+        // Verify
+        verify(transactionRepository, never()).findLoansByUserId(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    public void TestGetBorrowHistoryFailInvalidCursor(){
+        // Set up
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+
+        // Execute and assert
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+                borrowReturnService.getBorrowHistory("not a cursor", 2));
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
+
+    @Test
+    public void TestReturnBookLateSuccessChargesFine(){
+        // Set up, the book was due three days ago
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        transaction.setDueDate(LocalDate.now().minusDays(3));
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
+        when(transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
+                .thenReturn(Optional.of(transaction));
+        when(availabilityTable.returnOneCopy(10L)).thenReturn(true);
+
+        // Execute
+        borrowReturnService.returnBook(10L);
+
+        // Assert, a fine of 0.25 per day late
+        assertTrue(transaction.isOverdue());
+        assertEquals(new BigDecimal("0.75"), transaction.getFine());
+    }
+
+    @Test
+    public void TestReturnBookOnTimeSuccessNoFine(){
+        // Set up
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        transaction.setDueDate(LocalDate.now());
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
+        when(transactionRepository.findByUser_UserIdAndBook_BookIdAndIsReturnedFalse(user.getUserId(), 10L))
+                .thenReturn(Optional.of(transaction));
+        when(availabilityTable.returnOneCopy(10L)).thenReturn(true);
+
+        // Execute
+        borrowReturnService.returnBook(10L);
+
+        // Assert
+        assertFalse(transaction.isOverdue());
+        assertNull(transaction.getFine());
+    }
+
+    @Test
+    public void TestBorrowBooksSuccessReportsEachBook(){
+        // Set up, book 10 can be borrowed, book 11 is borrowed already and book 12 does not exist
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        Book borrowedBook = new Book(11L, "Book 2", "Author 2", 10, 8, 2, true, "", book.getCategory());
+        Transaction openLoan = new Transaction();
+        openLoan.setBook(borrowedBook);
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findAllWithLockByBookIdIn(List.of(10L, 11L, 12L))).thenReturn(List.of(book, borrowedBook));
+        when(transactionRepository.findOpenLoansByUserIdAndBookIdIn(user.getUserId(), List.of(10L, 11L, 12L)))
+                .thenReturn(List.of(openLoan));
+        when(availabilityTable.borrowOneCopy(10L)).thenReturn(true);
+        when(transactionRepository.saveAll(anyList())).thenReturn(List.of(transaction));
+        when(transactionMapper.toDTO(transaction, userDTO)).thenReturn(transactionDTO);
+
+        // Execute
+        LoanBatchResponse result = borrowReturnService.borrowBooks(List.of(12L, 10L, 11L));
+
+        // Assert, the items follow the order of the request
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(12L, result.getItems().get(0).getBookId());
+        assertFalse(result.getItems().get(0).isSuccess());
+        assertEquals("No books found by book id : 12", result.getItems().get(0).getMessage());
+        assertTrue(result.getItems().get(1).isSuccess());
+        assertEquals(transactionDTO, result.getItems().get(1).getTransaction());
+        assertFalse(result.getItems().get(2).isSuccess());
+        assertEquals("Book already borrowed by you", result.getItems().get(2).getMessage());
+        assertEquals(7, book.getCopiesAvailable());
+
+        // Verify, the user and the books are each read once, and the loans saved together
+        verify(userRepository, times(1)).getReferenceById(user.getUserId());
+        verify(bookRepository, never()).findById(anyLong());
+        verify(availabilityTable, never()).borrowOneCopy(11L);
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(transactionRepository, times(1)).saveAll(argThat(saved -> saved.iterator().hasNext()));
+        verify(eventPublisher, times(1)).publishEvent(new AvailabilityChangedEvent(10L));
+    }
+
+    @Test
+    public void TestReturnBooksSuccessReportsEachBook(){
+        // Set up, book 10 is borrowed and book 11 is not
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        Book otherBook = new Book(11L, "Book 2", "Author 2", 10, 8, 2, true, "", book.getCategory());
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findAllWithLockByBookIdIn(List.of(10L, 11L))).thenReturn(List.of(book, otherBook));
+        when(transactionRepository.findOpenLoansByUserIdAndBookIdIn(user.getUserId(), List.of(10L, 11L)))
+                .thenReturn(List.of(transaction));
+        when(availabilityTable.returnOneCopy(10L)).thenReturn(true);
+        when(transactionRepository.saveAll(anyList())).thenReturn(List.of(transaction));
+        when(transactionMapper.toDTO(transaction, userDTO)).thenReturn(transactionDTO);
+
+        // Execute
+        LoanBatchResponse result = borrowReturnService.returnBooks(List.of(10L, 11L));
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertTrue(result.getItems().get(0).isSuccess());
+        assertTrue(transaction.isReturned());
+        assertEquals(9, book.getCopiesAvailable());
+        assertFalse(result.getItems().get(1).isSuccess());
+        assertEquals("Book is not in borrow with the user", result.getItems().get(1).getMessage());
+
+        // Verify
+        verify(availabilityTable, never()).returnOneCopy(11L);
+        verify(transactionRepository, times(1)).saveAll(argThat(saved -> saved.iterator().hasNext()));
+        verify(eventPublisher, times(1)).publishEvent(new AvailabilityChangedEvent(10L));
+    }
+
+    @Test
+    public void TestReturnBooksSuccessNoCopyBorrowedLeavesLoanOpen(){
+        // Set up, the table has no borrowed copy to take back
+        UserDetails userDetails = new UserDetailsImpl(1L, user.getUserName(),  user.getEmail(), user.getPassword(), authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+        when(bookRepository.findAllWithLockByBookIdIn(List.of(10L))).thenReturn(List.of(book));
+        when(transactionRepository.findOpenLoansByUserIdAndBookIdIn(user.getUserId(), List.of(10L)))
+                .thenReturn(List.of(transaction));
+        when(availabilityTable.returnOneCopy(10L)).thenReturn(false);
+
+        // Execute
+        LoanBatchResponse result = borrowReturnService.returnBooks(List.of(10L));
+
+        // Assert, the failed item does not change the loan
+        assertEquals(0, result.getSucceeded());
+        assertEquals("No borrowed copies to return for this book", result.getItems().get(0).getMessage());
+        assertFalse(transaction.isReturned());
+        assertNull(transaction.getReturnedDate());
+    }
+
+    @Test
+    public void TestBorrowBooksFailDuplicateBook(){
+        // Execute and assert
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+                borrowReturnService.borrowBooks(List.of(10L, 11L, 10L)));
+        assertEquals("Book 10 is given more than once", exception.getMessage());
+
+        // Verify
+        verify(bookRepository, never()).findAllWithLockByBookIdIn(anyList());
+    }
+
+    @Test
+    public void TestReturnBooksFailTooManyBooks(){
+        // Set up
+        List<Long> bookIds = LongStream.rangeClosed(1, 51).boxed().toList();
+
+        // Execute and assert
+        assertThrows(ValidationException.class, () -> borrowReturnService.returnBooks(bookIds));
+        assertThrows(ValidationException.class, () -> borrowReturnService.returnBooks(List.of()));
+
+        // Verify
+        verify(bookRepository, never()).findAllWithLockByBookIdIn(anyList());
+    }
 }
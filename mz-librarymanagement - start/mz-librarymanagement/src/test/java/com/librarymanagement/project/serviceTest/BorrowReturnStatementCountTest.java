@@ -0,0 +1,148 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.AppRole;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Transaction;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.RoleRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.security.services.UserDetailsImpl;
+import com.librarymanagement.project.services.AvailabilityTable;
+import com.librarymanagement.project.services.BorrowReturnService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements of borrow and return against a real database, signed in as the principal
+ * the JWT filter sets, with the book already in the second-level cache.
+ * Neither of them reads the user, the principal carries its ID, name and email.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statementcounttest")
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class BorrowReturnStatementCountTest {
+
+    @Autowired
+    private BorrowReturnService borrowReturnService;
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private Book book;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category(null, "Count Category"));
+        book = bookRepository.save(new Book(null, "Count Book", "Author", 3, 3, 0, true, "", category));
+        user = transactionTemplate.execute(status -> {
+            User newUser = new User("countuser", "countuser@test.com", "password");
+            newUser.setRoles(Set.of(roleRepository.findByRoleName(AppRole.ROLE_USER).orElseThrow()));
+            return userRepository.save(newUser);
+        });
+        UserDetailsImpl userDetails = new UserDetailsImpl(user.getUserId(), user.getUserName(), user.getEmail(),
+                null, List.of(new SimpleGrantedAuthority(AppRole.ROLE_USER.name())));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+
+        // the book is cached, as a browsed book would be
+        bookRepository.findById(book.getBookId());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        availabilityTable.flush();
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void TestBorrowBookSuccessStatementCount() {
+        // execute
+        long before = statistics.getPrepareStatementCount();
+        long userLoads = userLoadCount();
+        TransactionDTO transactionDTO = borrowReturnService.borrowBook(book.getBookId());
+        long statements = statistics.getPrepareStatementCount() - before;
+
+        // assert, the hold and open loan checks and the insert, plus a sequence call once per block of IDs
+        assertTrue(statements <= 4, "statements: " + statements);
+        assertEquals(userLoads, userLoadCount());
+        assertEquals(user.getUserId(), transactionDTO.getUser().getUserId());
+        assertEquals("countuser", transactionDTO.getUser().getUserName());
+        assertEquals("countuser@test.com", transactionDTO.getUser().getEmail());
+        assertEquals(2, transactionDTO.getBook().getCopiesAvailable());
+    }
+
+    @Test
+    public void TestReturnBookSuccessStatementCount() {
+        // Set up
+        borrowReturnService.borrowBook(book.getBookId());
+
+        // execute
+        long before = statistics.getPrepareStatementCount();
+        long userLoads = userLoadCount();
+        TransactionDTO transactionDTO = borrowReturnService.returnBook(book.getBookId());
+        long statements = statistics.getPrepareStatementCount() - before;
+
+        // assert, the open loan, the lock of the book, the next waiting reservation and the update of the loan
+        assertEquals(4, statements);
+        assertEquals(userLoads, userLoadCount());
+        assertTrue(transactionDTO.isReturned());
+        assertEquals("countuser", transactionDTO.getUser().getUserName());
+        Transaction returned = transactionRepository.findById(transactionDTO.getTransactionId()).orElseThrow();
+        assertTrue(returned.isReturned());
+    }
+
+    private long userLoadCount() {
+        return statistics.getEntityStatistics(User.class.getName()).getLoadCount();
+    }
+}
@@ -0,0 +1,71 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.models.AppRole;
+import com.librarymanagement.project.models.Role;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.repositories.RoleRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.security.DataInitializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DataInitializerTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @InjectMocks
+    private DataInitializer dataInitializer;
+
+    @Test
+    public void TestInitSuccessAlreadySeeded(){
+        // Set up, a persistent database from an earlier start
+        when(roleRepository.count()).thenReturn((long) AppRole.values().length);
+        when(userRepository.existsByUserName("user1")).thenReturn(true);
+        when(userRepository.existsByUserName("admin")).thenReturn(true);
+
+        // execute
+        dataInitializer.init();
+
+        // verify, nothing is hashed or written
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(roleRepository, never()).save(any(Role.class));
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    public void TestInitSuccessEmptyDatabase(){
+        // Set up
+        when(roleRepository.count()).thenReturn(0L);
+        when(roleRepository.findByRoleName(any(AppRole.class))).thenReturn(Optional.empty());
+        when(roleRepository.save(any(Role.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.existsByUserName(anyString())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("encoded");
+        when(userRepository.findByUserName(anyString())).thenReturn(Optional.of(new User()));
+
+        // execute
+        dataInitializer.init();
+
+        // verify, both roles and both users are created
+        verify(roleRepository, times(2)).save(any(Role.class));
+        verify(passwordEncoder, times(2)).encode(anyString());
+        verify(userRepository, times(4)).save(any(User.class));
+    }
+}
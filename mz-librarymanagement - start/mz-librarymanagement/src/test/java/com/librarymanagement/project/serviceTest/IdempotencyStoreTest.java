@@ -0,0 +1,164 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.exceptions.BusinessException;
+import com.librarymanagement.project.exceptions.ValidationException;
+import com.librarymanagement.project.payloads.TransactionDTO;
+import com.librarymanagement.project.services.IdempotencyStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+
+    private IdempotencyStore idempotencyStore;
+
+    private AtomicInteger runs;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = new IdempotencyStore();
+        ReflectionTestUtils.setField(idempotencyStore, "maximumSize", 100L);
+        ReflectionTestUtils.setField(idempotencyStore, "expireAfterWriteMs", 60000L);
+        idempotencyStore.init();
+        runs = new AtomicInteger();
+        signIn("user1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void TestExecuteSuccessRetryReturnsStoredResponse(){
+        // execute
+        TransactionDTO first = idempotencyStore.execute("key 1", "borrow", 10L, this::borrow);
+        TransactionDTO retry = idempotencyStore.execute("key 1", "borrow", 10L, this::borrow);
+
+        // assert, the request ran once
+        assertSame(first, retry);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void TestExecuteSuccessKeysScopedToUser(){
+        // Set up
+        idempotencyStore.execute("key 1", "borrow", 10L, this::borrow);
+
+        // execute
+        signIn("user2");
+        idempotencyStore.execute("key 1", "borrow", 10L, this::borrow);
+
+        // assert
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void TestExecuteSuccessWithoutKeyAlwaysRuns(){
+        // execute
+        idempotencyStore.execute(null, "borrow", 10L, this::borrow);
+        idempotencyStore.execute(null, "borrow", 10L, this::borrow);
+
+        // assert
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void TestExecuteSuccessFailureNotStored(){
+        // Set up
+        assertThrows(BusinessException.class, () -> idempotencyStore.execute("key 1", "borrow", 10L, () -> {
+            runs.incrementAndGet();
+            throw new BusinessException("No copies available for this book");
+        }));
+
+        // execute
+        idempotencyStore.execute("key 1", "borrow", 10L, this::borrow);
+
+        // assert, the retry ran again
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void TestExecuteFailKeyReusedForAnotherRequest(){
+        // Set up
+        idempotencyStore.execute("key 1", "borrow", 10L, this::borrow);
+
+        // execute and assert
+        assertThrows(ValidationException.class, () -> idempotencyStore.execute("key 1", "return", 10L, this::borrow));
+        assertThrows(ValidationException.class, () -> idempotencyStore.execute("key 1", "borrow", 11L, this::borrow));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void TestExecuteFailInvalidKey(){
+        // execute and assert
+        assertThrows(ValidationException.class, () -> idempotencyStore.execute(" ", "borrow", 10L, this::borrow));
+        assertThrows(ValidationException.class, () ->
+                idempotencyStore.execute("k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1), "borrow", 10L, this::borrow));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void TestExecuteSuccessConcurrentRetryWaitsForFirst() throws Exception {
+        // Set up, the first request blocks until the retry has arrived
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TransactionDTO> first = executor.submit(() -> {
+                signIn("user1");
+                return idempotencyStore.execute("key 1", "borrow", 10L, () -> {
+                    started.countDown();
+                    await(release);
+                    return borrow();
+                });
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<TransactionDTO> retry = executor.submit(() -> {
+                signIn("user1");
+                return idempotencyStore.execute("key 1", "borrow", 10L, this::borrow);
+            });
+
+            // execute
+            release.countDown();
+
+            // assert
+            assertSame(first.get(5, TimeUnit.SECONDS), retry.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private TransactionDTO borrow() {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setTransactionId((long) runs.incrementAndGet());
+        return transactionDTO;
+    }
+
+    private void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.security.jwt.JwtUtils;
+import com.librarymanagement.project.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtUtilsTest {
+
+    private JwtUtils jwtUtils;
+
+    private UserDetailsImpl userDetails;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "mySecretKey123123djakjfaweojfndklnvkaejfoaejfndklvnaedfef");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        jwtUtils.init();
+        userDetails = new UserDetailsImpl(1L, "user1", "user1@test.com", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    public void TestParseClaimsSuccess(){
+        // Set up
+        String token = jwtUtils.generateTokenFromUsername(userDetails);
+
+        // execute
+        Claims claims = jwtUtils.parseClaims(token);
+
+        // assert
+        assertNotNull(claims);
+        assertEquals("user1", claims.getSubject());
+        assertTrue(jwtUtils.validateJwtToken(token));
+        assertEquals("user1", jwtUtils.getUserNameFromJwtToken(token));
+    }
+
+    @Test
+    public void TestParseClaimsFailMalformed(){
+        // execute and assert
+        assertNull(jwtUtils.parseClaims("not.a.token"));
+        assertFalse(jwtUtils.validateJwtToken("not.a.token"));
+    }
+
+    @Test
+    public void TestParseClaimsFailExpired(){
+        // Set up
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", -1000);
+        String token = jwtUtils.generateTokenFromUsername(userDetails);
+
+        // execute and assert
+        assertNull(jwtUtils.parseClaims(token));
+    }
+
+    @Test
+    public void TestGetUserDetailsFromClaimsSuccess(){
+        // Set up
+        Claims claims = jwtUtils.parseClaims(jwtUtils.generateTokenFromUsername(userDetails));
+
+        // execute
+        UserDetailsImpl result = jwtUtils.getUserDetailsFromClaims(claims);
+
+        // assert
+        assertNotNull(claims.getId());
+        assertEquals(1L, result.getId());
+        assertEquals("user1", result.getUsername());
+        assertEquals(List.of("ROLE_USER"), result.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertNull(result.getPassword());
+    }
+
+    @Test
+    public void TestGetUserDetailsFromClaimsFailNoRoles(){
+        // Set up, a token issued before roles were embedded
+        Claims claims = Jwts.claims().subject("user1").build();
+
+        // execute and assert
+        assertNull(jwtUtils.getUserDetailsFromClaims(claims));
+    }
+}
@@ -0,0 +1,139 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Transaction;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.JobWatermarkRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.OverdueLoanScanner;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the overdue scan against loans in a real database, with batches of two loans.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:overduetest",
+        "spring.app.overdue.batchSize=2"})
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class OverdueLoanScannerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    @Autowired
+    private OverdueLoanScanner overdueLoanScanner;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Book book;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category(null, "Overdue Category"));
+        book = bookRepository.save(new Book(null, "Overdue Book", "Author", 5, 5, 0, true, "", category));
+        user = userRepository.save(new User("late", "late@test.com", "password"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobWatermarkRepository.deleteAll();
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void TestScanSuccessFlagsOpenLoansDueBeforeToday() {
+        // Set up, three open loans past their due date, one due today and one returned late
+        Transaction lateA = loan(TODAY.minusDays(3), false);
+        Transaction lateB = loan(TODAY.minusDays(2), false);
+        Transaction lateC = loan(TODAY.minusDays(1), false);
+        Transaction dueToday = loan(TODAY, false);
+        Transaction returned = loan(TODAY.minusDays(2), true);
+
+        // execute
+        OverdueLoanScanner.ScanResult result = overdueLoanScanner.scan(TODAY);
+
+        // assert
+        assertEquals(3, result.flagged());
+        assertEquals(2, result.batches());
+        assertEquals(TODAY.minusDays(1), result.until());
+        assertTrue(isOverdue(lateA));
+        assertTrue(isOverdue(lateB));
+        assertTrue(isOverdue(lateC));
+        assertFalse(isOverdue(dueToday));
+        assertFalse(isOverdue(returned));
+        assertEquals(TODAY.minusDays(1),
+                jobWatermarkRepository.findById(OverdueLoanScanner.JOB_NAME).orElseThrow().getWatermarkDate());
+        assertSame(result, overdueLoanScanner.getLastResult());
+    }
+
+    @Test
+    public void TestScanSuccessResumesFromWatermark() {
+        // Set up
+        loan(TODAY.minusDays(1), false);
+        overdueLoanScanner.scan(TODAY);
+        Transaction dueToday = loan(TODAY, false);
+        // A loan behind the mark is never scanned again, due dates only ever lie in the future
+        Transaction behindMark = loan(TODAY.minusDays(5), false);
+        long runs = meterRegistry.timer(OverdueLoanScanner.METRIC_NAME).count();
+
+        // execute, the same day again and the next day
+        OverdueLoanScanner.ScanResult sameDay = overdueLoanScanner.scan(TODAY);
+        OverdueLoanScanner.ScanResult nextDay = overdueLoanScanner.scan(TODAY.plusDays(1));
+
+        // assert
+        assertEquals(0, sameDay.flagged());
+        assertEquals(0, sameDay.batches());
+        assertEquals(TODAY.minusDays(1), nextDay.after());
+        assertEquals(1, nextDay.flagged());
+        assertTrue(isOverdue(dueToday));
+        assertFalse(isOverdue(behindMark));
+
+        // verify, every run is timed
+        assertEquals(runs + 2, meterRegistry.timer(OverdueLoanScanner.METRIC_NAME).count());
+    }
+
+    private Transaction loan(LocalDate dueDate, boolean returned) {
+        LocalDate borrowedDate = dueDate.minusDays(14);
+        return transactionRepository.save(new Transaction(null, borrowedDate, dueDate,
+                returned ? dueDate.plusDays(1) : null, returned, false, null, book, user));
+    }
+
+    private boolean isOverdue(Transaction transaction) {
+        return transactionRepository.findById(transaction.getTransactionId()).orElseThrow().isOverdue();
+    }
+}
@@ -0,0 +1,165 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.ReservationDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.ReservationRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.BorrowReturnService;
+import com.librarymanagement.project.services.ReservationNotifier;
+import com.librarymanagement.project.services.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Subscribes to the reservation notifications over HTTP and holds copies through the services of a real database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:notificationtest")
+@AutoConfigureMockMvc
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class ReservationNotifierTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReservationNotifier reservationNotifier;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BorrowReturnService borrowReturnService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category(null, "Notified Category"));
+        book = bookRepository.save(new Book(null, "Notified Book", "Author", 1, 1, 0, true, "", category));
+        for (String userName : List.of("holder", "first", "second")) {
+            userRepository.save(new User(userName, userName + "@test.com", "password"));
+        }
+
+        // the only copy is borrowed
+        signIn("holder");
+        borrowReturnService.borrowBook(book.getBookId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        reservationRepository.deleteAll();
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void TestStreamNotificationsSuccessCopyHeld() throws Exception {
+        // Set up, both users wait and listen
+        signIn("first");
+        ReservationDTO first = reservationService.reserveBook(book.getBookId());
+        signIn("second");
+        reservationService.reserveBook(book.getBookId());
+        MvcResult firstStream = subscribe("first");
+        MvcResult secondStream = subscribe("second");
+
+        // execute
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+
+        // assert, only the first in line is told
+        String events = awaitContent(firstStream.getResponse(), "\"reservationId\":" + first.getReservationId());
+        assertTrue(events.contains("event:reservation-ready"));
+        assertTrue(events.contains("\"bookId\":" + book.getBookId()));
+        assertTrue(events.contains("\"expiresAt\""));
+        Thread.sleep(200);
+        assertEquals("", secondStream.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void TestStreamNotificationsSuccessOldestStreamClosed() throws Exception {
+        // Set up
+        int before = reservationNotifier.getSubscriberCount();
+
+        // execute, one stream more than a user may keep open
+        for (int i = 0; i < 6; i++) {
+            subscribe("listener");
+        }
+
+        // assert
+        assertEquals(before + 5, reservationNotifier.getSubscriberCount());
+    }
+
+    @Test
+    public void TestStreamNotificationsFailNotSignedIn() throws Exception {
+        // execute and assert
+        mockMvc.perform(get("/api/reservations/notifications"))
+                .andExpect(status().isForbidden());
+    }
+
+    private MvcResult subscribe(String userName) throws Exception {
+        return mockMvc.perform(get("/api/reservations/notifications").with(user(userName).roles("USER")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static void signIn(String userName) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userName, null, List.of()));
+    }
+
+    /**
+     * Waits until the streamed response contains the expected text, the events are sent by another thread.
+     */
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        assertTrue(content.contains(expected), "Expected " + expected + " in " + content);
+        return content;
+    }
+}
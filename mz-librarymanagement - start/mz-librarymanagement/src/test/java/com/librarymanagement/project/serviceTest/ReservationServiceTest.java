@@ -0,0 +1,463 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.MzLibrarymanagementApplication;
+import com.librarymanagement.project.exceptions.BusinessException;
+import com.librarymanagement.project.exceptions.ResourceNotFoundException;
+import com.librarymanagement.project.models.Book;
+import com.librarymanagement.project.models.Category;
+import com.librarymanagement.project.models.Reservation;
+import com.librarymanagement.project.models.ReservationStatus;
+import com.librarymanagement.project.models.User;
+import com.librarymanagement.project.payloads.BookDTO;
+import com.librarymanagement.project.payloads.LoanBatchResponse;
+import com.librarymanagement.project.payloads.ReservationDTO;
+import com.librarymanagement.project.repositories.BookRepository;
+import com.librarymanagement.project.repositories.CategoryRepository;
+import com.librarymanagement.project.repositories.ReservationRepository;
+import com.librarymanagement.project.repositories.TransactionRepository;
+import com.librarymanagement.project.repositories.UserRepository;
+import com.librarymanagement.project.services.AvailabilityTable;
+import com.librarymanagement.project.services.BookLockManager;
+import com.librarymanagement.project.services.BookService;
+import com.librarymanagement.project.services.BorrowReturnService;
+import com.librarymanagement.project.services.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the reservation queue of a single copy book against a real database, together with borrow and return.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:reservationtest")
+@ContextConfiguration(classes = MzLibrarymanagementApplication.class)
+public class ReservationServiceTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BorrowReturnService borrowReturnService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AvailabilityTable availabilityTable;
+
+    @Autowired
+    private BookLockManager bookLockManager;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category(null, "Reserved Category"));
+        Book newBook = new Book();
+        newBook.setTitle("Single Copy Book");
+        newBook.setAuthor("Author");
+        newBook.setCopiesTotal(1);
+        newBook.setCategory(category);
+        book = bookRepository.save(newBook);
+        for (String userName : List.of("holder", "first", "second")) {
+            userRepository.save(new User(userName, userName + "@test.com", "password"));
+        }
+
+        // the only copy is borrowed
+        signIn("holder");
+        borrowReturnService.borrowBook(book.getBookId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        reservationRepository.deleteAll();
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void TestReserveBookSuccessQueueOrder() {
+        // execute
+        ReservationDTO first = reserveAs("first");
+        ReservationDTO second = reserveAs("second");
+
+        // assert
+        assertEquals(ReservationStatus.WAITING, first.getStatus());
+        assertEquals(1L, first.getQueuePosition());
+        assertEquals(2L, second.getQueuePosition());
+        assertEquals("Single Copy Book", second.getTitle());
+    }
+
+    @Test
+    public void TestReturnBookSuccessHoldsCopyForFirstWaiting() {
+        // Set up
+        ReservationDTO first = reserveAs("first");
+        reserveAs("second");
+
+        // execute
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+
+        // assert, the copy is held for the first in line and not available to anybody else
+        Reservation held = reservationRepository.findById(first.getReservationId()).orElseThrow();
+        assertEquals(ReservationStatus.READY, held.getStatus());
+        assertNotNull(held.getExpiresAt());
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        Book result = bookRepository.findById(book.getBookId()).orElseThrow();
+        assertEquals(0, result.getCopiesAvailable());
+        assertEquals(0, result.getCopiesBorrowed());
+        signIn("second");
+        assertEquals(1L, reservationService.getMyReservations().get(0).getQueuePosition());
+        BusinessException exception = assertThrows(BusinessException.class, () ->
+                borrowReturnService.borrowBook(book.getBookId()));
+        assertEquals("No copies available for this book", exception.getMessage());
+
+        // execute, the first in line borrows the held copy
+        signIn("first");
+        borrowReturnService.borrowBook(book.getBookId());
+
+        // assert
+        assertEquals(ReservationStatus.FULFILLED,
+                reservationRepository.findById(first.getReservationId()).orElseThrow().getStatus());
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        result = bookRepository.findById(book.getBookId()).orElseThrow();
+        assertEquals(0, result.getCopiesAvailable());
+        assertEquals(1, result.getCopiesBorrowed());
+        assertTrue(reservationService.getMyReservations().isEmpty());
+    }
+
+    @Test
+    public void TestCancelReservationSuccessPassesHeldCopyOn() {
+        // Set up, the copy is held for the first in line
+        ReservationDTO first = reserveAs("first");
+        ReservationDTO second = reserveAs("second");
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+
+        // execute
+        signIn("first");
+        ReservationDTO cancelled = reservationService.cancelReservation(first.getReservationId());
+
+        // assert
+        assertEquals(ReservationStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(ReservationStatus.READY,
+                reservationRepository.findById(second.getReservationId()).orElseThrow().getStatus());
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        assertEquals(0, bookRepository.findById(book.getBookId()).orElseThrow().getCopiesAvailable());
+    }
+
+    @Test
+    public void TestExpireHoldsSuccessCopyAvailableWhenNobodyWaits() {
+        // Set up, the hold of the only waiting user has run out
+        ReservationDTO first = reserveAs("first");
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+        Reservation held = reservationRepository.findById(first.getReservationId()).orElseThrow();
+        held.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        reservationRepository.save(held);
+
+        // execute
+        int expired = reservationService.expireHolds();
+
+        // assert
+        assertEquals(1, expired);
+        assertEquals(ReservationStatus.EXPIRED,
+                reservationRepository.findById(first.getReservationId()).orElseThrow().getStatus());
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        assertEquals(1, bookRepository.findById(book.getBookId()).orElseThrow().getCopiesAvailable());
+    }
+
+    @Test
+    public void TestCancelReservationSuccessAfterBookEdited() {
+        // Set up, the copy is held for the first in line and a second copy is added
+        ReservationDTO first = reserveAs("first");
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+        BookDTO bookDTO = new BookDTO(book.getBookId(), "Single Copy Book", "Author", 2, 2, 0, true, "", null);
+        BookDTO updated = bookService.updateBook(book.getBookId(), bookDTO);
+
+        // assert, the held copy stays held
+        assertEquals(1, updated.getCopiesAvailable());
+
+        // execute
+        signIn("first");
+        ReservationDTO cancelled = reservationService.cancelReservation(first.getReservationId());
+
+        // assert
+        assertEquals(ReservationStatus.CANCELLED, cancelled.getStatus());
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        Book result = bookRepository.findById(book.getBookId()).orElseThrow();
+        assertEquals(2, result.getCopiesAvailable());
+        assertEquals(0, result.getCopiesBorrowed());
+    }
+
+    @Test
+    public void TestExpireHoldsSuccessAfterBookEdited() {
+        // Set up, the copy is held for the first in line, a second copy is added and the hold runs out
+        ReservationDTO first = reserveAs("first");
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+        BookDTO bookDTO = new BookDTO();
+        bookDTO.setCopiesTotal(2);
+        bookService.partialUpdateBook(book.getBookId(), bookDTO);
+        Reservation held = reservationRepository.findById(first.getReservationId()).orElseThrow();
+        held.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        reservationRepository.save(held);
+
+        // execute
+        int expired = reservationService.expireHolds();
+
+        // assert
+        assertEquals(1, expired);
+        assertEquals(ReservationStatus.EXPIRED,
+                reservationRepository.findById(first.getReservationId()).orElseThrow().getStatus());
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        assertEquals(2, bookRepository.findById(book.getBookId()).orElseThrow().getCopiesAvailable());
+    }
+
+    @Test
+    public void TestCancelReservationSuccessWaitsForBookLock() throws Exception {
+        // Set up, the copy is held for the first in line and another request holds the lock of the book
+        ReservationDTO first = reserveAs("first");
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread editor = lockBookUntil(locked, release);
+
+        // execute
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<ReservationDTO> cancel = executor.submit(() -> {
+            signIn("first");
+            return reservationService.cancelReservation(first.getReservationId());
+        });
+
+        // assert, the held copy is only released once the lock is free
+        try {
+            assertThrows(TimeoutException.class, () -> cancel.get(300, TimeUnit.MILLISECONDS));
+            assertEquals(ReservationStatus.READY,
+                    reservationRepository.findById(first.getReservationId()).orElseThrow().getStatus());
+            release.countDown();
+            assertEquals(ReservationStatus.CANCELLED, cancel.get(5, TimeUnit.SECONDS).getStatus());
+        } finally {
+            release.countDown();
+            editor.join(1000);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void TestExpireHoldsSuccessWaitsForBookLock() throws Exception {
+        // Set up, the hold has run out and another request holds the lock of the book
+        ReservationDTO first = reserveAs("first");
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+        Reservation held = reservationRepository.findById(first.getReservationId()).orElseThrow();
+        held.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        reservationRepository.save(held);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread editor = lockBookUntil(locked, release);
+
+        // execute
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Integer> expire = executor.submit(() -> reservationService.expireHolds());
+
+        // assert, the hold only expires once the lock is free
+        try {
+            assertThrows(TimeoutException.class, () -> expire.get(300, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertEquals(1, expire.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            editor.join(1000);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void TestExpireHoldsSuccessSkipsFailedHold() {
+        // Set up, a ready reservation of a book without a held copy comes first
+        Book other = new Book();
+        other.setTitle("Other Book");
+        other.setAuthor("Author");
+        other.setCopiesTotal(1);
+        other.setCopiesAvailable(1);
+        other.setCategory(book.getCategory());
+        other = bookRepository.save(other);
+        // the table holds the copies of the book before the reservation, so no held copy is counted for it
+        availabilityTable.copyTo(other);
+        LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+        Reservation broken = reservationRepository.save(new Reservation(null, other,
+                userRepository.findByUserName("second").orElseThrow(), ReservationStatus.READY, past, past, past, null));
+        ReservationDTO first = reserveAs("first");
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+        Reservation held = reservationRepository.findById(first.getReservationId()).orElseThrow();
+        held.setExpiresAt(past);
+        reservationRepository.save(held);
+
+        // execute
+        int expired = reservationService.expireHolds();
+
+        // assert, the failed hold stays ready and does not block the next one
+        assertEquals(1, expired);
+        assertEquals(ReservationStatus.READY,
+                reservationRepository.findById(broken.getReservationId()).orElseThrow().getStatus());
+        assertEquals(ReservationStatus.EXPIRED,
+                reservationRepository.findById(first.getReservationId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void TestBorrowBooksSuccessRefusedHoldDoesNotStopBatch() {
+        // Set up, a ready reservation of a book without a held copy, and a book with a copy available
+        Book other = new Book();
+        other.setTitle("Other Book");
+        other.setAuthor("Author");
+        other.setCopiesTotal(1);
+        other.setCopiesAvailable(1);
+        other.setCategory(book.getCategory());
+        other = bookRepository.save(other);
+        Book third = new Book();
+        third.setTitle("Third Book");
+        third.setAuthor("Author");
+        third.setCopiesTotal(1);
+        third.setCopiesAvailable(1);
+        third.setCategory(book.getCategory());
+        third = bookRepository.save(third);
+        // the table holds the copies of the book before the reservation, so no held copy is counted for it
+        availabilityTable.copyTo(other);
+        LocalDateTime now = LocalDateTime.now();
+        Reservation broken = reservationRepository.save(new Reservation(null, other,
+                userRepository.findByUserName("first").orElseThrow(), ReservationStatus.READY, now, now,
+                now.plusHours(1), null));
+
+        // execute
+        signIn("first");
+        LoanBatchResponse response = borrowReturnService.borrowBooks(List.of(other.getBookId(), third.getBookId()));
+
+        // assert, the refused book is reported and the other one is still lent
+        assertEquals(1, response.getSucceeded());
+        assertEquals(1, response.getFailed());
+        assertFalse(response.getItems().get(0).isSuccess());
+        assertEquals("No copy of this book is held for you", response.getItems().get(0).getMessage());
+        assertTrue(response.getItems().get(1).isSuccess());
+        assertEquals(ReservationStatus.READY,
+                reservationRepository.findById(broken.getReservationId()).orElseThrow().getStatus());
+        assertTrue(transactionRepository.existsByUser_UserIdAndBook_BookIdAndIsReturnedFalse(
+                userRepository.findByUserName("first").orElseThrow().getUserId(), third.getBookId()));
+        // the copies are written back to the row by the flush
+        availabilityTable.flush();
+        assertEquals(1, bookRepository.findById(other.getBookId()).orElseThrow().getCopiesAvailable());
+        assertEquals(0, bookRepository.findById(third.getBookId()).orElseThrow().getCopiesAvailable());
+    }
+
+    @Test
+    public void TestReserveBookFailCopiesAvailable() {
+        // Set up
+        signIn("holder");
+        borrowReturnService.returnBook(book.getBookId());
+
+        // execute and assert
+        BusinessException exception = assertThrows(BusinessException.class, () -> reserveAs("first"));
+        assertEquals("Copies are available for this book, borrow it instead", exception.getMessage());
+    }
+
+    @Test
+    public void TestReserveBookFailAlreadyReserved() {
+        // Set up
+        reserveAs("first");
+
+        // execute and assert
+        BusinessException exception = assertThrows(BusinessException.class, () -> reserveAs("first"));
+        assertEquals("Book already reserved by you", exception.getMessage());
+    }
+
+    @Test
+    public void TestReserveBookFailAlreadyBorrowed() {
+        // execute and assert
+        BusinessException exception = assertThrows(BusinessException.class, () -> reserveAs("holder"));
+        assertEquals("Book already borrowed by you", exception.getMessage());
+    }
+
+    @Test
+    public void TestCancelReservationFailOtherUser() {
+        // Set up
+        ReservationDTO first = reserveAs("first");
+
+        // execute and assert
+        signIn("second");
+        assertThrows(ResourceNotFoundException.class, () ->
+                reservationService.cancelReservation(first.getReservationId()));
+    }
+
+    /**
+     * Holds the lock of the book on another thread until released, like an edit of the book in progress.
+     */
+    private Thread lockBookUntil(CountDownLatch locked, CountDownLatch release) throws InterruptedException {
+        Thread editor = new Thread(() -> {
+            Lock lock = bookLockManager.lock(book.getBookId());
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        editor.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        return editor;
+    }
+
+    private ReservationDTO reserveAs(String userName) {
+        signIn(userName);
+        return reservationService.reserveBook(book.getBookId());
+    }
+
+    private static void signIn(String userName) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userName, null, List.of()));
+    }
+}
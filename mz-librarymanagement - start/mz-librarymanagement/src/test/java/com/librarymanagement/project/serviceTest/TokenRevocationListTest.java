@@ -0,0 +1,77 @@
+package com.librarymanagement.project.serviceTest;
+
+import com.librarymanagement.project.security.jwt.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenRevocationListTest {
+
+    private TokenRevocationList tokenRevocationList;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(tokenRevocationList, "jwtExpirationMs", 60000L);
+    }
+
+    @Test
+    public void TestRevokeTokenSuccess(){
+        // Set up
+        Claims revoked = claims("user1", "token 1", -1000);
+        Claims other = claims("user1", "token 2", -1000);
+
+        // execute
+        tokenRevocationList.revokeToken(revoked);
+
+        // assert, only the revoked token is rejected
+        assertTrue(tokenRevocationList.isRevoked(revoked));
+        assertFalse(tokenRevocationList.isRevoked(other));
+    }
+
+    @Test
+    public void TestRevokeUserSuccess(){
+        // Set up
+        Claims issuedBefore = claims("user1", "token 1", -5000);
+        Claims otherUser = claims("user2", "token 2", -5000);
+        Claims issuedAfter = claims("user1", "token 3", 5000);
+
+        // execute
+        tokenRevocationList.revokeUser("user1");
+
+        // assert, tokens of the user issued up to now are rejected
+        assertTrue(tokenRevocationList.isRevoked(issuedBefore));
+        assertFalse(tokenRevocationList.isRevoked(otherUser));
+        assertFalse(tokenRevocationList.isRevoked(issuedAfter));
+    }
+
+    @Test
+    public void TestRevokeTokenSuccessExpiredEntriesPurged(){
+        // Set up, a token that has already expired
+        Claims expired = Jwts.claims().subject("user1").id("token 1")
+                .expiration(new Date(System.currentTimeMillis() - 1000)).build();
+        tokenRevocationList.revokeToken(expired);
+
+        // execute, the next revocation purges the expired entry
+        tokenRevocationList.revokeToken(claims("user1", "token 2", 0));
+
+        // assert
+        assertEquals(1, tokenRevocationList.size());
+    }
+
+    private static Claims claims(String username, String tokenId, long issuedOffsetMs) {
+        long now = System.currentTimeMillis();
+        return Jwts.claims()
+                .subject(username)
+                .id(tokenId)
+                .issuedAt(new Date(now + issuedOffsetMs))
+                .expiration(new Date(now + 60000))
+                .build();
+    }
+}
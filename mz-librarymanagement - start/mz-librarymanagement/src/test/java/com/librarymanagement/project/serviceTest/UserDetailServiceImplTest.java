@@ -1,6 +1,7 @@
 package com.librarymanagement.project.serviceTest;
 
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.librarymanagement.project.MzLibrarymanagementApplication;
 import com.librarymanagement.project.exceptions.ResourceNotFoundException;
 import com.librarymanagement.project.models.AppRole;
@@ -8,6 +9,7 @@ import com.librarymanagement.project.models.Role;
 import com.librarymanagement.project.models.User;
 import com.librarymanagement.project.repositories.UserRepository;
 import com.librarymanagement.project.services.UserDetailsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -22,7 +24,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 @ContextConfiguration(classes = MzLibrarymanagementApplication.class)
@@ -34,6 +36,12 @@ public class UserDetailServiceImplTest {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @BeforeEach
+    void setUp() {
+        // the cache outlives a single test, start each one empty
+        userDetailsService.evictAllUsers();
+    }
+
     @Test
     public void TestLoadUsernameSuccess(){
         // set up user
@@ -70,4 +78,109 @@ public class UserDetailServiceImplTest {
         assertEquals("User not found by user name: " + userName, exception.getMessage());
     }
 
+    @Test
+    public void TestLoadUsernameSuccessCached(){
+        // set up user
+        String userName = "Cached user";
+        when(userRepository.findByUserName(userName)).thenReturn(Optional.of(user(userName)));
+        CacheStats before = userDetailsService.getCacheStats();
+
+        // Execute the method twice
+        UserDetails first = userDetailsService.loadUserByUsername(userName);
+        UserDetails second = userDetailsService.loadUserByUsername(userName);
+
+        // the second lookup is served from the cache
+        assertSame(first, second);
+        CacheStats stats = userDetailsService.getCacheStats().minus(before);
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.hitCount());
+        verify(userRepository, times(1)).findByUserName(userName);
+    }
+
+    @Test
+    public void TestLoadUsernameSuccessAfterEvict(){
+        // set up user
+        String userName = "Evicted user";
+        when(userRepository.findByUserName(userName)).thenReturn(Optional.of(user(userName)));
+        userDetailsService.loadUserByUsername(userName);
+
+        // Execute the method after the user has been evicted
+        userDetailsService.evictUser(userName);
+        UserDetails userDetails = userDetailsService.loadUserByUsername(userName);
+
+        // the user is read from the database again
+        assertEquals(userName, userDetails.getUsername());
+        verify(userRepository, times(2)).findByUserName(userName);
+    }
+
+    @Test
+    public void TestLoadUsernameSuccessEvictedWhileLoading() throws Exception {
+        // set up user, the user is changed and evicted while its old state is being read
+        String userName = "Changed user";
+        Thread evictor = new Thread(() -> userDetailsService.evictUser(userName));
+        when(userRepository.findByUserName(userName)).thenAnswer(invocation -> {
+            if (evictor.getState() != Thread.State.NEW) {
+                return Optional.of(user(userName));
+            }
+            evictor.start();
+            long deadline = System.currentTimeMillis() + 1000;
+            while (evictor.getState() != Thread.State.BLOCKED && evictor.isAlive()
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            return Optional.of(user(userName));
+        });
+
+        // Execute the method, then again once the eviction is done
+        userDetailsService.loadUserByUsername(userName);
+        evictor.join(1000);
+        userDetailsService.loadUserByUsername(userName);
+
+        // the old state is not kept after the eviction, the user is read again
+        verify(userRepository, times(2)).findByUserName(userName);
+    }
+
+    @Test
+    public void TestLoadUsernameSuccessEvictNotBlockedByLoad() throws Exception {
+        // set up user, the user is evicted while it is being read
+        String userName = "Slow user";
+        Thread evictor = new Thread(() -> userDetailsService.evictUser(userName));
+        boolean[] evictedDuringRead = new boolean[1];
+        when(userRepository.findByUserName(userName)).thenAnswer(invocation -> {
+            evictor.start();
+            evictor.join(1000);
+            evictedDuringRead[0] = !evictor.isAlive();
+            return Optional.of(user(userName));
+        });
+
+        // Execute the method
+        UserDetails userDetails = userDetailsService.loadUserByUsername(userName);
+
+        // the eviction did not wait for the database read
+        assertEquals(userName, userDetails.getUsername());
+        assertTrue(evictedDuringRead[0]);
+    }
+
+    @Test
+    public void TestLoadUsernameFailNotCached(){
+        // set up user
+        String userName = "Missing user";
+        when(userRepository.findByUserName(userName)).thenReturn(Optional.empty());
+
+        // Execute the method twice
+        assertThrows(ResourceNotFoundException.class, () -> userDetailsService.loadUserByUsername(userName));
+        assertThrows(ResourceNotFoundException.class, () -> userDetailsService.loadUserByUsername(userName));
+
+        // a missing user is not cached
+        verify(userRepository, times(2)).findByUserName(userName);
+    }
+
+    private static User user(String userName) {
+        User user = new User();
+        user.setUserId(1L);
+        user.setUserName(userName);
+        user.setEmail("test@user.com");
+        user.setRoles(new HashSet<>(Set.of(new Role(10, AppRole.ROLE_USER))));
+        return user;
+    }
 }